@@ -0,0 +1,541 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Multiset (bag) of elements with their counts, represented as a hash table
+ * of chained nodes that uses the same hashing as {@code Map4}: a prime number
+ * of buckets indexed by {@code Map4.mod(hashCode, size)}. Each node holds an
+ * element, its cached hash code, and its count as an {@code int}, so counting
+ * does not box; the table grows (to the next prime at least twice as large)
+ * when there are more distinct elements than buckets, and growing and merging
+ * reuse the cached hash codes.
+ *
+ * @param <T>
+ *            type of elements
+ * @convention
+ *
+ *             <pre>
+ * |$this.table| > 0  and
+ * [every node in bucket i of $this.table holds an element x with
+ *  Map4.mod(x.hashCode(), |$this.table|) = i, hash = x.hashCode(), and
+ *  count > 0]  and
+ * [the elements of the nodes are unique]  and
+ * $this.distinct = [number of nodes]  and
+ * $this.total = [sum of the counts of the nodes]
+ *             </pre>
+ *
+ * @correspondence
+ *
+ *                 <pre>
+ * this = [multiset holding each element of a node as many times as its
+ *         count]
+ *                 </pre>
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Bag4<T> implements Iterable<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default size of hash table.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 101;
+
+    /**
+     * Buckets of nodes.
+     */
+    private Node<T>[] table;
+
+    /**
+     * Number of distinct elements.
+     */
+    private int distinct;
+
+    /**
+     * Total of all counts.
+     */
+    private long total;
+
+    /**
+     * Node of a bucket chain.
+     *
+     * @param <T>
+     *            type of element
+     */
+    private static final class Node<T> {
+
+        /**
+         * The element.
+         */
+        private final T element;
+
+        /**
+         * Hash code of the element.
+         */
+        private final int hash;
+
+        /**
+         * Number of occurrences of the element.
+         */
+        private int count;
+
+        /**
+         * Next node in the bucket.
+         */
+        private Node<T> next;
+
+        /**
+         * Constructor from element, hash code, count, and next node.
+         *
+         * @param element
+         *            the element
+         * @param hash
+         *            the hash code of element
+         * @param count
+         *            the count
+         * @param next
+         *            the next node
+         */
+        Node(T element, int hash, int count, Node<T> next) {
+            this.element = element;
+            this.hash = hash;
+            this.count = count;
+            this.next = next;
+        }
+
+    }
+
+    /**
+     * Returns the node for {@code x}, whose hash code is {@code hash}, or null
+     * if there is none.
+     *
+     * @param x
+     *            the element
+     * @param hash
+     *            the hash code of x
+     * @return the node for x, or null
+     */
+    private Node<T> find(Object x, int hash) {
+        Node<T> node = this.table[Map4.mod(hash, this.table.length)];
+        while (node != null && (node.hash != hash || !node.element.equals(x))) {
+            node = node.next;
+        }
+        return node;
+    }
+
+    /**
+     * Adds {@code n} occurrences of {@code x}, whose hash code is
+     * {@code hash}, growing the table first if {@code x} is new and the table
+     * is full.
+     *
+     * @param x
+     *            the element
+     * @param hash
+     *            the hash code of x
+     * @param n
+     *            the number of occurrences
+     * @updates this
+     * @requires n > 0
+     * @ensures this = #this union [n copies of x]
+     * @throws ArithmeticException
+     *             if count(x) would exceed Integer.MAX_VALUE
+     */
+    private void addHashed(T x, int hash, int n) {
+        Node<T> node = this.find(x, hash);
+        if (node != null) {
+            node.count = Math.addExact(node.count, n);
+        } else {
+            if (this.distinct >= this.table.length) {
+                this.resize(Map4.nextPrime(2 * this.table.length));
+            }
+            int i = Map4.mod(hash, this.table.length);
+            this.table[i] = new Node<T>(x, hash, n, this.table[i]);
+            this.distinct++;
+        }
+        this.total += n;
+    }
+
+    /**
+     * Moves every node into a new table of {@code hashTableSize} buckets.
+     *
+     * @param hashTableSize
+     *            the new table size
+     * @updates $this.table
+     * @requires hashTableSize > 0
+     * @ensures |$this.table| = hashTableSize and this = #this
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int hashTableSize) {
+        Node<T>[] oldTable = this.table;
+        this.table = (Node<T>[]) new Node<?>[hashTableSize];
+        for (Node<T> node : oldTable) {
+            while (node != null) {
+                Node<T> next = node.next;
+                int i = Map4.mod(node.hash, hashTableSize);
+                node.next = this.table[i];
+                this.table[i] = node;
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param hashTableSize
+     *            the size of the hash table
+     * @requires hashTableSize > 0
+     * @ensures |$this.table| = hashTableSize and this = {}
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(int hashTableSize) {
+        /*
+         * With "new Node<T>[...]" it does not compile; as shown, it results in
+         * a warning about an unchecked cast, though it cannot fail.
+         */
+        this.table = (Node<T>[]) new Node<?>[hashTableSize];
+        this.distinct = 0;
+        this.total = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Bag4() {
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Constructor resulting in a hash table of size {@code hashTableSize}.
+     *
+     * @param hashTableSize
+     *            size of hash table
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Bag4(int hashTableSize) {
+        this.createNewRep(hashTableSize);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    /**
+     * Resets {@code this} to an empty bag.
+     *
+     * @clears this
+     */
+    public final void clear() {
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Sets {@code this} to the incoming value of {@code source}, and resets
+     * {@code source} to an empty bag.
+     *
+     * @param source
+     *            the bag whose value is taken
+     * @replaces this
+     * @clears source
+     * @requires source /= this
+     * @ensures this = #source
+     */
+    public final void transferFrom(Bag4<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+
+        this.table = source.table;
+        this.distinct = source.distinct;
+        this.total = source.total;
+        source.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * Adds one occurrence of {@code x}.
+     *
+     * @param x
+     *            the element
+     * @updates this
+     * @ensures this = #this union {x}
+     */
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        this.addHashed(x, x.hashCode(), 1);
+    }
+
+    /**
+     * Adds {@code n} occurrences of {@code x}.
+     *
+     * @param x
+     *            the element
+     * @param n
+     *            the number of occurrences
+     * @updates this
+     * @requires n > 0 and count(x) + n <= Integer.MAX_VALUE
+     * @ensures this = #this union [n copies of x]
+     */
+    public final void add(T x, int n) {
+        assert x != null : "Violation of: x is not null";
+        assert n > 0 : "Violation of: n > 0";
+        assert this.count(x) <= Integer.MAX_VALUE - n : ""
+                + "Violation of: count(x) + n <= Integer.MAX_VALUE";
+
+        this.addHashed(x, x.hashCode(), n);
+    }
+
+    /**
+     * Removes {@code n} occurrences of {@code x}.
+     *
+     * @param x
+     *            the element
+     * @param n
+     *            the number of occurrences
+     * @updates this
+     * @requires 0 < n <= count(x)
+     * @ensures this = #this \ [n copies of x]
+     */
+    public final void remove(T x, int n) {
+        assert x != null : "Violation of: x is not null";
+        assert n > 0 : "Violation of: n > 0";
+        assert n <= this.count(x) : "Violation of: n <= count(x)";
+
+        int hash = x.hashCode();
+        int i = Map4.mod(hash, this.table.length);
+        Node<T> previous = null;
+        Node<T> node = this.table[i];
+        while (node.hash != hash || !node.element.equals(x)) {
+            previous = node;
+            node = node.next;
+        }
+        node.count -= n;
+        if (node.count == 0) {
+            if (previous == null) {
+                this.table[i] = node.next;
+            } else {
+                previous.next = node.next;
+            }
+            this.distinct--;
+        }
+        this.total -= n;
+    }
+
+    /**
+     * Reports the number of occurrences of {@code x}.
+     *
+     * @param x
+     *            the element
+     * @return the count of x in this
+     * @ensures count = [number of copies of x in this]
+     */
+    public final int count(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node<T> node = this.find(x, x.hashCode());
+        int count = 0;
+        if (node != null) {
+            count = node.count;
+        }
+        return count;
+    }
+
+    /**
+     * Reports the number of distinct elements.
+     *
+     * @return the number of distinct elements in this
+     */
+    public final int distinctSize() {
+        return this.distinct;
+    }
+
+    /**
+     * Reports the total number of occurrences of all elements.
+     *
+     * @return |this|
+     */
+    public final long size() {
+        return this.total;
+    }
+
+    /**
+     * Iterates over the distinct elements of {@code this}, in no particular
+     * order.
+     *
+     * @return an iterator over the distinct elements
+     */
+    @Override
+    public final Iterator<T> iterator() {
+        return new Bag4Iterator();
+    }
+
+    /*
+     * Bulk methods -----------------------------------------------------------
+     */
+
+    /**
+     * Passes each distinct element of {@code this} with its count to
+     * {@code action}, in no particular order, without boxing the counts.
+     *
+     * @param action
+     *            receives each element and its count
+     * @ensures [action has been applied once to each (element, count)]
+     */
+    public final void forEachCount(ObjIntConsumer<? super T> action) {
+        assert action != null : "Violation of: action is not null";
+
+        for (Node<T> node : this.table) {
+            while (node != null) {
+                action.accept(node.element, node.count);
+                node = node.next;
+            }
+        }
+    }
+
+    /**
+     * Adds every occurrence in {@code other} to {@code this}, growing the table
+     * at most once and reusing the hash codes cached in {@code other}.
+     *
+     * @param other
+     *            the bag to merge in
+     * @updates this
+     * @requires other /= this
+     * @ensures this = #this union other
+     */
+    public final void add(Bag4<T> other) {
+        assert other != null : "Violation of: other is not null";
+        assert other != this : "Violation of: other is not this";
+
+        int bound = this.distinct + other.distinct;
+        if (bound > this.table.length) {
+            this.resize(Map4.nextPrime(bound));
+        }
+        for (Node<T> node : other.table) {
+            while (node != null) {
+                this.addHashed(node.element, node.hash, node.count);
+                node = node.next;
+            }
+        }
+    }
+
+    /**
+     * Passes the {@code k} elements of {@code this} with the largest counts to
+     * {@code sink}, in decreasing order of count (ties in no particular
+     * order), or all of them if there are fewer than {@code k}. Takes time
+     * proportional to distinctSize() * log(k).
+     *
+     * @param k
+     *            the number of elements wanted
+     * @param sink
+     *            receives the elements and their counts
+     * @requires k >= 0
+     * @ensures <pre>
+     * [sink has been applied to (x, count(x)) for the min(k, distinctSize())
+     *  elements x with the largest counts, largest first]
+     * </pre>
+     */
+    public final void topK(int k, ObjIntConsumer<? super T> sink) {
+        assert k >= 0 : "Violation of: k >= 0";
+        assert sink != null : "Violation of: sink is not null";
+
+        PriorityQueue<Node<T>> smallest = new PriorityQueue<Node<T>>(
+                Math.max(1, k), (a, b) -> Integer.compare(a.count, b.count));
+        for (Node<T> node : this.table) {
+            while (node != null) {
+                if (smallest.size() < k) {
+                    smallest.add(node);
+                } else if (k > 0 && node.count > smallest.peek().count) {
+                    smallest.poll();
+                    smallest.add(node);
+                }
+                node = node.next;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        Node<T>[] largestFirst = (Node<T>[]) new Node<?>[smallest.size()];
+        for (int i = largestFirst.length - 1; i >= 0; i--) {
+            largestFirst[i] = smallest.poll();
+        }
+        for (Node<T> node : largestFirst) {
+            sink.accept(node.element, node.count);
+        }
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Bag4}.
+     */
+    private final class Bag4Iterator implements Iterator<T> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Bucket of the next node.
+         */
+        private int currentBucket;
+
+        /**
+         * Next node to visit in the current bucket, or null.
+         */
+        private Node<T> nextNode;
+
+        /**
+         * No-argument constructor.
+         */
+        Bag4Iterator() {
+            this.numberSeen = 0;
+            this.currentBucket = 0;
+            this.nextNode = Bag4.this.table[0];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Bag4.this.distinct;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.numberSeen++;
+            while (this.nextNode == null) {
+                this.currentBucket++;
+                this.nextNode = Bag4.this.table[this.currentBucket];
+            }
+            T next = this.nextNode.element;
+            this.nextNode = this.nextNode.next;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
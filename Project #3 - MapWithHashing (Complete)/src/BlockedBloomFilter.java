@@ -0,0 +1,393 @@
+/**
+ * Blocked Bloom filter over 32-bit hash codes, used by kernels as a guard
+ * that answers most lookups of absent elements without searching. The bits
+ * are split into blocks of 512 bits (one 64-byte cache line), and all the
+ * bits for a hash code are in the one block it selects, so a query reads a
+ * single cache line. A filter never reports that an added hash code is
+ * absent; it may report that an absent one is present (a false positive) at
+ * about the rate it was built for, as long as no more than the expected
+ * number of hash codes have been added. Codes cannot be removed, so the
+ * kernel using a filter builds a new one when it is full.
+ *
+ * <p>
+ * The filter also counts the queries it answers, how many of them it
+ * answered "absent", and how many false positives the kernel reports back,
+ * so that {@code statistics} shows how much the guard saves.
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public final class BlockedBloomFilter {
+
+    /**
+     * Number of 64-bit words in a block.
+     */
+    private static final int BLOCK_WORDS = 8;
+
+    /**
+     * Mask for a bit index within a block of 512 bits.
+     */
+    private static final int BLOCK_BIT_MASK = 511;
+
+    /**
+     * Extra bits given to a blocked filter over an unblocked one, since the
+     * hash codes do not spread evenly over the blocks.
+     */
+    private static final double BLOCKING_OVERHEAD = 1.2;
+
+    /**
+     * Largest number of bits set per hash code.
+     */
+    private static final int MAX_HASHES = 16;
+
+    /**
+     * The bits, block after block.
+     */
+    private final long[] bits;
+
+    /**
+     * Number of blocks.
+     */
+    private final int blocks;
+
+    /**
+     * Number of bits set per hash code.
+     */
+    private final int hashes;
+
+    /**
+     * Number of hash codes the filter is sized for.
+     */
+    private final int expectedInsertions;
+
+    /**
+     * False positive rate the filter is sized for.
+     */
+    private final double falsePositiveRate;
+
+    /**
+     * Number of hash codes added.
+     */
+    private int insertions;
+
+    /**
+     * Number of queries answered.
+     */
+    private long queries;
+
+    /**
+     * Number of queries answered "absent".
+     */
+    private long negatives;
+
+    /**
+     * Number of queries answered "maybe present" for absent elements.
+     */
+    private long falsePositives;
+
+    /**
+     * Mixes the bits of {@code h} so that every bit of the result depends on
+     * every bit of h (the finalizer of MurmurHash3).
+     *
+     * @param h
+     *            the hash code
+     * @return the mixed hash code
+     */
+    private static int mix(int h) {
+        final int m1 = 0x85EBCA6B;
+        final int m2 = 0xC2B2AE35;
+        final int shift1 = 16;
+        final int shift2 = 13;
+        int x = h;
+        x ^= x >>> shift1;
+        x *= m1;
+        x ^= x >>> shift2;
+        x *= m2;
+        x ^= x >>> shift1;
+        return x;
+    }
+
+    /**
+     * Returns the index of the first word of the block for {@code mixed}.
+     *
+     * @param mixed
+     *            the mixed hash code
+     * @return the index of the first word of its block
+     */
+    private int blockStart(int mixed) {
+        /*
+         * Multiply-shift maps the hash code onto [0, blocks) without a
+         * division.
+         */
+        final int wordBits = 32;
+        return (int) (((mixed & 0xFFFFFFFFL) * this.blocks) >>> wordBits)
+                * BLOCK_WORDS;
+    }
+
+    /**
+     * Constructor from the number of hash codes to be added and the wanted
+     * false positive rate.
+     *
+     * @param expectedInsertions
+     *            the number of hash codes to size the filter for
+     * @param falsePositiveRate
+     *            the wanted false positive rate
+     * @requires expectedInsertions > 0 and 0 < falsePositiveRate < 1
+     */
+    public BlockedBloomFilter(int expectedInsertions,
+            double falsePositiveRate) {
+        assert expectedInsertions > 0 : ""
+                + "Violation of: expectedInsertions > 0";
+        assert 0 < falsePositiveRate && falsePositiveRate < 1 : ""
+                + "Violation of: 0 < falsePositiveRate < 1";
+
+        double ln2 = Math.log(2);
+        double bitsPerCode = -Math.log(falsePositiveRate) / (ln2 * ln2)
+                * BLOCKING_OVERHEAD;
+        long totalBits = (long) Math.ceil(expectedInsertions * bitsPerCode);
+        long blockBits = BLOCK_WORDS * Long.SIZE;
+        this.blocks = (int) Math.max(1,
+                (totalBits + blockBits - 1) / blockBits);
+        this.bits = new long[this.blocks * BLOCK_WORDS];
+        this.hashes = (int) Math.max(1,
+                Math.min(MAX_HASHES, Math.round(bitsPerCode * ln2)));
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Adds {@code hashCode}.
+     *
+     * @param hashCode
+     *            the hash code of an element
+     * @updates this
+     * @ensures [mightContain(hashCode) will report true]
+     */
+    public void add(int hashCode) {
+        int mixed = mix(hashCode);
+        int start = this.blockStart(mixed);
+        /*
+         * The other bits come from a second hash, stepped by an odd amount.
+         */
+        int h = mix(mixed);
+        int step = h >>> Short.SIZE | 1;
+        for (int i = 0; i < this.hashes; i++) {
+            int bit = h & BLOCK_BIT_MASK;
+            this.bits[start + (bit >>> 6)] |= 1L << bit;
+            h += step;
+        }
+        this.insertions++;
+    }
+
+    /**
+     * Reports whether {@code hashCode} might have been added, counting the
+     * query.
+     *
+     * @param hashCode
+     *            the hash code of an element
+     * @return false if hashCode was certainly not added, and true otherwise
+     * @updates this
+     */
+    public boolean mightContain(int hashCode) {
+        int mixed = mix(hashCode);
+        int start = this.blockStart(mixed);
+        int h = mix(mixed);
+        int step = h >>> Short.SIZE | 1;
+        boolean result = true;
+        for (int i = 0; result && i < this.hashes; i++) {
+            int bit = h & BLOCK_BIT_MASK;
+            result = (this.bits[start + (bit >>> 6)] & (1L << bit)) != 0;
+            h += step;
+        }
+        this.queries++;
+        if (!result) {
+            this.negatives++;
+        }
+        return result;
+    }
+
+    /**
+     * Records that the last query that returned true was for an element that
+     * was not there.
+     *
+     * @updates this
+     */
+    public void recordFalsePositive() {
+        this.falsePositives++;
+    }
+
+    /**
+     * Reports whether as many hash codes have been added as the filter was
+     * sized for, so that its false positive rate will climb past the one it
+     * was built for.
+     *
+     * @return whether the filter is full
+     */
+    public boolean isFull() {
+        return this.insertions >= this.expectedInsertions;
+    }
+
+    /**
+     * Returns a new, empty filter with the same false positive rate, sized for
+     * {@code expectedInsertions} hash codes, that carries on the query counts
+     * of {@code this}.
+     *
+     * @param expectedInsertions
+     *            the number of hash codes to size the new filter for
+     * @return the new filter
+     * @requires expectedInsertions > 0
+     */
+    public BlockedBloomFilter resized(int expectedInsertions) {
+        BlockedBloomFilter filter = new BlockedBloomFilter(expectedInsertions,
+                this.falsePositiveRate);
+        filter.queries = this.queries;
+        filter.negatives = this.negatives;
+        filter.falsePositives = this.falsePositives;
+        return filter;
+    }
+
+    /**
+     * Reports the false positive rate the filter was built for.
+     *
+     * @return the false positive rate
+     */
+    public double falsePositiveRate() {
+        return this.falsePositiveRate;
+    }
+
+    /**
+     * Reports the query counts so far.
+     *
+     * @return a snapshot of the statistics for {@code this}
+     */
+    public Statistics statistics() {
+        return new Statistics(this.bits.length * Long.SIZE, this.insertions,
+                this.queries, this.negatives, this.falsePositives);
+    }
+
+    /**
+     * Snapshot of the query counts of a {@code BlockedBloomFilter}.
+     */
+    public static final class Statistics {
+
+        /**
+         * Number of bits in the filter.
+         */
+        private final int bits;
+
+        /**
+         * Number of hash codes added.
+         */
+        private final int insertions;
+
+        /**
+         * Number of queries answered.
+         */
+        private final long queries;
+
+        /**
+         * Number of queries answered "absent".
+         */
+        private final long negatives;
+
+        /**
+         * Number of queries answered "maybe present" for absent elements.
+         */
+        private final long falsePositives;
+
+        /**
+         * Constructor from the raw figures.
+         *
+         * @param bits
+         *            number of bits in the filter
+         * @param insertions
+         *            number of hash codes added
+         * @param queries
+         *            number of queries answered
+         * @param negatives
+         *            number of queries answered "absent"
+         * @param falsePositives
+         *            number of false positives reported
+         */
+        private Statistics(int bits, int insertions, long queries,
+                long negatives, long falsePositives) {
+            this.bits = bits;
+            this.insertions = insertions;
+            this.queries = queries;
+            this.negatives = negatives;
+            this.falsePositives = falsePositives;
+        }
+
+        /**
+         * Reports the number of bits in the filter.
+         *
+         * @return the number of bits
+         */
+        public int bits() {
+            return this.bits;
+        }
+
+        /**
+         * Reports the number of hash codes added to the current filter.
+         *
+         * @return the number of insertions
+         */
+        public int insertions() {
+            return this.insertions;
+        }
+
+        /**
+         * Reports the number of queries answered.
+         *
+         * @return the query count
+         */
+        public long queries() {
+            return this.queries;
+        }
+
+        /**
+         * Reports the number of queries answered "absent" without a search.
+         *
+         * @return the negative count
+         */
+        public long negatives() {
+            return this.negatives;
+        }
+
+        /**
+         * Reports the number of queries for absent elements that the filter
+         * let through to a search.
+         *
+         * @return the false positive count
+         */
+        public long falsePositives() {
+            return this.falsePositives;
+        }
+
+        /**
+         * Reports the fraction of queries for absent elements that the filter
+         * answered without a search.
+         *
+         * @return the hit rate, or 0 if there were no such queries
+         */
+        public double hitRate() {
+            double rate = 0;
+            long absent = this.negatives + this.falsePositives;
+            if (absent > 0) {
+                rate = (double) this.negatives / absent;
+            }
+            return rate;
+        }
+
+        @Override
+        public String toString() {
+            return "bits=" + this.bits + " insertions=" + this.insertions
+                    + " queries=" + this.queries + " negatives="
+                    + this.negatives + " falsePositives="
+                    + this.falsePositives + " hitRate="
+                    + String.format("%.4f", this.hitRate());
+        }
+
+    }
+
+}
@@ -0,0 +1,1021 @@
+/**
+ * Bounded cache of key/value associations, represented as a {@code Map7} from
+ * keys to entries plus an {@code EvictionPolicy} that keeps the entries in its
+ * own linked lists. Every entry has a weight, and whenever the total weight
+ * exceeds the maximum weight the policy chooses entries to evict until it no
+ * longer does. The {@code Map7} grows with the number of entries, whatever
+ * the maximum weight, and each cache operation makes a single lookup in it, so
+ * lookups, insertions and evictions take expected O(1) time.
+ *
+ * <p>
+ * Three policies are provided: {@code lru} evicts the least recently used
+ * entry, {@code lfu} the least frequently used one (least recently used among
+ * equals), and {@code windowTinyLfu} admits new entries through a small LRU
+ * window into a segmented LRU main area only if they are estimated (by a
+ * count-min sketch) to be used more often than the entry they would displace.
+ *
+ * @param <K>
+ *            type of keys
+ * @param <V>
+ *            type of values
+ * @convention
+ *
+ *             <pre>
+ * $this.maximumWeight > 0  and
+ * $this.totalWeight = sum of weights of the entries in $this.index  and
+ * $this.totalWeight <= $this.maximumWeight  and
+ * [each entry in $this.index is held by $this.policy, and no other]  and
+ * [each key k in DOMAIN($this.index) is the key of $this.index(k)]
+ *             </pre>
+ *
+ * @correspondence
+ *
+ *                 <pre>
+ * this = {(k, v): (K, V) where ([an entry with key k and value v is a value
+ *                               in $this.index])}
+ *                 </pre>
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Cache4<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Entries of {@code this}, by key.
+     */
+    private final Map7<K, Entry<K, V>> index;
+
+    /**
+     * Policy choosing the entries to evict.
+     */
+    private final EvictionPolicy<K, V> policy;
+
+    /**
+     * Greatest allowed total weight of the entries.
+     */
+    private final long maximumWeight;
+
+    /**
+     * Total weight of the entries.
+     */
+    private long totalWeight;
+
+    /**
+     * Number of lookups that found their key.
+     */
+    private long hits;
+
+    /**
+     * Number of lookups that did not find their key.
+     */
+    private long misses;
+
+    /**
+     * Number of entries evicted.
+     */
+    private long evictions;
+
+    /**
+     * Cache entry; the link fields belong to the eviction policy.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     */
+    public static final class Entry<K, V> {
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * The value.
+         */
+        private V value;
+
+        /**
+         * The weight.
+         */
+        private int weight;
+
+        /**
+         * Previous entry in the list holding this.
+         */
+        private Entry<K, V> previous;
+
+        /**
+         * Next entry in the list holding this.
+         */
+        private Entry<K, V> next;
+
+        /**
+         * List holding this, or null.
+         */
+        private AccessList<K, V> list;
+
+        /**
+         * Constructor from key, value, and weight.
+         *
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         * @param weight
+         *            the weight
+         */
+        Entry(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        /**
+         * Reports the key of this entry.
+         *
+         * @return the key
+         */
+        public K key() {
+            return this.key;
+        }
+
+        /**
+         * Reports the value of this entry.
+         *
+         * @return the value
+         */
+        public V value() {
+            return this.value;
+        }
+
+        /**
+         * Reports the weight of this entry.
+         *
+         * @return the weight
+         */
+        public int weight() {
+            return this.weight;
+        }
+
+    }
+
+    /**
+     * Strategy deciding which entries a {@code Cache4} evicts. A cache tells
+     * its policy about every entry it inserts, looks up, or removes, and asks
+     * it for a victim whenever the total weight is too large.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     */
+    public interface EvictionPolicy<K, V> {
+
+        /**
+         * Prepares this policy for a cache with the given maximum weight;
+         * called once, before any other method.
+         *
+         * @param maximumWeight
+         *            the maximum weight of the cache
+         */
+        void initialize(long maximumWeight);
+
+        /**
+         * Records that {@code entry} has been inserted.
+         *
+         * @param entry
+         *            the new entry
+         */
+        void recordInsertion(Entry<K, V> entry);
+
+        /**
+         * Records that {@code entry} has been looked up or replaced.
+         *
+         * @param entry
+         *            the entry used
+         */
+        void recordAccess(Entry<K, V> entry);
+
+        /**
+         * Records that {@code entry} has been removed.
+         *
+         * @param entry
+         *            the entry removed
+         */
+        void recordRemoval(Entry<K, V> entry);
+
+        /**
+         * Chooses the next entry to evict.
+         *
+         * @return the victim
+         * @requires [at least one entry is in the cache]
+         */
+        Entry<K, V> victim();
+
+    }
+
+    /**
+     * Doubly linked list of entries in access order, least recent first, with
+     * a total weight; lists of the {@code lfu} policy are themselves linked in
+     * increasing order of frequency.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     */
+    private static final class AccessList<K, V> {
+
+        /**
+         * Sentinel entry: its next is the first entry, its previous the last.
+         */
+        private final Entry<K, V> head;
+
+        /**
+         * Total weight of the entries in this.
+         */
+        private long weight;
+
+        /**
+         * Use count shared by the entries of this ({@code lfu} only).
+         */
+        private int frequency;
+
+        /**
+         * List of the next higher frequency ({@code lfu} only).
+         */
+        private AccessList<K, V> higher;
+
+        /**
+         * List of the next lower frequency ({@code lfu} only).
+         */
+        private AccessList<K, V> lower;
+
+        /**
+         * No-argument constructor.
+         */
+        AccessList() {
+            this.head = new Entry<K, V>(null, null, 0);
+            this.head.previous = this.head;
+            this.head.next = this.head;
+        }
+
+        /**
+         * Reports whether this holds no entries.
+         *
+         * @return true iff this is empty
+         */
+        boolean isEmpty() {
+            return this.head.next == this.head;
+        }
+
+        /**
+         * Returns the least recent entry.
+         *
+         * @return the first entry
+         * @requires this is not empty
+         */
+        Entry<K, V> first() {
+            return this.head.next;
+        }
+
+        /**
+         * Returns the most recent entry.
+         *
+         * @return the last entry
+         * @requires this is not empty
+         */
+        Entry<K, V> last() {
+            return this.head.previous;
+        }
+
+        /**
+         * Adds {@code e} as the most recent entry.
+         *
+         * @param e
+         *            the entry
+         * @requires e is in no list
+         */
+        void addLast(Entry<K, V> e) {
+            e.previous = this.head.previous;
+            e.next = this.head;
+            this.head.previous.next = e;
+            this.head.previous = e;
+            e.list = this;
+            this.weight += e.weight;
+        }
+
+        /**
+         * Removes {@code e} from this.
+         *
+         * @param e
+         *            the entry
+         * @requires e is in this
+         */
+        void remove(Entry<K, V> e) {
+            e.previous.next = e.next;
+            e.next.previous = e.previous;
+            e.previous = null;
+            e.next = null;
+            e.list = null;
+            this.weight -= e.weight;
+        }
+
+        /**
+         * Makes {@code e} the most recent entry of this.
+         *
+         * @param e
+         *            the entry
+         * @requires e is in some list
+         */
+        void moveToLast(Entry<K, V> e) {
+            e.list.remove(e);
+            this.addLast(e);
+        }
+
+    }
+
+    /**
+     * Least recently used eviction.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     */
+    private static final class Lru<K, V> implements EvictionPolicy<K, V> {
+
+        /**
+         * All entries, least recently used first.
+         */
+        private final AccessList<K, V> entries = new AccessList<K, V>();
+
+        @Override
+        public void initialize(long maximumWeight) {
+            // no sizing needed
+        }
+
+        @Override
+        public void recordInsertion(Entry<K, V> entry) {
+            this.entries.addLast(entry);
+        }
+
+        @Override
+        public void recordAccess(Entry<K, V> entry) {
+            this.entries.moveToLast(entry);
+        }
+
+        @Override
+        public void recordRemoval(Entry<K, V> entry) {
+            this.entries.remove(entry);
+        }
+
+        @Override
+        public Entry<K, V> victim() {
+            return this.entries.first();
+        }
+
+    }
+
+    /**
+     * Least frequently used eviction, with one list per use count present so
+     * that every operation takes constant time.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     */
+    private static final class Lfu<K, V> implements EvictionPolicy<K, V> {
+
+        /**
+         * Sentinel of the chain of frequency lists; its higher is the list of
+         * the lowest frequency.
+         */
+        private final AccessList<K, V> chain = new AccessList<K, V>();
+
+        /**
+         * No-argument constructor.
+         */
+        Lfu() {
+            this.chain.higher = this.chain;
+            this.chain.lower = this.chain;
+        }
+
+        /**
+         * Moves {@code entry} to the list for frequency one more than that of
+         * {@code from} (which follows {@code from} in the chain), creating that
+         * list if needed and unlinking {@code from} if it becomes empty.
+         *
+         * @param entry
+         *            the entry
+         * @param from
+         *            the list holding entry, or the chain sentinel
+         */
+        private void promote(Entry<K, V> entry, AccessList<K, V> from) {
+            AccessList<K, V> to = from.higher;
+            if (to == this.chain || to.frequency != from.frequency + 1) {
+                to = new AccessList<K, V>();
+                to.frequency = from.frequency + 1;
+                to.lower = from;
+                to.higher = from.higher;
+                from.higher.lower = to;
+                from.higher = to;
+            }
+            if (entry.list != null) {
+                entry.list.remove(entry);
+            }
+            to.addLast(entry);
+            if (from != this.chain && from.isEmpty()) {
+                this.unlink(from);
+            }
+        }
+
+        /**
+         * Removes {@code list} from the chain.
+         *
+         * @param list
+         *            the list
+         */
+        private void unlink(AccessList<K, V> list) {
+            list.lower.higher = list.higher;
+            list.higher.lower = list.lower;
+        }
+
+        @Override
+        public void initialize(long maximumWeight) {
+            // no sizing needed
+        }
+
+        @Override
+        public void recordInsertion(Entry<K, V> entry) {
+            this.promote(entry, this.chain);
+        }
+
+        @Override
+        public void recordAccess(Entry<K, V> entry) {
+            this.promote(entry, entry.list);
+        }
+
+        @Override
+        public void recordRemoval(Entry<K, V> entry) {
+            AccessList<K, V> list = entry.list;
+            list.remove(entry);
+            if (list.isEmpty()) {
+                this.unlink(list);
+            }
+        }
+
+        @Override
+        public Entry<K, V> victim() {
+            return this.chain.higher.first();
+        }
+
+    }
+
+    /**
+     * Approximate use counts of keys, kept in four rows of saturating counters
+     * (about four per expected key in each row) that are all halved every ten
+     * uses per expected key, so that old uses fade. The sketch starts out sized
+     * for a few keys and is only grown (losing its counts) as more keys are
+     * tracked, up to the number of keys given to the constructor, so a cache
+     * with a large maximum weight but few entries keeps a small sketch.
+     */
+    private static final class FrequencySketch {
+
+        /**
+         * Number of rows.
+         */
+        private static final int DEPTH = 4;
+
+        /**
+         * Greatest value of a counter.
+         */
+        private static final int MAX_COUNT = 15;
+
+        /**
+         * Number of counters per expected key in each row.
+         */
+        private static final int COUNTERS_PER_KEY = 4;
+
+        /**
+         * Number of uses per expected key between halvings.
+         */
+        private static final int SAMPLES_PER_KEY = 10;
+
+        /**
+         * Greatest number of expected keys the sketch is sized for.
+         */
+        private static final int MAX_EXPECTED = 1 << 22;
+
+        /**
+         * Number of expected keys the sketch is first sized for.
+         */
+        private static final int INITIAL_EXPECTED = 256;
+
+        /**
+         * Multipliers used to derive one index per row from a hash code.
+         */
+        private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B,
+                0xC2B2AE35, 0x27D4EB2F };
+
+        /**
+         * Greatest number of expected keys the sketch may grow to.
+         */
+        private final int maximumExpected;
+
+        /**
+         * Number of expected keys the sketch is sized for.
+         */
+        private int expected;
+
+        /**
+         * The counters, row after row.
+         */
+        private byte[] counters;
+
+        /**
+         * Mask selecting a column from a mixed hash code.
+         */
+        private int mask;
+
+        /**
+         * Number of increments after which all counters are halved.
+         */
+        private int samplePeriod;
+
+        /**
+         * Number of increments since the last halving.
+         */
+        private int samples;
+
+        /**
+         * Constructor from the greatest number of keys expected to be tracked.
+         *
+         * @param maximumExpected
+         *            the greatest expected number of keys
+         */
+        FrequencySketch(long maximumExpected) {
+            this.maximumExpected = (int) Math.max(COUNTERS_PER_KEY,
+                    Math.min(MAX_EXPECTED, maximumExpected));
+            this.resize(Math.min(INITIAL_EXPECTED, this.maximumExpected));
+        }
+
+        /**
+         * Replaces the counters with zeroed ones sized for {@code keys} keys.
+         *
+         * @param keys
+         *            the expected number of keys
+         */
+        private void resize(int keys) {
+            int width = Integer.highestOneBit(keys * COUNTERS_PER_KEY - 1) << 1;
+            this.expected = keys;
+            this.counters = new byte[DEPTH * width];
+            this.mask = width - 1;
+            this.samplePeriod = SAMPLES_PER_KEY * keys;
+            this.samples = 0;
+        }
+
+        /**
+         * Grows the sketch, if it may still grow, so that it is sized for at
+         * least {@code keys} keys; growing forgets all recorded uses.
+         *
+         * @param keys
+         *            the number of keys now tracked
+         */
+        void ensureCapacity(int keys) {
+            if (keys > this.expected && this.expected < this.maximumExpected) {
+                int grown = this.expected;
+                while (grown < keys && grown < this.maximumExpected) {
+                    grown *= 2;
+                }
+                this.resize(Math.min(grown, this.maximumExpected));
+            }
+        }
+
+        /**
+         * Returns the position of the counter for {@code hash} in {@code row}.
+         *
+         * @param hash
+         *            the hash code
+         * @param row
+         *            the row
+         * @return the counter position
+         */
+        private int position(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return row * (this.mask + 1) + (h & this.mask);
+        }
+
+        /**
+         * Records one use of a key with hash code {@code hash}.
+         *
+         * @param hash
+         *            the hash code of the key
+         */
+        void increment(int hash) {
+            for (int row = 0; row < DEPTH; row++) {
+                int p = this.position(hash, row);
+                if (this.counters[p] < MAX_COUNT) {
+                    this.counters[p]++;
+                }
+            }
+            this.samples++;
+            if (this.samples == this.samplePeriod) {
+                for (int i = 0; i < this.counters.length; i++) {
+                    this.counters[i] >>= 1;
+                }
+                this.samples = 0;
+            }
+        }
+
+        /**
+         * Estimates the number of recent uses of a key with hash code
+         * {@code hash}.
+         *
+         * @param hash
+         *            the hash code of the key
+         * @return the estimate
+         */
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency,
+                        this.counters[this.position(hash, row)]);
+            }
+            return frequency;
+        }
+
+    }
+
+    /**
+     * Window TinyLFU eviction: new entries enter an LRU window of about 1% of
+     * the maximum weight; entries pushed out of the window join the probation
+     * segment of a segmented LRU main area, and are promoted to its protected
+     * segment (about 80% of the main area) when used again. When an entry must
+     * go, the newest probation entry is compared with the oldest one and the
+     * one estimated to be used less often is evicted.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     */
+    private static final class WindowTinyLfu<K, V>
+            implements EvictionPolicy<K, V> {
+
+        /**
+         * Percentage of the maximum weight given to the window.
+         */
+        private static final int WINDOW_PERCENT = 1;
+
+        /**
+         * Percentage of the main area given to the protected segment.
+         */
+        private static final int PROTECTED_PERCENT = 80;
+
+        /**
+         * Recently inserted entries.
+         */
+        private final AccessList<K, V> window = new AccessList<K, V>();
+
+        /**
+         * Main-area entries not used since leaving the window.
+         */
+        private final AccessList<K, V> probation = new AccessList<K, V>();
+
+        /**
+         * Main-area entries used since leaving the window.
+         */
+        private final AccessList<K, V> protectedSegment =
+                new AccessList<K, V>();
+
+        /**
+         * Greatest weight of the window.
+         */
+        private long windowWeight;
+
+        /**
+         * Greatest weight of the protected segment.
+         */
+        private long protectedWeight;
+
+        /**
+         * Estimated use counts of keys.
+         */
+        private FrequencySketch sketch;
+
+        /**
+         * Number of entries held.
+         */
+        private int entries;
+
+        @Override
+        public void initialize(long maximumWeight) {
+            this.windowWeight = Math.max(1,
+                    maximumWeight * WINDOW_PERCENT / 100);
+            this.protectedWeight = (maximumWeight - this.windowWeight)
+                    * PROTECTED_PERCENT / 100;
+            this.sketch = new FrequencySketch(maximumWeight);
+        }
+
+        @Override
+        public void recordInsertion(Entry<K, V> entry) {
+            this.entries++;
+            this.sketch.ensureCapacity(this.entries);
+            this.sketch.increment(entry.key.hashCode());
+            this.window.addLast(entry);
+            while (this.window.weight > this.windowWeight
+                    && this.window.first() != entry) {
+                this.probation.moveToLast(this.window.first());
+            }
+        }
+
+        @Override
+        public void recordAccess(Entry<K, V> entry) {
+            this.sketch.increment(entry.key.hashCode());
+            if (entry.list == this.probation) {
+                this.protectedSegment.moveToLast(entry);
+                while (this.protectedSegment.weight > this.protectedWeight
+                        && this.protectedSegment.first() != entry) {
+                    this.probation.moveToLast(this.protectedSegment.first());
+                }
+            } else {
+                entry.list.moveToLast(entry);
+            }
+        }
+
+        @Override
+        public void recordRemoval(Entry<K, V> entry) {
+            this.entries--;
+            entry.list.remove(entry);
+        }
+
+        @Override
+        public Entry<K, V> victim() {
+            Entry<K, V> victim;
+            if (!this.probation.isEmpty()) {
+                Entry<K, V> candidate = this.probation.last();
+                victim = this.probation.first();
+                int candidateFrequency = this.sketch
+                        .frequency(candidate.key.hashCode());
+                if (candidateFrequency <= this.sketch
+                        .frequency(victim.key.hashCode())) {
+                    victim = candidate;
+                }
+            } else if (!this.protectedSegment.isEmpty()) {
+                victim = this.protectedSegment.first();
+            } else {
+                victim = this.window.first();
+            }
+            return victim;
+        }
+
+    }
+
+    /**
+     * Evicts entries chosen by the policy until the total weight plus
+     * {@code extra} is at most the maximum weight.
+     *
+     * @param extra
+     *            weight about to be added
+     * @updates this
+     * @requires extra <= $this.maximumWeight
+     * @ensures $this.totalWeight + extra <= $this.maximumWeight and this is
+     *          subset of #this
+     */
+    private void evictExcess(long extra) {
+        while (this.totalWeight + extra > this.maximumWeight) {
+            Entry<K, V> victim = this.policy.victim();
+            this.index.remove(victim.key);
+            this.policy.recordRemoval(victim);
+            this.totalWeight -= victim.weight;
+            this.evictions++;
+        }
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from maximum weight and eviction policy.
+     *
+     * @param maximumWeight
+     *            the greatest allowed total weight of the entries
+     * @param policy
+     *            the eviction policy, not used by any other cache
+     * @requires maximumWeight > 0
+     * @ensures this = {}
+     */
+    public Cache4(long maximumWeight, EvictionPolicy<K, V> policy) {
+        assert maximumWeight > 0 : "Violation of: maximumWeight > 0";
+        assert policy != null : "Violation of: policy is not null";
+
+        this.maximumWeight = maximumWeight;
+        this.policy = policy;
+        this.policy.initialize(maximumWeight);
+        this.index = new Map7<K, Entry<K, V>>();
+    }
+
+    /**
+     * Returns a new least recently used eviction policy.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @return the policy
+     */
+    public static <K, V> EvictionPolicy<K, V> lru() {
+        return new Lru<K, V>();
+    }
+
+    /**
+     * Returns a new least frequently used eviction policy.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @return the policy
+     */
+    public static <K, V> EvictionPolicy<K, V> lfu() {
+        return new Lfu<K, V>();
+    }
+
+    /**
+     * Returns a new window TinyLFU eviction policy.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @return the policy
+     */
+    public static <K, V> EvictionPolicy<K, V> windowTinyLfu() {
+        return new WindowTinyLfu<K, V>();
+    }
+
+    /*
+     * Cache methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns the value cached for {@code key}, or null if there is none, and
+     * records a hit or a miss.
+     *
+     * @param key
+     *            the key
+     * @return the value for key, or null
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then (key, get) is in this
+     * else get = null
+     * </pre>
+     */
+    public final V get(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        V value = null;
+        Entry<K, V> entry = this.index.valueIfPresent(key);
+        if (entry != null) {
+            this.policy.recordAccess(entry);
+            value = entry.value;
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        return value;
+    }
+
+    /**
+     * Caches {@code value} for {@code key} with weight 1.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @updates this
+     * @ensures [this is #this with (key, value) replacing any pair for key,
+     *          minus any pairs evicted]
+     */
+    public final void put(K key, V value) {
+        this.put(key, value, 1);
+    }
+
+    /**
+     * Caches {@code value} for {@code key} with weight {@code weight}. A new
+     * entry is inserted after evicting entries until there is room for it; a
+     * replaced entry counts as used, and entries (possibly itself) are then
+     * evicted if it grew too heavy. An entry heavier than the maximum weight is
+     * not cached at all (and any value cached for {@code key} is removed).
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @param weight
+     *            the weight of the entry
+     * @updates this
+     * @requires weight > 0
+     * @ensures [this is #this without any pair for key, minus any pairs
+     *          evicted, plus (key, value) if weight <= maximum weight]
+     */
+    public final void put(K key, V value, int weight) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert weight > 0 : "Violation of: weight > 0";
+
+        if (weight > this.maximumWeight) {
+            this.invalidate(key);
+        } else {
+            Entry<K, V> entry = this.index.valueIfPresent(key);
+            if (entry != null) {
+                entry.list.weight += weight - entry.weight;
+                this.totalWeight += weight - entry.weight;
+                entry.value = value;
+                entry.weight = weight;
+                this.policy.recordAccess(entry);
+                this.evictExcess(0);
+            } else {
+                this.evictExcess(weight);
+                entry = new Entry<K, V>(key, value, weight);
+                this.index.add(key, entry);
+                this.totalWeight += weight;
+                this.policy.recordInsertion(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes the value cached for {@code key}, if any.
+     *
+     * @param key
+     *            the key
+     * @return true iff key was in DOMAIN(#this)
+     * @updates this
+     * @ensures this = #this \ {(key, v) for any v}
+     */
+    public final boolean invalidate(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        Entry<K, V> entry = this.index.removeIfPresent(key);
+        if (entry != null) {
+            this.policy.recordRemoval(entry);
+            this.totalWeight -= entry.weight;
+        }
+        return entry != null;
+    }
+
+    /**
+     * Reports the number of cached entries.
+     *
+     * @return |this|
+     */
+    public final int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Reports the total weight of the cached entries.
+     *
+     * @return the total weight
+     */
+    public final long weight() {
+        return this.totalWeight;
+    }
+
+    /**
+     * Reports the number of lookups that found their key.
+     *
+     * @return the hit count
+     */
+    public final long hits() {
+        return this.hits;
+    }
+
+    /**
+     * Reports the number of lookups that did not find their key.
+     *
+     * @return the miss count
+     */
+    public final long misses() {
+        return this.misses;
+    }
+
+    /**
+     * Reports the number of entries evicted to respect the maximum weight.
+     *
+     * @return the eviction count
+     */
+    public final long evictions() {
+        return this.evictions;
+    }
+
+}
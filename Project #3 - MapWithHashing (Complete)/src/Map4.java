@@ -1,5 +1,15 @@
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import components.map.Map;
 import components.map.Map2;
@@ -54,6 +64,11 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private static final int DEFAULT_HASH_TABLE_SIZE = 101;
 
+    /**
+     * Smallest number of keys the guard is sized for.
+     */
+    private static final int MIN_GUARD_CAPACITY = 64;
+
     /**
      * Buckets for hashing.
      */
@@ -64,6 +79,37 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private int size;
 
+    /**
+     * Whether lookups are being recorded for {@code statistics}.
+     */
+    private boolean statisticsEnabled;
+
+    /**
+     * Number of lookups recorded while statistics were enabled.
+     */
+    private long lookupCount;
+
+    /**
+     * Number of bucket entries examined by the recorded lookups.
+     */
+    private long probeCount;
+
+    /**
+     * Number of times the hash table has been resized.
+     */
+    private int rehashCount;
+
+    /**
+     * Total time spent resizing the hash table, in nanoseconds.
+     */
+    private long rehashNanos;
+
+    /**
+     * Bloom filter holding the hash codes of (at least) the keys of
+     * {@code this}, or null if {@code this} is not guarded.
+     */
+    private BlockedBloomFilter guard;
+
     /**
      * Computes {@code a} mod {@code b} as % should have been defined to work.
      *
@@ -80,7 +126,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      * there exists k: integer (a = k * b + mod)
      *          </pre>
      */
-    private static int mod(int a, int b) {
+    static int mod(int a, int b) {
         assert b > 0 : "Violation of: b > 0";
         int r = a % b; // returns the remainder.
         // ex.1) r = ((a = -30) mod (b = 10)) = 0.
@@ -92,6 +138,135 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         return r;
     }
 
+    /**
+     * Returns the smallest prime number that is at least {@code n}; table sizes
+     * are kept prime so that {@code mod} spreads poorly distributed hash codes
+     * over all the buckets.
+     *
+     * @param n
+     *            the lower bound
+     * @return the smallest prime p with p >= n
+     * @requires n > 1
+     * @ensures nextPrime >= n and [nextPrime is prime] and [no prime q
+     *          satisfies n <= q < nextPrime]
+     */
+    static int nextPrime(int n) {
+        assert n > 1 : "Violation of: n > 1";
+        int candidate = n;
+        boolean isPrime = false;
+        while (!isPrime) {
+            isPrime = true;
+            for (int d = 2; isPrime && (long) d * d <= candidate; d++) {
+                isPrime = candidate % d != 0;
+            }
+            if (!isPrime) {
+                candidate++;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Replaces {@code this.hashTable} by one of size {@code hashTableSize},
+     * moving every entry to its bucket in the new table.
+     *
+     * @param hashTableSize
+     *            the size of the new hash table
+     * @updates $this.hashTable
+     * @requires hashTableSize > 0
+     * @ensures |$this.hashTable| = hashTableSize and this = #this
+     */
+    private void rehash(int hashTableSize) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+
+        long start = System.nanoTime();
+        Map<K, V>[] oldTable = this.hashTable;
+        int oldSize = this.size;
+        this.createNewRep(hashTableSize);
+        this.size = oldSize;
+        for (Map<K, V> bucket : oldTable) {
+            while (bucket.size() > 0) {
+                Pair<K, V> p = bucket.removeAny();
+                this.hashTable[mod(p.key().hashCode(), hashTableSize)]
+                        .add(p.key(), p.value());
+            }
+        }
+        this.rehashCount++;
+        this.rehashNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the bucket of {@code this.hashTable} in which {@code key} is (or
+     * would be) found, recording the lookup if statistics are enabled.
+     *
+     * @param key
+     *            the key being looked up
+     * @return the bucket for {@code key}
+     * @ensures bucketFor = $this.hashTable[mod(key.hashCode(),
+     *          |$this.hashTable|)]
+     */
+    private Map<K, V> bucketFor(K key) {
+        Map<K, V> bucket = this.hashTable[mod(key.hashCode(),
+                this.hashTable.length)];
+        if (this.statisticsEnabled) {
+            /*
+             * Each bucket is a Map2, whose search examines the bucket entries
+             * one at a time, so a lookup costs (at most) one probe per entry.
+             */
+            this.lookupCount++;
+            this.probeCount += bucket.size();
+        }
+        return bucket;
+    }
+
+    /**
+     * Records {@code key} in the guard, if there is one, rebuilding the guard
+     * if it is full.
+     *
+     * @param key
+     *            the key added to this
+     * @updates $this.guard
+     */
+    private void guardAdd(K key) {
+        if (this.guard != null) {
+            this.guard.add(key.hashCode());
+            if (this.guard.isFull()) {
+                this.rebuildGuard();
+            }
+        }
+    }
+
+    /**
+     * Replaces the guard, if there is one, by one holding the hash codes of
+     * just the keys of {@code this}, sized for twice as many, so that removed
+     * keys no longer let lookups through and there is room for more.
+     *
+     * @updates $this.guard
+     */
+    private void rebuildGuard() {
+        if (this.guard != null) {
+            this.guard = this.guard.resized(
+                    Math.max(MIN_GUARD_CAPACITY, 2 * this.size));
+            for (Map<K, V> bucket : this.hashTable) {
+                for (Pair<K, V> p : bucket) {
+                    this.guard.add(p.key().hashCode());
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the guard, if there is one, by an empty one.
+     *
+     * @updates $this.guard
+     */
+    private void clearGuard() {
+        if (this.guard != null) {
+            this.guard = new BlockedBloomFilter(MIN_GUARD_CAPACITY,
+                    this.guard.falsePositiveRate());
+        }
+    }
+
     /**
      * Creator of initial representation.
      *
@@ -147,6 +322,33 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         this.createNewRep(hashTableSize);
     }
 
+    /**
+     * Constructor resulting in a hash table of size {@code hashTableSize},
+     * guarded by a Bloom filter with false positive rate
+     * {@code falsePositiveRate}. The filter holds the hash codes of the keys,
+     * so most calls of {@code hasKey} for keys not in {@code this} return
+     * false after reading one cache line instead of searching a bucket; the
+     * rest (about falsePositiveRate of them) search as usual. It costs a
+     * filter update per key added, and now and then a rebuild of the filter
+     * in time linear in |this|, when it fills up. {@code guardStatistics}
+     * reports how many lookups it answered.
+     *
+     * @param hashTableSize
+     *                          size of hash table
+     * @param falsePositiveRate
+     *                          the false positive rate of the guard
+     * @requires hashTableSize > 0 and 0 < falsePositiveRate < 1
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, double falsePositiveRate) {
+        assert 0 < falsePositiveRate && falsePositiveRate < 1 : ""
+                + "Violation of: 0 < falsePositiveRate < 1";
+
+        this.createNewRep(hashTableSize);
+        this.guard = new BlockedBloomFilter(MIN_GUARD_CAPACITY,
+                falsePositiveRate);
+    }
+
     /*
      * Standard methods -------------------------------------------------------
      */
@@ -165,6 +367,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     @Override
     public final void clear() {
         this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this.clearGuard();
     }
 
     @Override
@@ -181,7 +384,9 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         Map4<K, V> localSource = (Map4<K, V>) source;
         this.hashTable = localSource.hashTable;
         this.size = localSource.size;
+        this.guard = localSource.guard;
         localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        localSource.clearGuard();
     }
 
     /*
@@ -197,6 +402,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         this.size++;
         this.hashTable[mod(key.hashCode(), this.hashTable.length)].add(key,
                 value);
+        this.guardAdd(key);
     }
 
     @Override
@@ -227,16 +433,23 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
 
-        return this.hashTable[mod(key.hashCode(), this.hashTable.length)]
-                .value(key);
+        return this.bucketFor(key).value(key);
     }
 
     @Override
     public final boolean hasKey(K key) {
         assert key != null : "Violation of: key is not null";
 
-        return this.hashTable[mod(key.hashCode(), this.hashTable.length)]
-                .hasKey(key);
+        boolean found = false;
+        if (this.guard == null) {
+            found = this.bucketFor(key).hasKey(key);
+        } else if (this.guard.mightContain(key.hashCode())) {
+            found = this.bucketFor(key).hasKey(key);
+            if (!found) {
+                this.guard.recordFalsePositive();
+            }
+        }
+        return found;
     }
 
     @Override
@@ -244,11 +457,489 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         return this.size;
     }
 
+    /*
+     * Bulk methods -----------------------------------------------------------
+     */
+
+    /**
+     * Adds all of the pairs in {@code pairs} to {@code this}. The hash table is
+     * first grown (once) so that it has at least as many buckets as the
+     * resulting number of entries; each key is then hashed once and checked
+     * for uniqueness with a single lookup in its bucket.
+     *
+     * @param pairs
+     *            the pairs to be added
+     * @updates this
+     * @requires <pre>
+     * pairs /= this  and
+     * [the keys in pairs are unique and none is in DOMAIN(this)]
+     * </pre>
+     * @ensures this = #this union [pairs in pairs]
+     */
+    public final void addAll(Iterable<Pair<K, V>> pairs) {
+        assert pairs != null : "Violation of: pairs is not null";
+        assert pairs != this : "Violation of: pairs is not this";
+
+        List<Pair<K, V>> newPairs = new ArrayList<Pair<K, V>>();
+        for (Pair<K, V> p : pairs) {
+            newPairs.add(p);
+        }
+        int total = this.size + newPairs.size();
+        if (total > this.hashTable.length) {
+            this.rehash(nextPrime(total));
+        }
+        for (Pair<K, V> p : newPairs) {
+            K key = p.key();
+            assert key != null : "Violation of: key is not null";
+            assert p.value() != null : "Violation of: value is not null";
+            Map<K, V> bucket = this.hashTable[mod(key.hashCode(),
+                    this.hashTable.length)];
+            assert !bucket.hasKey(key) : ""
+                    + "Violation of: the keys in pairs are unique and none is"
+                    + " in DOMAIN(this)";
+            bucket.add(key, p.value());
+        }
+        this.size = total;
+        /*
+         * One rebuild, sized for the new total, rather than one each time the
+         * guard fills up along the way.
+         */
+        this.rebuildGuard();
+    }
+
     @Override
     public final Iterator<Pair<K, V>> iterator() {
         return new Map4Iterator();
     }
 
+    @Override
+    public final Spliterator<Pair<K, V>> spliterator() {
+        return new Map4Spliterator(0, this.hashTable.length, this.size, true);
+    }
+
+    /*
+     * Package-private methods for Map4Snapshot ------------------------------
+     */
+
+    /**
+     * Reports the number of buckets in the hash table.
+     *
+     * @return |$this.hashTable|
+     */
+    final int hashTableSize() {
+        return this.hashTable.length;
+    }
+
+    /**
+     * Reports the false positive rate of the guard, or 0 if {@code this} is
+     * not guarded.
+     *
+     * @return the false positive rate of $this.guard, or 0
+     */
+    final double guardFalsePositiveRate() {
+        double rate = 0;
+        if (this.guard != null) {
+            rate = this.guard.falsePositiveRate();
+        }
+        return rate;
+    }
+
+    /**
+     * Returns bucket {@code i} of the hash table (not a copy).
+     *
+     * @param i
+     *            the index of the bucket
+     * @return $this.hashTable[i]
+     * @requires 0 <= i < |$this.hashTable|
+     */
+    final Map<K, V> bucket(int i) {
+        assert 0 <= i : "Violation of: 0 <= i";
+        assert i < this.hashTable.length : ""
+                + "Violation of: i < |$this.hashTable|";
+
+        return this.hashTable[i];
+    }
+
+    /**
+     * Adds the pair ({@code key}, {@code value}) directly to bucket {@code i},
+     * without hashing {@code key}.
+     *
+     * @param i
+     *            the index of the bucket for key
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @updates this
+     * @requires <pre>
+     * i = mod(key.hashCode(), |$this.hashTable|)  and
+     * key is not in DOMAIN(this)
+     * </pre>
+     * @ensures this = #this union {(key, value)}
+     */
+    final void addToBucket(int i, K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert i == mod(key.hashCode(), this.hashTable.length) : ""
+                + "Violation of: i = mod(key.hashCode(), |$this.hashTable|)";
+
+        this.hashTable[i].add(key, value);
+        this.size++;
+        this.guardAdd(key);
+    }
+
+    /*
+     * Parallel bulk methods --------------------------------------------------
+     *
+     * These split the hash table into ranges of buckets and process the ranges
+     * on the common ForkJoin pool. Like iteration, they require that this is
+     * not modified while they run; the functions passed to them must not
+     * modify this either, and are applied to pairs in no particular order.
+     */
+
+    /**
+     * Applies {@code action} to every pair in {@code this}, in parallel.
+     *
+     * @param action
+     *            the action to apply
+     * @requires [action is safe to apply from several threads at once]
+     * @ensures [action has been applied once to each pair in this]
+     */
+    public final void parallelForEach(Consumer<? super Pair<K, V>> action) {
+        assert action != null : "Violation of: action is not null";
+
+        StreamSupport.stream(this.spliterator(), true).forEach(action);
+    }
+
+    /**
+     * Reduces the pairs in {@code this} to a single result, in parallel.
+     *
+     * @param <R>
+     *            type of the result
+     * @param identity
+     *            the result for no pairs, and the starting point of each range
+     * @param accumulator
+     *            folds one more pair into a partial result
+     * @param combiner
+     *            combines the partial results of two ranges
+     * @return the combined result
+     * @requires <pre>
+     * [combiner is associative, identity is an identity for it, and
+     *  combiner(r, accumulator(identity, p)) = accumulator(r, p)]
+     * </pre>
+     * @ensures reduce = [identity folded with every pair in this]
+     */
+    public final <R> R reduce(R identity,
+            BiFunction<R, ? super Pair<K, V>, R> accumulator,
+            BinaryOperator<R> combiner) {
+        assert accumulator != null : "Violation of: accumulator is not null";
+        assert combiner != null : "Violation of: combiner is not null";
+
+        return StreamSupport.stream(this.spliterator(), true).reduce(identity,
+                accumulator, combiner);
+    }
+
+    /**
+     * Returns a new {@code Map4} with the pairs of {@code this} that satisfy
+     * {@code predicate}, selected in parallel.
+     *
+     * @param predicate
+     *            the test each kept pair must pass
+     * @return the map of kept pairs
+     * @ensures filter = {p: (K, V) where (p is in this and predicate(p)) (p)}
+     */
+    public final Map4<K, V> filter(Predicate<? super Pair<K, V>> predicate) {
+        assert predicate != null : "Violation of: predicate is not null";
+
+        List<Pair<K, V>> kept = StreamSupport.stream(this.spliterator(), true)
+                .filter(predicate).collect(Collectors.toList());
+        Map4<K, V> result = new Map4<K, V>(this.hashTable.length);
+        result.addAll(kept);
+        return result;
+    }
+
+    /**
+     * Returns a new {@code Map4} with the keys of {@code this}, each associated
+     * with {@code function} applied (in parallel) to its value.
+     *
+     * @param <W>
+     *            type of the new values
+     * @param function
+     *            the function to apply to the values
+     * @return the map of new values
+     * @requires [function returns non-null values]
+     * @ensures mapValues = {(k, function(v)): (K, W) where ((k, v) is in this)}
+     */
+    public final <W> Map4<K, W> mapValues(
+            Function<? super V, ? extends W> function) {
+        assert function != null : "Violation of: function is not null";
+
+        List<Pair<K, W>> mapped = StreamSupport
+                .stream(this.spliterator(), true)
+                .map(p -> (Pair<K, W>) new SimplePair<K, W>(p.key(),
+                        function.apply(p.value())))
+                .collect(Collectors.toList());
+        Map4<K, W> result = new Map4<K, W>(this.hashTable.length);
+        result.addAll(mapped);
+        return result;
+    }
+
+    /*
+     * Instrumentation methods ------------------------------------------------
+     */
+
+    /**
+     * Starts recording lookups made through {@code hasKey} and {@code value}
+     * (including those made by assertion checks). Recording is off by default,
+     * and then costs a single test per lookup.
+     *
+     * @ensures [lookups on this are recorded in statistics]
+     */
+    public final void enableStatistics() {
+        this.statisticsEnabled = true;
+    }
+
+    /**
+     * Stops recording lookups; counts recorded so far are kept.
+     *
+     * @ensures [lookups on this are not recorded in statistics]
+     */
+    public final void disableStatistics() {
+        this.statisticsEnabled = false;
+    }
+
+    /**
+     * Discards the lookup counts recorded so far.
+     *
+     * @ensures [no lookups are recorded in statistics]
+     */
+    public final void resetStatistics() {
+        this.lookupCount = 0;
+        this.probeCount = 0;
+    }
+
+    /**
+     * Reports the current health of the hash table. The lookup figures cover
+     * only lookups made while statistics were enabled; the table figures are
+     * computed on each call, in time proportional to |$this.hashTable|.
+     *
+     * @return a snapshot of the statistics for {@code this}
+     */
+    public final Statistics statistics() {
+        int longestChain = 0;
+        for (Map<K, V> bucket : this.hashTable) {
+            longestChain = Math.max(longestChain, bucket.size());
+        }
+        int[] histogram = new int[longestChain + 1];
+        for (Map<K, V> bucket : this.hashTable) {
+            histogram[bucket.size()]++;
+        }
+        return new Statistics(this.hashTable.length, this.size, histogram,
+                this.lookupCount, this.probeCount, this.rehashCount,
+                this.rehashNanos);
+    }
+
+    /**
+     * Reports whether {@code this} is guarded by a Bloom filter.
+     *
+     * @return whether this is guarded
+     */
+    public final boolean isGuarded() {
+        return this.guard != null;
+    }
+
+    /**
+     * Reports how many calls of {@code hasKey} (including those made by
+     * assertion checks) the guard has answered, and how many of those for
+     * keys not in {@code this} it answered without searching a bucket.
+     *
+     * @return a snapshot of the statistics of the guard
+     * @requires this is guarded
+     */
+    public final BlockedBloomFilter.Statistics guardStatistics() {
+        assert this.isGuarded() : "Violation of: this is guarded";
+
+        return this.guard.statistics();
+    }
+
+    /**
+     * Snapshot of the health of a {@code Map4} hash table.
+     */
+    public static final class Statistics {
+
+        /**
+         * Number of buckets in the hash table.
+         */
+        private final int hashTableSize;
+
+        /**
+         * Number of entries in the hash table.
+         */
+        private final int size;
+
+        /**
+         * Entry i is the number of buckets holding exactly i entries.
+         */
+        private final int[] bucketLengthHistogram;
+
+        /**
+         * Number of recorded lookups.
+         */
+        private final long lookups;
+
+        /**
+         * Number of bucket entries examined by the recorded lookups.
+         */
+        private final long probes;
+
+        /**
+         * Number of times the hash table has been resized.
+         */
+        private final int rehashes;
+
+        /**
+         * Total time spent resizing the hash table, in nanoseconds.
+         */
+        private final long rehashNanos;
+
+        /**
+         * Constructor from the raw figures.
+         *
+         * @param hashTableSize
+         *            number of buckets in the hash table
+         * @param size
+         *            number of entries in the hash table
+         * @param bucketLengthHistogram
+         *            entry i is the number of buckets holding i entries
+         * @param lookups
+         *            number of recorded lookups
+         * @param probes
+         *            number of bucket entries examined by those lookups
+         * @param rehashes
+         *            number of times the hash table has been resized
+         * @param rehashNanos
+         *            total time spent resizing, in nanoseconds
+         */
+        private Statistics(int hashTableSize, int size,
+                int[] bucketLengthHistogram, long lookups, long probes,
+                int rehashes, long rehashNanos) {
+            this.hashTableSize = hashTableSize;
+            this.size = size;
+            this.bucketLengthHistogram = bucketLengthHistogram;
+            this.lookups = lookups;
+            this.probes = probes;
+            this.rehashes = rehashes;
+            this.rehashNanos = rehashNanos;
+        }
+
+        /**
+         * Reports the number of buckets in the hash table.
+         *
+         * @return the hash table size
+         */
+        public int hashTableSize() {
+            return this.hashTableSize;
+        }
+
+        /**
+         * Reports the average number of entries per bucket.
+         *
+         * @return the load factor
+         */
+        public double loadFactor() {
+            return (double) this.size / this.hashTableSize;
+        }
+
+        /**
+         * Reports how many buckets hold exactly {@code length} entries.
+         *
+         * @param length
+         *            the bucket length of interest
+         * @return the number of buckets of that length
+         * @requires length >= 0
+         */
+        public int bucketsOfLength(int length) {
+            assert length >= 0 : "Violation of: length >= 0";
+            int count = 0;
+            if (length < this.bucketLengthHistogram.length) {
+                count = this.bucketLengthHistogram[length];
+            }
+            return count;
+        }
+
+        /**
+         * Reports the number of entries in the longest bucket.
+         *
+         * @return the longest chain length
+         */
+        public int longestChain() {
+            return this.bucketLengthHistogram.length - 1;
+        }
+
+        /**
+         * Reports the number of recorded lookups.
+         *
+         * @return the lookup count
+         */
+        public long lookups() {
+            return this.lookups;
+        }
+
+        /**
+         * Reports the average number of bucket entries examined per recorded
+         * lookup.
+         *
+         * @return the average probes per lookup, or 0 if none were recorded
+         */
+        public double averageProbesPerLookup() {
+            double average = 0;
+            if (this.lookups > 0) {
+                average = (double) this.probes / this.lookups;
+            }
+            return average;
+        }
+
+        /**
+         * Reports the number of times the hash table has been resized.
+         *
+         * @return the rehash count
+         */
+        public int rehashes() {
+            return this.rehashes;
+        }
+
+        /**
+         * Reports the total time spent resizing the hash table.
+         *
+         * @return the rehash time, in nanoseconds
+         */
+        public long rehashNanos() {
+            return this.rehashNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder histogram = new StringBuilder();
+            for (int i = 0; i < this.bucketLengthHistogram.length; i++) {
+                if (this.bucketLengthHistogram[i] > 0) {
+                    if (histogram.length() > 0) {
+                        histogram.append(", ");
+                    }
+                    histogram.append(i).append(':')
+                            .append(this.bucketLengthHistogram[i]);
+                }
+            }
+            return "buckets=" + this.hashTableSize + " loadFactor="
+                    + String.format("%.3f", this.loadFactor())
+                    + " longestChain=" + this.longestChain() + " lookups="
+                    + this.lookups + " avgProbes="
+                    + String.format("%.3f", this.averageProbesPerLookup())
+                    + " rehashes=" + this.rehashes + " rehashNanos="
+                    + this.rehashNanos + " histogram={" + histogram + "}";
+        }
+
+    }
+
     /**
      * Implementation of {@code Iterator} interface for {@code Map4}.
      */
@@ -311,4 +1002,112 @@ public class Map4<K, V> extends MapSecondary<K, V> {
 
     }
 
+    /**
+     * Implementation of {@code Spliterator} interface for {@code Map4}, which
+     * covers a range of buckets and splits by halving that range.
+     */
+    private final class Map4Spliterator implements Spliterator<Pair<K, V>> {
+
+        /**
+         * Next bucket not yet started.
+         */
+        private int currentBucket;
+
+        /**
+         * One past the last bucket covered.
+         */
+        private final int endBucket;
+
+        /**
+         * Estimated number of pairs not yet traversed.
+         */
+        private long estimate;
+
+        /**
+         * Whether {@code estimate} is exact.
+         */
+        private boolean exact;
+
+        /**
+         * Iterator over the bucket being traversed, or null before the first.
+         */
+        private Iterator<Pair<K, V>> bucketIterator;
+
+        /**
+         * Constructor from a range of buckets.
+         *
+         * @param startBucket
+         *            first bucket covered
+         * @param endBucket
+         *            one past the last bucket covered
+         * @param estimate
+         *            estimated number of pairs in the range
+         * @param exact
+         *            whether {@code estimate} is exact
+         */
+        Map4Spliterator(int startBucket, int endBucket, long estimate,
+                boolean exact) {
+            this.currentBucket = startBucket;
+            this.endBucket = endBucket;
+            this.estimate = estimate;
+            this.exact = exact;
+            this.bucketIterator = null;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Pair<K, V>> action) {
+            assert action != null : "Violation of: action is not null";
+
+            while ((this.bucketIterator == null
+                    || !this.bucketIterator.hasNext())
+                    && this.currentBucket < this.endBucket) {
+                Map<K, V> bucket = Map4.this.hashTable[this.currentBucket];
+                this.currentBucket++;
+                if (bucket.size() > 0) {
+                    this.bucketIterator = bucket.iterator();
+                }
+            }
+            boolean advanced = this.bucketIterator != null
+                    && this.bucketIterator.hasNext();
+            if (advanced) {
+                if (this.estimate > 0) {
+                    this.estimate--;
+                }
+                action.accept(this.bucketIterator.next());
+            }
+            return advanced;
+        }
+
+        @Override
+        public Spliterator<Pair<K, V>> trySplit() {
+            Spliterator<Pair<K, V>> prefix = null;
+            int remaining = this.endBucket - this.currentBucket;
+            if (remaining > 1) {
+                int middle = this.currentBucket + remaining / 2;
+                long half = this.estimate / 2;
+                prefix = new Map4Spliterator(this.currentBucket, middle, half,
+                        false);
+                this.currentBucket = middle;
+                this.estimate -= half;
+                this.exact = false;
+            }
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = Spliterator.DISTINCT | Spliterator.NONNULL;
+            if (this.exact) {
+                characteristics |= Spliterator.SIZED;
+            }
+            return characteristics;
+        }
+
+    }
+
 }
@@ -0,0 +1,362 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import components.map.Map;
+import components.map.Map.Pair;
+
+/**
+ * Utility class to save the contents of a {@code Map4} to a binary file and
+ * load them back, keeping the layout of the hash table.
+ *
+ * <p>
+ * A snapshot file holds, in big-endian order: the int {@code MAGIC}, the int
+ * {@code VERSION}, the hash table size, the number of pairs, the false
+ * positive rate of the map's guard as a double (0 if it is not guarded), and
+ * then for each bucket in order the number of pairs in it followed by each
+ * pair's key and value as written by the given codecs. Version 1 files, which
+ * lack the false positive rate, load as unguarded maps. Loading checks the
+ * header and every count against the length of the file, and reports a
+ * truncated or corrupt file as an {@code IOException}. Loading maps the file
+ * into memory and,
+ * when the new table has the same size as the saved one, puts every pair
+ * straight into its saved bucket without computing any hash code. That relies
+ * on the loaded keys having the same hash codes as the saved ones, which holds
+ * for keys such as {@code String} and {@code Integer} whose hash codes are
+ * defined by their value (but not for keys using identity hash codes).
+ *
+ * @author Jatin Mamtani
+ */
+public final class Map4Snapshot {
+
+    /**
+     * First int of every snapshot file ("M4SN").
+     */
+    public static final int MAGIC = 0x4D34534E;
+
+    /**
+     * Version of the snapshot format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Version of the snapshot format without the false positive rate.
+     */
+    private static final int VERSION_WITHOUT_GUARD = 1;
+
+    /**
+     * Bytes in the header of a version 1 file: the magic number, the version,
+     * the hash table size, and the number of pairs.
+     */
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    /**
+     * Converts values of type {@code T} to and from bytes.
+     *
+     * @param <T>
+     *            type of values converted
+     */
+    public interface Codec<T> {
+
+        /**
+         * Writes {@code x} to {@code out}.
+         *
+         * @param out
+         *            the destination
+         * @param x
+         *            the value to write
+         * @throws IOException
+         *             if writing fails
+         */
+        void write(DataOutput out, T x) throws IOException;
+
+        /**
+         * Reads a value written by {@code write} from the current position of
+         * {@code in}, advancing the position past it. If {@code in} does not
+         * hold a whole valid value, this should throw
+         * {@code BufferUnderflowException} or {@code IllegalArgumentException}
+         * (rather than, say, allocate a huge array), which loading reports as
+         * a corrupt file.
+         *
+         * @param in
+         *            the source
+         * @return the value read
+         */
+        T read(ByteBuffer in);
+
+    }
+
+    /**
+     * Codec for {@code String}s: the length in bytes of the UTF-8 encoding,
+     * then the encoding.
+     */
+    public static final Codec<String> STRING_CODEC = new Codec<String>() {
+
+        @Override
+        public void write(DataOutput out, String x) throws IOException {
+            byte[] bytes = x.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+    };
+
+    /**
+     * Codec for {@code Integer}s: the value as a four-byte int.
+     */
+    public static final Codec<Integer> INTEGER_CODEC = new Codec<Integer>() {
+
+        @Override
+        public void write(DataOutput out, Integer x) throws IOException {
+            out.writeInt(x);
+        }
+
+        @Override
+        public Integer read(ByteBuffer in) {
+            return in.getInt();
+        }
+
+    };
+
+    /**
+     * No argument constructor--private to prevent instantiation.
+     */
+    private Map4Snapshot() {
+        // no code needed here
+    }
+
+    /**
+     * Reads the rest of a snapshot from {@code in}, which is positioned after
+     * the version, into a new {@code Map4} whose hash table has
+     * {@code hashTableSize} buckets (the saved size if {@code hashTableSize}
+     * is 0), guarded as the saved map was.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @param in
+     *            the snapshot
+     * @param version
+     *            the version of the snapshot
+     * @param keyCodec
+     *            the codec for keys
+     * @param valueCodec
+     *            the codec for values
+     * @param hashTableSize
+     *            the size of the new hash table, or 0
+     * @return the loaded map, or null if a size or count in the snapshot is
+     *         impossible or bytes are left over
+     * @throws BufferUnderflowException
+     *             if the snapshot is truncated
+     */
+    private static <K, V> Map4<K, V> readPairs(ByteBuffer in, int version,
+            Codec<K> keyCodec, Codec<V> valueCodec, int hashTableSize) {
+        int savedTableSize = in.getInt();
+        int savedSize = in.getInt();
+        double rate = 0;
+        if (version != VERSION_WITHOUT_GUARD) {
+            rate = in.getDouble();
+        }
+        /*
+         * Every bucket takes at least the four bytes of its count, so a
+         * larger table size cannot be right (and must not be allocated).
+         */
+        boolean valid = savedTableSize > 0
+                && savedTableSize <= in.remaining() / Integer.BYTES
+                && savedSize >= 0 && rate >= 0 && rate < 1;
+        Map4<K, V> m = null;
+        if (valid) {
+            boolean sameTable = hashTableSize == 0
+                    || hashTableSize == savedTableSize;
+            int size = savedTableSize;
+            if (!sameTable) {
+                size = hashTableSize;
+            }
+            if (rate > 0) {
+                m = new Map4<K, V>(size, rate);
+            } else {
+                m = new Map4<K, V>(size);
+            }
+            int i = 0;
+            while (valid && i < savedTableSize) {
+                int count = in.getInt();
+                valid = 0 <= count && count <= savedSize - m.size();
+                for (int j = 0; valid && j < count; j++) {
+                    K key = keyCodec.read(in);
+                    V value = valueCodec.read(in);
+                    if (sameTable) {
+                        m.addToBucket(i, key, value);
+                    } else {
+                        m.add(key, value);
+                    }
+                }
+                i++;
+            }
+            valid = valid && m.size() == savedSize && !in.hasRemaining();
+        }
+        if (!valid) {
+            m = null;
+        }
+        return m;
+    }
+
+    /**
+     * Writes a snapshot of {@code m} to the file {@code path}, replacing any
+     * previous contents.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @param m
+     *            the map to save
+     * @param path
+     *            the file to write
+     * @param keyCodec
+     *            the codec for keys
+     * @param valueCodec
+     *            the codec for values
+     * @throws IOException
+     *             if the file cannot be written
+     * @ensures [the file at path holds a snapshot of m]
+     */
+    public static <K, V> void write(Map4<K, V> m, Path path,
+            Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        assert m != null : "Violation of: m is not null";
+        assert path != null : "Violation of: path is not null";
+        assert keyCodec != null : "Violation of: keyCodec is not null";
+        assert valueCodec != null : "Violation of: valueCodec is not null";
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(m.hashTableSize());
+            out.writeInt(m.size());
+            out.writeDouble(m.guardFalsePositiveRate());
+            for (int i = 0; i < m.hashTableSize(); i++) {
+                Map<K, V> bucket = m.bucket(i);
+                out.writeInt(bucket.size());
+                for (Pair<K, V> p : bucket) {
+                    keyCodec.write(out, p.key());
+                    valueCodec.write(out, p.value());
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the snapshot in the file {@code path} into a new {@code Map4}
+     * whose hash table has the saved size, so no key is rehashed.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @param path
+     *            the file to read
+     * @param keyCodec
+     *            the codec for keys
+     * @param valueCodec
+     *            the codec for values
+     * @return the loaded map
+     * @throws IOException
+     *             if the file cannot be read, is not a snapshot, or is
+     *             truncated or corrupt
+     * @requires [the file at path was written by write with codecs that read
+     *           what these write, and keys with the same hash codes]
+     * @ensures read = [the map saved in the file at path]
+     */
+    public static <K, V> Map4<K, V> read(Path path, Codec<K> keyCodec,
+            Codec<V> valueCodec) throws IOException {
+        return read(path, keyCodec, valueCodec, 0);
+    }
+
+    /**
+     * Loads the snapshot in the file {@code path} into a new {@code Map4}
+     * whose hash table has {@code hashTableSize} buckets (the saved size if
+     * {@code hashTableSize} is 0). Keys are rehashed only if that size differs
+     * from the saved one.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @param path
+     *            the file to read
+     * @param keyCodec
+     *            the codec for keys
+     * @param valueCodec
+     *            the codec for values
+     * @param hashTableSize
+     *            the size of the new hash table, or 0
+     * @return the loaded map
+     * @throws IOException
+     *             if the file cannot be read, is not a snapshot, or is
+     *             truncated or corrupt
+     * @requires <pre>
+     * hashTableSize >= 0  and
+     * [the file at path was written by write with codecs that read what these
+     *  write, and keys with the same hash codes]  and
+     * [the file at path is less than 2GB long]
+     * </pre>
+     * @ensures read = [the map saved in the file at path]
+     */
+    public static <K, V> Map4<K, V> read(Path path, Codec<K> keyCodec,
+            Codec<V> valueCodec, int hashTableSize) throws IOException {
+        assert path != null : "Violation of: path is not null";
+        assert keyCodec != null : "Violation of: keyCodec is not null";
+        assert valueCodec != null : "Violation of: valueCodec is not null";
+        assert hashTableSize >= 0 : "Violation of: hashTableSize >= 0";
+
+        Map4<K, V> m;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            assert channel.size() <= Integer.MAX_VALUE : ""
+                    + "Violation of: the file at path is less than 2GB long";
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+            if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+                throw new IOException("Not a Map4 snapshot: " + path);
+            }
+            int version = in.getInt();
+            if (version != VERSION && version != VERSION_WITHOUT_GUARD) {
+                throw new IOException(
+                        "Unsupported Map4 snapshot version " + version + ": "
+                                + path);
+            }
+            try {
+                m = readPairs(in, version, keyCodec, valueCodec,
+                        hashTableSize);
+            } catch (BufferUnderflowException | IllegalArgumentException
+                    | NegativeArraySizeException e) {
+                throw new IOException("Corrupt Map4 snapshot: " + path, e);
+            }
+            if (m == null) {
+                throw new IOException("Corrupt Map4 snapshot: " + path);
+            }
+        }
+        return m;
+    }
+
+}
@@ -0,0 +1,713 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a persistent hash array mapped trie (HAMT), with
+ * implementations of primary methods and an O(1) {@code snapshot} method.
+ *
+ * <p>
+ * Each trie node uses a 32-bit bitmap to record which of its 32 possible
+ * children are present and stores only those, in order, in a compact array.
+ * The child of a node at depth d is chosen by bits [5d, 5d+5) of the key's hash
+ * code; keys whose hash codes are equal end up together in a collision node
+ * below the last level. Nodes are never modified once built: an update copies
+ * only the O(log32 n) nodes on the path to the changed entry and shares all the
+ * others, so a snapshot simply shares the root.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions
+ *
+ *                  <pre>
+ * IS_HAMT(
+ *   n: trie node,
+ *   shift: integer
+ *  ): boolean satisfies
+ *  [if shift >= 32 then n holds at least one entry, all with the same hash
+ *   code, and no children; otherwise each slot of n is an entry or a node,
+ *   there is one slot per bit set in n.bitmap, in increasing bit order, the
+ *   slot for bit b holds only keys whose hash code has bits [shift, shift+5)
+ *   equal to b, and each child node c satisfies IS_HAMT(c, shift + 5) and
+ *   holds at least two entries]
+ *                  </pre>
+ *
+ * @convention
+ *
+ *             <pre>
+ * IS_HAMT($this.root, 0)  or  $this.root is the empty node  and
+ * [the keys of the entries in $this.root are unique]  and
+ * $this.size = [number of entries in $this.root]
+ *             </pre>
+ *
+ * @correspondence
+ *
+ *                 <pre>
+ * this = [set of (key, value) pairs of the entries in $this.root]
+ *                 </pre>
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Map5<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of hash code bits consumed per trie level.
+     */
+    private static final int BITS_PER_LEVEL = 5;
+
+    /**
+     * Mask selecting the hash code bits for one trie level.
+     */
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+    /**
+     * Number of bits in a hash code; nodes at this shift are collision nodes.
+     */
+    private static final int HASH_BITS = 32;
+
+    /**
+     * Greatest possible number of nodes on a path from the root to an entry.
+     */
+    private static final int MAX_DEPTH = HASH_BITS / BITS_PER_LEVEL + 2;
+
+    /**
+     * The node holding no entries.
+     */
+    private static final Node EMPTY_NODE = new Node(0, new Object[0]);
+
+    /**
+     * Root of the trie.
+     */
+    private Node root;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Immutable key/value entry, stored in the slots of trie nodes.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     */
+    private static final class Entry<K, V> implements Pair<K, V> {
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * The value.
+         */
+        private final V value;
+
+        /**
+         * Hash code of the key.
+         */
+        private final int hash;
+
+        /**
+         * Constructor from key, value, and hash code of the key.
+         *
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         * @param hash
+         *            the hash code of key
+         */
+        Entry(K key, V value, int hash) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+        }
+
+        @Override
+        public K key() {
+            return this.key;
+        }
+
+        @Override
+        public V value() {
+            return this.value;
+        }
+
+    }
+
+    /**
+     * Immutable trie node. Each slot holds an {@code Entry} or a child
+     * {@code Node}; a collision node has an empty bitmap and only entries.
+     */
+    private static final class Node {
+
+        /**
+         * Bit b is set iff the node has a slot for hash fragment b.
+         */
+        private final int bitmap;
+
+        /**
+         * The slots, in increasing order of hash fragment.
+         */
+        private final Object[] slots;
+
+        /**
+         * Constructor from bitmap and slots.
+         *
+         * @param bitmap
+         *            the bitmap
+         * @param slots
+         *            the slots
+         */
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+    }
+
+    /**
+     * Returns the bit for the hash fragment of {@code hash} at {@code shift}.
+     *
+     * @param hash
+     *            the hash code
+     * @param shift
+     *            the position of the fragment
+     * @return the bit for the fragment
+     * @requires 0 <= shift < 32
+     * @ensures bitFor = 2^([bits [shift, shift+5) of hash])
+     */
+    private static int bitFor(int hash, int shift) {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    /**
+     * Returns the slot index in {@code node} for {@code bit}.
+     *
+     * @param node
+     *            the node
+     * @param bit
+     *            the bit for a hash fragment
+     * @return the number of bits set in node.bitmap below bit
+     */
+    private static int slotIndex(Node node, int bit) {
+        return Integer.bitCount(node.bitmap & (bit - 1));
+    }
+
+    /**
+     * Returns a copy of {@code slots} with {@code x} inserted at {@code i}.
+     *
+     * @param slots
+     *            the original slots
+     * @param i
+     *            the insertion index
+     * @param x
+     *            the new slot
+     * @return the new slots
+     * @requires 0 <= i <= |slots|
+     * @ensures withSlot = slots[0, i) * <x> * slots[i, |slots|)
+     */
+    private static Object[] withSlot(Object[] slots, int i, Object x) {
+        Object[] result = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, result, 0, i);
+        result[i] = x;
+        System.arraycopy(slots, i, result, i + 1, slots.length - i);
+        return result;
+    }
+
+    /**
+     * Returns a copy of {@code slots} with the slot at {@code i} replaced by
+     * {@code x}.
+     *
+     * @param slots
+     *            the original slots
+     * @param i
+     *            the index to replace
+     * @param x
+     *            the new slot
+     * @return the new slots
+     * @requires 0 <= i < |slots|
+     * @ensures replacedSlot = slots[0, i) * <x> * slots[i+1, |slots|)
+     */
+    private static Object[] replacedSlot(Object[] slots, int i, Object x) {
+        Object[] result = slots.clone();
+        result[i] = x;
+        return result;
+    }
+
+    /**
+     * Returns a copy of {@code slots} without the slot at {@code i}.
+     *
+     * @param slots
+     *            the original slots
+     * @param i
+     *            the index to remove
+     * @return the new slots
+     * @requires 0 <= i < |slots|
+     * @ensures withoutSlot = slots[0, i) * slots[i+1, |slots|)
+     */
+    private static Object[] withoutSlot(Object[] slots, int i) {
+        Object[] result = new Object[slots.length - 1];
+        System.arraycopy(slots, 0, result, 0, i);
+        System.arraycopy(slots, i + 1, result, i, slots.length - i - 1);
+        return result;
+    }
+
+    /**
+     * Returns the entry with key {@code key} in the trie rooted at
+     * {@code node}, or null if there is none.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     * @param node
+     *            the root of the trie
+     * @param key
+     *            the key
+     * @param hash
+     *            the hash code of key
+     * @return the entry for key, or null
+     * @requires IS_HAMT(node, 0) or node is the empty node
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V> find(Node node, K key, int hash) {
+        Entry<K, V> found = null;
+        Node current = node;
+        int shift = 0;
+        while (current != null && found == null) {
+            Object slot = null;
+            if (shift >= HASH_BITS) {
+                for (Object x : current.slots) {
+                    if (((Entry<K, V>) x).key.equals(key)) {
+                        found = (Entry<K, V>) x;
+                    }
+                }
+            } else {
+                int bit = bitFor(hash, shift);
+                if ((current.bitmap & bit) != 0) {
+                    slot = current.slots[slotIndex(current, bit)];
+                }
+            }
+            current = null;
+            if (slot instanceof Node) {
+                current = (Node) slot;
+                shift += BITS_PER_LEVEL;
+            } else if (slot != null) {
+                Entry<K, V> e = (Entry<K, V>) slot;
+                if (e.hash == hash && e.key.equals(key)) {
+                    found = e;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns a node holding exactly the entries {@code a} and {@code b}.
+     *
+     * @param a
+     *            one entry
+     * @param b
+     *            the other entry
+     * @param shift
+     *            the shift of the new node
+     * @return the new node
+     * @requires <pre>
+     * a.key /= b.key  and
+     * [bits [0, shift) of a.hash and b.hash are equal]
+     * </pre>
+     * @ensures IS_HAMT(pairNode, shift) and [pairNode holds exactly a and b]
+     */
+    private static Node pairNode(Entry<?, ?> a, Entry<?, ?> b, int shift) {
+        Node node;
+        if (shift >= HASH_BITS) {
+            node = new Node(0, new Object[] { a, b });
+        } else {
+            int bitA = bitFor(a.hash, shift);
+            int bitB = bitFor(b.hash, shift);
+            if (bitA == bitB) {
+                node = new Node(bitA, new Object[] {
+                        pairNode(a, b, shift + BITS_PER_LEVEL) });
+            } else if (Integer.compareUnsigned(bitA, bitB) < 0) {
+                node = new Node(bitA | bitB, new Object[] { a, b });
+            } else {
+                node = new Node(bitA | bitB, new Object[] { b, a });
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns the trie rooted at {@code node} with {@code entry} added,
+     * sharing every node of {@code node} that is not on the path to it.
+     *
+     * @param node
+     *            the root of the original trie
+     * @param entry
+     *            the entry to add
+     * @param shift
+     *            the shift of node
+     * @return the root of the new trie
+     * @requires <pre>
+     * (IS_HAMT(node, shift) or node is the empty node)  and
+     * entry.key is not a key in node
+     * </pre>
+     * @ensures <pre>
+     * IS_HAMT(inserted, shift)  and
+     * [inserted holds the entries of node and entry]
+     * </pre>
+     */
+    private static Node inserted(Node node, Entry<?, ?> entry, int shift) {
+        Node result;
+        if (shift >= HASH_BITS) {
+            result = new Node(0,
+                    withSlot(node.slots, node.slots.length, entry));
+        } else {
+            int bit = bitFor(entry.hash, shift);
+            int i = slotIndex(node, bit);
+            if ((node.bitmap & bit) == 0) {
+                result = new Node(node.bitmap | bit,
+                        withSlot(node.slots, i, entry));
+            } else {
+                Object slot = node.slots[i];
+                Node child;
+                if (slot instanceof Node) {
+                    child = inserted((Node) slot, entry,
+                            shift + BITS_PER_LEVEL);
+                } else {
+                    child = pairNode((Entry<?, ?>) slot, entry,
+                            shift + BITS_PER_LEVEL);
+                }
+                result = new Node(node.bitmap, replacedSlot(node.slots, i,
+                        child));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the trie rooted at {@code node} with the entry for {@code key}
+     * removed, or null if that leaves it empty, sharing every node of
+     * {@code node} that is not on the path to it. A child left holding a
+     * single entry is replaced by that entry.
+     *
+     * @param node
+     *            the root of the original trie
+     * @param key
+     *            the key to remove
+     * @param hash
+     *            the hash code of key
+     * @param shift
+     *            the shift of node
+     * @return the root of the new trie, or null
+     * @requires IS_HAMT(node, shift) and key is a key in node
+     * @ensures <pre>
+     * (removed = null  or  IS_HAMT(removed, shift)  or
+     *  [removed has a single slot, which is an entry])  and
+     * [removed holds the entries of node except the one for key]
+     * </pre>
+     */
+    private static Node removed(Node node, Object key, int hash, int shift) {
+        Node result;
+        if (shift >= HASH_BITS) {
+            int i = 0;
+            while (!((Entry<?, ?>) node.slots[i]).key.equals(key)) {
+                i++;
+            }
+            result = new Node(0, withoutSlot(node.slots, i));
+        } else {
+            int bit = bitFor(hash, shift);
+            int i = slotIndex(node, bit);
+            Object slot = node.slots[i];
+            if (slot instanceof Node) {
+                Node child = removed((Node) slot, key, hash,
+                        shift + BITS_PER_LEVEL);
+                if (child.slots.length == 1
+                        && !(child.slots[0] instanceof Node)) {
+                    result = new Node(node.bitmap,
+                            replacedSlot(node.slots, i, child.slots[0]));
+                } else {
+                    result = new Node(node.bitmap,
+                            replacedSlot(node.slots, i, child));
+                }
+            } else {
+                result = new Node(node.bitmap & ~bit,
+                        withoutSlot(node.slots, i));
+            }
+        }
+        if (result.slots.length == 0) {
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Returns some entry in the trie rooted at {@code node}.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     * @param node
+     *            the root of the trie
+     * @return an entry in node
+     * @requires IS_HAMT(node, 0)
+     * @ensures [anyEntry is an entry in node]
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V> anyEntry(Node node) {
+        Object slot = node.slots[0];
+        while (slot instanceof Node) {
+            slot = ((Node) slot).slots[0];
+        }
+        return (Entry<K, V>) slot;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = EMPTY_NODE;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map5() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map5<?, ?> : ""
+                + "Violation of: source is of dynamic type Map5<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map5<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map5<K, V> localSource = (Map5<K, V>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        this.root = inserted(this.root,
+                new Entry<K, V>(key, value, key.hashCode()), 0);
+        this.size++;
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int hash = key.hashCode();
+        Entry<K, V> entry = find(this.root, key, hash);
+        this.root = removed(this.root, key, hash, 0);
+        if (this.root == null) {
+            this.root = EMPTY_NODE;
+        }
+        this.size--;
+        return entry;
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Entry<K, V> entry = anyEntry(this.root);
+        return this.remove(entry.key);
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        Entry<K, V> entry = find(this.root, key, key.hashCode());
+        return entry.value;
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return find(this.root, key, key.hashCode()) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map5Iterator(this.root);
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns a map with the same value as {@code this}, in constant time. The
+     * two maps share their trie, so later changes to either one copy only the
+     * nodes they touch and are not seen by the other; the shared nodes are
+     * never modified, so the snapshot may be read by other threads while
+     * {@code this} is being changed.
+     *
+     * @return a snapshot of {@code this}
+     * @ensures snapshot = this
+     */
+    public final Map5<K, V> snapshot() {
+        Map5<K, V> copy = new Map5<K, V>();
+        copy.root = this.root;
+        copy.size = this.size;
+        return copy;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map5}, which
+     * walks the trie as it was when the iterator was created.
+     */
+    private final class Map5Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Nodes on the path to the next entry; the top is nodes[depth].
+         */
+        private final Node[] nodes;
+
+        /**
+         * Next slot to visit in each of the nodes on the path.
+         */
+        private final int[] indices;
+
+        /**
+         * Depth of the node being visited, or -1 when all have been visited.
+         */
+        private int depth;
+
+        /**
+         * Constructor from the root of the trie.
+         *
+         * @param root
+         *            the root of the trie to walk
+         */
+        Map5Iterator(Node root) {
+            this.nodes = new Node[MAX_DEPTH];
+            this.indices = new int[MAX_DEPTH];
+            this.nodes[0] = root;
+            this.indices[0] = 0;
+            this.depth = 0;
+            this.skipToEntry();
+        }
+
+        /**
+         * Moves along the path until the top slot is an entry, or the walk is
+         * over.
+         */
+        private void skipToEntry() {
+            boolean atEntry = false;
+            while (this.depth >= 0 && !atEntry) {
+                Node node = this.nodes[this.depth];
+                int i = this.indices[this.depth];
+                if (i == node.slots.length) {
+                    this.depth--;
+                    if (this.depth >= 0) {
+                        this.indices[this.depth]++;
+                    }
+                } else if (node.slots[i] instanceof Node) {
+                    this.depth++;
+                    this.nodes[this.depth] = (Node) node.slots[i];
+                    this.indices[this.depth] = 0;
+                } else {
+                    atEntry = true;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.depth >= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node node = this.nodes[this.depth];
+            Pair<K, V> next = (Entry<K, V>) node.slots[this.indices[
+                    this.depth]];
+            this.indices[this.depth]++;
+            this.skipToEntry();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,659 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a bucketized cuckoo hash table with a stash, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * The table is an array of buckets of four slots each. Every key has two
+ * candidate buckets, chosen by two different hash functions, and is always in
+ * one of them or in the small stash; so {@code hasKey}, {@code value} and
+ * {@code remove} look at no more than 2 * 4 + 4 slots whatever the load. To add
+ * a key whose buckets are both full, an entry is kicked out of one of them to
+ * its other bucket, which may in turn kick out another, and so on; when that
+ * goes on too long the homeless entry goes to the stash, and when the stash is
+ * full too the table is rebuilt twice as large.
+ *
+ * <p>
+ * Both buckets of a key depend only on its hash code, so keys sharing a hash
+ * code all compete for the same eight slots, whatever the size of the table
+ * or the seed. A key whose two buckets are full of keys with its own hash
+ * code is therefore never kicked around and never makes the table grow: it
+ * goes straight to the stash, which grows as needed to hold it. Lookups of
+ * such keys scan the stash, like a chain; other keys are unaffected.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention
+ *
+ *             <pre>
+ * |$this.keys| = |$this.values| = SLOTS_PER_BUCKET * [number of buckets]  and
+ * [number of buckets] is a power of 2  and
+ * |$this.stashKeys| = |$this.stashValues| >= STASH_SIZE  and
+ * 0 <= $this.stashSize <= |$this.stashKeys|  and
+ * [$this.keys[i] = null iff $this.values[i] = null]  and
+ * [$this.stashKeys[0, $this.stashSize) and $this.stashValues[0,
+ *  $this.stashSize) hold no null, the rest of the stash only null]  and
+ * [each non-null key in $this.keys is in bucket firstBucket(key) or
+ *  secondBucket(key)]  and
+ * [the non-null keys in $this.keys and the stash are unique]  and
+ * $this.size = [number of non-null keys in $this.keys] + $this.stashSize  and
+ * 0 <= $this.scan < |$this.keys|
+ *             </pre>
+ *
+ * @correspondence
+ *
+ *                 <pre>
+ * this = {(k, v): (K, V) where ([for some i, k = $this.keys[i] and
+ *                                v = $this.values[i]]  or
+ *                               [for some i < $this.stashSize,
+ *                                k = $this.stashKeys[i] and
+ *                                v = $this.stashValues[i]])}
+ *                 </pre>
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Map6<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of slots in each bucket.
+     */
+    private static final int SLOTS_PER_BUCKET = 4;
+
+    /**
+     * Number of slots in the stash.
+     */
+    private static final int STASH_SIZE = 4;
+
+    /**
+     * Default number of slots in the table.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Number of entries kicked out before an add gives up on the table.
+     */
+    private static final int MAX_KICKS = 256;
+
+    /**
+     * Multiplier mixing hash codes for the first hash function.
+     */
+    private static final int FIRST_MULTIPLIER = 0x9E3779B9;
+
+    /**
+     * Multiplier mixing hash codes for the second hash function.
+     */
+    private static final int SECOND_MULTIPLIER = 0x85EBCA6B;
+
+    /**
+     * Keys in the table slots; bucket b is slots [4b, 4b + 4).
+     */
+    private Object[] keys;
+
+    /**
+     * Values in the table slots.
+     */
+    private Object[] values;
+
+    /**
+     * Keys in the stash.
+     */
+    private Object[] stashKeys;
+
+    /**
+     * Values in the stash.
+     */
+    private Object[] stashValues;
+
+    /**
+     * Number of entries in the stash.
+     */
+    private int stashSize;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Mask selecting a bucket from a mixed hash code.
+     */
+    private int bucketMask;
+
+    /**
+     * Slot where {@code removeAny} starts looking for an entry: the one it
+     * last took an entry from, so that emptying the map with it scans the
+     * table once rather than once per entry.
+     */
+    private int scan;
+
+    /**
+     * Seed mixed into both hash functions; changed on every rebuild.
+     */
+    private int seed;
+
+    /**
+     * State of the generator choosing which slot a kick empties.
+     */
+    private int kickState;
+
+    /**
+     * Returns the first bucket for a key with hash code {@code hash}.
+     *
+     * @param hash
+     *            the hash code
+     * @return the first bucket
+     */
+    private int firstBucket(int hash) {
+        int h = (hash ^ this.seed) * FIRST_MULTIPLIER;
+        return (h ^ (h >>> 16)) & this.bucketMask;
+    }
+
+    /**
+     * Returns the second bucket for a key with hash code {@code hash}.
+     *
+     * @param hash
+     *            the hash code
+     * @return the second bucket
+     */
+    private int secondBucket(int hash) {
+        int h = (hash + this.seed) * SECOND_MULTIPLIER;
+        h ^= h >>> 15;
+        h *= FIRST_MULTIPLIER;
+        return (h ^ (h >>> 16)) & this.bucketMask;
+    }
+
+    /**
+     * Returns the table slot holding {@code key}, or -1 if it is in no bucket.
+     *
+     * @param key
+     *            the key
+     * @return the slot of key, or -1
+     */
+    private int tableSlotOf(Object key) {
+        int hash = key.hashCode();
+        int slot = -1;
+        int first = this.firstBucket(hash) * SLOTS_PER_BUCKET;
+        for (int i = first; slot < 0 && i < first + SLOTS_PER_BUCKET; i++) {
+            if (key.equals(this.keys[i])) {
+                slot = i;
+            }
+        }
+        int second = this.secondBucket(hash) * SLOTS_PER_BUCKET;
+        for (int i = second; slot < 0 && i < second + SLOTS_PER_BUCKET; i++) {
+            if (key.equals(this.keys[i])) {
+                slot = i;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the stash slot holding {@code key}, or -1 if it is not stashed.
+     *
+     * @param key
+     *            the key
+     * @return the stash slot of key, or -1
+     */
+    private int stashSlotOf(Object key) {
+        int slot = -1;
+        for (int i = 0; slot < 0 && i < this.stashSize; i++) {
+            if (key.equals(this.stashKeys[i])) {
+                slot = i;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Returns a free slot in {@code bucket}, or -1 if it is full.
+     *
+     * @param bucket
+     *            the bucket
+     * @return a free slot, or -1
+     */
+    private int freeSlotIn(int bucket) {
+        int slot = -1;
+        int first = bucket * SLOTS_PER_BUCKET;
+        for (int i = first; slot < 0 && i < first + SLOTS_PER_BUCKET; i++) {
+            if (this.keys[i] == null) {
+                slot = i;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Reports whether both buckets for hash code {@code hash} are full of keys
+     * with that hash code, so that no table size or seed can make room in
+     * them for another such key.
+     *
+     * @param hash
+     *            the hash code
+     * @return whether the buckets for hash hold only keys with hash code hash
+     */
+    private boolean bucketsFullOf(int hash) {
+        boolean full = true;
+        int first = this.firstBucket(hash) * SLOTS_PER_BUCKET;
+        int second = this.secondBucket(hash) * SLOTS_PER_BUCKET;
+        for (int i = 0; full && i < SLOTS_PER_BUCKET; i++) {
+            full = this.keys[first + i] != null
+                    && this.keys[first + i].hashCode() == hash
+                    && this.keys[second + i] != null
+                    && this.keys[second + i].hashCode() == hash;
+        }
+        return full;
+    }
+
+    /**
+     * Places the entry ({@code key}, {@code value}) in the table, kicking
+     * other entries to their other buckets as needed, or else in the stash.
+     * If neither works, returns the entry left without a place, which may be
+     * one that was kicked out rather than the one given. An entry whose
+     * buckets are full of keys with its hash code goes to the stash without
+     * kicking, growing the stash if it is full.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @return null, or a two-element array with the homeless key and value
+     * @updates $this.keys, $this.values, $this.stashKeys, $this.stashValues,
+     *          $this.stashSize
+     * @requires key is in no slot
+     * @ensures [the entries in the slots are those of #slots plus (key,
+     *          value), minus the returned entry if any]
+     */
+    private Object[] place(Object key, Object value) {
+        Object[] homeless = null;
+        Object k = key;
+        Object v = value;
+        int hash = k.hashCode();
+        int bucket = this.firstBucket(hash);
+        int slot = this.freeSlotIn(bucket);
+        if (slot < 0) {
+            bucket = this.secondBucket(hash);
+            slot = this.freeSlotIn(bucket);
+        }
+        boolean collided = slot < 0 && this.bucketsFullOf(hash);
+        int kicks = 0;
+        while (slot < 0 && !collided && kicks < MAX_KICKS) {
+            this.kickState ^= this.kickState << 13;
+            this.kickState ^= this.kickState >>> 17;
+            this.kickState ^= this.kickState << 5;
+            int victim = bucket * SLOTS_PER_BUCKET
+                    + (this.kickState & (SLOTS_PER_BUCKET - 1));
+            Object kickedKey = this.keys[victim];
+            Object kickedValue = this.values[victim];
+            this.keys[victim] = k;
+            this.values[victim] = v;
+            k = kickedKey;
+            v = kickedValue;
+            hash = k.hashCode();
+            int first = this.firstBucket(hash);
+            if (first == bucket) {
+                bucket = this.secondBucket(hash);
+            } else {
+                bucket = first;
+            }
+            slot = this.freeSlotIn(bucket);
+            kicks++;
+        }
+        if (collided && this.stashSize == this.stashKeys.length) {
+            int length = 2 * this.stashKeys.length;
+            this.stashKeys = Arrays.copyOf(this.stashKeys, length);
+            this.stashValues = Arrays.copyOf(this.stashValues, length);
+        }
+        if (slot >= 0) {
+            this.keys[slot] = k;
+            this.values[slot] = v;
+        } else if (this.stashSize < this.stashKeys.length) {
+            this.stashKeys[this.stashSize] = k;
+            this.stashValues[this.stashSize] = v;
+            this.stashSize++;
+        } else {
+            homeless = new Object[] { k, v };
+        }
+        return homeless;
+    }
+
+    /**
+     * Rebuilds the table with at least {@code capacity} slots and a new seed,
+     * holding the entries of the table and stash plus the entry in
+     * {@code extra}, doubling the capacity for as long as some entry cannot be
+     * placed.
+     *
+     * @param capacity
+     *            the least number of slots in the new table
+     * @param extra
+     *            a two-element array with one more key and value
+     * @updates $this
+     * @requires capacity is a power of 2 that is at least SLOTS_PER_BUCKET
+     * @ensures this = #this union {(extra[0], extra[1])}
+     */
+    private void rebuild(int capacity, Object[] extra) {
+        Object[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        Object[] oldStashKeys = this.stashKeys;
+        Object[] oldStashValues = this.stashValues;
+        int oldStashSize = this.stashSize;
+        int newCapacity = capacity;
+        boolean placedAll = false;
+        while (!placedAll) {
+            this.createTable(newCapacity);
+            this.seed += FIRST_MULTIPLIER;
+            placedAll = this.place(extra[0], extra[1]) == null;
+            for (int i = 0; placedAll && i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    placedAll = this.place(oldKeys[i], oldValues[i]) == null;
+                }
+            }
+            for (int i = 0; placedAll && i < oldStashSize; i++) {
+                placedAll = this.place(oldStashKeys[i],
+                        oldStashValues[i]) == null;
+            }
+            newCapacity *= 2;
+        }
+    }
+
+    /**
+     * Creates an empty table and stash with {@code capacity} table slots.
+     *
+     * @param capacity
+     *            the number of table slots
+     * @requires capacity is a power of 2 that is at least SLOTS_PER_BUCKET
+     * @ensures <pre>
+     * |$this.keys| = capacity  and  [all slots are null]  and
+     * $this.stashSize = 0
+     * </pre>
+     */
+    private void createTable(int capacity) {
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.stashKeys = new Object[STASH_SIZE];
+        this.stashValues = new Object[STASH_SIZE];
+        this.stashSize = 0;
+        this.bucketMask = capacity / SLOTS_PER_BUCKET - 1;
+        this.scan = 0;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the least number of table slots
+     * @requires capacity > 0
+     * @ensures <pre>
+     * |$this.keys| = [smallest power of 2 that is at least capacity and at
+     *                 least SLOTS_PER_BUCKET]  and
+     * this = {}
+     * </pre>
+     */
+    private void createNewRep(int capacity) {
+        int slots = SLOTS_PER_BUCKET;
+        while (slots < capacity) {
+            slots *= 2;
+        }
+        this.createTable(slots);
+        this.size = 0;
+        this.seed = 0;
+        this.kickState = FIRST_MULTIPLIER;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map6() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a table with at least {@code capacity} slots.
+     *
+     * @param capacity
+     *            least number of slots in the table
+     * @requires capacity > 0
+     * @ensures this = {}
+     */
+    public Map6(int capacity) {
+        this.createNewRep(capacity);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map6<?, ?> : ""
+                + "Violation of: source is of dynamic type Map6<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map6<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map6<K, V> localSource = (Map6<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.stashKeys = localSource.stashKeys;
+        this.stashValues = localSource.stashValues;
+        this.stashSize = localSource.stashSize;
+        this.size = localSource.size;
+        this.bucketMask = localSource.bucketMask;
+        this.seed = localSource.seed;
+        this.kickState = localSource.kickState;
+        this.scan = localSource.scan;
+        localSource.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        Object[] homeless = this.place(key, value);
+        if (homeless != null) {
+            this.rebuild(2 * this.keys.length, homeless);
+        }
+        this.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        Pair<K, V> removed;
+        int slot = this.tableSlotOf(key);
+        if (slot >= 0) {
+            removed = new SimplePair<K, V>((K) this.keys[slot],
+                    (V) this.values[slot]);
+            this.keys[slot] = null;
+            this.values[slot] = null;
+        } else {
+            slot = this.stashSlotOf(key);
+            removed = new SimplePair<K, V>((K) this.stashKeys[slot],
+                    (V) this.stashValues[slot]);
+            this.stashSize--;
+            this.stashKeys[slot] = this.stashKeys[this.stashSize];
+            this.stashValues[slot] = this.stashValues[this.stashSize];
+            this.stashKeys[this.stashSize] = null;
+            this.stashValues[this.stashSize] = null;
+        }
+        this.size--;
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        K key;
+        if (this.stashSize > 0) {
+            key = (K) this.stashKeys[0];
+        } else {
+            int last = this.keys.length - 1;
+            while (this.keys[this.scan] == null) {
+                this.scan = (this.scan + 1) & last;
+            }
+            key = (K) this.keys[this.scan];
+        }
+        return this.remove(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        V value;
+        int slot = this.tableSlotOf(key);
+        if (slot >= 0) {
+            value = (V) this.values[slot];
+        } else {
+            value = (V) this.stashValues[this.stashSlotOf(key)];
+        }
+        return value;
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.tableSlotOf(key) >= 0 || this.stashSlotOf(key) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map6Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the number of slots in the table, which only grows when an add
+     * finds no room (so |this| / capacity is the load the table reached).
+     *
+     * @return the number of table slots
+     */
+    public final int capacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map6}, which
+     * visits the table slots in order and then the stash.
+     */
+    private final class Map6Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Next slot to look at; slots past the table are stash slots.
+         */
+        private int nextSlot;
+
+        /**
+         * No-argument constructor.
+         */
+        Map6Iterator() {
+            this.numberSeen = 0;
+            this.nextSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Map6.this.size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Object[] keys = Map6.this.keys;
+            while (this.nextSlot < keys.length && keys[this.nextSlot] == null) {
+                this.nextSlot++;
+            }
+            Pair<K, V> next;
+            if (this.nextSlot < keys.length) {
+                next = new SimplePair<K, V>((K) keys[this.nextSlot],
+                        (V) Map6.this.values[this.nextSlot]);
+            } else {
+                int i = this.nextSlot - keys.length;
+                next = new SimplePair<K, V>((K) Map6.this.stashKeys[i],
+                        (V) Map6.this.stashValues[i]);
+            }
+            this.nextSlot++;
+            this.numberSeen++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,652 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as an open-addressing hash table probed a group of
+ * eight slots at a time, with implementations of primary methods.
+ *
+ * <p>
+ * Besides its key and value, every slot has a control byte: {@code EMPTY},
+ * {@code DELETED}, or, for a full slot, the low seven bits of its key's mixed
+ * hash code. The control bytes of a group of eight slots are packed into one
+ * {@code long}, so a lookup reads one word, finds every slot of the group whose
+ * control byte matches its key's seven bits with a few arithmetic operations on
+ * that word, and compares keys only in those slots (nearly always just the
+ * right one). The group to start at comes from the other bits of the hash
+ * code; a lookup moves on to further groups (1, 2, 3, ... groups further on)
+ * only if the group has no {@code EMPTY} slot, which at the maximum load of
+ * 7/8 is rare. A removed entry's slot becomes {@code DELETED} unless its group
+ * has an {@code EMPTY} slot; the table is rebuilt when {@code EMPTY} slots run
+ * out, at the same size if that is enough to clear the {@code DELETED} ones
+ * and twice as large otherwise.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention
+ *
+ *             <pre>
+ * |$this.keys| = |$this.values| = 8 * |$this.control|  and
+ * |$this.control| is a power of 2  and
+ * [byte j of $this.control[g] (bits 8j to 8j + 7) is the control byte of slot
+ *  8g + j]  and
+ * [a slot's control byte is EMPTY or DELETED iff its key and value are null,
+ *  and otherwise is h2(hash(key))]  and
+ * [each non-null key is found by probing from group h1(hash(key)) without
+ *  passing a group that has an EMPTY control byte]  and
+ * [the non-null keys are unique]  and
+ * $this.size = [number of non-null keys]  and
+ * $this.growthLeft = 7 * |$this.keys| / 8 - $this.size -
+ *                    [number of DELETED control bytes]  and
+ * 0 <= $this.scan < |$this.keys|
+ *             </pre>
+ *
+ * @correspondence
+ *
+ *                 <pre>
+ * this = {(k, v): (K, V) where (for some i
+ *                               (k = $this.keys[i] and v = $this.values[i]))}
+ *                 </pre>
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Map7<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of slots in each group.
+     */
+    private static final int GROUP_WIDTH = 8;
+
+    /**
+     * Default number of slots in the table.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Control byte of a slot that has never been used since the last rebuild.
+     */
+    private static final int EMPTY = 0x80;
+
+    /**
+     * Control byte of a slot whose entry was removed.
+     */
+    private static final int DELETED = 0xFE;
+
+    /**
+     * Eight {@code EMPTY} control bytes.
+     */
+    private static final long ALL_EMPTY = 0x8080808080808080L;
+
+    /**
+     * The lowest bit of every byte.
+     */
+    private static final long LSBS = 0x0101010101010101L;
+
+    /**
+     * The highest bit of every byte.
+     */
+    private static final long MSBS = 0x8080808080808080L;
+
+    /**
+     * Multiplier mixing hash codes.
+     */
+    private static final int MULTIPLIER = 0x9E3779B9;
+
+    /**
+     * Control bytes, one group of eight slots per {@code long}.
+     */
+    private long[] control;
+
+    /**
+     * Keys in the slots.
+     */
+    private Object[] keys;
+
+    /**
+     * Values in the slots.
+     */
+    private Object[] values;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Number of entries that can still be added before a rebuild.
+     */
+    private int growthLeft;
+
+    /**
+     * Slot where {@code removeAny} starts looking for an entry: the one it
+     * last took an entry from, so that emptying the map with it scans the
+     * table once rather than once per entry.
+     */
+    private int scan;
+
+    /**
+     * Mixes the hash code of {@code key}.
+     *
+     * @param key
+     *            the key
+     * @return the mixed hash code
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * MULTIPLIER;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the seven bits of {@code hash} kept in the control byte.
+     *
+     * @param hash
+     *            the mixed hash code
+     * @return h2(hash)
+     */
+    private static int h2(int hash) {
+        return hash & 0x7F;
+    }
+
+    /**
+     * Returns the group at which probing for {@code hash} starts.
+     *
+     * @param hash
+     *            the mixed hash code
+     * @param groupMask
+     *            the number of groups minus one
+     * @return h1(hash)
+     */
+    private static int h1(int hash, int groupMask) {
+        return (hash >>> 7) & groupMask;
+    }
+
+    /**
+     * Returns a word with the high bit set in every byte of {@code group}
+     * equal to {@code h2}. It may also have the high bit set in a byte that
+     * follows a match, so callers must check the key.
+     *
+     * @param group
+     *            eight control bytes
+     * @param h2
+     *            the seven hash bits looked for
+     * @return the matching bytes' high bits
+     */
+    private static long match(long group, int h2) {
+        long x = group ^ (LSBS * h2);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /**
+     * Returns a word with the high bit set in exactly the {@code EMPTY} bytes
+     * of {@code group}.
+     *
+     * @param group
+     *            eight control bytes
+     * @return the empty bytes' high bits
+     */
+    private static long matchEmpty(long group) {
+        /*
+         * EMPTY (1000 0000) is the only control byte with its high bit set and
+         * its second lowest bit clear.
+         */
+        return group & (~group << 6) & MSBS;
+    }
+
+    /**
+     * Returns a word with the high bit set in exactly the {@code EMPTY} and
+     * {@code DELETED} bytes of {@code group}.
+     *
+     * @param group
+     *            eight control bytes
+     * @return the empty and deleted bytes' high bits
+     */
+    private static long matchEmptyOrDeleted(long group) {
+        return group & MSBS;
+    }
+
+    /**
+     * Returns the position in its group of the lowest byte flagged in
+     * {@code bits}.
+     *
+     * @param bits
+     *            high bits of bytes, not all zero
+     * @return the index of the lowest flagged byte
+     */
+    private static int lowestByte(long bits) {
+        return Long.numberOfTrailingZeros(bits) >>> 3;
+    }
+
+    /**
+     * Sets the control byte of {@code slot} to {@code b}.
+     *
+     * @param slot
+     *            the slot
+     * @param b
+     *            the new control byte
+     * @updates $this.control
+     */
+    private void setControl(int slot, int b) {
+        int shift = (slot & (GROUP_WIDTH - 1)) * Byte.SIZE;
+        int g = slot / GROUP_WIDTH;
+        this.control[g] = (this.control[g] & ~(0xFFL << shift))
+                | ((long) b << shift);
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or -1 if there is none.
+     *
+     * @param key
+     *            the key
+     * @return the slot of key, or -1
+     */
+    private int slotOf(Object key) {
+        int hash = hash(key);
+        int h2 = h2(hash);
+        int groupMask = this.control.length - 1;
+        int g = h1(hash, groupMask);
+        int step = 0;
+        int slot = -1;
+        while (slot < 0) {
+            long group = this.control[g];
+            long candidates = match(group, h2);
+            while (candidates != 0 && slot < 0) {
+                int i = g * GROUP_WIDTH + lowestByte(candidates);
+                if (key.equals(this.keys[i])) {
+                    slot = i;
+                }
+                candidates &= candidates - 1;
+            }
+            if (slot < 0 && matchEmpty(group) != 0) {
+                /*
+                 * The key would have been put in this group's empty slot if it
+                 * had not found a place in an earlier group.
+                 */
+                break;
+            }
+            step++;
+            g = (g + step) & groupMask;
+        }
+        return slot;
+    }
+
+    /**
+     * Puts ({@code key}, {@code value}) in the first {@code EMPTY} or
+     * {@code DELETED} slot on its probe sequence.
+     *
+     * @param hash
+     *            the mixed hash code of key
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @updates $this
+     * @requires key is not in the table and the table has an EMPTY slot
+     */
+    private void insert(int hash, Object key, Object value) {
+        int groupMask = this.control.length - 1;
+        int g = h1(hash, groupMask);
+        int step = 0;
+        long free = matchEmptyOrDeleted(this.control[g]);
+        while (free == 0) {
+            step++;
+            g = (g + step) & groupMask;
+            free = matchEmptyOrDeleted(this.control[g]);
+        }
+        int slot = g * GROUP_WIDTH + lowestByte(free);
+        if (((this.control[g] >>> (lowestByte(free) * Byte.SIZE))
+                & 0xFF) == EMPTY) {
+            this.growthLeft--;
+        }
+        this.setControl(slot, h2(hash));
+        this.keys[slot] = key;
+        this.values[slot] = value;
+    }
+
+    /**
+     * Rebuilds the table with at least {@code capacity} slots, putting every
+     * entry back and clearing all {@code DELETED} slots.
+     *
+     * @param capacity
+     *            the least number of slots
+     * @updates $this
+     * @requires capacity > $this.size * 8 / 7
+     * @ensures this = #this
+     */
+    private void rebuild(int capacity) {
+        Object[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        int oldSize = this.size;
+        this.createTable(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                this.insert(hash(oldKeys[i]), oldKeys[i], oldValues[i]);
+            }
+        }
+        this.size = oldSize;
+    }
+
+    /**
+     * Creates an empty table with at least {@code capacity} slots.
+     *
+     * @param capacity
+     *            the least number of slots
+     * @ensures <pre>
+     * |$this.keys| = [smallest power of 2 that is at least capacity and at
+     *                 least GROUP_WIDTH]  and
+     * [all slots are EMPTY]  and  $this.size = 0
+     * </pre>
+     */
+    private void createTable(int capacity) {
+        int slots = GROUP_WIDTH;
+        while (slots < capacity) {
+            slots *= 2;
+        }
+        this.control = new long[slots / GROUP_WIDTH];
+        Arrays.fill(this.control, ALL_EMPTY);
+        this.keys = new Object[slots];
+        this.values = new Object[slots];
+        this.size = 0;
+        this.growthLeft = slots - slots / GROUP_WIDTH;
+        this.scan = 0;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the least number of slots
+     * @requires capacity > 0
+     * @ensures this = {}
+     */
+    private void createNewRep(int capacity) {
+        this.createTable(capacity);
+    }
+
+    /**
+     * Empties the full slot {@code slot}.
+     *
+     * @param slot
+     *            the slot
+     * @updates this
+     * @requires $this.keys[slot] /= null
+     * @ensures this = #this \ {($this.keys[slot], $this.values[slot])}
+     */
+    private void clearSlot(int slot) {
+        this.keys[slot] = null;
+        this.values[slot] = null;
+        if (matchEmpty(this.control[slot / GROUP_WIDTH]) != 0) {
+            /*
+             * No probe sequence has gone past this group, so the slot can be
+             * made EMPTY again.
+             */
+            this.setControl(slot, EMPTY);
+            this.growthLeft++;
+        } else {
+            this.setControl(slot, DELETED);
+        }
+        this.size--;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map7() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a table with at least {@code capacity} slots.
+     *
+     * @param capacity
+     *            least number of slots in the table
+     * @requires capacity > 0
+     * @ensures this = {}
+     */
+    public Map7(int capacity) {
+        this.createNewRep(capacity);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map7<?, ?> : ""
+                + "Violation of: source is of dynamic type Map7<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map7<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map7<K, V> localSource = (Map7<K, V>) source;
+        this.control = localSource.control;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.size = localSource.size;
+        this.growthLeft = localSource.growthLeft;
+        this.scan = localSource.scan;
+        localSource.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        if (this.growthLeft == 0) {
+            int capacity = this.keys.length;
+            if (this.size >= capacity * 7 / 16) {
+                capacity *= 2;
+            }
+            this.rebuild(capacity);
+        }
+        this.insert(hash(key), key, value);
+        this.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int slot = this.slotOf(key);
+        Pair<K, V> removed = new SimplePair<K, V>((K) this.keys[slot],
+                (V) this.values[slot]);
+        this.clearSlot(slot);
+        return removed;
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int last = this.keys.length - 1;
+        while (this.keys[this.scan] == null) {
+            this.scan = (this.scan + 1) & last;
+        }
+        @SuppressWarnings("unchecked")
+        K key = (K) this.keys[this.scan];
+        return this.remove(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return (V) this.values[this.slotOf(key)];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.slotOf(key) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map7Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns the value associated with {@code key}, or null if there is none,
+     * with a single lookup.
+     *
+     * @param key
+     *            the key
+     * @return the value for key, or null
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then (key, valueIfPresent) is in this
+     * else valueIfPresent = null
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public final V valueIfPresent(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int slot = this.slotOf(key);
+        V value = null;
+        if (slot >= 0) {
+            value = (V) this.values[slot];
+        }
+        return value;
+    }
+
+    /**
+     * Removes the pair whose key is {@code key}, if any, with a single lookup,
+     * and returns its value, or null if there was none.
+     *
+     * @param key
+     *            the key
+     * @return the value removed for key, or null
+     * @updates this
+     * @ensures <pre>
+     * this = #this \ {(key, v) for any v}  and
+     * if key is in DOMAIN(#this) then (key, removeIfPresent) is in #this
+     * else removeIfPresent = null
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public final V removeIfPresent(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int slot = this.slotOf(key);
+        V value = null;
+        if (slot >= 0) {
+            value = (V) this.values[slot];
+            this.clearSlot(slot);
+        }
+        return value;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map7}, which
+     * visits the slots in order.
+     */
+    private final class Map7Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Next slot to look at.
+         */
+        private int nextSlot;
+
+        /**
+         * No-argument constructor.
+         */
+        Map7Iterator() {
+            this.numberSeen = 0;
+            this.nextSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Map7.this.size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Object[] keys = Map7.this.keys;
+            while (keys[this.nextSlot] == null) {
+                this.nextSlot++;
+            }
+            Pair<K, V> next = new SimplePair<K, V>((K) keys[this.nextSlot],
+                    (V) Map7.this.values[this.nextSlot]);
+            this.nextSlot++;
+            this.numberSeen++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
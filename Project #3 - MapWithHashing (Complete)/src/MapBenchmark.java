@@ -0,0 +1,194 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.function.Function;
+
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Measures the latency of successful {@code value} lookups in the {@code Map}
+ * implementations of this project, and of {@code get} in
+ * {@code java.util.HashMap} for comparison, for {@code String} and
+ * {@code Integer} keys at several load factors. Each lookup is timed on its
+ * own, so the figures include the cost of reading the clock, which is the same
+ * for all implementations; run with assertions disabled. The number of slots
+ * is 2^20 unless another power of 2 is given as the command line argument
+ * (e.g., 23 for about 10^7 entries, which needs a large heap). {@code Map7}
+ * never fills past 7/8 of its slots, so at load factor 0.9 it has twice as
+ * many.
+ *
+ * @author Jatin Mamtani
+ */
+public final class MapBenchmark {
+
+    /**
+     * Default log base 2 of the number of table slots (or buckets, for
+     * {@code Map4}) in every map.
+     */
+    private static final int DEFAULT_LOG_CAPACITY = 20;
+
+    /**
+     * Load factors (entries per slot or bucket) to measure.
+     */
+    private static final double[] LOAD_FACTORS = { 0.5, 0.75, 0.9 };
+
+    /**
+     * Number of timed lookups per measurement.
+     */
+    private static final int LOOKUPS = 1_000_000;
+
+    /**
+     * Number of untimed lookups run first to warm up the JIT compiler.
+     */
+    private static final int WARMUP_LOOKUPS = 2_000_000;
+
+    /**
+     * Seed for the random lookup order, so runs are comparable.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * No argument constructor--private to prevent instantiation.
+     */
+    private MapBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Fills {@code m} with the given keys, each mapped to its index, then
+     * reports the mean, median, 99th and 99.9th percentile latencies of
+     * looking up randomly chosen keys.
+     *
+     * @param <K>
+     *            type of keys
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation measured
+     * @param m
+     *            the (empty) map to measure
+     * @param keys
+     *            the keys, all distinct
+     * @updates out.content, m
+     * @requires out.is_open and m = {}
+     * @ensures out.content = #out.content * [one line of results]
+     */
+    private static <K> void measure(SimpleWriter out, String name,
+            Map<K, Integer> m, K[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            m.add(keys[i], i);
+        }
+        time(out, name, m::value, keys);
+    }
+
+    /**
+     * Reports the mean, median, 99th and 99.9th percentile latencies of
+     * {@code lookup} on randomly chosen keys.
+     *
+     * @param <K>
+     *            type of keys
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation measured
+     * @param lookup
+     *            returns the value of a key
+     * @param keys
+     *            the keys, all of which lookup knows
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [one line of results]
+     */
+    private static <K> void time(SimpleWriter out, String name,
+            Function<K, Integer> lookup, K[] keys) {
+        Random random = new Random(SEED);
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_LOOKUPS; i++) {
+            checksum += lookup.apply(keys[random.nextInt(keys.length)]);
+        }
+        long[] nanos = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            K key = keys[random.nextInt(keys.length)];
+            long start = System.nanoTime();
+            checksum += lookup.apply(key);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long total = 0;
+        for (long t : nanos) {
+            total += t;
+        }
+        final double p50 = 0.5;
+        final double p99 = 0.99;
+        final double p999 = 0.999;
+        out.println(String.format(
+                "  %-8s mean %6.1f ns  p50 %5d  p99 %6d  p99.9 %7d  (%d)",
+                name, (double) total / LOOKUPS,
+                nanos[(int) (p50 * LOOKUPS)], nanos[(int) (p99 * LOOKUPS)],
+                nanos[(int) (p999 * LOOKUPS)], checksum % 2));
+    }
+
+    /**
+     * Measures every implementation with the given keys.
+     *
+     * @param <K>
+     *            type of keys
+     * @param out
+     *            the output stream
+     * @param capacity
+     *            the number of slots (or buckets) in each map
+     * @param keys
+     *            the keys, all distinct
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [results for every map]
+     */
+    private static <K> void measureAll(SimpleWriter out, int capacity,
+            K[] keys) {
+        measure(out, "Map4", new Map4<K, Integer>(capacity), keys);
+        measure(out, "Map6", new Map6<K, Integer>(capacity), keys);
+        measure(out, "Map7", new Map7<K, Integer>(capacity), keys);
+        /*
+         * HashMap resizes past its load factor, so give it one high enough
+         * to keep the same number of slots as the others.
+         */
+        HashMap<K, Integer> hashMap = new HashMap<K, Integer>(capacity, 1.0f);
+        for (int i = 0; i < keys.length; i++) {
+            hashMap.put(keys[i], i);
+        }
+        time(out, "HashMap", hashMap::get, keys);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optionally, the log base 2 of
+     *            the number of slots
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int logCapacity = DEFAULT_LOG_CAPACITY;
+        if (args.length > 0) {
+            logCapacity = Integer.parseInt(args[0]);
+        }
+        int capacity = 1 << logCapacity;
+        for (double loadFactor : LOAD_FACTORS) {
+            int n = (int) (loadFactor * capacity);
+            Integer[] integerKeys = new Integer[n];
+            String[] stringKeys = new String[n];
+            for (int i = 0; i < n; i++) {
+                integerKeys[i] = i;
+                stringKeys[i] = "key-" + Integer.toHexString(i * 0x9E3779B9);
+            }
+            out.println("Integer keys, load factor " + loadFactor + ":");
+            measureAll(out, capacity, integerKeys);
+            out.println("String keys, load factor " + loadFactor + ":");
+            measureAll(out, capacity, stringKeys);
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,799 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} with {@code String} keys represented as a hash table, with
+ * implementations of primary methods. The characters of all keys are stored
+ * one after another in a single {@code char} array (the arena), and each
+ * entry records where its key starts in the arena, its length, and its hash
+ * code, so a lookup compares hash codes and then characters in the arena
+ * rather than calling {@code String.equals}. Besides the {@code Map} methods,
+ * keys can be looked up from any {@code CharSequence} or from a range of a
+ * {@code char} array, without creating a {@code String}, and {@code storedKey}
+ * returns the {@code String} already in the map, so a tokenizer can count
+ * words straight from its input buffer and allocate only one {@code String}
+ * per distinct word.
+ *
+ * <p>
+ * Entries are kept densely in parallel arrays and chained by index; the
+ * buckets use the same prime sizes and {@code mod} as {@code Map4}, and the
+ * hash code of a key is {@code String.hashCode()} of it.
+ *
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention
+ *
+ *             <pre>
+ * |$this.buckets| > 0  and  0 <= $this.size <= |$this.keys|  and
+ * for all e: integer where (0 <= e < $this.size)
+ *   ($this.keys[e] /= null  and  $this.values[e] /= null  and
+ *    $this.hashes[e] = $this.keys[e].hashCode()  and
+ *    $this.arena[$this.starts[e], $this.starts[e] + $this.lengths[e]) =
+ *      $this.keys[e]  and
+ *    [e is in exactly one chain, that of bucket
+ *     Map4.mod($this.hashes[e], |$this.buckets|)])  and
+ * [chains link entries through $this.next, end with -1, and contain only
+ *  entries e with 0 <= e < $this.size]  and
+ * [the keys of the entries are unique]  and
+ * $this.liveChars = sum of $this.lengths[e] for 0 <= e < $this.size  and
+ * $this.liveChars <= $this.arenaUsed <= |$this.arena|
+ *             </pre>
+ *
+ * @correspondence
+ *
+ *                 <pre>
+ * this = {($this.keys[e], $this.values[e]): 0 <= e < $this.size}
+ *                 </pre>
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class StringMap4<V> extends MapSecondary<String, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default size of hash table.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 101;
+
+    /**
+     * Initial number of entry slots.
+     */
+    private static final int INITIAL_ENTRIES = 16;
+
+    /**
+     * Initial arena length, in chars.
+     */
+    private static final int INITIAL_ARENA = 256;
+
+    /**
+     * First entry of each bucket's chain, or -1.
+     */
+    private int[] buckets;
+
+    /**
+     * Next entry in the same chain, or -1, for each entry.
+     */
+    private int[] next;
+
+    /**
+     * Hash code of the key of each entry.
+     */
+    private int[] hashes;
+
+    /**
+     * Start in the arena of the key of each entry.
+     */
+    private int[] starts;
+
+    /**
+     * Length of the key of each entry.
+     */
+    private int[] lengths;
+
+    /**
+     * Key of each entry, as the {@code String} that was added.
+     */
+    private String[] keys;
+
+    /**
+     * Value of each entry.
+     */
+    private Object[] values;
+
+    /**
+     * Characters of the keys.
+     */
+    private char[] arena;
+
+    /**
+     * Number of chars of the arena in use, including those of removed keys.
+     */
+    private int arenaUsed;
+
+    /**
+     * Number of chars of the arena belonging to keys still in the map.
+     */
+    private int liveChars;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Computes the hash code of {@code buffer[from, to)}, which is the same as
+     * that of the {@code String} with those characters.
+     *
+     * @param buffer
+     *            the characters
+     * @param from
+     *            the start of the range
+     * @param to
+     *            the end of the range
+     * @return the hash code
+     * @ensures hashOf = new String(buffer, from, to - from).hashCode()
+     */
+    private static int hashOf(char[] buffer, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + buffer[i];
+        }
+        return h;
+    }
+
+    /**
+     * Computes the hash code of {@code chars}, which is the same as that of
+     * the {@code String} with those characters.
+     *
+     * @param chars
+     *            the characters
+     * @return the hash code
+     * @ensures hashOf = chars.toString().hashCode()
+     */
+    private static int hashOf(CharSequence chars) {
+        int h;
+        if (chars instanceof String) {
+            h = chars.hashCode();
+        } else {
+            h = 0;
+            for (int i = 0; i < chars.length(); i++) {
+                h = 31 * h + chars.charAt(i);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Returns the entry whose key has the characters {@code buffer[from, to)},
+     * or -1 if there is none.
+     *
+     * @param buffer
+     *            the characters
+     * @param from
+     *            the start of the range
+     * @param to
+     *            the end of the range
+     * @return the entry of the key, or -1
+     * @requires 0 <= from <= to <= |buffer|
+     */
+    private int find(char[] buffer, int from, int to) {
+        int length = to - from;
+        int hash = hashOf(buffer, from, to);
+        int e = this.buckets[Map4.mod(hash, this.buckets.length)];
+        while (e >= 0 && (this.hashes[e] != hash || this.lengths[e] != length
+                || !this.arenaEquals(this.starts[e], buffer, from, to))) {
+            e = this.next[e];
+        }
+        return e;
+    }
+
+    /**
+     * Returns the entry whose key has the characters of {@code chars}, or -1
+     * if there is none.
+     *
+     * @param chars
+     *            the characters
+     * @return the entry of the key, or -1
+     */
+    private int find(CharSequence chars) {
+        int length = chars.length();
+        int hash = hashOf(chars);
+        int e = this.buckets[Map4.mod(hash, this.buckets.length)];
+        while (e >= 0 && (this.hashes[e] != hash || this.lengths[e] != length
+                || !this.arenaEquals(this.starts[e], chars))) {
+            e = this.next[e];
+        }
+        return e;
+    }
+
+    /**
+     * Reports whether the arena holds the characters of {@code chars} starting
+     * at {@code start}.
+     *
+     * @param start
+     *            where to start in the arena
+     * @param chars
+     *            the characters
+     * @return whether arena[start, start + |chars|) = chars
+     * @requires start + |chars| <= $this.arenaUsed
+     */
+    private boolean arenaEquals(int start, CharSequence chars) {
+        int i = 0;
+        while (i < chars.length() && this.arena[start + i] == chars.charAt(i)) {
+            i++;
+        }
+        return i == chars.length();
+    }
+
+    /**
+     * Reports whether the arena holds the characters {@code buffer[from, to)}
+     * starting at {@code start}.
+     *
+     * @param start
+     *            where to start in the arena
+     * @param buffer
+     *            the characters
+     * @param from
+     *            the start of the range
+     * @param to
+     *            the end of the range
+     * @return whether arena[start, start + to - from) = buffer[from, to)
+     * @requires <pre>
+     * 0 <= from <= to <= |buffer|  and
+     * start + to - from <= $this.arenaUsed
+     * </pre>
+     */
+    private boolean arenaEquals(int start, char[] buffer, int from, int to) {
+        int i = from;
+        int j = start;
+        while (i < to && this.arena[j] == buffer[i]) {
+            i++;
+            j++;
+        }
+        return i == to;
+    }
+
+    /**
+     * Returns the entry of {@code key}, asserting that there is one.
+     *
+     * @param e
+     *            the result of a find
+     * @return e
+     * @requires e >= 0
+     */
+    private static int found(int e) {
+        assert e >= 0 : "Violation of: key is in DOMAIN(this)";
+        return e;
+    }
+
+    /**
+     * Makes room in the arena for {@code length} more chars, compacting it if
+     * at least half of it belongs to removed keys and growing it otherwise.
+     *
+     * @param length
+     *            the number of chars needed
+     * @updates $this.arena, $this.arenaUsed, $this.starts
+     * @ensures $this.arenaUsed + length <= |$this.arena|  and  this = #this
+     */
+    private void reserveArena(int length) {
+        if (this.arenaUsed + length > this.arena.length) {
+            int needed = this.liveChars + length;
+            int capacity = this.arena.length;
+            if (this.arenaUsed - this.liveChars < this.arena.length / 2
+                    || needed > capacity) {
+                capacity = Math.max(2 * capacity, needed);
+            }
+            char[] compacted = new char[capacity];
+            int used = 0;
+            for (int e = 0; e < this.size; e++) {
+                System.arraycopy(this.arena, this.starts[e], compacted, used,
+                        this.lengths[e]);
+                this.starts[e] = used;
+                used += this.lengths[e];
+            }
+            this.arena = compacted;
+            this.arenaUsed = used;
+        }
+    }
+
+    /**
+     * Grows the entry arrays, and the bucket array when there are more entries
+     * than buckets, so that one more entry can be added.
+     *
+     * @updates $this
+     * @ensures $this.size < |$this.keys|  and  this = #this
+     */
+    private void reserveEntry() {
+        if (this.size == this.keys.length) {
+            int capacity = 2 * this.keys.length;
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.hashes = Arrays.copyOf(this.hashes, capacity);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.lengths = Arrays.copyOf(this.lengths, capacity);
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+        if (this.size >= this.buckets.length) {
+            this.buckets = new int[Map4.nextPrime(2 * this.buckets.length)];
+            Arrays.fill(this.buckets, -1);
+            for (int e = 0; e < this.size; e++) {
+                int b = Map4.mod(this.hashes[e], this.buckets.length);
+                this.next[e] = this.buckets[b];
+                this.buckets[b] = e;
+            }
+        }
+    }
+
+    /**
+     * Replaces the link to entry {@code from} (from its bucket or from the
+     * entry before it in the chain) with {@code to}.
+     *
+     * @param from
+     *            the entry now linked to
+     * @param to
+     *            what to link to instead
+     * @updates $this.buckets, $this.next
+     * @requires 0 <= from < $this.size
+     */
+    private void relink(int from, int to) {
+        int b = Map4.mod(this.hashes[from], this.buckets.length);
+        if (this.buckets[b] == from) {
+            this.buckets[b] = to;
+        } else {
+            int e = this.buckets[b];
+            while (this.next[e] != from) {
+                e = this.next[e];
+            }
+            this.next[e] = to;
+        }
+    }
+
+    /**
+     * Removes entry {@code e}, moving the last entry into its place so the
+     * entries stay dense.
+     *
+     * @param e
+     *            the entry to remove
+     * @return the removed pair
+     * @updates this
+     * @requires 0 <= e < $this.size
+     * @ensures this = #this \ {($this.keys[e], $this.values[e])}
+     */
+    @SuppressWarnings("unchecked")
+    private Pair<String, V> removeEntry(int e) {
+        Pair<String, V> removed = new SimplePair<String, V>(this.keys[e],
+                (V) this.values[e]);
+        this.relink(e, this.next[e]);
+        this.liveChars -= this.lengths[e];
+        int last = this.size - 1;
+        if (e != last) {
+            this.relink(last, e);
+            this.next[e] = this.next[last];
+            this.hashes[e] = this.hashes[last];
+            this.starts[e] = this.starts[last];
+            this.lengths[e] = this.lengths[last];
+            this.keys[e] = this.keys[last];
+            this.values[e] = this.values[last];
+        }
+        this.keys[last] = null;
+        this.values[last] = null;
+        this.size = last;
+        return removed;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param hashTableSize
+     *            the size of the hash table
+     * @requires hashTableSize > 0
+     * @ensures |$this.buckets| = hashTableSize  and  this = {}
+     */
+    private void createNewRep(int hashTableSize) {
+        this.buckets = new int[hashTableSize];
+        Arrays.fill(this.buckets, -1);
+        this.next = new int[INITIAL_ENTRIES];
+        this.hashes = new int[INITIAL_ENTRIES];
+        this.starts = new int[INITIAL_ENTRIES];
+        this.lengths = new int[INITIAL_ENTRIES];
+        this.keys = new String[INITIAL_ENTRIES];
+        this.values = new Object[INITIAL_ENTRIES];
+        this.arena = new char[INITIAL_ARENA];
+        this.arenaUsed = 0;
+        this.liveChars = 0;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public StringMap4() {
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Constructor resulting in a hash table of size {@code hashTableSize}.
+     *
+     * @param hashTableSize
+     *            size of hash table
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public StringMap4(int hashTableSize) {
+        this.createNewRep(hashTableSize);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<String, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    @Override
+    public final void transferFrom(Map<String, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof StringMap4<?> : ""
+                + "Violation of: source is of dynamic type StringMap4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * StringMap4<?>, and the ? must be V or the call would not have
+         * compiled.
+         */
+        StringMap4<V> localSource = (StringMap4<V>) source;
+        this.buckets = localSource.buckets;
+        this.next = localSource.next;
+        this.hashes = localSource.hashes;
+        this.starts = localSource.starts;
+        this.lengths = localSource.lengths;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.arena = localSource.arena;
+        this.arenaUsed = localSource.arenaUsed;
+        this.liveChars = localSource.liveChars;
+        this.size = localSource.size;
+        localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(String key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        int length = key.length();
+        this.reserveEntry();
+        this.reserveArena(length);
+        int e = this.size;
+        key.getChars(0, length, this.arena, this.arenaUsed);
+        this.starts[e] = this.arenaUsed;
+        this.lengths[e] = length;
+        this.hashes[e] = key.hashCode();
+        this.keys[e] = key;
+        this.values[e] = value;
+        int b = Map4.mod(this.hashes[e], this.buckets.length);
+        this.next[e] = this.buckets[b];
+        this.buckets[b] = e;
+        this.arenaUsed += length;
+        this.liveChars += length;
+        this.size++;
+    }
+
+    @Override
+    public final Pair<String, V> remove(String key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.removeEntry(found(this.find(key)));
+    }
+
+    @Override
+    public final Pair<String, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        return this.removeEntry(this.size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final V value(String key) {
+        assert key != null : "Violation of: key is not null";
+
+        return (V) this.values[found(this.find(key))];
+    }
+
+    @Override
+    public final boolean hasKey(String key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.find(key) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<String, V>> iterator() {
+        return new StringMap4Iterator();
+    }
+
+    /*
+     * Lookups without a String -----------------------------------------------
+     */
+
+    /**
+     * Reports whether there is a key with the characters of {@code chars}.
+     *
+     * @param chars
+     *            the characters of the key
+     * @return true iff there is a pair in this whose first component is chars
+     * @ensures hasKey = (chars is in DOMAIN(this))
+     */
+    public final boolean hasKey(CharSequence chars) {
+        assert chars != null : "Violation of: chars is not null";
+
+        return this.find(chars) >= 0;
+    }
+
+    /**
+     * Reports whether there is a key with the characters
+     * {@code buffer[from, to)}.
+     *
+     * @param buffer
+     *            the characters
+     * @param from
+     *            the start of the key in buffer
+     * @param to
+     *            the end of the key in buffer
+     * @return true iff there is a pair in this whose first component is
+     *         buffer[from, to)
+     * @requires 0 <= from <= to <= |buffer|
+     * @ensures hasKey = (buffer[from, to) is in DOMAIN(this))
+     */
+    public final boolean hasKey(char[] buffer, int from, int to) {
+        assert buffer != null : "Violation of: buffer is not null";
+        assert 0 <= from && from <= to && to <= buffer.length : ""
+                + "Violation of: 0 <= from <= to <= |buffer|";
+
+        return this.find(buffer, from, to) >= 0;
+    }
+
+    /**
+     * Reports the value associated with the key with the characters of
+     * {@code chars}.
+     *
+     * @param chars
+     *            the characters of the key
+     * @return the value associated with chars
+     * @requires chars is in DOMAIN(this)
+     * @ensures (chars, value) is in this
+     */
+    @SuppressWarnings("unchecked")
+    public final V value(CharSequence chars) {
+        assert chars != null : "Violation of: chars is not null";
+
+        return (V) this.values[found(this.find(chars))];
+    }
+
+    /**
+     * Reports the value associated with the key with the characters
+     * {@code buffer[from, to)}.
+     *
+     * @param buffer
+     *            the characters
+     * @param from
+     *            the start of the key in buffer
+     * @param to
+     *            the end of the key in buffer
+     * @return the value associated with buffer[from, to)
+     * @requires <pre>
+     * 0 <= from <= to <= |buffer|  and
+     * buffer[from, to) is in DOMAIN(this)
+     * </pre>
+     * @ensures (buffer[from, to), value) is in this
+     */
+    @SuppressWarnings("unchecked")
+    public final V value(char[] buffer, int from, int to) {
+        assert buffer != null : "Violation of: buffer is not null";
+        assert 0 <= from && from <= to && to <= buffer.length : ""
+                + "Violation of: 0 <= from <= to <= |buffer|";
+
+        return (V) this.values[found(this.find(buffer, from, to))];
+    }
+
+    /**
+     * Returns the {@code String} key in {@code this} with the characters of
+     * {@code chars}, so equal keys can share one {@code String}.
+     *
+     * @param chars
+     *            the characters of the key
+     * @return the key in this equal to chars
+     * @requires chars is in DOMAIN(this)
+     * @ensures storedKey = chars  and  storedKey is in DOMAIN(this)
+     */
+    public final String storedKey(CharSequence chars) {
+        assert chars != null : "Violation of: chars is not null";
+
+        return this.keys[found(this.find(chars))];
+    }
+
+    /**
+     * Returns the {@code String} key in {@code this} with the characters
+     * {@code buffer[from, to)}, so equal keys can share one {@code String}.
+     *
+     * @param buffer
+     *            the characters
+     * @param from
+     *            the start of the key in buffer
+     * @param to
+     *            the end of the key in buffer
+     * @return the key in this equal to buffer[from, to)
+     * @requires <pre>
+     * 0 <= from <= to <= |buffer|  and
+     * buffer[from, to) is in DOMAIN(this)
+     * </pre>
+     * @ensures storedKey = buffer[from, to)  and  storedKey is in DOMAIN(this)
+     */
+    public final String storedKey(char[] buffer, int from, int to) {
+        assert buffer != null : "Violation of: buffer is not null";
+        assert 0 <= from && from <= to && to <= buffer.length : ""
+                + "Violation of: 0 <= from <= to <= |buffer|";
+
+        return this.keys[found(this.find(buffer, from, to))];
+    }
+
+    /**
+     * Replaces the value associated with the key with the characters
+     * {@code buffer[from, to)} by {@code value}, returning the old one. With
+     * {@code hasKey} and {@code add} this counts words from a buffer:
+     *
+     * <pre>
+     * if (m.hasKey(buffer, from, to)) {
+     *     m.replaceValue(buffer, from, to, m.value(buffer, from, to) + 1);
+     * } else {
+     *     m.add(new String(buffer, from, to - from), 1);
+     * }
+     * </pre>
+     *
+     * @param buffer
+     *            the characters
+     * @param from
+     *            the start of the key in buffer
+     * @param to
+     *            the end of the key in buffer
+     * @param value
+     *            the new value
+     * @return the old value
+     * @updates this
+     * @requires <pre>
+     * 0 <= from <= to <= |buffer|  and
+     * buffer[from, to) is in DOMAIN(this)
+     * </pre>
+     * @ensures <pre>
+     * (buffer[from, to), replaceValue) is in #this  and
+     * this = (#this \ {(buffer[from, to), replaceValue)}) union
+     *        {(buffer[from, to), value)}
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public final V replaceValue(char[] buffer, int from, int to, V value) {
+        assert buffer != null : "Violation of: buffer is not null";
+        assert 0 <= from && from <= to && to <= buffer.length : ""
+                + "Violation of: 0 <= from <= to <= |buffer|";
+        assert value != null : "Violation of: value is not null";
+
+        int e = found(this.find(buffer, from, to));
+        V old = (V) this.values[e];
+        this.values[e] = value;
+        return old;
+    }
+
+    /**
+     * Replaces the value associated with the key with the characters of
+     * {@code chars} by {@code value}, returning the old one.
+     *
+     * @param chars
+     *            the characters of the key
+     * @param value
+     *            the new value
+     * @return the old value
+     * @updates this
+     * @requires chars is in DOMAIN(this)
+     * @ensures <pre>
+     * (chars, replaceValue) is in #this  and
+     * this = (#this \ {(chars, replaceValue)}) union {(chars, value)}
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public final V replaceValue(CharSequence chars, V value) {
+        assert chars != null : "Violation of: chars is not null";
+        assert value != null : "Violation of: value is not null";
+
+        int e = found(this.find(chars));
+        V old = (V) this.values[e];
+        this.values[e] = value;
+        return old;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code StringMap4}.
+     */
+    private final class StringMap4Iterator
+            implements Iterator<Pair<String, V>> {
+
+        /**
+         * Next entry to visit.
+         */
+        private int nextEntry;
+
+        /**
+         * No-argument constructor.
+         */
+        StringMap4Iterator() {
+            this.nextEntry = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextEntry < StringMap4.this.size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<String, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            int e = this.nextEntry;
+            this.nextEntry++;
+            return new SimplePair<String, V>(StringMap4.this.keys[e],
+                    (V) StringMap4.this.values[e]);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
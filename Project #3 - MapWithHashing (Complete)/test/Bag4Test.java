@@ -0,0 +1,206 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Bag4}.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Bag4Test {
+
+    /**
+     * Testing the no-argument constructor.
+     */
+    @Test
+    public final void testNoArgumentConstructor() {
+        Bag4<String> b = new Bag4<String>();
+        assertEquals(0, b.distinctSize());
+        assertEquals(0, b.size());
+        assertEquals(0, b.count("red"));
+    }
+
+    /**
+     * Testing .add() of one occurrence, new and repeated.
+     */
+    @Test
+    public final void testAddOne() {
+        Bag4<String> b = new Bag4<String>();
+        b.add("red");
+        b.add("blue");
+        b.add("red");
+        assertEquals(2, b.distinctSize());
+        assertEquals(3, b.size());
+        assertEquals(2, b.count("red"));
+        assertEquals(1, b.count("blue"));
+        assertEquals(0, b.count("green"));
+    }
+
+    /**
+     * Testing .add() of several occurrences at once.
+     */
+    @Test
+    public final void testAddMany() {
+        Bag4<String> b = new Bag4<String>();
+        b.add("red", 5);
+        b.add("red", 2);
+        assertEquals(1, b.distinctSize());
+        assertEquals(7, b.size());
+        assertEquals(7, b.count("red"));
+    }
+
+    /**
+     * Testing .remove() of some, then all, occurrences.
+     */
+    @Test
+    public final void testRemove() {
+        Bag4<String> b = new Bag4<String>();
+        b.add("red", 3);
+        b.add("blue");
+        b.remove("red", 2);
+        assertEquals(1, b.count("red"));
+        assertEquals(2, b.distinctSize());
+        b.remove("red", 1);
+        assertEquals(0, b.count("red"));
+        assertEquals(1, b.distinctSize());
+        assertEquals(1, b.size());
+    }
+
+    /**
+     * Testing growth of a small table past its size.
+     */
+    @Test
+    public final void testGrow() {
+        final int count = 1000;
+        Bag4<Integer> b = new Bag4<Integer>(3);
+        for (int i = 0; i < count; i++) {
+            b.add(i, i + 1);
+        }
+        assertEquals(count, b.distinctSize());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1, b.count(i));
+        }
+        assertEquals((long) count * (count + 1) / 2, b.size());
+    }
+
+    /**
+     * Testing .add() of another bag.
+     */
+    @Test
+    public final void testAddBag() {
+        Bag4<String> b = new Bag4<String>(3);
+        b.add("red", 2);
+        Bag4<String> other = new Bag4<String>();
+        other.add("red", 3);
+        other.add("blue");
+        other.add("green", 4);
+        other.add("white");
+        b.add(other);
+        assertEquals(4, b.distinctSize());
+        assertEquals(11, b.size());
+        assertEquals(5, b.count("red"));
+        assertEquals(4, b.count("green"));
+        assertEquals(4, other.distinctSize());
+    }
+
+    /**
+     * Testing .topK() with fewer elements wanted than present.
+     */
+    @Test
+    public final void testTopK() {
+        Bag4<String> b = new Bag4<String>();
+        b.add("a", 1);
+        b.add("b", 5);
+        b.add("c", 3);
+        b.add("d", 4);
+        b.add("e", 2);
+        List<String> top = new ArrayList<String>();
+        List<Integer> counts = new ArrayList<Integer>();
+        b.topK(3, (x, n) -> {
+            top.add(x);
+            counts.add(n);
+        });
+        assertEquals(Arrays.asList("b", "d", "c"), top);
+        assertEquals(Arrays.asList(5, 4, 3), counts);
+    }
+
+    /**
+     * Testing .topK() with more elements wanted than present, and with none.
+     */
+    @Test
+    public final void testTopKAllAndNone() {
+        Bag4<String> b = new Bag4<String>();
+        b.add("a", 2);
+        b.add("b", 1);
+        List<String> top = new ArrayList<String>();
+        b.topK(10, (x, n) -> top.add(x));
+        assertEquals(Arrays.asList("a", "b"), top);
+        top.clear();
+        b.topK(0, (x, n) -> top.add(x));
+        assertEquals(0, top.size());
+    }
+
+    /**
+     * Testing iteration and .forEachCount().
+     */
+    @Test
+    public final void testIteration() {
+        Bag4<Integer> b = new Bag4<Integer>(3);
+        final int count = 20;
+        for (int i = 0; i < count; i++) {
+            b.add(i, 2);
+        }
+        int seen = 0;
+        int sum = 0;
+        for (int x : b) {
+            seen++;
+            sum += x;
+        }
+        assertEquals(count, seen);
+        assertEquals(count * (count - 1) / 2, sum);
+        long[] total = new long[1];
+        b.forEachCount((x, n) -> total[0] += n);
+        assertEquals(b.size(), total[0]);
+    }
+
+    /**
+     * Testing .transferFrom() and .clear().
+     */
+    @Test
+    public final void testTransferFromAndClear() {
+        Bag4<String> b = new Bag4<String>();
+        Bag4<String> source = new Bag4<String>();
+        source.add("red", 2);
+        b.transferFrom(source);
+        assertEquals(2, b.count("red"));
+        assertEquals(0, source.size());
+        b.clear();
+        assertEquals(0, b.distinctSize());
+    }
+
+    /**
+     * Testing that merging counts past {@code Integer.MAX_VALUE} fails
+     * instead of wrapping around.
+     */
+    @Test
+    public final void testAddBagOverflow() {
+        Bag4<String> b = new Bag4<String>();
+        Bag4<String> c = new Bag4<String>();
+        b.add("a", Integer.MAX_VALUE);
+        c.add("a", 1);
+        boolean overflowed = false;
+        try {
+            b.add(c);
+        } catch (ArithmeticException e) {
+            overflowed = true;
+        }
+        assertEquals(true, overflowed);
+        assertEquals(Integer.MAX_VALUE, b.count("a"));
+    }
+
+}
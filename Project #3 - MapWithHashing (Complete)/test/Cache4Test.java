@@ -0,0 +1,149 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Cache4} with each of its eviction policies.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Cache4Test {
+
+    /**
+     * Testing .get() on an empty cache.
+     */
+    @Test
+    public final void testGetMiss() {
+        Cache4<String, String> c = new Cache4<String, String>(2,
+                Cache4.<String, String>lru());
+        assertEquals(null, c.get("one"));
+        assertEquals(0, c.hits());
+        assertEquals(1, c.misses());
+    }
+
+    /**
+     * Testing .put() replacing the value for a cached key.
+     */
+    @Test
+    public final void testPutReplaces() {
+        Cache4<String, String> c = new Cache4<String, String>(2,
+                Cache4.<String, String>lru());
+        c.put("one", "1");
+        c.put("one", "uno");
+        assertEquals("uno", c.get("one"));
+        assertEquals(1, c.size());
+        assertEquals(1, c.hits());
+    }
+
+    /**
+     * Testing that LRU eviction removes the least recently used entry.
+     */
+    @Test
+    public final void testLruEvictsLeastRecent() {
+        Cache4<String, String> c = new Cache4<String, String>(2,
+                Cache4.<String, String>lru());
+        c.put("one", "1");
+        c.put("two", "2");
+        c.get("one");
+        c.put("three", "3");
+        assertEquals("1", c.get("one"));
+        assertEquals(null, c.get("two"));
+        assertEquals("3", c.get("three"));
+        assertEquals(1, c.evictions());
+    }
+
+    /**
+     * Testing that LFU eviction removes the least frequently used entry.
+     */
+    @Test
+    public final void testLfuEvictsLeastFrequent() {
+        Cache4<String, String> c = new Cache4<String, String>(2,
+                Cache4.<String, String>lfu());
+        c.put("one", "1");
+        c.put("two", "2");
+        c.get("one");
+        c.get("one");
+        c.get("two");
+        c.put("three", "3");
+        assertEquals(null, c.get("two"));
+        c.put("four", "4");
+        assertEquals("1", c.get("one"));
+        assertEquals(null, c.get("three"));
+        assertEquals(2, c.evictions());
+    }
+
+    /**
+     * Testing that window TinyLFU keeps frequently used entries while a scan of
+     * keys used once passes through the cache.
+     */
+    @Test
+    public final void testWindowTinyLfuResistsScan() {
+        final int capacity = 100;
+        Cache4<Integer, Integer> c = new Cache4<Integer, Integer>(capacity,
+                Cache4.<Integer, Integer>windowTinyLfu());
+        for (int i = 0; i < capacity / 2; i++) {
+            c.put(i, i);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < capacity / 2; i++) {
+                c.get(i);
+            }
+        }
+        for (int i = capacity; i < 10 * capacity; i++) {
+            c.put(i, i);
+        }
+        int kept = 0;
+        for (int i = 0; i < capacity / 2; i++) {
+            if (c.get(i) != null) {
+                kept++;
+            }
+        }
+        assertEquals(capacity / 2, kept);
+        assertEquals(capacity, c.size());
+    }
+
+    /**
+     * Testing that weights, not entry counts, bound the cache.
+     */
+    @Test
+    public final void testWeightBound() {
+        Cache4<String, String> c = new Cache4<String, String>(10,
+                Cache4.<String, String>lru());
+        c.put("one", "1", 4);
+        c.put("two", "2", 4);
+        c.put("three", "3", 4);
+        assertEquals(2, c.size());
+        assertEquals(8, c.weight());
+        c.put("huge", "!", 11);
+        assertEquals(null, c.get("huge"));
+        assertEquals(8, c.weight());
+        c.invalidate("two");
+        assertEquals(4, c.weight());
+        assertEquals(1, c.size());
+    }
+
+    /**
+     * Testing a cache whose maximum weight is far above its number of entries,
+     * which must still find every entry and invalidate each one once.
+     */
+    @Test
+    public final void testLargeMaximumWeightManyEntries() {
+        final int n = 100000;
+        Cache4<Integer, Integer> c = new Cache4<Integer, Integer>(1L << 40,
+                Cache4.<Integer, Integer>windowTinyLfu());
+        for (int i = 0; i < n; i++) {
+            c.put(i, -i);
+        }
+        assertEquals(n, c.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(Integer.valueOf(-i), c.get(i));
+        }
+        assertEquals(null, c.get(n));
+        assertEquals(true, c.invalidate(0));
+        assertEquals(false, c.invalidate(0));
+        assertEquals(n - 1, c.size());
+        assertEquals(0, c.evictions());
+    }
+
+}
@@ -0,0 +1,73 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code Map4}'s {@code addAll} method.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Map4AddAllTest {
+
+    /**
+     * Testing .addAll() of no pairs to an empty {@code Map4}.
+     */
+    @Test
+    public final void testAddAllEmptyToEmpty() {
+        Map4<String, String> m = new Map4<String, String>();
+        Map<String, String> mExpected = new Map1L<String, String>();
+        m.addAll(new Map1L<String, String>());
+        assertEquals(mExpected, m);
+        assertEquals(0, m.statistics().rehashes());
+    }
+
+    /**
+     * Testing .addAll() to a non-empty {@code Map4} that fits in its table.
+     */
+    @Test
+    public final void testAddAllWithoutResize() {
+        Map4<String, String> m = new Map4<String, String>();
+        m.add("one", "1");
+        Map<String, String> source = new Map1L<String, String>();
+        source.add("two", "2");
+        source.add("three", "3");
+        Map<String, String> mExpected = new Map1L<String, String>();
+        mExpected.add("one", "1");
+        mExpected.add("two", "2");
+        mExpected.add("three", "3");
+        m.addAll(source);
+        assertEquals(mExpected, m);
+        assertEquals(3, m.size());
+        assertEquals(101, m.statistics().hashTableSize());
+        assertEquals(0, m.statistics().rehashes());
+    }
+
+    /**
+     * Testing .addAll() of more pairs than a small {@code Map4} has buckets.
+     */
+    @Test
+    public final void testAddAllWithResize() {
+        final int count = 50;
+        Map4<Integer, Integer> m = new Map4<Integer, Integer>(3);
+        m.add(-1, 1);
+        Map<Integer, Integer> source = new Map1L<Integer, Integer>();
+        Map<Integer, Integer> mExpected = new Map1L<Integer, Integer>();
+        mExpected.add(-1, 1);
+        for (int i = 0; i < count; i++) {
+            source.add(i, i * i);
+            mExpected.add(i, i * i);
+        }
+        m.addAll(source);
+        assertEquals(mExpected, m);
+        assertEquals(count + 1, m.size());
+        Map4.Statistics s = m.statistics();
+        assertEquals(53, s.hashTableSize());
+        assertEquals(1, s.rehashes());
+        assertEquals(Integer.valueOf(1), m.value(-1));
+    }
+
+}
@@ -0,0 +1,117 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code Map4}'s spliterator and parallel bulk methods.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Map4BulkTest {
+
+    /**
+     * Number of pairs in the maps used by the tests.
+     */
+    private static final int COUNT = 1000;
+
+    /**
+     * Creates a {@code Map4} associating each of 0 to {@code COUNT} - 1 with
+     * its square.
+     *
+     * @return the new map
+     */
+    private static Map4<Integer, Integer> squares() {
+        Map4<Integer, Integer> m = new Map4<Integer, Integer>();
+        for (int i = 0; i < COUNT; i++) {
+            m.add(i, i * i);
+        }
+        return m;
+    }
+
+    /**
+     * Testing that .spliterator() splits and still covers every pair once.
+     */
+    @Test
+    public final void testSpliteratorCoversAllPairs() {
+        Map4<Integer, Integer> m = squares();
+        Spliterator<Map.Pair<Integer, Integer>> rest = m.spliterator();
+        assertEquals(COUNT, rest.estimateSize());
+        Spliterator<Map.Pair<Integer, Integer>> prefix = rest.trySplit();
+        AtomicLong sum = new AtomicLong();
+        prefix.forEachRemaining(p -> sum.addAndGet(p.key()));
+        rest.forEachRemaining(p -> sum.addAndGet(p.key()));
+        assertEquals((long) COUNT * (COUNT - 1) / 2, sum.get());
+    }
+
+    /**
+     * Testing .parallelForEach() on an empty {@code Map4}.
+     */
+    @Test
+    public final void testParallelForEachOnEmpty() {
+        Map4<Integer, Integer> m = new Map4<Integer, Integer>();
+        AtomicLong count = new AtomicLong();
+        m.parallelForEach(p -> count.incrementAndGet());
+        assertEquals(0, count.get());
+    }
+
+    /**
+     * Testing .parallelForEach() on a non-empty {@code Map4}.
+     */
+    @Test
+    public final void testParallelForEachOnNonEmpty() {
+        Map4<Integer, Integer> m = squares();
+        AtomicLong count = new AtomicLong();
+        m.parallelForEach(p -> count.incrementAndGet());
+        assertEquals(COUNT, count.get());
+    }
+
+    /**
+     * Testing .reduce() summing the values of a {@code Map4}.
+     */
+    @Test
+    public final void testReduceSum() {
+        Map4<Integer, Integer> m = squares();
+        long sum = m.reduce(0L, (r, p) -> r + p.value(), Long::sum);
+        long expected = 0;
+        for (int i = 0; i < COUNT; i++) {
+            expected += i * i;
+        }
+        assertEquals(expected, sum);
+        assertEquals(COUNT, m.size());
+    }
+
+    /**
+     * Testing .filter() keeping the pairs with even keys.
+     */
+    @Test
+    public final void testFilter() {
+        Map4<Integer, Integer> m = squares();
+        Map<Integer, Integer> mExpected = new Map1L<Integer, Integer>();
+        for (int i = 0; i < COUNT; i += 2) {
+            mExpected.add(i, i * i);
+        }
+        assertEquals(mExpected, m.filter(p -> p.key() % 2 == 0));
+        assertEquals(COUNT, m.size());
+    }
+
+    /**
+     * Testing .mapValues() converting the values to strings.
+     */
+    @Test
+    public final void testMapValues() {
+        Map4<Integer, Integer> m = squares();
+        Map<Integer, String> mExpected = new Map1L<Integer, String>();
+        for (int i = 0; i < COUNT; i++) {
+            mExpected.add(i, Integer.toString(i * i));
+        }
+        assertEquals(mExpected, m.mapValues(v -> Integer.toString(v)));
+    }
+
+}
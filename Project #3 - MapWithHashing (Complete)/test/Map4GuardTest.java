@@ -0,0 +1,162 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code Map4} guarded by a Bloom filter.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Map4GuardTest {
+
+    /**
+     * Size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 1009;
+
+    /**
+     * False positive rate of the guards in the tests.
+     */
+    private static final double RATE = 0.01;
+
+    /**
+     * Number of keys in the larger maps used by the tests; enough for the
+     * guard to be rebuilt several times.
+     */
+    private static final int COUNT = 2000;
+
+    /**
+     * Creates and returns a guarded {@code Map4<Integer, String>} mapping each
+     * integer from 0 to {@code n - 1} to its decimal form.
+     *
+     * @param n
+     *            the number of keys
+     * @return the constructed map
+     * @requires n >= 0
+     */
+    private static Map4<Integer, String> createUpTo(int n) {
+        Map4<Integer, String> m = new Map4<Integer, String>(
+                TEST_HASH_TABLE_SIZE, RATE);
+        for (int i = 0; i < n; i++) {
+            m.add(i, Integer.toString(i));
+        }
+        return m;
+    }
+
+    /**
+     * Testing that a guarded map finds all its keys and answers most lookups
+     * of absent ones from the guard, near the false positive rate.
+     */
+    @Test
+    public final void testGuardAnswersAbsentLookups() {
+        Map4<Integer, String> m = createUpTo(COUNT);
+        assertTrue(m.isGuarded());
+        for (int i = 0; i < COUNT; i++) {
+            assertTrue(m.hasKey(i));
+        }
+        BlockedBloomFilter.Statistics before = m.guardStatistics();
+        final int absent = 20000;
+        for (int i = 0; i < absent; i++) {
+            assertFalse(m.hasKey(COUNT + i));
+        }
+        BlockedBloomFilter.Statistics after = m.guardStatistics();
+        long negatives = after.negatives() - before.negatives();
+        long falsePositives = after.falsePositives() - before.falsePositives();
+        assertEquals(absent, negatives + falsePositives);
+        assertTrue(falsePositives < 4 * RATE * absent);
+        assertTrue(after.hitRate() > 1 - 4 * RATE);
+    }
+
+    /**
+     * Testing that removed keys are not found, and that keys added by
+     * addAll are.
+     */
+    @Test
+    public final void testRemovesAndAddAll() {
+        Map4<Integer, String> m = createUpTo(COUNT);
+        for (int i = 0; i < COUNT; i += 2) {
+            m.remove(i);
+        }
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(i % 2 == 1, m.hasKey(i));
+        }
+        List<Pair<Integer, String>> pairs = new ArrayList<>();
+        Map1L<Integer, String> source = new Map1L<Integer, String>();
+        for (int i = 0; i < COUNT; i++) {
+            source.add(-i - 1, "x");
+        }
+        for (Pair<Integer, String> p : source) {
+            pairs.add(p);
+        }
+        m.addAll(pairs);
+        for (int i = 0; i < COUNT; i++) {
+            assertTrue(m.hasKey(-i - 1));
+        }
+        assertEquals(COUNT + COUNT / 2, m.size());
+    }
+
+    /**
+     * Testing that after one large addAll into an empty guarded map, the
+     * guard is sized for all the keys and still answers most lookups of
+     * absent ones.
+     */
+    @Test
+    public final void testGuardAfterBulkAddAll() {
+        final int count = 40000;
+        Map4<Integer, String> m = new Map4<Integer, String>(
+                TEST_HASH_TABLE_SIZE, RATE);
+        List<Pair<Integer, String>> pairs = new ArrayList<>();
+        Map1L<Integer, String> source = new Map1L<Integer, String>();
+        for (int i = 0; i < count; i++) {
+            source.add(i, "x");
+        }
+        for (Pair<Integer, String> p : source) {
+            pairs.add(p);
+        }
+        m.addAll(pairs);
+        assertEquals(count, m.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(m.hasKey(i));
+        }
+        assertTrue(m.guardStatistics().bits() >= count);
+        BlockedBloomFilter.Statistics before = m.guardStatistics();
+        final int absent = 20000;
+        for (int i = 0; i < absent; i++) {
+            assertFalse(m.hasKey(count + i));
+        }
+        BlockedBloomFilter.Statistics after = m.guardStatistics();
+        long falsePositives = after.falsePositives() - before.falsePositives();
+        assertTrue(falsePositives < 4 * RATE * absent);
+    }
+
+    /**
+     * Testing that the guard follows the table through transferFrom and
+     * clear.
+     */
+    @Test
+    public final void testGuardFollowsRepresentation() {
+        Map4<Integer, String> m = createUpTo(COUNT);
+        Map4<Integer, String> n = new Map4<Integer, String>();
+        n.transferFrom(m);
+        assertTrue(n.isGuarded());
+        assertTrue(n.hasKey(COUNT - 1));
+        assertFalse(m.hasKey(COUNT - 1));
+        assertTrue(m.isGuarded());
+        m.add(COUNT, "c");
+        assertTrue(m.hasKey(COUNT));
+        n.clear();
+        assertFalse(n.hasKey(0));
+        assertTrue(n.isGuarded());
+        assertFalse(new Map4<Integer, String>().isGuarded());
+    }
+
+}
@@ -0,0 +1,29 @@
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} guarded by a Bloom filter.
+ */
+public class Map4GuardedTest extends MapTest {
+
+    /**
+     * Size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 101;
+
+    /**
+     * False positive rate of the guard.
+     */
+    private static final double RATE = 0.01;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE, RATE);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+}
@@ -0,0 +1,251 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code Map4Snapshot}.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Map4SnapshotTest {
+
+    /**
+     * Number of pairs in the larger maps used by the tests.
+     */
+    private static final int COUNT = 2000;
+
+    /**
+     * Saves {@code m} to a temporary file and loads it back with the given
+     * hash table size.
+     *
+     * @param m
+     *            the map to save
+     * @param hashTableSize
+     *            the size of the loaded hash table, or 0 for the saved size
+     * @return the loaded map
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    private static Map4<String, Integer> roundTrip(Map4<String, Integer> m,
+            int hashTableSize) throws IOException {
+        Path path = Files.createTempFile("map4", ".snapshot");
+        try {
+            Map4Snapshot.write(m, path, Map4Snapshot.STRING_CODEC,
+                    Map4Snapshot.INTEGER_CODEC);
+            return Map4Snapshot.read(path, Map4Snapshot.STRING_CODEC,
+                    Map4Snapshot.INTEGER_CODEC, hashTableSize);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Testing a round trip of an empty {@code Map4}.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public final void testRoundTripEmpty() throws IOException {
+        Map4<String, Integer> m = new Map4<String, Integer>();
+        Map4<String, Integer> loaded = roundTrip(m, 0);
+        assertEquals(new Map1L<String, Integer>(), loaded);
+        assertEquals(101, loaded.statistics().hashTableSize());
+    }
+
+    /**
+     * Testing a round trip keeping the saved hash table size.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public final void testRoundTripSameTableSize() throws IOException {
+        Map4<String, Integer> m = new Map4<String, Integer>(1009);
+        Map<String, Integer> mExpected = new Map1L<String, Integer>();
+        for (int i = 0; i < COUNT; i++) {
+            m.add("w\u00e9rd" + i, i);
+            mExpected.add("w\u00e9rd" + i, i);
+        }
+        Map4<String, Integer> loaded = roundTrip(m, 0);
+        assertEquals(mExpected, loaded);
+        assertEquals(1009, loaded.statistics().hashTableSize());
+        assertEquals(m.statistics().longestChain(),
+                loaded.statistics().longestChain());
+    }
+
+    /**
+     * Testing a round trip into a hash table of a different size.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public final void testRoundTripOtherTableSize() throws IOException {
+        Map4<String, Integer> m = new Map4<String, Integer>();
+        Map<String, Integer> mExpected = new Map1L<String, Integer>();
+        for (int i = 0; i < COUNT; i++) {
+            m.add("word" + i, i);
+            mExpected.add("word" + i, i);
+        }
+        Map4<String, Integer> loaded = roundTrip(m, 2003);
+        assertEquals(mExpected, loaded);
+        assertEquals(2003, loaded.statistics().hashTableSize());
+    }
+
+    /**
+     * Testing that a file that is not a snapshot is rejected.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public final void testReadRejectsOtherFile() throws IOException {
+        Path path = Files.createTempFile("map4", ".snapshot");
+        boolean rejected = false;
+        try {
+            Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+            Map4Snapshot.read(path, Map4Snapshot.STRING_CODEC,
+                    Map4Snapshot.INTEGER_CODEC);
+        } catch (IOException e) {
+            rejected = true;
+        } finally {
+            Files.delete(path);
+        }
+        assertEquals(true, rejected);
+    }
+
+    /**
+     * Returns whether reading the snapshot held in {@code bytes} fails with
+     * an {@code IOException}.
+     *
+     * @param bytes
+     *            the contents of the file
+     * @return whether the snapshot is rejected
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    private static boolean rejects(byte[] bytes) throws IOException {
+        Path path = Files.createTempFile("map4", ".snapshot");
+        boolean rejected = false;
+        try {
+            Files.write(path, bytes);
+            Map4Snapshot.read(path, Map4Snapshot.STRING_CODEC,
+                    Map4Snapshot.INTEGER_CODEC);
+        } catch (IOException e) {
+            rejected = true;
+        } finally {
+            Files.delete(path);
+        }
+        return rejected;
+    }
+
+    /**
+     * Returns the snapshot of {@code m}.
+     *
+     * @param m
+     *            the map to save
+     * @return the contents of the snapshot file
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    private static byte[] snapshot(Map4<String, Integer> m)
+            throws IOException {
+        Path path = Files.createTempFile("map4", ".snapshot");
+        try {
+            Map4Snapshot.write(m, path, Map4Snapshot.STRING_CODEC,
+                    Map4Snapshot.INTEGER_CODEC);
+            return Files.readAllBytes(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Testing that a guarded map loads guarded.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public final void testRoundTripGuarded() throws IOException {
+        final double rate = 0.01;
+        Map4<String, Integer> m = new Map4<String, Integer>(1009, rate);
+        for (int i = 0; i < COUNT; i++) {
+            m.add("w" + i, i);
+        }
+        Map4<String, Integer> loaded = roundTrip(m, 0);
+        assertEquals(true, loaded.isGuarded());
+        assertEquals(m, loaded);
+        for (int i = 0; i < 2 * COUNT; i++) {
+            assertEquals(i < COUNT, loaded.hasKey("w" + i));
+        }
+        assertEquals(false, roundTrip(new Map4<String, Integer>(), 0)
+                .isGuarded());
+    }
+
+    /**
+     * Testing that every truncation of a snapshot is rejected.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public final void testReadRejectsTruncatedFile() throws IOException {
+        final int pairs = 20;
+        Map4<String, Integer> m = new Map4<String, Integer>(7);
+        for (int i = 0; i < pairs; i++) {
+            m.add("w" + i, i);
+        }
+        byte[] bytes = snapshot(m);
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = new byte[length];
+            System.arraycopy(bytes, 0, truncated, 0, length);
+            assertEquals(true, rejects(truncated));
+        }
+    }
+
+    /**
+     * Testing that snapshots with impossible sizes, counts, or string lengths
+     * are rejected.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public final void testReadRejectsCorruptFile() throws IOException {
+        Map4<String, Integer> m = new Map4<String, Integer>(1);
+        m.add("word", 1);
+        byte[] bytes = snapshot(m);
+        /*
+         * The header is four ints and a double; then come the count of the
+         * only bucket and the length of the only key.
+         */
+        final int tableSizeAt = 8;
+        final int sizeAt = 12;
+        final int countAt = 24;
+        final int keyLengthAt = 28;
+        final int[] positions = { tableSizeAt, sizeAt, countAt, keyLengthAt };
+        final int[] values = { -1, Integer.MAX_VALUE };
+        for (int position : positions) {
+            for (int value : values) {
+                byte[] corrupt = bytes.clone();
+                ByteBuffer.wrap(corrupt).putInt(position, value);
+                assertEquals(true, rejects(corrupt));
+            }
+        }
+        byte[] longer = new byte[bytes.length + 1];
+        System.arraycopy(bytes, 0, longer, 0, bytes.length);
+        assertEquals(true, rejects(longer));
+    }
+
+}
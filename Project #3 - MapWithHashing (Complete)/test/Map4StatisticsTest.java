@@ -0,0 +1,75 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Map4}'s statistics methods.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Map4StatisticsTest {
+
+    /**
+     * Tolerance for comparing computed ratios.
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Testing .statistics() on an empty {@code Map4}.
+     */
+    @Test
+    public final void testStatisticsOnEmpty() {
+        Map4<String, String> m = new Map4<String, String>(7);
+        Map4.Statistics s = m.statistics();
+        assertEquals(7, s.hashTableSize());
+        assertEquals(0.0, s.loadFactor(), EPSILON);
+        assertEquals(0, s.longestChain());
+        assertEquals(7, s.bucketsOfLength(0));
+        assertEquals(0, s.lookups());
+        assertEquals(0.0, s.averageProbesPerLookup(), EPSILON);
+    }
+
+    /**
+     * Testing .statistics() on a {@code Map4} whose keys collide.
+     */
+    @Test
+    public final void testStatisticsWithCollisions() {
+        Map4<Integer, String> m = new Map4<Integer, String>(5);
+        m.add(1, "a");
+        m.add(6, "b");
+        m.add(11, "c");
+        m.add(2, "d");
+        Map4.Statistics s = m.statistics();
+        assertEquals(4.0 / 5, s.loadFactor(), EPSILON);
+        assertEquals(3, s.longestChain());
+        assertEquals(3, s.bucketsOfLength(0));
+        assertEquals(1, s.bucketsOfLength(1));
+        assertEquals(1, s.bucketsOfLength(3));
+        assertEquals(0, s.bucketsOfLength(4));
+    }
+
+    /**
+     * Testing that lookups are recorded only while statistics are enabled.
+     */
+    @Test
+    public final void testLookupsRecordedOnlyWhenEnabled() {
+        Map4<Integer, String> m = new Map4<Integer, String>(5);
+        m.add(1, "a");
+        m.add(6, "b");
+        m.add(2, "c");
+        m.hasKey(1);
+        assertEquals(0, m.statistics().lookups());
+        m.enableStatistics();
+        m.hasKey(1);
+        m.hasKey(2);
+        m.disableStatistics();
+        m.hasKey(6);
+        Map4.Statistics s = m.statistics();
+        assertEquals(2, s.lookups());
+        assertEquals((2.0 + 1.0) / 2, s.averageProbesPerLookup(), EPSILON);
+        m.resetStatistics();
+        assertEquals(0, m.statistics().lookups());
+    }
+
+}
@@ -0,0 +1,111 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code Map5}'s {@code snapshot} method and for its
+ * handling of many and of colliding keys.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Map5SnapshotTest {
+
+    /**
+     * Number of pairs in the larger maps used by the tests.
+     */
+    private static final int COUNT = 5000;
+
+    /**
+     * Testing that a snapshot does not see later changes to the original.
+     */
+    @Test
+    public final void testSnapshotUnaffectedByOriginal() {
+        Map5<String, String> m = new Map5<String, String>();
+        m.add("one", "1");
+        m.add("two", "2");
+        Map5<String, String> s = m.snapshot();
+        m.add("three", "3");
+        m.remove("one");
+        Map<String, String> sExpected = new Map1L<String, String>();
+        sExpected.add("one", "1");
+        sExpected.add("two", "2");
+        Map<String, String> mExpected = new Map1L<String, String>();
+        mExpected.add("two", "2");
+        mExpected.add("three", "3");
+        assertEquals(sExpected, s);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Testing that the original does not see later changes to a snapshot.
+     */
+    @Test
+    public final void testOriginalUnaffectedBySnapshot() {
+        Map5<String, String> m = new Map5<String, String>();
+        m.add("one", "1");
+        Map5<String, String> s = m.snapshot();
+        s.clear();
+        s.add("two", "2");
+        assertTrue(m.hasKey("one"));
+        assertFalse(m.hasKey("two"));
+        assertEquals(1, m.size());
+    }
+
+    /**
+     * Testing adding and removing many keys, which requires deep tries, with a
+     * snapshot taken half way.
+     */
+    @Test
+    public final void testManyKeys() {
+        Map5<Integer, Integer> m = new Map5<Integer, Integer>();
+        Map<Integer, Integer> mExpected = new Map1L<Integer, Integer>();
+        for (int i = 0; i < COUNT; i++) {
+            m.add(i, -i);
+            mExpected.add(i, -i);
+        }
+        Map5<Integer, Integer> s = m.snapshot();
+        for (int i = 0; i < COUNT; i += 2) {
+            assertEquals(Integer.valueOf(-i), m.remove(i).value());
+            mExpected.remove(i);
+        }
+        assertEquals(mExpected, m);
+        assertEquals(COUNT, s.size());
+        while (s.size() > 0) {
+            Map.Pair<Integer, Integer> p = s.removeAny();
+            assertEquals(-p.key(), (int) p.value());
+        }
+    }
+
+    /**
+     * Testing keys whose hash codes are equal.
+     */
+    @Test
+    public final void testCollidingKeys() {
+        /*
+         * "Aa" and "BB" have the same hash code, as do all strings built from
+         * them with the same number of pieces.
+         */
+        Map5<String, String> m = new Map5<String, String>();
+        m.add("AaAa", "1");
+        m.add("AaBB", "2");
+        m.add("BBAa", "3");
+        m.add("BBBB", "4");
+        assertEquals("AaAa".hashCode(), "BBBB".hashCode());
+        assertEquals("3", m.value("BBAa"));
+        Map5<String, String> s = m.snapshot();
+        m.remove("AaBB");
+        m.remove("BBBB");
+        assertFalse(m.hasKey("AaBB"));
+        assertEquals("1", m.value("AaAa"));
+        assertEquals("3", m.value("BBAa"));
+        assertEquals(4, s.size());
+        assertEquals("2", s.value("AaBB"));
+    }
+
+}
@@ -0,0 +1,89 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map6} using default constructor.
+ */
+public class Map6Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map6<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Testing that a table with many more than 2^16 buckets fills to 90% of
+     * its slots without growing, which needs both hash functions to reach
+     * every bucket.
+     */
+    @Test
+    public final void testLargeTableReachesHighLoad() {
+        final int capacity = 1 << 20;
+        final double load = 0.9;
+        final int count = (int) (load * capacity);
+        Map6<Integer, Integer> m = new Map6<Integer, Integer>(capacity);
+        for (int i = 0; i < count; i++) {
+            m.add(i, i);
+        }
+        assertEquals(capacity, m.capacity());
+        assertEquals(count, m.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(m.hasKey(i));
+        }
+    }
+
+    /**
+     * Testing many keys with the same hash code: the 64 strings made of six
+     * blocks that are each "Aa" or "BB" (which have equal hash codes), far
+     * more than their two buckets and the stash can hold. They must all be
+     * added, found, and removed without the table growing.
+     */
+    @Test
+    public final void testKeysWithEqualHashCodes() {
+        final int blocks = 6;
+        final int count = 1 << blocks;
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < blocks; b++) {
+                if ((i >> b & 1) == 0) {
+                    key.append("Aa");
+                } else {
+                    key.append("BB");
+                }
+            }
+            keys[i] = key.toString();
+            assertEquals(keys[0].hashCode(), keys[i].hashCode());
+        }
+        Map6<String, Integer> m = new Map6<String, Integer>();
+        int capacity = m.capacity();
+        for (int i = 0; i < count; i++) {
+            m.add(keys[i], i);
+        }
+        assertEquals(capacity, m.capacity());
+        assertEquals(count, m.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i), m.value(keys[i]));
+        }
+        for (int i = 0; i < count; i += 2) {
+            assertEquals(Integer.valueOf(i), m.remove(keys[i]).value());
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2 == 1, m.hasKey(keys[i]));
+        }
+        while (m.size() > 0) {
+            m.removeAny();
+        }
+    }
+
+}
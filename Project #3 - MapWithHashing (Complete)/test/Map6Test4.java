@@ -0,0 +1,53 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map6} using non-default constructor
+ * and the smallest table, so that kicks, the stash, and rebuilds are needed.
+ */
+public class Map6Test4 extends MapTest {
+
+    /**
+     * Number of table slots to be used in tests.
+     */
+    private static final int TEST_CAPACITY = 4;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map6<String, String>(TEST_CAPACITY);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Testing many adds and removes starting from the smallest table.
+     */
+    @Test
+    public final void testGrowFromSmallestTable() {
+        final int count = 10000;
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+        for (int i = 0; i < count; i++) {
+            m.add("k" + i, "v" + i);
+            mExpected.add("k" + i, "v" + i);
+        }
+        assertEquals(mExpected, m);
+        for (int i = 0; i < count; i += 3) {
+            assertEquals("v" + i, m.remove("k" + i).value());
+            mExpected.remove("k" + i);
+        }
+        assertEquals(mExpected, m);
+        while (m.size() > 0) {
+            Map.Pair<String, String> p = m.removeAny();
+            assertEquals("v" + p.key().substring(1), p.value());
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map7} using default constructor.
+ */
+public class Map7Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map7<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+}
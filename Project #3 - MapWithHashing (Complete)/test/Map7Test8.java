@@ -0,0 +1,76 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map7} using non-default constructor
+ * and a table of a single group, so that probing past full groups, deleted
+ * slots, and rebuilds are needed.
+ */
+public class Map7Test8 extends MapTest {
+
+    /**
+     * Number of table slots to be used in tests.
+     */
+    private static final int TEST_CAPACITY = 8;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map7<String, String>(TEST_CAPACITY);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Testing many adds and removes starting from the smallest table.
+     */
+    @Test
+    public final void testGrowFromSmallestTable() {
+        final int count = 10000;
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+        for (int i = 0; i < count; i++) {
+            m.add("k" + i, "v" + i);
+            mExpected.add("k" + i, "v" + i);
+        }
+        assertEquals(mExpected, m);
+        for (int i = 0; i < count; i += 3) {
+            assertEquals("v" + i, m.remove("k" + i).value());
+            mExpected.remove("k" + i);
+        }
+        assertEquals(mExpected, m);
+        while (m.size() > 0) {
+            Map.Pair<String, String> p = m.removeAny();
+            assertEquals("v" + p.key().substring(1), p.value());
+        }
+    }
+
+    /**
+     * Testing that alternating adds and removes at a steady size reuse deleted
+     * slots instead of growing without bound.
+     */
+    @Test
+    public final void testSteadyChurn() {
+        final int live = 5;
+        final int rounds = 10000;
+        Map<String, String> m = this.constructorTest();
+        for (int i = 0; i < live; i++) {
+            m.add("k" + i, "v" + i);
+        }
+        for (int i = live; i < rounds; i++) {
+            m.remove("k" + (i - live));
+            m.add("k" + i, "v" + i);
+            assertEquals(live, m.size());
+        }
+        for (int i = rounds - live; i < rounds; i++) {
+            assertEquals("v" + i, m.value("k" + i));
+        }
+    }
+
+}
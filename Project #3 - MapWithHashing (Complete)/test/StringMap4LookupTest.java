@@ -0,0 +1,112 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for the lookups of {@code StringMap4} that take a
+ * {@code CharSequence} or a range of a {@code char} array.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class StringMap4LookupTest {
+
+    /**
+     * Testing lookups from a range of a {@code char} array.
+     */
+    @Test
+    public final void testCharRangeLookups() {
+        StringMap4<Integer> m = new StringMap4<Integer>();
+        m.add("cat", 1);
+        m.add("dog", 2);
+        char[] buffer = "the cat and the dog".toCharArray();
+        assertTrue(m.hasKey(buffer, 4, 7));
+        assertFalse(m.hasKey(buffer, 4, 6));
+        assertFalse(m.hasKey(buffer, 0, 3));
+        assertEquals(Integer.valueOf(1), m.value(buffer, 4, 7));
+        assertEquals(Integer.valueOf(2), m.value(buffer, 16, 19));
+    }
+
+    /**
+     * Testing lookups from a {@code StringBuilder}.
+     */
+    @Test
+    public final void testCharSequenceLookups() {
+        StringMap4<Integer> m = new StringMap4<Integer>();
+        m.add("cat", 1);
+        StringBuilder chars = new StringBuilder("ca");
+        assertFalse(m.hasKey(chars));
+        chars.append('t');
+        assertTrue(m.hasKey(chars));
+        assertEquals(Integer.valueOf(1), m.value(chars));
+        assertEquals(Integer.valueOf(1), m.replaceValue(chars, 5));
+        assertEquals(Integer.valueOf(5), m.value("cat"));
+    }
+
+    /**
+     * Testing that storedKey returns the {@code String} that was added.
+     */
+    @Test
+    public final void testKeyIsShared() {
+        StringMap4<Integer> m = new StringMap4<Integer>();
+        String cat = new String("cat");
+        m.add(cat, 1);
+        assertSame(cat, m.storedKey(new StringBuilder("cat")));
+        assertSame(cat, m.storedKey("a cat".toCharArray(), 2, 5));
+    }
+
+    /**
+     * Testing word counting straight from a buffer, including the empty key.
+     */
+    @Test
+    public final void testWordCount() {
+        StringMap4<Integer> m = new StringMap4<Integer>();
+        char[] buffer = "a b a  c a b".toCharArray();
+        int from = 0;
+        for (int to = 0; to <= buffer.length; to++) {
+            if (to == buffer.length || buffer[to] == ' ') {
+                if (m.hasKey(buffer, from, to)) {
+                    m.replaceValue(buffer, from, to,
+                            m.value(buffer, from, to) + 1);
+                } else {
+                    m.add(new String(buffer, from, to - from), 1);
+                }
+                from = to + 1;
+            }
+        }
+        assertEquals(4, m.size());
+        assertEquals(Integer.valueOf(3), m.value("a"));
+        assertEquals(Integer.valueOf(2), m.value("b"));
+        assertEquals(Integer.valueOf(1), m.value("c"));
+        assertEquals(Integer.valueOf(1), m.value(""));
+    }
+
+    /**
+     * Testing many adds and removes, which grow the tables and reuse the
+     * arena.
+     */
+    @Test
+    public final void testChurn() {
+        final int count = 5000;
+        StringMap4<Integer> m = new StringMap4<Integer>(3);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < count; i++) {
+                m.add("key" + i, i);
+            }
+            for (int i = 0; i < count; i += 2) {
+                assertEquals(Integer.valueOf(i), m.remove("key" + i).value());
+            }
+            for (int i = 1; i < count; i += 2) {
+                assertEquals(Integer.valueOf(i), m.value("key" + i));
+            }
+            while (m.size() > 0) {
+                m.removeAny();
+            }
+        }
+        assertFalse(m.hasKey("key1"));
+    }
+
+}
@@ -0,0 +1,19 @@
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code StringMap4} using default constructor.
+ */
+public class StringMap4Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new StringMap4<String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+}
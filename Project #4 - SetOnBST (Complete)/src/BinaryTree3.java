@@ -0,0 +1,769 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+import components.binarytree.BinaryTree;
+import components.binarytree.BinaryTreeSecondary;
+
+/**
+ * {@code BinaryTree} represented as nodes in parallel arrays (the labels, the
+ * children, and the cached subtree sizes), with implementations of primary
+ * methods. {@code disassemble} hands the two subtrees over by index, so the
+ * trees it fills share this tree's arrays; {@code assemble} of trees sharing
+ * arrays takes a node from them; and nodes are reused last freed first, so a
+ * search that disassembles a path and assembles it back leaves every node in
+ * the slot where it was, allocating nothing but the (empty) subtree objects.
+ * {@code size} reads the cached size of the root.
+ *
+ * <p>
+ * {@code buildBalanced} lays out a balanced tree in breadth-first (Eytzinger)
+ * order in arrays of its own, so that the top levels, which every search goes
+ * through, share a few cache lines. Assembling trees in different arrays
+ * copies the smaller ones in breadth-first order too. Trees that keep their
+ * shape are where this pays off; trees whose nodes are moved around by many
+ * updates scatter over their arrays like pointer-based ones.
+ *
+ * <p>
+ * Nodes go back to the free list only through {@code clear},
+ * {@code disassemble}, and methods that call them ({@code transferFrom},
+ * {@code assemble}, ...). A tree that shares arrays and is simply dropped does
+ * not free its nodes: they stay allocated until every tree sharing the arrays
+ * is garbage. So a client that disassembles a tree and then abandons a
+ * nonempty subtree, rather than assembling it back, should {@code clear} it
+ * first, or the arrays keep growing.
+ *
+ * <p>
+ * Trees sharing arrays must be used by one thread at a time.
+ *
+ * @param <T>
+ *            type of {@code BinaryTree} labels
+ * @convention <pre>
+ * [$this.node is NONE or the index of a node in $this.pool]  and
+ * [the nodes reachable from $this.node are reachable from no other
+ *  BinaryTree3, and not free]  and
+ * [the size of each reachable node is 1 plus the sizes of its children,
+ *  where NONE has size 0]
+ * </pre>
+ * @correspondence this = [the tree of the labels of the nodes reachable from
+ *                 $this.node, with their left and right children]
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class BinaryTree3<T> extends BinaryTreeSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Index standing for the empty tree.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * Number of nodes a new pool has room for.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Nodes of one or more trees, in parallel arrays.
+     */
+    private static final class Pool {
+
+        /**
+         * Labels of the nodes.
+         */
+        private Object[] labels;
+
+        /**
+         * Left children of the nodes; for a free node, the next free node.
+         */
+        private int[] left;
+
+        /**
+         * Right children of the nodes.
+         */
+        private int[] right;
+
+        /**
+         * Sizes of the subtrees rooted at the nodes.
+         */
+        private int[] size;
+
+        /**
+         * Number of slots ever used.
+         */
+        private int used;
+
+        /**
+         * Most recently freed node, or NONE.
+         */
+        private int freeHead;
+
+        /**
+         * Constructor with room for {@code capacity} nodes.
+         *
+         * @param capacity
+         *            the number of nodes to make room for
+         */
+        Pool(int capacity) {
+            int n = Math.max(capacity, 1);
+            this.labels = new Object[n];
+            this.left = new int[n];
+            this.right = new int[n];
+            this.size = new int[n];
+            this.freeHead = NONE;
+        }
+
+        /**
+         * Returns a node (the one freed last, if any) labeled {@code x} with
+         * children {@code l} and {@code r}.
+         *
+         * @param x
+         *            the label
+         * @param l
+         *            the left child
+         * @param r
+         *            the right child
+         * @return the node
+         */
+        int allocate(Object x, int l, int r) {
+            int n = this.freeHead;
+            if (n != NONE) {
+                this.freeHead = this.left[n];
+            } else {
+                if (this.used == this.labels.length) {
+                    int capacity = 2 * this.used;
+                    this.labels = Arrays.copyOf(this.labels, capacity);
+                    this.left = Arrays.copyOf(this.left, capacity);
+                    this.right = Arrays.copyOf(this.right, capacity);
+                    this.size = Arrays.copyOf(this.size, capacity);
+                }
+                n = this.used;
+                this.used++;
+            }
+            this.labels[n] = x;
+            this.left[n] = l;
+            this.right[n] = r;
+            this.size[n] = 1 + this.sizeOf(l) + this.sizeOf(r);
+            return n;
+        }
+
+        /**
+         * Frees node {@code n}.
+         *
+         * @param n
+         *            the node
+         */
+        void release(int n) {
+            this.labels[n] = null;
+            this.left[n] = this.freeHead;
+            this.freeHead = n;
+        }
+
+        /**
+         * Frees node {@code n} and all its descendants.
+         *
+         * @param n
+         *            the node, or NONE
+         */
+        void releaseAll(int n) {
+            if (n != NONE) {
+                int[] stack = new int[this.size[n]];
+                int top = 0;
+                stack[top] = n;
+                top++;
+                while (top > 0) {
+                    top--;
+                    int m = stack[top];
+                    int l = this.left[m];
+                    int r = this.right[m];
+                    if (l != NONE) {
+                        stack[top] = l;
+                        top++;
+                    }
+                    if (r != NONE) {
+                        stack[top] = r;
+                        top++;
+                    }
+                    this.release(m);
+                }
+            }
+        }
+
+        /**
+         * Reports the size of the subtree rooted at {@code n}.
+         *
+         * @param n
+         *            the node, or NONE
+         * @return the size
+         */
+        int sizeOf(int n) {
+            int size = 0;
+            if (n != NONE) {
+                size = this.size[n];
+            }
+            return size;
+        }
+
+    }
+
+    /**
+     * The nodes, or null if none were needed yet.
+     */
+    private Pool pool;
+
+    /**
+     * The root node, or NONE.
+     */
+    private int node;
+
+    /**
+     * Returns the label of node {@code n}.
+     *
+     * @param n
+     *            the node
+     * @return the label
+     */
+    @SuppressWarnings("unchecked")
+    private T label(int n) {
+        /*
+         * Only labels of type T are ever stored, so this cast cannot fail.
+         */
+        return (T) this.pool.labels[n];
+    }
+
+    /**
+     * Copies the subtree rooted at node {@code n} of {@code from} into
+     * {@code this.pool}, in breadth-first order, and frees it in from.
+     *
+     * @param from
+     *            the pool copied from
+     * @param n
+     *            the node
+     * @return the copy of n
+     */
+    private int copyIn(Pool from, int n) {
+        int count = from.size[n];
+        int[] order = new int[count];
+        int[] copies = new int[count];
+        order[0] = n;
+        int tail = 1;
+        for (int i = 0; i < count; i++) {
+            int m = order[i];
+            copies[i] = this.pool.allocate(null, NONE, NONE);
+            if (from.left[m] != NONE) {
+                order[tail] = from.left[m];
+                tail++;
+            }
+            if (from.right[m] != NONE) {
+                order[tail] = from.right[m];
+                tail++;
+            }
+        }
+        /*
+         * The children of order[i] come after it, in the same order as they
+         * were queued, so their copies can be found by counting.
+         */
+        int next = 1;
+        for (int i = 0; i < count; i++) {
+            int m = order[i];
+            int c = copies[i];
+            this.pool.labels[c] = from.labels[m];
+            this.pool.size[c] = from.size[m];
+            if (from.left[m] != NONE) {
+                this.pool.left[c] = copies[next];
+                next++;
+            }
+            if (from.right[m] != NONE) {
+                this.pool.right[c] = copies[next];
+                next++;
+            }
+        }
+        from.releaseAll(n);
+        return copies[0];
+    }
+
+    /**
+     * Copies the tree {@code t}, of another implementation, into
+     * {@code this.pool}, leaving t empty.
+     *
+     * @param t
+     *            the tree
+     * @return the copy of the root of t, or NONE
+     */
+    private int copyIn(BinaryTree<T> t) {
+        int n = NONE;
+        if (t.size() != 0) {
+            BinaryTree<T> leftSubtree = t.newInstance();
+            BinaryTree<T> rightSubtree = t.newInstance();
+            T x = t.disassemble(leftSubtree, rightSubtree);
+            int l = this.copyIn(leftSubtree);
+            int r = this.copyIn(rightSubtree);
+            n = this.pool.allocate(x, l, r);
+        }
+        return n;
+    }
+
+    /**
+     * Replaces {@code t}, of another implementation, by a copy of the subtree
+     * rooted at node {@code n}, and frees that subtree.
+     *
+     * @param n
+     *            the node, or NONE
+     * @param t
+     *            the tree
+     */
+    private void copyOut(int n, BinaryTree<T> t) {
+        t.clear();
+        if (n != NONE) {
+            BinaryTree<T> leftSubtree = t.newInstance();
+            BinaryTree<T> rightSubtree = t.newInstance();
+            this.copyOut(this.pool.left[n], leftSubtree);
+            this.copyOut(this.pool.right[n], rightSubtree);
+            t.assemble(this.label(n), leftSubtree, rightSubtree);
+            this.pool.release(n);
+        }
+    }
+
+    /**
+     * Moves the nodes of {@code t} into {@code this.pool}, if they are not
+     * there already, and returns its root, leaving t empty.
+     *
+     * @param t
+     *            the tree
+     * @return the root of t, or NONE
+     */
+    private int take(BinaryTree<T> t) {
+        int n;
+        if (t instanceof BinaryTree3<?>) {
+            BinaryTree3<T> local = (BinaryTree3<T>) t;
+            n = local.node;
+            if (n != NONE && local.pool != this.pool) {
+                n = this.copyIn(local.pool, n);
+            }
+            local.node = NONE;
+        } else {
+            n = this.copyIn(t);
+        }
+        return n;
+    }
+
+    /**
+     * Gives {@code t} the subtree rooted at node {@code n}.
+     *
+     * @param n
+     *            the node, or NONE
+     * @param t
+     *            the tree
+     */
+    private void give(int n, BinaryTree<T> t) {
+        if (t instanceof BinaryTree3<?>) {
+            BinaryTree3<T> local = (BinaryTree3<T>) t;
+            local.clear();
+            local.pool = this.pool;
+            local.node = n;
+        } else {
+            this.copyOut(n, t);
+        }
+    }
+
+    /**
+     * Returns the pool of the larger of {@code left} and {@code right}, if it
+     * is a {@code BinaryTree3}, so that assembling them copies as little as
+     * possible.
+     *
+     * @param left
+     *            the left subtree
+     * @param right
+     *            the right subtree
+     * @return the pool to assemble them in, or null if neither has one
+     */
+    private Pool poolFor(BinaryTree<T> left, BinaryTree<T> right) {
+        BinaryTree<T> larger = left;
+        if (right.size() > left.size()) {
+            larger = right;
+        }
+        Pool p = null;
+        if (larger instanceof BinaryTree3<?> && larger.size() > 0) {
+            p = ((BinaryTree3<T>) larger).pool;
+        }
+        return p;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.pool = null;
+        this.node = NONE;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public BinaryTree3() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final BinaryTree<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    /**
+     * {@inheritDoc} Frees the nodes of {@code this} for reuse by the trees
+     * sharing its arrays, in time linear in |this|.
+     */
+    @Override
+    public final void clear() {
+        if (this.node != NONE) {
+            this.pool.releaseAll(this.node);
+            this.node = NONE;
+        }
+    }
+
+    @Override
+    public final void transferFrom(BinaryTree<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof BinaryTree3<?> : ""
+                + "Violation of: source is of dynamic type BinaryTree3<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * BinaryTree3<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        BinaryTree3<T> localSource = (BinaryTree3<T>) source;
+        this.clear();
+        this.pool = localSource.pool;
+        this.node = localSource.node;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void assemble(T root, BinaryTree<T> left,
+            BinaryTree<T> right) {
+        assert root != null : "Violation of: root is not null";
+        assert left != null : "Violation of: left is not null";
+        assert right != null : "Violation of: right is not null";
+        assert left != this : "Violation of: left is not this";
+        assert right != this : "Violation of: right is not this";
+        assert left != right : "Violation of: left is not right";
+
+        this.clear();
+        Pool p = this.poolFor(left, right);
+        if (p != null) {
+            this.pool = p;
+        } else if (this.pool == null) {
+            this.pool = new Pool(INITIAL_CAPACITY);
+        }
+        int l = this.take(left);
+        int r = this.take(right);
+        this.node = this.pool.allocate(root, l, r);
+    }
+
+    @Override
+    public final T disassemble(BinaryTree<T> left, BinaryTree<T> right) {
+        assert left != null : "Violation of: left is not null";
+        assert right != null : "Violation of: right is not null";
+        assert left != this : "Violation of: left is not this";
+        assert right != this : "Violation of: right is not this";
+        assert left != right : "Violation of: left is not right";
+        assert this.size() > 0 : "Violation of: this /= empty_tree";
+
+        int n = this.node;
+        T root = this.label(n);
+        int l = this.pool.left[n];
+        int r = this.pool.right[n];
+        this.pool.release(n);
+        this.node = NONE;
+        this.give(l, left);
+        this.give(r, right);
+        return root;
+    }
+
+    @Override
+    public final int size() {
+        int size = 0;
+        if (this.node != NONE) {
+            size = this.pool.size[this.node];
+        }
+        return size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new BinaryTree3Iterator();
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T root() {
+        assert this.size() > 0 : "Violation of: this /= empty_tree";
+
+        return this.label(this.node);
+    }
+
+    @Override
+    public final T replaceRoot(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.size() > 0 : "Violation of: this /= empty_tree";
+
+        T root = this.label(this.node);
+        this.pool.labels[this.node] = x;
+        return root;
+    }
+
+    @Override
+    public final int height() {
+        int height = 0;
+        if (this.node != NONE) {
+            int[] nodes = new int[this.size()];
+            int[] depths = new int[this.size()];
+            int top = 0;
+            nodes[top] = this.node;
+            depths[top] = 1;
+            top++;
+            while (top > 0) {
+                top--;
+                int n = nodes[top];
+                int depth = depths[top];
+                height = Math.max(height, depth);
+                if (this.pool.left[n] != NONE) {
+                    nodes[top] = this.pool.left[n];
+                    depths[top] = depth + 1;
+                    top++;
+                }
+                if (this.pool.right[n] != NONE) {
+                    nodes[top] = this.pool.right[n];
+                    depths[top] = depth + 1;
+                    top++;
+                }
+            }
+        }
+        return height;
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Replaces {@code this} by a perfectly balanced tree of the labels
+     * {@code sorted[lo, hi)}, the middle one (at index (lo + hi) / 2) at the
+     * root and each subtree built the same way, laid out in breadth-first
+     * order in arrays of its own. Takes time linear in hi - lo.
+     *
+     * @param sorted
+     *            the labels
+     * @param lo
+     *            the start of the labels used
+     * @param hi
+     *            the end of the labels used
+     * @replaces this
+     * @requires 0 <= lo <= hi <= |sorted|
+     * @ensures <pre>
+     * [this is the tree described above]  and
+     * in-order labels(this) = sorted[lo, hi)
+     * </pre>
+     */
+    public final void buildBalanced(T[] sorted, int lo, int hi) {
+        assert sorted != null : "Violation of: sorted is not null";
+        assert 0 <= lo && lo <= hi && hi <= sorted.length : ""
+                + "Violation of: 0 <= lo <= hi <= |sorted|";
+
+        this.clear();
+        int count = hi - lo;
+        this.pool = new Pool(Math.max(count, INITIAL_CAPACITY));
+        if (count > 0) {
+            /*
+             * Node i is the i-th range taken from the queue; its children are
+             * the nodes at the positions where their ranges are queued.
+             */
+            int[] los = new int[count];
+            int[] his = new int[count];
+            los[0] = lo;
+            his[0] = hi;
+            int tail = 1;
+            for (int i = 0; i < count; i++) {
+                int mid = (los[i] + his[i]) >>> 1;
+                int l = NONE;
+                int r = NONE;
+                if (los[i] < mid) {
+                    l = tail;
+                    los[tail] = los[i];
+                    his[tail] = mid;
+                    tail++;
+                }
+                if (mid + 1 < his[i]) {
+                    r = tail;
+                    los[tail] = mid + 1;
+                    his[tail] = his[i];
+                    tail++;
+                }
+                this.pool.labels[i] = sorted[mid];
+                this.pool.left[i] = l;
+                this.pool.right[i] = r;
+                this.pool.size[i] = his[i] - los[i];
+            }
+            this.pool.used = count;
+            this.node = 0;
+        }
+    }
+
+    /**
+     * Returns an iterator visiting, in order, the labels of {@code this} from
+     * the first one for which {@code before} is false. It finds that label by
+     * going down one path from the root, in time proportional to the height
+     * of {@code this}, and then takes constant amortized time per label,
+     * creating no trees.
+     *
+     * @param before
+     *            the test for labels before the first one to visit
+     * @return the iterator
+     * @requires <pre>
+     * [before is true for some prefix of the in-order labels of this and
+     *  false for the rest]
+     * </pre>
+     * @ensures <pre>
+     * [iteratorFrom visits the labels of this in order, starting with the
+     *  first one for which before is false]
+     * </pre>
+     */
+    public final Iterator<T> iteratorFrom(Predicate<? super T> before) {
+        assert before != null : "Violation of: before is not null";
+
+        return new BinaryTree3Iterator(before);
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code BinaryTree3},
+     * visiting the labels in order with a stack of nodes.
+     */
+    private final class BinaryTree3Iterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels and right subtrees are still to be visited, the
+         * next one on top.
+         */
+        private int[] stack;
+
+        /**
+         * Number of nodes in {@code stack}.
+         */
+        private int top;
+
+        /**
+         * No-argument constructor.
+         */
+        BinaryTree3Iterator() {
+            this.stack = new int[INITIAL_CAPACITY];
+            this.top = 0;
+            this.pushLeftPath(BinaryTree3.this.node);
+        }
+
+        /**
+         * Constructor starting at the first label for which {@code before} is
+         * false.
+         *
+         * @param before
+         *            the test for labels to skip
+         */
+        BinaryTree3Iterator(Predicate<? super T> before) {
+            this.stack = new int[INITIAL_CAPACITY];
+            this.top = 0;
+            int m = BinaryTree3.this.node;
+            while (m != NONE) {
+                if (before.test(BinaryTree3.this.label(m))) {
+                    m = BinaryTree3.this.pool.right[m];
+                } else {
+                    this.push(m);
+                    m = BinaryTree3.this.pool.left[m];
+                }
+            }
+        }
+
+        /**
+         * Pushes {@code n} on the stack.
+         *
+         * @param n
+         *            the node
+         */
+        private void push(int n) {
+            if (this.top == this.stack.length) {
+                this.stack = Arrays.copyOf(this.stack, 2 * this.top);
+            }
+            this.stack[this.top] = n;
+            this.top++;
+        }
+
+        /**
+         * Pushes {@code n} and its left descendants down to the smallest.
+         *
+         * @param n
+         *            the node, or NONE
+         */
+        private void pushLeftPath(int n) {
+            int m = n;
+            while (m != NONE) {
+                this.push(m);
+                m = BinaryTree3.this.pool.left[m];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.top > 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.top--;
+            int n = this.stack[this.top];
+            this.pushLeftPath(BinaryTree3.this.pool.right[n]);
+            return BinaryTree3.this.label(n);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,245 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Measures the throughput of {@code Set5} used by 1 to 32 threads at once,
+ * each doing a mix of lookups, adds, and removes of random elements, compared
+ * with {@code java.util.concurrent.ConcurrentSkipListSet} and with
+ * {@code Set3b} behind a single lock. Run with assertions disabled.
+ *
+ * @author Jatin Mamtani
+ */
+public final class ConcurrentSetBenchmark {
+
+    /**
+     * Numbers of threads to measure.
+     */
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32 };
+
+    /**
+     * Number of distinct elements used; half are in the set at the start.
+     */
+    private static final int RANGE = 1 << 20;
+
+    /**
+     * Percentage of operations that are lookups; the rest are split evenly
+     * between adds and removes.
+     */
+    private static final int LOOKUP_PERCENT = 90;
+
+    /**
+     * Length of each measurement, in milliseconds.
+     */
+    private static final long RUN_MILLIS = 1000;
+
+    /**
+     * Operations of a set shared between threads.
+     */
+    private interface SharedSet {
+
+        /**
+         * Reports whether {@code x} is in the set.
+         *
+         * @param x
+         *            the element
+         * @return whether x is in the set
+         */
+        boolean contains(Integer x);
+
+        /**
+         * Adds {@code x} if it is not in the set.
+         *
+         * @param x
+         *            the element
+         * @return whether x was added
+         */
+        boolean addIfAbsent(Integer x);
+
+        /**
+         * Removes {@code x} if it is in the set.
+         *
+         * @param x
+         *            the element
+         * @return whether x was removed
+         */
+        boolean removeIfPresent(Integer x);
+
+    }
+
+    /**
+     * No argument constructor--private to prevent instantiation.
+     */
+    private ConcurrentSetBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns a {@code SharedSet} backed by a new {@code Set5}.
+     *
+     * @return the shared set
+     */
+    private static SharedSet set5() {
+        Set5<Integer> s = new Set5<Integer>();
+        return new SharedSet() {
+            @Override
+            public boolean contains(Integer x) {
+                return s.contains(x);
+            }
+
+            @Override
+            public boolean addIfAbsent(Integer x) {
+                return s.addIfAbsent(x);
+            }
+
+            @Override
+            public boolean removeIfPresent(Integer x) {
+                return s.removeIfPresent(x);
+            }
+        };
+    }
+
+    /**
+     * Returns a {@code SharedSet} backed by a new
+     * {@code ConcurrentSkipListSet}.
+     *
+     * @return the shared set
+     */
+    private static SharedSet skipListSet() {
+        ConcurrentSkipListSet<Integer> s = new ConcurrentSkipListSet<Integer>();
+        return new SharedSet() {
+            @Override
+            public boolean contains(Integer x) {
+                return s.contains(x);
+            }
+
+            @Override
+            public boolean addIfAbsent(Integer x) {
+                return s.add(x);
+            }
+
+            @Override
+            public boolean removeIfPresent(Integer x) {
+                return s.remove(x);
+            }
+        };
+    }
+
+    /**
+     * Returns a {@code SharedSet} backed by a new {@code Set3b}, every
+     * operation of which holds its lock.
+     *
+     * @return the shared set
+     */
+    private static SharedSet lockedSet3b() {
+        Set3b<Integer> s = new Set3b<Integer>();
+        return new SharedSet() {
+            @Override
+            public synchronized boolean contains(Integer x) {
+                return s.contains(x);
+            }
+
+            @Override
+            public synchronized boolean addIfAbsent(Integer x) {
+                boolean absent = !s.contains(x);
+                if (absent) {
+                    s.add(x);
+                }
+                return absent;
+            }
+
+            @Override
+            public synchronized boolean removeIfPresent(Integer x) {
+                boolean present = s.contains(x);
+                if (present) {
+                    s.remove(x);
+                }
+                return present;
+            }
+        };
+    }
+
+    /**
+     * Fills {@code s} with every other element, then runs {@code threads}
+     * threads on it for {@code RUN_MILLIS} and reports the total throughput.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation measured
+     * @param s
+     *            the (empty) set to measure
+     * @param threads
+     *            the number of threads
+     * @throws InterruptedException
+     *             if interrupted while waiting for the threads
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [one line of results]
+     */
+    private static void measure(SimpleWriter out, String name, SharedSet s,
+            int threads) throws InterruptedException {
+        for (int i = 0; i < RANGE; i += 2) {
+            s.addIfAbsent(i);
+        }
+        LongAdder operations = new LongAdder();
+        long deadline = System.nanoTime() + RUN_MILLIS * 1_000_000;
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            workers.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long done = 0;
+                final int batch = 1024;
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < batch; i++) {
+                        Integer x = random.nextInt(RANGE);
+                        int kind = random.nextInt(100);
+                        if (kind < LOOKUP_PERCENT) {
+                            s.contains(x);
+                        } else if (kind % 2 == 0) {
+                            s.addIfAbsent(x);
+                        } else {
+                            s.removeIfPresent(x);
+                        }
+                    }
+                    done += batch;
+                }
+                operations.add(done);
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        out.println(String.format("  %-22s %2d threads  %8.2f Mops/s", name,
+                threads, operations.sum() / (RUN_MILLIS * 1000.0)));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     * @throws InterruptedException
+     *             if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        SimpleWriter out = new SimpleWriter1L();
+        out.println(LOOKUP_PERCENT + "% lookups, " + RANGE + " elements:");
+        for (int threads : THREADS) {
+            measure(out, "Set5", set5(), threads);
+            measure(out, "ConcurrentSkipListSet", skipListSet(), threads);
+            measure(out, "Set3b (locked)", lockedSet3b(), threads);
+        }
+        out.close();
+    }
+
+}
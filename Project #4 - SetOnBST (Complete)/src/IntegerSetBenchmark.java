@@ -0,0 +1,237 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Measures the heap taken by sets of {@code Integer} ids in {@code Set6}
+ * (before and after {@code runOptimize}), {@code Set4}, and {@code Set3b},
+ * for a dense range of ids, for every other id of a range, and for ids
+ * scattered at random, and times {@code add(Set)} and {@code remove(Set)} of
+ * two such sets in {@code Set3a}, which merges sorted sequences, and in
+ * {@code Set6}, which combines bitmaps. Heap use is read after asking for
+ * garbage collection, so it is approximate; run with assertions disabled and
+ * a heap large enough for a few sets of the given size.
+ *
+ * @author Jatin Mamtani
+ */
+public final class IntegerSetBenchmark {
+
+    /**
+     * Number of ids in every set.
+     */
+    private static final int SIZE = 1_000_000;
+
+    /**
+     * Number of times each bulk operation is timed; the fastest is reported.
+     */
+    private static final int REPEATS = 5;
+
+    /**
+     * Number of garbage collections requested before reading heap use.
+     */
+    private static final int GCS = 3;
+
+    /**
+     * Seed for the random ids, so runs are comparable.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * No argument constructor--private to prevent instantiation.
+     */
+    private IntegerSetBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns the bytes of heap in use, after asking for garbage collection.
+     *
+     * @return the bytes in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GCS; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Returns the ids named by {@code kind}: 0 to {@code SIZE} - 1 if
+     * "dense", the even ids below 2 * SIZE if "alternate", and otherwise SIZE
+     * distinct random non-negative ids.
+     *
+     * @param kind
+     *            "dense", "alternate", or "random"
+     * @param offset
+     *            added to each id
+     * @return the ids, all distinct
+     */
+    private static int[] ids(String kind, int offset) {
+        int[] ids = new int[SIZE];
+        if (kind.equals("random")) {
+            Set6 seen = new Set6();
+            Random random = new Random(SEED + offset);
+            int n = 0;
+            while (n < SIZE) {
+                int x = random.nextInt(Integer.MAX_VALUE);
+                if (!seen.contains(x)) {
+                    seen.add(x);
+                    ids[n] = x;
+                    n++;
+                }
+            }
+        } else {
+            int step = 1;
+            if (kind.equals("alternate")) {
+                step = 2;
+            }
+            for (int i = 0; i < SIZE; i++) {
+                ids[i] = i * step + offset;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Builds a set of {@code ids} and reports the heap it takes.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation measured
+     * @param s
+     *            the (empty) set to fill
+     * @param ids
+     *            the ids, all distinct
+     * @param optimize
+     *            whether to call runOptimize, if s is a {@code Set6}
+     * @updates out.content, s
+     * @requires out.is_open and s = {}
+     * @ensures out.content = #out.content * [one line of results]
+     */
+    private static void measureHeap(SimpleWriter out, String name,
+            Set<Integer> s, int[] ids, boolean optimize) {
+        long before = usedHeap();
+        for (int x : ids) {
+            s.add(x);
+        }
+        if (optimize && s instanceof Set6) {
+            ((Set6) s).runOptimize();
+        }
+        long bytes = usedHeap() - before;
+        out.println(String.format("  %-12s %12d bytes  %7.2f bytes/id", name,
+                bytes, (double) bytes / s.size()));
+    }
+
+    /**
+     * Reports the fastest times of {@code a.add(b)} and {@code a.remove(b)}
+     * for sets made by {@code build} from {@code first} and {@code second}.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation measured
+     * @param build
+     *            makes a set of the given ids
+     * @param first
+     *            the ids of a
+     * @param second
+     *            the ids of b
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [one line of results]
+     */
+    private static void measureBulk(SimpleWriter out, String name,
+            Function<int[], Set<Integer>> build, int[] first,
+            int[] second) {
+        long bestAdd = Long.MAX_VALUE;
+        long bestRemove = Long.MAX_VALUE;
+        int size = 0;
+        for (int r = 0; r < REPEATS; r++) {
+            Set<Integer> a = build.apply(first);
+            Set<Integer> b = build.apply(second);
+            long start = System.nanoTime();
+            a.add(b);
+            long added = System.nanoTime();
+            Set<Integer> removed = a.remove(b);
+            long done = System.nanoTime();
+            bestAdd = Math.min(bestAdd, added - start);
+            bestRemove = Math.min(bestRemove, done - added);
+            size += a.size() + removed.size();
+        }
+        out.println(String.format(
+                "  %-12s add(Set) %9.2f ms  remove(Set) %9.2f ms  (%d)", name,
+                bestAdd / NANOS_PER_MILLI, bestRemove / NANOS_PER_MILLI,
+                size % 2));
+    }
+
+    /**
+     * Returns a {@code Set3a} of {@code ids}, built at once (adding sorted ids
+     * one at a time would make its tree a list).
+     *
+     * @param ids
+     *            the ids, all distinct
+     * @return the set
+     * @ensures set3a = ids
+     */
+    private static Set<Integer> set3a(int[] ids) {
+        List<Integer> list = new ArrayList<Integer>(ids.length);
+        for (int x : ids) {
+            list.add(x);
+        }
+        return new Set3a<Integer>(list);
+    }
+
+    /**
+     * Returns a {@code Set6} of {@code ids}.
+     *
+     * @param ids
+     *            the ids, all distinct
+     * @return the set
+     * @ensures set6 = ids
+     */
+    private static Set<Integer> set6(int[] ids) {
+        Set<Integer> s = new Set6();
+        for (int x : ids) {
+            s.add(x);
+        }
+        return s;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        String[] kinds = { "dense", "alternate", "random" };
+        for (String kind : kinds) {
+            int[] ids = ids(kind, 0);
+            out.println(SIZE + " ids, " + kind + ", heap:");
+            measureHeap(out, "Set6", new Set6(), ids, false);
+            measureHeap(out, "Set6 (runs)", new Set6(), ids, true);
+            measureHeap(out, "Set4", new Set4<Integer>(), ids, false);
+            measureHeap(out, "Set3b", new Set3b<Integer>(), ids, false);
+            int[] shifted = ids(kind, SIZE / 2);
+            out.println(SIZE + " ids, " + kind + ", half overlapping:");
+            measureBulk(out, "Set3a", IntegerSetBenchmark::set3a, ids,
+                    shifted);
+            measureBulk(out, "Set6", IntegerSetBenchmark::set6, ids, shifted);
+        }
+        out.close();
+    }
+
+}
@@ -1,4 +1,11 @@
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
 
 import components.binarytree.BinaryTree;
 import components.binarytree.BinaryTree1;
@@ -34,11 +41,28 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
      * Private members --------------------------------------------------------
      */
 
+    /**
+     * Number of elements at or above which bulk operations sort and build
+     * trees in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    /**
+     * Smallest number of elements the guard is sized for.
+     */
+    private static final int MIN_GUARD_CAPACITY = 64;
+
     /**
      * Elements included in {@code this}.
      */
     private BinaryTree<T> tree;
 
+    /**
+     * Bloom filter holding the hash codes of (at least) the elements of
+     * {@code this}, or null if {@code this} is not guarded.
+     */
+    private BlockedBloomFilter guard;
+
     /**
      * Returns whether {@code x} is in {@code t}.
      *
@@ -189,11 +213,459 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
         return removedNode;
     }
 
+    /**
+     * Returns the largest label in {@code t} that is at most {@code x}, or
+     * null if there is none.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param x
+     *            the bound
+     * @return the largest label <= x, or null
+     * @requires IS_BST(t)
+     */
+    private static <T extends Comparable<T>> T floorInTree(BinaryTree<T> t,
+            T x) {
+        T floor = null;
+        if (t.size() != 0) {
+            BinaryTree<T> leftSubtree = t.newInstance();
+            BinaryTree<T> rightSubtree = t.newInstance();
+            T rootNode = t.disassemble(leftSubtree, rightSubtree);
+            int c = x.compareTo(rootNode);
+            if (c < 0) {
+                floor = floorInTree(leftSubtree, x);
+            } else if (c > 0) {
+                floor = floorInTree(rightSubtree, x);
+                if (floor == null) {
+                    floor = rootNode;
+                }
+            } else {
+                floor = rootNode;
+            }
+            t.assemble(rootNode, leftSubtree, rightSubtree);
+        }
+        return floor;
+    }
+
+    /**
+     * Returns the smallest label in {@code t} that is at least {@code x}, or
+     * null if there is none.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param x
+     *            the bound
+     * @return the smallest label >= x, or null
+     * @requires IS_BST(t)
+     */
+    private static <T extends Comparable<T>> T ceilingInTree(BinaryTree<T> t,
+            T x) {
+        T ceiling = null;
+        if (t.size() != 0) {
+            BinaryTree<T> leftSubtree = t.newInstance();
+            BinaryTree<T> rightSubtree = t.newInstance();
+            T rootNode = t.disassemble(leftSubtree, rightSubtree);
+            int c = x.compareTo(rootNode);
+            if (c > 0) {
+                ceiling = ceilingInTree(rightSubtree, x);
+            } else if (c < 0) {
+                ceiling = ceilingInTree(leftSubtree, x);
+                if (ceiling == null) {
+                    ceiling = rootNode;
+                }
+            } else {
+                ceiling = rootNode;
+            }
+            t.assemble(rootNode, leftSubtree, rightSubtree);
+        }
+        return ceiling;
+    }
+
+    /**
+     * Reports the number of labels in {@code t} smaller than {@code x}, using
+     * the sizes of left subtrees so that only one path is visited.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param x
+     *            the bound
+     * @return |{y in labels(t): y < x}|
+     * @requires IS_BST(t)
+     */
+    private static <T extends Comparable<T>> int rankInTree(BinaryTree<T> t,
+            T x) {
+        int rank = 0;
+        if (t.size() != 0) {
+            BinaryTree<T> leftSubtree = t.newInstance();
+            BinaryTree<T> rightSubtree = t.newInstance();
+            T rootNode = t.disassemble(leftSubtree, rightSubtree);
+            int c = x.compareTo(rootNode);
+            if (c > 0) {
+                rank = leftSubtree.size() + 1 + rankInTree(rightSubtree, x);
+            } else if (c < 0) {
+                rank = rankInTree(leftSubtree, x);
+            } else {
+                rank = leftSubtree.size();
+            }
+            t.assemble(rootNode, leftSubtree, rightSubtree);
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the label of {@code t} with exactly {@code k} smaller labels,
+     * using the sizes of left subtrees so that only one path is visited.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param k
+     *            the number of smaller labels
+     * @return the label with rank k
+     * @requires IS_BST(t) and 0 <= k < |t|
+     */
+    private static <T> T selectInTree(BinaryTree<T> t, int k) {
+        BinaryTree<T> leftSubtree = t.newInstance();
+        BinaryTree<T> rightSubtree = t.newInstance();
+        T rootNode = t.disassemble(leftSubtree, rightSubtree);
+        T selected;
+        if (k < leftSubtree.size()) {
+            selected = selectInTree(leftSubtree, k);
+        } else if (k > leftSubtree.size()) {
+            selected = selectInTree(rightSubtree, k - leftSubtree.size() - 1);
+        } else {
+            selected = rootNode;
+        }
+        t.assemble(rootNode, leftSubtree, rightSubtree);
+        return selected;
+    }
+
+    /**
+     * Appends to {@code batch}, in increasing order, the smallest labels of
+     * {@code t} that are above {@code lo} (or at least lo, if
+     * {@code inclusive}) and smaller than {@code hi}, stopping once batch
+     * holds {@code limit} labels. Skips the subtrees that can hold none of
+     * them, so it takes time proportional to the height of t plus the number
+     * of labels appended. A null bound means no bound.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param lo
+     *            the lower bound, or null
+     * @param inclusive
+     *            whether a label equal to lo is wanted
+     * @param hi
+     *            the upper bound (exclusive), or null
+     * @param batch
+     *            the list appended to
+     * @param limit
+     *            the size of batch at which to stop
+     * @updates batch
+     * @requires IS_BST(t) and |batch| <= limit
+     * @ensures <pre>
+     * batch = #batch * [the first limit - |#batch| (or all, if fewer) labels
+     *                   y of t in (or, if inclusive, at) lo <= y < hi, in
+     *                   increasing order]
+     * </pre>
+     */
+    private static <T extends Comparable<T>> void collectBatch(
+            BinaryTree<T> t, T lo, boolean inclusive, T hi, List<T> batch,
+            int limit) {
+        if (t.size() != 0 && batch.size() < limit) {
+            BinaryTree<T> leftSubtree = t.newInstance();
+            BinaryTree<T> rightSubtree = t.newInstance();
+            T rootNode = t.disassemble(leftSubtree, rightSubtree);
+            boolean aboveLo = true;
+            if (lo != null) {
+                int c = rootNode.compareTo(lo);
+                aboveLo = c > 0 || (c == 0 && inclusive);
+            }
+            boolean belowHi = hi == null || rootNode.compareTo(hi) < 0;
+            if (aboveLo) {
+                collectBatch(leftSubtree, lo, inclusive, hi, batch, limit);
+            }
+            if (aboveLo && belowHi && batch.size() < limit) {
+                batch.add(rootNode);
+            }
+            if (belowHi) {
+                collectBatch(rightSubtree, lo, inclusive, hi, batch, limit);
+            }
+            t.assemble(rootNode, leftSubtree, rightSubtree);
+        }
+    }
+
+    /**
+     * Returns the labels of {@code t} in increasing order.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree}
+     * @return the labels of t, sorted
+     * @requires IS_BST(t)
+     * @ensures inOrder = [labels of t in increasing order]
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<T>> T[] inOrder(BinaryTree<T> t) {
+        /*
+         * T's erasure is Comparable, so this cast cannot fail.
+         */
+        T[] labels = (T[]) new Comparable<?>[t.size()];
+        int i = 0;
+        for (T x : t) {
+            labels[i] = x;
+            i++;
+        }
+        return labels;
+    }
+
+    /**
+     * Returns the elements of {@code s} in increasing order: straight from the
+     * tree if s is a {@code Set3a}, and otherwise sorted (in parallel, if
+     * there are many).
+     *
+     * @param <T>
+     *            type of {@code Set} elements
+     * @param s
+     *            the {@code Set}
+     * @return the elements of s, sorted
+     * @ensures sortedElements = [elements of s in increasing order]
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<T>> T[] sortedElements(Set<T> s) {
+        T[] elements;
+        if (s instanceof Set3a<?>) {
+            elements = inOrder(((Set3a<T>) s).tree);
+        } else {
+            elements = (T[]) new Comparable<?>[s.size()];
+            int i = 0;
+            for (T x : s) {
+                elements[i] = x;
+                i++;
+            }
+            if (elements.length >= PARALLEL_THRESHOLD) {
+                Arrays.parallelSort(elements);
+            } else {
+                Arrays.sort(elements);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Builds in {@code t} a perfectly balanced tree of the labels
+     * {@code sorted[lo, hi)}, the middle one at the root.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param sorted
+     *            labels in increasing order, without duplicates
+     * @param lo
+     *            the start of the labels used
+     * @param hi
+     *            the end of the labels used
+     * @param t
+     *            the {@code BinaryTree} built
+     * @replaces t
+     * @requires 0 <= lo <= hi <= |sorted|
+     * @ensures <pre>
+     * IS_BST(t)  and  labels(t) = elements(sorted[lo, hi))  and
+     * height(t) = [ceiling of log base 2 of (hi - lo + 1)]
+     * </pre>
+     */
+    private static <T> void buildTree(T[] sorted, int lo, int hi,
+            BinaryTree<T> t) {
+        t.clear();
+        if (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            BinaryTree<T> leftSubtree = t.newInstance();
+            BinaryTree<T> rightSubtree = t.newInstance();
+            buildTree(sorted, lo, mid, leftSubtree);
+            buildTree(sorted, mid + 1, hi, rightSubtree);
+            t.assemble(sorted[mid], leftSubtree, rightSubtree);
+        }
+    }
+
+    /**
+     * Task building a balanced tree like {@code buildTree}, with the two
+     * subtrees of a large range built in parallel.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     */
+    private static final class BuildTask<T> extends RecursiveAction {
+
+        /**
+         * Serialization version, as required of {@code RecursiveAction}s.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Labels in increasing order.
+         */
+        private final T[] sorted;
+
+        /**
+         * Start of the labels used.
+         */
+        private final int lo;
+
+        /**
+         * End of the labels used.
+         */
+        private final int hi;
+
+        /**
+         * The {@code BinaryTree} built.
+         */
+        private final BinaryTree<T> t;
+
+        /**
+         * Constructor from the arguments of {@code buildTree}.
+         *
+         * @param sorted
+         *            labels in increasing order, without duplicates
+         * @param lo
+         *            the start of the labels used
+         * @param hi
+         *            the end of the labels used
+         * @param t
+         *            the {@code BinaryTree} built
+         */
+        BuildTask(T[] sorted, int lo, int hi, BinaryTree<T> t) {
+            this.sorted = sorted;
+            this.lo = lo;
+            this.hi = hi;
+            this.t = t;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo < PARALLEL_THRESHOLD) {
+                buildTree(this.sorted, this.lo, this.hi, this.t);
+            } else {
+                int mid = (this.lo + this.hi) >>> 1;
+                BinaryTree<T> leftSubtree = this.t.newInstance();
+                BinaryTree<T> rightSubtree = this.t.newInstance();
+                invokeAll(
+                        new BuildTask<T>(this.sorted, this.lo, mid,
+                                leftSubtree),
+                        new BuildTask<T>(this.sorted, mid + 1, this.hi,
+                                rightSubtree));
+                this.t.clear();
+                this.t.assemble(this.sorted[mid], leftSubtree, rightSubtree);
+            }
+        }
+
+    }
+
+    /**
+     * Returns a perfectly balanced tree of the labels {@code sorted[0, n)}, of
+     * the same implementation as {@code prototype}: laid out by
+     * {@code buildBalanced} for a {@code BinaryTree3}, and otherwise built in
+     * parallel if there are many.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param sorted
+     *            labels in increasing order, without duplicates
+     * @param n
+     *            the number of labels used
+     * @param prototype
+     *            a tree of the implementation to build
+     * @return the tree
+     * @requires 0 <= n <= |sorted|
+     * @ensures IS_BST(balancedTree) and labels(balancedTree) =
+     *          elements(sorted[0, n))
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> BinaryTree<T> balancedTree(T[] sorted, int n,
+            BinaryTree<T> prototype) {
+        BinaryTree<T> t = prototype.newInstance();
+        if (t instanceof BinaryTree3<?>) {
+            /*
+             * t came from a BinaryTree<T>, so the ? is T.
+             */
+            ((BinaryTree3<T>) t).buildBalanced(sorted, 0, n);
+        } else if (n >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new BuildTask<T>(sorted, 0, n, t));
+        } else {
+            buildTree(sorted, 0, n, t);
+        }
+        return t;
+    }
+
+    /**
+     * Replaces the elements of {@code s} by {@code sorted[0, n)}, building
+     * its tree directly if s is a {@code Set3a}.
+     *
+     * @param <T>
+     *            type of {@code Set} elements
+     * @param s
+     *            the {@code Set}
+     * @param sorted
+     *            elements in increasing order, without duplicates
+     * @param n
+     *            the number of elements used
+     * @replaces s
+     * @requires 0 <= n <= |sorted|
+     * @ensures s = elements(sorted[0, n))
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<T>> void setElements(Set<T> s,
+            T[] sorted, int n) {
+        if (s instanceof Set3a<?>) {
+            Set3a<T> set = (Set3a<T>) s;
+            set.tree = balancedTree(sorted, n, set.tree);
+            set.rebuildGuard();
+        } else {
+            s.clear();
+            for (int i = 0; i < n; i++) {
+                s.add(sorted[i]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the guard, if there is one, by one holding the hash codes of
+     * just the elements of {@code this}, sized for twice as many, so that
+     * removed elements no longer let lookups through and there is room for
+     * more.
+     *
+     * @updates $this.guard
+     */
+    private void rebuildGuard() {
+        if (this.guard != null) {
+            this.guard = this.guard.resized(
+                    Math.max(MIN_GUARD_CAPACITY, 2 * this.tree.size()));
+            for (T x : this.tree) {
+                this.guard.add(x.hashCode());
+            }
+        }
+    }
+
     /**
      * Creator of initial representation.
      */
     private void createNewRep() {
-        this.tree = new BinaryTree1<T>();
+        if (this.tree == null) {
+            this.tree = new BinaryTree1<T>();
+        } else {
+            this.tree = this.tree.newInstance();
+        }
+        if (this.guard != null) {
+            this.guard = new BlockedBloomFilter(MIN_GUARD_CAPACITY,
+                    this.guard.falsePositiveRate());
+        }
     }
 
     /*
@@ -207,6 +679,102 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
         this.createNewRep();
     }
 
+    /**
+     * Constructor from the elements of {@code elements}, in any order and
+     * possibly repeated. The elements are sorted (in parallel, if there are
+     * many), repeats are dropped, and the tree is built directly as a
+     * perfectly balanced one, so this takes O(n log n) time for n elements
+     * (O(n) if they come sorted) rather than n calls of {@code add}.
+     *
+     * @param elements
+     *            the elements
+     * @ensures this = [set of the elements of elements]
+     */
+    @SuppressWarnings("unchecked")
+    public Set3a(Iterable<T> elements) {
+        assert elements != null : "Violation of: elements is not null";
+
+        List<T> list = new ArrayList<T>();
+        boolean sorted = true;
+        for (T x : elements) {
+            assert x != null : "Violation of: elements has no null";
+            if (sorted && !list.isEmpty()) {
+                sorted = list.get(list.size() - 1).compareTo(x) <= 0;
+            }
+            list.add(x);
+        }
+        /*
+         * T's erasure is Comparable, so this cast cannot fail.
+         */
+        T[] array = list.toArray((T[]) new Comparable<?>[list.size()]);
+        if (!sorted) {
+            if (array.length >= PARALLEL_THRESHOLD) {
+                Arrays.parallelSort(array);
+            } else {
+                Arrays.sort(array);
+            }
+        }
+        int n = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (n == 0 || array[n - 1].compareTo(array[i]) != 0) {
+                array[n] = array[i];
+                n++;
+            }
+        }
+        this.tree = balancedTree(array, n, new BinaryTree1<T>());
+    }
+
+    /**
+     * Constructor of an empty set guarded by a Bloom filter with false
+     * positive rate {@code falsePositiveRate}. The filter holds the hash codes
+     * of the elements, so most calls of {@code contains} for elements not in
+     * {@code this} return false after reading one cache line instead of
+     * searching the tree; the rest (about falsePositiveRate of them) search
+     * as usual. It costs a filter update per {@code add}, and now and then a
+     * rebuild of the filter in time linear in |this|, when it fills up.
+     * {@code guardStatistics} reports how many lookups it answered.
+     *
+     * @param falsePositiveRate
+     *            the false positive rate of the guard
+     * @requires <pre>
+     * 0 < falsePositiveRate < 1  and
+     * [elements of type T that are equal by compareTo have equal hash codes]
+     * </pre>
+     * @ensures this = {}
+     */
+    public Set3a(double falsePositiveRate) {
+        assert 0 < falsePositiveRate && falsePositiveRate < 1 : ""
+                + "Violation of: 0 < falsePositiveRate < 1";
+
+        this.guard = new BlockedBloomFilter(MIN_GUARD_CAPACITY,
+                falsePositiveRate);
+        this.createNewRep();
+    }
+
+    /**
+     * Returns an empty set that keeps its elements in trees made by
+     * {@code trees} (and by their {@code newInstance}); e.g.,
+     * {@code Set3a.backedBy(BinaryTree3::new)} gives a set whose trees are
+     * {@code BinaryTree3}s, whose arrays suit sets that are built in bulk and
+     * then mostly searched.
+     *
+     * @param <T>
+     *            type of {@code Set} elements
+     * @param trees
+     *            maker of empty trees of the implementation to use
+     * @return the set
+     * @ensures backedBy = {}
+     */
+    public static <T extends Comparable<T>> Set3a<T> backedBy(
+            Supplier<? extends BinaryTree<T>> trees) {
+        assert trees != null : "Violation of: trees is not null";
+
+        Set3a<T> s = new Set3a<T>();
+        s.tree = trees.get();
+        assert s.tree.size() == 0 : "Violation of: trees makes empty trees";
+        return s;
+    }
+
     /*
      * Standard methods -------------------------------------------------------
      */
@@ -240,6 +808,7 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
          */
         Set3a<T> localSource = (Set3a<T>) source;
         this.tree = localSource.tree;
+        this.guard = localSource.guard;
         localSource.createNewRep();
     }
 
@@ -252,6 +821,12 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
         assert x != null : "Violation of: x is not null";
         assert !this.contains(x) : "Violation of: x is not in this";
         insertInTree(this.tree, x);
+        if (this.guard != null) {
+            this.guard.add(x.hashCode());
+            if (this.guard.isFull()) {
+                this.rebuildGuard();
+            }
+        }
     }
 
     @Override
@@ -270,7 +845,17 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
     @Override
     public final boolean contains(T x) {
         assert x != null : "Violation of: x is not null";
-        return isInTree(this.tree, x);
+
+        boolean found = false;
+        if (this.guard == null) {
+            found = isInTree(this.tree, x);
+        } else if (this.guard.mightContain(x.hashCode())) {
+            found = isInTree(this.tree, x);
+            if (!found) {
+                this.guard.recordFalsePositive();
+            }
+        }
+        return found;
     }
 
     @Override
@@ -280,7 +865,394 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
 
     @Override
     public final Iterator<T> iterator() {
-        return this.tree.iterator();
+        return new Set3aIterator(null, null);
+    }
+
+    /*
+     * Bulk methods -----------------------------------------------------------
+     */
+
+    /**
+     * Merges the elements of {@code s} into {@code this} and leaves in
+     * {@code s} the elements that were in both, as {@code SetSecondary} does,
+     * but in time linear in |this| + |s| (plus sorting s, if it is not a
+     * {@code Set3a}): the two sorted sequences are merged in one pass and the
+     * result is built directly as a perfectly balanced tree, in parallel if
+     * it is large.
+     */
+    @Override
+    public final void add(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        T[] a = inOrder(this.tree);
+        T[] b = sortedElements(s);
+        T[] union = Arrays.copyOf(a, a.length + b.length);
+        T[] both = Arrays.copyOf(b, Math.min(a.length, b.length));
+        int nUnion = 0;
+        int nBoth = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            int c;
+            if (i == a.length) {
+                c = 1;
+            } else if (j == b.length) {
+                c = -1;
+            } else {
+                c = a[i].compareTo(b[j]);
+            }
+            if (c < 0) {
+                union[nUnion] = a[i];
+                i++;
+            } else if (c > 0) {
+                union[nUnion] = b[j];
+                j++;
+            } else {
+                union[nUnion] = a[i];
+                both[nBoth] = b[j];
+                nBoth++;
+                i++;
+                j++;
+            }
+            nUnion++;
+        }
+        this.tree = balancedTree(union, nUnion, this.tree);
+        this.rebuildGuard();
+        setElements(s, both, nBoth);
+    }
+
+    /**
+     * Removes from {@code this} the elements that are also in {@code s} and
+     * returns them, as {@code SetSecondary} does, but in time linear in
+     * |this| + |s| (plus sorting s, if it is not a {@code Set3a}): the two
+     * sorted sequences are merged in one pass and the result is built
+     * directly as a perfectly balanced tree, in parallel if it is large.
+     */
+    @Override
+    public final Set<T> remove(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        T[] a = inOrder(this.tree);
+        T[] b = sortedElements(s);
+        T[] difference = Arrays.copyOf(a, a.length);
+        T[] both = Arrays.copyOf(a, Math.min(a.length, b.length));
+        int nDifference = 0;
+        int nBoth = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length) {
+            int c = -1;
+            if (j < b.length) {
+                c = a[i].compareTo(b[j]);
+            }
+            if (c < 0) {
+                difference[nDifference] = a[i];
+                nDifference++;
+                i++;
+            } else if (c > 0) {
+                j++;
+            } else {
+                both[nBoth] = a[i];
+                nBoth++;
+                i++;
+                j++;
+            }
+        }
+        this.tree = balancedTree(difference, nDifference, this.tree);
+        this.rebuildGuard();
+        Set<T> removed = s.newInstance();
+        setElements(removed, both, nBoth);
+        return removed;
+    }
+
+    /*
+     * Navigation methods -----------------------------------------------------
+     */
+
+    /**
+     * Returns the largest element of {@code this} that is at most {@code x},
+     * or null if there is none. Takes time proportional to the height of the
+     * tree.
+     *
+     * @param x
+     *            the bound
+     * @return the largest element <= x, or null
+     * @ensures <pre>
+     * if [there is an element y of this with y <= x]
+     *  then floor = [the largest such y]
+     *  else floor = null
+     * </pre>
+     */
+    public final T floor(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return floorInTree(this.tree, x);
+    }
+
+    /**
+     * Returns the smallest element of {@code this} that is at least {@code x},
+     * or null if there is none. Takes time proportional to the height of the
+     * tree.
+     *
+     * @param x
+     *            the bound
+     * @return the smallest element >= x, or null
+     * @ensures <pre>
+     * if [there is an element y of this with y >= x]
+     *  then ceiling = [the smallest such y]
+     *  else ceiling = null
+     * </pre>
+     */
+    public final T ceiling(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return ceilingInTree(this.tree, x);
+    }
+
+    /**
+     * Returns an iterator over the elements of {@code this} that are at least
+     * {@code lo} and smaller than {@code hi}, in increasing order. Like
+     * {@code iterator}, it finds the elements lazily, so it takes time
+     * proportional to the height of the tree to reach the first one and stops
+     * working as soon as the client stops asking.
+     *
+     * @param lo
+     *            the lower bound (inclusive)
+     * @param hi
+     *            the upper bound (exclusive)
+     * @return an iterator over the elements in [lo, hi)
+     * @ensures <pre>
+     * ~rangeIterator.unseen = [elements y of this with lo <= y < hi, in
+     *                          increasing order]
+     * </pre>
+     */
+    public final Iterator<T> rangeIterator(T lo, T hi) {
+        assert lo != null : "Violation of: lo is not null";
+        assert hi != null : "Violation of: hi is not null";
+
+        return new Set3aIterator(lo, hi);
+    }
+
+    /**
+     * Reports the number of elements of {@code this} smaller than {@code x}
+     * (so, if x is in this, its position counting from 0 in increasing
+     * order). Takes time proportional to the height of the tree.
+     *
+     * @param x
+     *            the bound
+     * @return the number of elements < x
+     * @ensures rank = |{y in this: y < x}|
+     */
+    public final int rank(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return rankInTree(this.tree, x);
+    }
+
+    /**
+     * Returns the element of {@code this} with exactly {@code k} smaller
+     * elements, i.e., the (k + 1)-st smallest. Takes time proportional to the
+     * height of the tree.
+     *
+     * @param k
+     *            the number of smaller elements
+     * @return the element of rank k
+     * @requires 0 <= k < |this|
+     * @ensures select is in this and rank(select) = k
+     */
+    public final T select(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k < this.size() : "Violation of: k < |this|";
+
+        return selectInTree(this.tree, k);
+    }
+
+    /*
+     * Guard methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports whether {@code this} is guarded by a Bloom filter.
+     *
+     * @return whether this is guarded
+     */
+    public final boolean isGuarded() {
+        return this.guard != null;
+    }
+
+    /**
+     * Reports how many calls of {@code contains} (including those made by
+     * assertion checks) the guard has answered, and how many of those for
+     * elements not in {@code this} it answered without searching the tree.
+     *
+     * @return a snapshot of the statistics of the guard
+     * @requires this is guarded
+     */
+    public final BlockedBloomFilter.Statistics guardStatistics() {
+        assert this.isGuarded() : "Violation of: this is guarded";
+
+        return this.guard.statistics();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3a}, which
+     * finds the elements lazily, in batches. Each batch is one bounded
+     * in-order walk of the tree that starts just after the last element
+     * returned, so the tree is whole again between calls; batches start at
+     * one element and double up to {@code MAX_BATCH}, so reaching the first
+     * element takes time proportional to the height of the tree, and each
+     * later one takes constant amortized time plus a share of a walk down
+     * the tree that shrinks as the batches grow. On a {@code BinaryTree3}
+     * the batches come instead from one {@code iteratorFrom} cursor over its
+     * arrays, which keeps its path as a stack of node indexes, so no walk
+     * starts over from the root and no trees are created. With no bounds at
+     * all, any tree's own {@code iterator} serves as the cursor, since it
+     * visits every label in order in linear time whatever the shape of the
+     * tree; only a bounded range over another kind of tree is walked in
+     * batches.
+     */
+    private final class Set3aIterator implements Iterator<T> {
+
+        /**
+         * Largest number of elements found by one walk of the tree.
+         */
+        private static final int MAX_BATCH = 1024;
+
+        /**
+         * Elements found but not yet returned start at batch[position].
+         */
+        private final List<T> batch;
+
+        /**
+         * Position in {@code batch} of the next element to return.
+         */
+        private int position;
+
+        /**
+         * Elements still to be found are above this one (or at least it, if
+         * {@code inclusive}); null if there is no lower bound.
+         */
+        private T lo;
+
+        /**
+         * Whether an element equal to {@code lo} is still to be found.
+         */
+        private boolean inclusive;
+
+        /**
+         * Elements to be returned are smaller than this one; null if there is
+         * no upper bound.
+         */
+        private final T hi;
+
+        /**
+         * Number of elements the next walk of the tree looks for.
+         */
+        private int limit;
+
+        /**
+         * Whether the last walk of the tree found every element left.
+         */
+        private boolean exhausted;
+
+        /**
+         * Cursor over the tree from the lower bound on, if the tree is a
+         * {@code BinaryTree3} or there are no bounds; null otherwise.
+         */
+        private final Iterator<T> cursor;
+
+        /**
+         * Constructor from the bounds of the elements to be returned.
+         *
+         * @param lo
+         *            the lower bound (inclusive), or null
+         * @param hi
+         *            the upper bound (exclusive), or null
+         */
+        @SuppressWarnings("unchecked")
+        Set3aIterator(T lo, T hi) {
+            this.batch = new ArrayList<T>();
+            this.position = 0;
+            this.lo = lo;
+            this.inclusive = true;
+            this.hi = hi;
+            this.limit = 1;
+            this.exhausted = false;
+            BinaryTree<T> t = Set3a.this.tree;
+            if (lo == null && (hi == null || t instanceof BinaryTree3<?>)) {
+                this.cursor = t.iterator();
+            } else if (!(t instanceof BinaryTree3<?>)) {
+                this.cursor = null;
+            } else {
+                /*
+                 * t is a BinaryTree<T>, so the ? is T.
+                 */
+                this.cursor = ((BinaryTree3<T>) t)
+                        .iteratorFrom(x -> x.compareTo(lo) < 0);
+            }
+        }
+
+        /**
+         * Appends to {@code batch} the elements from {@code cursor} that are
+         * below {@code hi}, until it holds {@code limit} of them.
+         */
+        private void collectFromCursor() {
+            boolean belowHi = true;
+            while (belowHi && this.batch.size() < this.limit
+                    && this.cursor.hasNext()) {
+                T x = this.cursor.next();
+                belowHi = this.hi == null || x.compareTo(this.hi) < 0;
+                if (belowHi) {
+                    this.batch.add(x);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.position == this.batch.size() && !this.exhausted) {
+                this.batch.clear();
+                this.position = 0;
+                if (this.cursor != null) {
+                    this.collectFromCursor();
+                } else {
+                    collectBatch(Set3a.this.tree, this.lo, this.inclusive,
+                            this.hi, this.batch, this.limit);
+                }
+                this.exhausted = this.batch.size() < this.limit;
+                if (!this.batch.isEmpty()) {
+                    this.lo = this.batch.get(this.batch.size() - 1);
+                    this.inclusive = false;
+                }
+                this.limit = Math.min(2 * this.limit, MAX_BATCH);
+            }
+            return this.position < this.batch.size();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = this.batch.get(this.position);
+            this.position++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
     }
 
 }
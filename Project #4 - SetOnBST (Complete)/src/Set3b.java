@@ -0,0 +1,542 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as an AVL tree (a binary search tree kept balanced
+ * by rotations) of elements with implementations of primary methods. Unlike
+ * {@code Set3a}, whose tree degenerates into a list when elements are added in
+ * sorted order, the height of the tree is always O(log |this|), so
+ * {@code add}, {@code remove}, and {@code contains} take O(log |this|) time
+ * whatever the order of the elements. Each node links to its parent, so all of
+ * them work with loops rather than recursion: {@code contains} allocates
+ * nothing, {@code add} allocates just the new node, and rebalancing walks back
+ * up the parent links only as far as heights change.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions
+ *
+ *                  <pre>
+ * IS_AVL(
+ *   n: node
+ *  ): boolean satisfies
+ *  [the tree rooted at n satisfies the binary search tree properties with
+ *   the ordering reported by compareTo for T, including that it has no
+ *   duplicate labels, and for every node m in it, m.height = 1 + the larger
+ *   of the heights of m.left and m.right (0 for null), which differ by at
+ *   most 1, and each child's parent link is m]
+ *                  </pre>
+ *
+ * @convention IS_AVL($this.root) and $this.root.parent = null and
+ *             $this.size = [number of nodes in $this.root]
+ * @correspondence this = labels($this.root)
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Set3b<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node of the tree.
+     *
+     * @param <T>
+     *            type of label
+     */
+    private static final class Node<T> {
+
+        /**
+         * The label.
+         */
+        private final T label;
+
+        /**
+         * Left subtree, or null.
+         */
+        private Node<T> left;
+
+        /**
+         * Right subtree, or null.
+         */
+        private Node<T> right;
+
+        /**
+         * Parent, or null for the root.
+         */
+        private Node<T> parent;
+
+        /**
+         * Height of the subtree rooted here.
+         */
+        private int height;
+
+        /**
+         * Constructor of a leaf.
+         *
+         * @param label
+         *            the label
+         * @param parent
+         *            the parent, or null
+         */
+        Node(T label, Node<T> parent) {
+            this.label = label;
+            this.parent = parent;
+            this.height = 1;
+        }
+
+    }
+
+    /**
+     * Root of the tree, or null.
+     */
+    private Node<T> root;
+
+    /**
+     * Number of nodes in the tree.
+     */
+    private int size;
+
+    /**
+     * Reports the height of {@code n}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the node, or null
+     * @return the height of the subtree rooted at n, 0 if n is null
+     */
+    private static <T> int height(Node<T> n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Recomputes the height of {@code n} from those of its children.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the node
+     * @updates n.height
+     */
+    private static <T> void updateHeight(Node<T> n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code n} to the right. The new root's
+     * parent is set to n's, but the link from that parent is not changed.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the subtree, with a left child
+     * @return the new root of the subtree
+     */
+    private static <T> Node<T> rotateRight(Node<T> n) {
+        Node<T> l = n.left;
+        n.left = l.right;
+        if (l.right != null) {
+            l.right.parent = n;
+        }
+        l.right = n;
+        l.parent = n.parent;
+        n.parent = l;
+        updateHeight(n);
+        updateHeight(l);
+        return l;
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code n} to the left. The new root's
+     * parent is set to n's, but the link from that parent is not changed.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the subtree, with a right child
+     * @return the new root of the subtree
+     */
+    private static <T> Node<T> rotateLeft(Node<T> n) {
+        Node<T> r = n.right;
+        n.right = r.left;
+        if (r.left != null) {
+            r.left.parent = n;
+        }
+        r.left = n;
+        r.parent = n.parent;
+        n.parent = r;
+        updateHeight(n);
+        updateHeight(r);
+        return r;
+    }
+
+    /**
+     * Restores the balance of the subtree rooted at {@code n}, whose children
+     * are AVL trees with heights differing by at most 2. The new root's parent
+     * is set to n's, but the link from that parent is not changed.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the subtree
+     * @return the new root of the subtree
+     * @ensures IS_AVL(rebalance) and labels(rebalance) = labels(n)
+     */
+    private static <T> Node<T> rebalance(Node<T> n) {
+        updateHeight(n);
+        int balance = height(n.left) - height(n.right);
+        Node<T> result = n;
+        if (balance > 1) {
+            if (height(n.left.left) < height(n.left.right)) {
+                n.left = rotateLeft(n.left);
+            }
+            result = rotateRight(n);
+        } else if (balance < -1) {
+            if (height(n.right.right) < height(n.right.left)) {
+                n.right = rotateRight(n.right);
+            }
+            result = rotateLeft(n);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest (left-most) node of the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the tree
+     * @return the node with the smallest label in the tree
+     * @requires n /= null
+     */
+    private static <T> Node<T> leftmost(Node<T> n) {
+        Node<T> m = n;
+        while (m.left != null) {
+            m = m.left;
+        }
+        return m;
+    }
+
+    /**
+     * Returns the node of {@code this} whose label is equal to {@code x}, or
+     * null if there is none.
+     *
+     * @param x
+     *            the label to be searched for
+     * @return the node labelled x, or null
+     */
+    private Node<T> find(T x) {
+        Node<T> n = this.root;
+        int c = 1;
+        while (n != null && c != 0) {
+            c = x.compareTo(n.label);
+            if (c < 0) {
+                n = n.left;
+            } else if (c > 0) {
+                n = n.right;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Makes {@code replacement} take the place of {@code child} as a child of
+     * {@code parent}, or as the root if parent is null.
+     *
+     * @param parent
+     *            the parent of child, or null
+     * @param child
+     *            the node being replaced
+     * @param replacement
+     *            the node taking its place, or null
+     * @updates $this.root, parent, replacement.parent
+     */
+    private void replaceChild(Node<T> parent, Node<T> child,
+            Node<T> replacement) {
+        if (parent == null) {
+            this.root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+        if (replacement != null) {
+            replacement.parent = parent;
+        }
+    }
+
+    /**
+     * Rebalances {@code n} and its ancestors after a node has been added to or
+     * removed from its subtree, stopping at the first whose subtree kept its
+     * height without a rotation, since the ones above it are then unaffected.
+     *
+     * @param n
+     *            the lowest node whose subtree changed, or null
+     * @updates $this.root
+     * @requires <pre>
+     * [the subtrees of n's children and of its ancestors' other children are
+     *  AVL trees, and n.height is the height of n's subtree before the
+     *  change]
+     * </pre>
+     * @ensures IS_AVL($this.root)
+     */
+    private void retrace(Node<T> n) {
+        Node<T> m = n;
+        while (m != null) {
+            Node<T> parent = m.parent;
+            int oldHeight = m.height;
+            Node<T> subtree = rebalance(m);
+            if (subtree != m) {
+                this.replaceChild(parent, m, subtree);
+            } else if (m.height == oldHeight) {
+                break;
+            }
+            m = parent;
+        }
+    }
+
+    /**
+     * Unlinks {@code z} from the tree and restores its balance.
+     *
+     * @param z
+     *            the node to remove
+     * @updates $this.root
+     * @requires z is a node of $this.root
+     * @ensures IS_AVL($this.root) and labels($this.root) =
+     *          labels(#$this.root) \ {z.label}
+     */
+    private void unlink(Node<T> z) {
+        Node<T> start;
+        if (z.left == null || z.right == null) {
+            Node<T> child = z.left;
+            if (child == null) {
+                child = z.right;
+            }
+            start = z.parent;
+            this.replaceChild(z.parent, z, child);
+        } else {
+            /*
+             * Move z's successor y, which has no left child, into z's place.
+             */
+            Node<T> y = leftmost(z.right);
+            if (y.parent == z) {
+                start = y;
+            } else {
+                start = y.parent;
+                this.replaceChild(y.parent, y, y.right);
+                y.right = z.right;
+                y.right.parent = y;
+            }
+            y.left = z.left;
+            y.left.parent = y;
+            y.height = z.height;
+            this.replaceChild(z.parent, z, y);
+        }
+        this.retrace(start);
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = null;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3b() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3b<?> : ""
+                + "Violation of: source is of dynamic type Set3b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3b<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3b<T> localSource = (Set3b<T>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        if (this.root == null) {
+            this.root = new Node<T>(x, null);
+        } else {
+            Node<T> parent = this.root;
+            Node<T> next = parent;
+            boolean goLeft = false;
+            while (next != null) {
+                parent = next;
+                goLeft = x.compareTo(parent.label) < 0;
+                if (goLeft) {
+                    next = parent.left;
+                } else {
+                    next = parent.right;
+                }
+            }
+            Node<T> leaf = new Node<T>(x, parent);
+            if (goLeft) {
+                parent.left = leaf;
+            } else {
+                parent.right = leaf;
+            }
+            this.retrace(parent);
+        }
+        this.size++;
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        Node<T> z = this.find(x);
+        this.unlink(z);
+        this.size--;
+        return z.label;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Node<T> z = leftmost(this.root);
+        this.unlink(z);
+        this.size--;
+        return z.label;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.find(x) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set3bIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3b}, which
+     * visits the labels in order by following child and parent links, so it
+     * needs no stack.
+     */
+    private final class Set3bIterator implements Iterator<T> {
+
+        /**
+         * Node whose label is next, or null if all have been seen.
+         */
+        private Node<T> nextNode;
+
+        /**
+         * No-argument constructor.
+         */
+        Set3bIterator() {
+            this.nextNode = null;
+            if (Set3b.this.root != null) {
+                this.nextNode = leftmost(Set3b.this.root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextNode != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<T> n = this.nextNode;
+            if (n.right != null) {
+                this.nextNode = leftmost(n.right);
+            } else {
+                /*
+                 * Go up until coming from a left child; that parent is next.
+                 */
+                Node<T> child = n;
+                Node<T> parent = n.parent;
+                while (parent != null && parent.right == child) {
+                    child = parent;
+                    parent = parent.parent;
+                }
+                this.nextNode = parent;
+            }
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,513 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a persistent AVL tree of elements with
+ * implementations of primary methods and an O(1) {@code snapshot} method.
+ *
+ * <p>
+ * Nodes are never modified once built. {@code add} and {@code remove} build
+ * new nodes only along the O(log |this|) path from the root to the change,
+ * rebalancing with rotations as they go, and share every other node with the
+ * old tree; so a snapshot, which simply shares the root, costs O(1), and
+ * neither it nor the original sees later changes to the other. Since shared
+ * nodes are immutable, a snapshot may be read (including iterated) by other
+ * threads while {@code this} keeps changing.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions
+ *
+ *                  <pre>
+ * IS_AVL(
+ *   n: node
+ *  ): boolean satisfies
+ *  [the tree rooted at n satisfies the binary search tree properties with
+ *   the ordering reported by compareTo for T, including that it has no
+ *   duplicate labels, and for every node m in it, m.height = 1 + the larger
+ *   of the heights of m.left and m.right (0 for null), which differ by at
+ *   most 1]
+ *                  </pre>
+ *
+ * @convention IS_AVL($this.root) and $this.size = [number of nodes in
+ *             $this.root]
+ * @correspondence this = labels($this.root)
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Set3c<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Immutable node of the tree.
+     *
+     * @param <T>
+     *            type of label
+     */
+    private static final class Node<T> {
+
+        /**
+         * The label.
+         */
+        private final T label;
+
+        /**
+         * Left subtree, or null.
+         */
+        private final Node<T> left;
+
+        /**
+         * Right subtree, or null.
+         */
+        private final Node<T> right;
+
+        /**
+         * Height of the subtree rooted here.
+         */
+        private final int height;
+
+        /**
+         * Constructor from label and subtrees.
+         *
+         * @param label
+         *            the label
+         * @param left
+         *            the left subtree, or null
+         * @param right
+         *            the right subtree, or null
+         */
+        Node(T label, Node<T> left, Node<T> right) {
+            this.label = label;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+        }
+
+    }
+
+    /**
+     * Root of the tree, or null.
+     */
+    private Node<T> root;
+
+    /**
+     * Number of nodes in the tree.
+     */
+    private int size;
+
+    /**
+     * Reports the height of {@code n}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the node, or null
+     * @return the height of the subtree rooted at n, 0 if n is null
+     */
+    private static <T> int height(Node<T> n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns a balanced tree with root label {@code label} and the given
+     * subtrees, whose heights differ by at most 2, rotating (into new nodes)
+     * if needed.
+     *
+     * @param <T>
+     *            type of label
+     * @param label
+     *            the root label
+     * @param left
+     *            the left subtree, an AVL tree of labels smaller than label
+     * @param right
+     *            the right subtree, an AVL tree of labels larger than label
+     * @return the new tree
+     * @ensures IS_AVL(balanced) and labels(balanced) = labels(left) union
+     *          {label} union labels(right)
+     */
+    private static <T> Node<T> balanced(T label, Node<T> left,
+            Node<T> right) {
+        int balance = height(left) - height(right);
+        Node<T> result;
+        if (balance > 1) {
+            if (height(left.left) >= height(left.right)) {
+                result = new Node<T>(left.label, left.left,
+                        new Node<T>(label, left.right, right));
+            } else {
+                Node<T> lr = left.right;
+                result = new Node<T>(lr.label,
+                        new Node<T>(left.label, left.left, lr.left),
+                        new Node<T>(label, lr.right, right));
+            }
+        } else if (balance < -1) {
+            if (height(right.right) >= height(right.left)) {
+                result = new Node<T>(right.label,
+                        new Node<T>(label, left, right.left), right.right);
+            } else {
+                Node<T> rl = right.left;
+                result = new Node<T>(rl.label,
+                        new Node<T>(label, left, rl.left),
+                        new Node<T>(right.label, rl.right, right.right));
+            }
+        } else {
+            result = new Node<T>(label, left, right);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the label in {@code n} equal to {@code x}, or null if there is
+     * none.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the tree to be searched
+     * @param x
+     *            the label to be searched for
+     * @return the label in the tree equal to x, or null
+     * @requires IS_AVL(n)
+     */
+    private static <T extends Comparable<T>> T find(Node<T> n, T x) {
+        Node<T> m = n;
+        T found = null;
+        while (m != null && found == null) {
+            int c = x.compareTo(m.label);
+            if (c < 0) {
+                m = m.left;
+            } else if (c > 0) {
+                m = m.right;
+            } else {
+                found = m.label;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the tree rooted at {@code n} with {@code x} inserted, sharing
+     * all nodes off the path to x.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the tree
+     * @param x
+     *            the label to be inserted
+     * @return the root of the new tree
+     * @requires IS_AVL(n) and x is not in labels(n)
+     * @ensures <pre>
+     * IS_AVL(insertInTree)  and
+     * labels(insertInTree) = labels(n) union {x}
+     * </pre>
+     */
+    private static <T extends Comparable<T>> Node<T> insertInTree(Node<T> n,
+            T x) {
+        Node<T> result;
+        if (n == null) {
+            result = new Node<T>(x, null, null);
+        } else if (x.compareTo(n.label) < 0) {
+            result = balanced(n.label, insertInTree(n.left, x), n.right);
+        } else {
+            result = balanced(n.label, n.left, insertInTree(n.right, x));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tree rooted at {@code n} without its smallest label,
+     * sharing all nodes off the path to it.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the tree
+     * @return the root of the new tree
+     * @requires IS_AVL(n) and n /= null
+     * @ensures <pre>
+     * IS_AVL(removeSmallest)  and
+     * labels(removeSmallest) = labels(n) \ {[the smallest label in n]}
+     * </pre>
+     */
+    private static <T> Node<T> removeSmallest(Node<T> n) {
+        Node<T> result;
+        if (n.left == null) {
+            result = n.right;
+        } else {
+            result = balanced(n.label, removeSmallest(n.left), n.right);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest label of the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the tree
+     * @return the smallest label in the tree
+     * @requires n /= null
+     */
+    private static <T> T smallest(Node<T> n) {
+        Node<T> m = n;
+        while (m.left != null) {
+            m = m.left;
+        }
+        return m.label;
+    }
+
+    /**
+     * Returns the tree rooted at {@code n} without {@code x}, sharing all
+     * nodes off the path to x.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root of the tree
+     * @param x
+     *            the label to be removed
+     * @return the root of the new tree
+     * @requires IS_AVL(n) and x is in labels(n)
+     * @ensures <pre>
+     * IS_AVL(removeFromTree)  and
+     * labels(removeFromTree) = labels(n) \ {x}
+     * </pre>
+     */
+    private static <T extends Comparable<T>> Node<T> removeFromTree(
+            Node<T> n, T x) {
+        Node<T> result;
+        int c = x.compareTo(n.label);
+        if (c < 0) {
+            result = balanced(n.label, removeFromTree(n.left, x), n.right);
+        } else if (c > 0) {
+            result = balanced(n.label, n.left, removeFromTree(n.right, x));
+        } else if (n.left == null) {
+            result = n.right;
+        } else if (n.right == null) {
+            result = n.left;
+        } else {
+            result = balanced(smallest(n.right), n.left,
+                    removeSmallest(n.right));
+        }
+        return result;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = null;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3c() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3c<?> : ""
+                + "Violation of: source is of dynamic type Set3c<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3c<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3c<T> localSource = (Set3c<T>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        this.root = insertInTree(this.root, x);
+        this.size++;
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        T removed = find(this.root, x);
+        this.root = removeFromTree(this.root, x);
+        this.size--;
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        T removed = smallest(this.root);
+        this.root = removeSmallest(this.root);
+        this.size--;
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return find(this.root, x) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set3cIterator(this.root);
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns a set with the same value as {@code this}, in constant time. The
+     * two sets share their tree, so later changes to either one copy only the
+     * nodes on the path they change and are not seen by the other; the shared
+     * nodes are never modified, so the snapshot may be read by other threads
+     * while {@code this} is being changed.
+     *
+     * @return a snapshot of {@code this}
+     * @ensures snapshot = this
+     */
+    public final Set3c<T> snapshot() {
+        Set3c<T> copy = new Set3c<T>();
+        copy.root = this.root;
+        copy.size = this.size;
+        return copy;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3c}, which
+     * walks the tree as it was when the iterator was created, in order,
+     * keeping the path to the next label on a stack of at most the tree's
+     * height.
+     */
+    private final class Set3cIterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels are still to be visited, the next on top; the top
+         * is path[depth - 1].
+         */
+        private final Object[] path;
+
+        /**
+         * Number of nodes on the stack.
+         */
+        private int depth;
+
+        /**
+         * Constructor from the root of the tree to walk.
+         *
+         * @param root
+         *            the root, or null
+         */
+        Set3cIterator(Node<T> root) {
+            this.path = new Object[height(root)];
+            this.depth = 0;
+            this.pushLeftPath(root);
+        }
+
+        /**
+         * Pushes {@code n} and its left descendants, leftmost on top.
+         *
+         * @param n
+         *            the node to start from, or null
+         */
+        private void pushLeftPath(Node<T> n) {
+            Node<T> m = n;
+            while (m != null) {
+                this.path[this.depth] = m;
+                this.depth++;
+                m = m.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.depth > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.depth--;
+            Node<T> n = (Node<T>) this.path[this.depth];
+            this.path[this.depth] = null;
+            this.pushLeftPath(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
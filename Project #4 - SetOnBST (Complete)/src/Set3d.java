@@ -0,0 +1,392 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a splay tree (a binary search tree that moves
+ * each element it looks at to the root) of elements with implementations of
+ * primary methods. No single {@code add}, {@code remove}, or {@code contains}
+ * is guaranteed to be fast, but any sequence of m of them on a set of at most
+ * n elements takes O(m log n) time, and elements that are looked up often stay
+ * near the root: when a few elements get most of the lookups, each costs about
+ * as much as a search of a tree holding only the popular ones. Splaying is
+ * done top-down with loops, so nothing is allocated but the new node in
+ * {@code add}.
+ *
+ * <p>
+ * Since {@code contains} changes the shape of the tree (but not its labels),
+ * the iterator copies the labels when it is created.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions
+ *
+ *                  <pre>
+ * IS_BST(
+ *   n: node
+ *  ): boolean satisfies
+ *  [the tree rooted at n satisfies the binary search tree properties with
+ *   the ordering reported by compareTo for T, including that it has no
+ *   duplicate labels]
+ *                  </pre>
+ *
+ * @convention IS_BST($this.root) and $this.size = [number of nodes in
+ *             $this.root] and $this.header.left = null and
+ *             $this.header.right = null
+ * @correspondence this = labels($this.root)
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Set3d<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node of the tree.
+     *
+     * @param <T>
+     *            type of label
+     */
+    private static final class Node<T> {
+
+        /**
+         * The label.
+         */
+        private final T label;
+
+        /**
+         * Left subtree, or null.
+         */
+        private Node<T> left;
+
+        /**
+         * Right subtree, or null.
+         */
+        private Node<T> right;
+
+        /**
+         * Constructor of a leaf.
+         *
+         * @param label
+         *            the label
+         */
+        Node(T label) {
+            this.label = label;
+            this.left = null;
+            this.right = null;
+        }
+
+    }
+
+    /**
+     * Root of the tree, or null.
+     */
+    private Node<T> root;
+
+    /**
+     * Number of nodes in the tree.
+     */
+    private int size;
+
+    /**
+     * Scratch node used by {@code splay} to collect the pieces of the tree
+     * on either side of the search path.
+     */
+    private final Node<T> header = new Node<T>(null);
+
+    /**
+     * Rearranges the tree so that its root is the node labelled {@code x}, or,
+     * if there is none, the last node on the search path for x (whose label is
+     * next to x in order). Uses top-down splaying: nodes on the search path
+     * are split off into a left tree (labels smaller than x) and a right tree
+     * (labels larger), rotating pairs of nodes that go the same way, and the
+     * two trees become the root's subtrees at the end.
+     *
+     * @param x
+     *            the label to be searched for
+     * @updates this.root
+     * @requires this.root /= null
+     * @ensures <pre>
+     * IS_BST(this.root)  and  labels(this.root) = labels(#this.root)  and
+     * [this.root.label = x if x is in labels(this.root), and otherwise the
+     *  largest label smaller than x or the smallest label larger than x]
+     * </pre>
+     */
+    private void splay(T x) {
+        Node<T> leftMax = this.header;
+        Node<T> rightMin = this.header;
+        Node<T> t = this.root;
+        boolean done = false;
+        while (!done) {
+            int c = x.compareTo(t.label);
+            if (c < 0 && t.left != null) {
+                if (x.compareTo(t.left.label) < 0) {
+                    /*
+                     * Zig-zig: rotate right first.
+                     */
+                    Node<T> y = t.left;
+                    t.left = y.right;
+                    y.right = t;
+                    t = y;
+                }
+                if (t.left == null) {
+                    done = true;
+                } else {
+                    rightMin.left = t;
+                    rightMin = t;
+                    t = t.left;
+                }
+            } else if (c > 0 && t.right != null) {
+                if (x.compareTo(t.right.label) > 0) {
+                    /*
+                     * Zag-zag: rotate left first.
+                     */
+                    Node<T> y = t.right;
+                    t.right = y.left;
+                    y.left = t;
+                    t = y;
+                }
+                if (t.right == null) {
+                    done = true;
+                } else {
+                    leftMax.right = t;
+                    leftMax = t;
+                    t = t.right;
+                }
+            } else {
+                done = true;
+            }
+        }
+        /*
+         * header.right is the left tree and header.left the right tree.
+         */
+        leftMax.right = t.left;
+        rightMin.left = t.right;
+        t.left = this.header.right;
+        t.right = this.header.left;
+        this.header.left = null;
+        this.header.right = null;
+        this.root = t;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = null;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3d() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3d<?> : ""
+                + "Violation of: source is of dynamic type Set3d<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3d<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3d<T> localSource = (Set3d<T>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        Node<T> n = new Node<T>(x);
+        if (this.root != null) {
+            this.splay(x);
+            /*
+             * The root is now next to x in order, so it and one of its
+             * subtrees go on one side of x, and its other subtree on the
+             * other.
+             */
+            if (x.compareTo(this.root.label) < 0) {
+                n.left = this.root.left;
+                n.right = this.root;
+                this.root.left = null;
+            } else {
+                n.right = this.root.right;
+                n.left = this.root;
+                this.root.right = null;
+            }
+        }
+        this.root = n;
+        this.size++;
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        this.splay(x);
+        T removed = this.root.label;
+        Node<T> right = this.root.right;
+        if (this.root.left == null) {
+            this.root = right;
+        } else {
+            /*
+             * Every label on the left is smaller than x, so splaying x there
+             * brings the largest to the root, with no right subtree.
+             */
+            this.root = this.root.left;
+            this.splay(x);
+            this.root.right = right;
+        }
+        this.size--;
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        return this.remove(this.root.label);
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean found = false;
+        if (this.root != null) {
+            this.splay(x);
+            found = x.compareTo(this.root.label) == 0;
+        }
+        return found;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set3dIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3d}, which
+     * copies the labels in order when it is created, so that lookups in the
+     * set while iterating, which reshape the tree, do not disturb it.
+     */
+    private final class Set3dIterator implements Iterator<T> {
+
+        /**
+         * The labels, in order.
+         */
+        private final Object[] labels;
+
+        /**
+         * Position in {@code labels} of the next label.
+         */
+        private int position;
+
+        /**
+         * No-argument constructor.
+         */
+        Set3dIterator() {
+            this.labels = new Object[Set3d.this.size];
+            this.position = 0;
+            /*
+             * In-order walk with an explicit stack, since a splay tree can
+             * be as deep as it is large.
+             */
+            Object[] stack = new Object[Set3d.this.size];
+            int depth = 0;
+            int count = 0;
+            Node<T> n = Set3d.this.root;
+            while (n != null || depth > 0) {
+                while (n != null) {
+                    stack[depth] = n;
+                    depth++;
+                    n = n.left;
+                }
+                depth--;
+                @SuppressWarnings("unchecked")
+                Node<T> top = (Node<T>) stack[depth];
+                this.labels[count] = top.label;
+                count++;
+                n = top.right;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.position < this.labels.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = (T) this.labels[this.position];
+            this.position++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
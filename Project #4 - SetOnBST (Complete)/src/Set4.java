@@ -0,0 +1,682 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a B+-tree of elements with implementations of
+ * primary methods. Each node holds up to {@code fanout} elements (a leaf) or
+ * {@code fanout} children (an internal node) in arrays, so a lookup in a set
+ * of n elements visits only about log(n) / log(fanout / 2) nodes and searches
+ * each by binary search within one array, instead of following one pointer
+ * (and, typically, missing the cache once) per element on its path as in
+ * {@code Set3a}. All elements are in the leaves, which are linked in
+ * increasing order for iteration.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions
+ *
+ *                  <pre>
+ * IS_B_PLUS_TREE(
+ *   n: node, fanout: integer, isRoot: boolean
+ *  ): boolean satisfies
+ *  [all leaves under n are at the same depth; each leaf holds its
+ *   elements in n.keys[0, n.count) in increasing order (by compareTo),
+ *   with at most fanout of them and, unless isRoot, at least fanout / 2;
+ *   each internal node has n.count + 1 children, at most fanout and,
+ *   unless isRoot, at least (fanout + 1) / 2 (if isRoot, at least 2), and
+ *   for each i < n.count every element under children[i] is smaller than
+ *   keys[i], which is at most every element under children[i + 1]; there
+ *   are no duplicate elements; and each leaf's next is the leaf to its
+ *   right, or null for the last]
+ *                  </pre>
+ *
+ * @convention <pre>
+ * $this.fanout >= 4  and
+ * IS_B_PLUS_TREE($this.root, $this.fanout, true)  and
+ * $this.size = [number of elements in the leaves of $this.root]
+ * </pre>
+ * @correspondence this = [elements in the leaves of $this.root]
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Set4<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default fanout.
+     */
+    private static final int DEFAULT_FANOUT = 64;
+
+    /**
+     * Node of the tree: a leaf if {@code children} is null.
+     */
+    private static final class Node {
+
+        /**
+         * Elements (in a leaf) or separators (in an internal node); one slot
+         * more than the fanout allows, to hold an element before a split.
+         */
+        private final Object[] keys;
+
+        /**
+         * Children, or null for a leaf.
+         */
+        private final Node[] children;
+
+        /**
+         * Number of keys in use.
+         */
+        private int count;
+
+        /**
+         * Next leaf to the right, or null (leaves only).
+         */
+        private Node next;
+
+        /**
+         * Constructor of an empty node.
+         *
+         * @param fanout
+         *            the fanout of the tree
+         * @param isLeaf
+         *            whether the node is a leaf
+         */
+        Node(int fanout, boolean isLeaf) {
+            this.keys = new Object[fanout + 1];
+            if (isLeaf) {
+                this.children = null;
+            } else {
+                this.children = new Node[fanout + 1];
+            }
+            this.count = 0;
+            this.next = null;
+        }
+
+        /**
+         * Reports whether {@code this} is a leaf.
+         *
+         * @return whether this is a leaf
+         */
+        boolean isLeaf() {
+            return this.children == null;
+        }
+
+    }
+
+    /**
+     * Root of the tree.
+     */
+    private Node root;
+
+    /**
+     * Number of elements.
+     */
+    private int size;
+
+    /**
+     * Largest number of elements in a leaf and of children of an internal
+     * node.
+     */
+    private int fanout;
+
+    /**
+     * Returns the position in {@code n.keys[0, n.count)} of {@code x}, or, if
+     * x is not there, -(p + 1) where p is the position at which it would be
+     * inserted.
+     *
+     * @param <T>
+     *            type of elements
+     * @param n
+     *            the node
+     * @param x
+     *            the element searched for
+     * @return the position of x, or -(insertion point + 1)
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<T>> int search(Node n, T x) {
+        int lo = 0;
+        int hi = n.count - 1;
+        int result = -1;
+        while (lo <= hi && result < 0) {
+            int mid = (lo + hi) >>> 1;
+            int c = ((T) n.keys[mid]).compareTo(x);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                result = mid;
+            }
+        }
+        if (result < 0) {
+            result = -(lo + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the child of internal node {@code n} under which
+     * {@code x} is (or would be).
+     *
+     * @param <T>
+     *            type of elements
+     * @param n
+     *            the internal node
+     * @param x
+     *            the element
+     * @return the child index
+     */
+    private static <T extends Comparable<T>> int childIndex(Node n, T x) {
+        int i = search(n, x);
+        int child;
+        if (i >= 0) {
+            child = i + 1;
+        } else {
+            child = -(i + 1);
+        }
+        return child;
+    }
+
+    /**
+     * Returns the smallest element under {@code n}.
+     *
+     * @param n
+     *            the node
+     * @return the element in the first slot of the leftmost leaf under n
+     * @requires [there are elements under n]
+     */
+    private static Object smallest(Node n) {
+        Node m = n;
+        while (!m.isLeaf()) {
+            m = m.children[0];
+        }
+        return m.keys[0];
+    }
+
+    /**
+     * Inserts {@code x} under {@code n}, splitting n if it overflows.
+     *
+     * @param n
+     *            the root of the subtree
+     * @param x
+     *            the element
+     * @return the new right sibling of n if n was split, else null
+     * @updates n
+     * @requires x is not under n
+     * @ensures [x has been added under n, and the subtree of n and that of
+     *          the returned node, if any, together satisfy IS_B_PLUS_TREE
+     *          except for n's and its sibling's links from a parent]
+     */
+    private Node insert(Node n, T x) {
+        Node sibling = null;
+        if (n.isLeaf()) {
+            int i = -(search(n, x) + 1);
+            System.arraycopy(n.keys, i, n.keys, i + 1, n.count - i);
+            n.keys[i] = x;
+            n.count++;
+            if (n.count > this.fanout) {
+                sibling = this.splitLeaf(n);
+            }
+        } else {
+            int i = childIndex(n, x);
+            Node newChild = this.insert(n.children[i], x);
+            if (newChild != null) {
+                System.arraycopy(n.keys, i, n.keys, i + 1, n.count - i);
+                System.arraycopy(n.children, i + 1, n.children, i + 2,
+                        n.count - i);
+                n.keys[i] = smallest(newChild);
+                n.children[i + 1] = newChild;
+                n.count++;
+                if (n.count + 1 > this.fanout) {
+                    sibling = this.splitInternal(n);
+                }
+            }
+        }
+        return sibling;
+    }
+
+    /**
+     * Moves the upper half of the elements of leaf {@code n} to a new leaf
+     * linked after it.
+     *
+     * @param n
+     *            the overfull leaf
+     * @return the new leaf
+     * @updates n
+     */
+    private Node splitLeaf(Node n) {
+        Node right = new Node(this.fanout, true);
+        int keep = (n.count + 1) / 2;
+        right.count = n.count - keep;
+        System.arraycopy(n.keys, keep, right.keys, 0, right.count);
+        Arrays.fill(n.keys, keep, n.count, null);
+        n.count = keep;
+        right.next = n.next;
+        n.next = right;
+        return right;
+    }
+
+    /**
+     * Moves the upper half of the children of internal node {@code n} to a
+     * new internal node, dropping the separator between the halves (the
+     * parent uses the smallest element of the new node instead).
+     *
+     * @param n
+     *            the overfull internal node
+     * @return the new internal node
+     * @updates n
+     */
+    private Node splitInternal(Node n) {
+        Node right = new Node(this.fanout, false);
+        int mid = n.count / 2;
+        right.count = n.count - mid - 1;
+        System.arraycopy(n.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(n.children, mid + 1, right.children, 0,
+                right.count + 1);
+        Arrays.fill(n.keys, mid, n.count, null);
+        Arrays.fill(n.children, mid + 1, n.count + 1, null);
+        n.count = mid;
+        return right;
+    }
+
+    /**
+     * Removes {@code x} from under {@code n}, leaving n possibly one below
+     * its minimum, for its parent to fix.
+     *
+     * @param n
+     *            the root of the subtree
+     * @param x
+     *            the element
+     * @return the removed element
+     * @updates n
+     * @requires x is under n
+     */
+    @SuppressWarnings("unchecked")
+    private T delete(Node n, T x) {
+        T removed;
+        if (n.isLeaf()) {
+            int i = search(n, x);
+            removed = (T) n.keys[i];
+            System.arraycopy(n.keys, i + 1, n.keys, i, n.count - i - 1);
+            n.count--;
+            n.keys[n.count] = null;
+        } else {
+            int i = childIndex(n, x);
+            removed = this.delete(n.children[i], x);
+            Node child = n.children[i];
+            int minimum;
+            if (child.isLeaf()) {
+                minimum = this.fanout / 2;
+            } else {
+                minimum = (this.fanout + 1) / 2 - 1;
+            }
+            if (child.count < minimum) {
+                this.fixChild(n, i);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Restores the minimum size of child {@code i} of {@code p}, which is one
+     * below it, by taking a key from a sibling that can spare one or else by
+     * merging with a sibling.
+     *
+     * @param p
+     *            the parent
+     * @param i
+     *            the index of the underfull child
+     * @updates p
+     */
+    private void fixChild(Node p, int i) {
+        Node child = p.children[i];
+        Node left = null;
+        Node right = null;
+        if (i > 0) {
+            left = p.children[i - 1];
+        }
+        if (i < p.count) {
+            right = p.children[i + 1];
+        }
+        int spare;
+        if (child.isLeaf()) {
+            spare = this.fanout / 2;
+        } else {
+            spare = (this.fanout + 1) / 2 - 1;
+        }
+        if (left != null && left.count > spare) {
+            borrowFromLeft(p, i);
+        } else if (right != null && right.count > spare) {
+            borrowFromRight(p, i);
+        } else if (left != null) {
+            merge(p, i - 1);
+        } else {
+            merge(p, i);
+        }
+    }
+
+    /**
+     * Moves the last key of child {@code i - 1} of {@code p} to child
+     * {@code i}, through p for internal nodes.
+     *
+     * @param p
+     *            the parent
+     * @param i
+     *            the index of the receiving child
+     * @updates p
+     */
+    private static void borrowFromLeft(Node p, int i) {
+        Node left = p.children[i - 1];
+        Node child = p.children[i];
+        System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+        if (child.isLeaf()) {
+            child.keys[0] = left.keys[left.count - 1];
+            p.keys[i - 1] = child.keys[0];
+        } else {
+            System.arraycopy(child.children, 0, child.children, 1,
+                    child.count + 1);
+            child.keys[0] = p.keys[i - 1];
+            child.children[0] = left.children[left.count];
+            p.keys[i - 1] = left.keys[left.count - 1];
+            left.children[left.count] = null;
+        }
+        left.keys[left.count - 1] = null;
+        left.count--;
+        child.count++;
+    }
+
+    /**
+     * Moves the first key of child {@code i + 1} of {@code p} to child
+     * {@code i}, through p for internal nodes.
+     *
+     * @param p
+     *            the parent
+     * @param i
+     *            the index of the receiving child
+     * @updates p
+     */
+    private static void borrowFromRight(Node p, int i) {
+        Node child = p.children[i];
+        Node right = p.children[i + 1];
+        if (child.isLeaf()) {
+            child.keys[child.count] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            p.keys[i] = right.keys[0];
+        } else {
+            child.keys[child.count] = p.keys[i];
+            child.children[child.count + 1] = right.children[0];
+            p.keys[i] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            System.arraycopy(right.children, 1, right.children, 0,
+                    right.count);
+            right.children[right.count] = null;
+        }
+        right.keys[right.count - 1] = null;
+        right.count--;
+        child.count++;
+    }
+
+    /**
+     * Merges child {@code i + 1} of {@code p} into child {@code i}, removing
+     * it and its separator from p.
+     *
+     * @param p
+     *            the parent
+     * @param i
+     *            the index of the left child of the two
+     * @updates p
+     */
+    private static void merge(Node p, int i) {
+        Node left = p.children[i];
+        Node right = p.children[i + 1];
+        if (left.isLeaf()) {
+            System.arraycopy(right.keys, 0, left.keys, left.count,
+                    right.count);
+            left.count += right.count;
+            left.next = right.next;
+        } else {
+            left.keys[left.count] = p.keys[i];
+            System.arraycopy(right.keys, 0, left.keys, left.count + 1,
+                    right.count);
+            System.arraycopy(right.children, 0, left.children,
+                    left.count + 1, right.count + 1);
+            left.count += right.count + 1;
+        }
+        System.arraycopy(p.keys, i + 1, p.keys, i, p.count - i - 1);
+        System.arraycopy(p.children, i + 2, p.children, i + 1,
+                p.count - i - 1);
+        p.count--;
+        p.keys[p.count] = null;
+        p.children[p.count + 1] = null;
+    }
+
+    /**
+     * Returns the leftmost leaf.
+     *
+     * @return the leaf with the smallest elements
+     */
+    private Node firstLeaf() {
+        Node n = this.root;
+        while (!n.isLeaf()) {
+            n = n.children[0];
+        }
+        return n;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param fanout
+     *            the fanout
+     * @requires fanout >= 4
+     * @ensures $this.fanout = fanout and this = {}
+     */
+    private void createNewRep(int fanout) {
+        this.fanout = fanout;
+        this.root = new Node(fanout, true);
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set4() {
+        this.createNewRep(DEFAULT_FANOUT);
+    }
+
+    /**
+     * Constructor resulting in nodes of up to {@code fanout} elements or
+     * children.
+     *
+     * @param fanout
+     *            the largest number of elements in a leaf and of children of
+     *            an internal node
+     * @requires fanout >= 4
+     * @ensures this = {}
+     */
+    public Set4(int fanout) {
+        assert fanout >= 4 : "Violation of: fanout >= 4";
+
+        this.createNewRep(fanout);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.fanout);
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set4<?> : ""
+                + "Violation of: source is of dynamic type Set4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set4<T> localSource = (Set4<T>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        this.fanout = localSource.fanout;
+        localSource.createNewRep(localSource.fanout);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        Node sibling = this.insert(this.root, x);
+        if (sibling != null) {
+            Node newRoot = new Node(this.fanout, false);
+            newRoot.keys[0] = smallest(sibling);
+            newRoot.children[0] = this.root;
+            newRoot.children[1] = sibling;
+            newRoot.count = 1;
+            this.root = newRoot;
+        }
+        this.size++;
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        T removed = this.delete(this.root, x);
+        if (!this.root.isLeaf() && this.root.count == 0) {
+            this.root = this.root.children[0];
+        }
+        this.size--;
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        return this.remove((T) this.firstLeaf().keys[0]);
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node n = this.root;
+        while (!n.isLeaf()) {
+            n = n.children[childIndex(n, x)];
+        }
+        return search(n, x) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set4}, which
+     * visits the leaves in order along their links.
+     */
+    private final class Set4Iterator implements Iterator<T> {
+
+        /**
+         * Leaf holding the next element.
+         */
+        private Node leaf;
+
+        /**
+         * Position of the next element in the leaf.
+         */
+        private int position;
+
+        /**
+         * No-argument constructor.
+         */
+        Set4Iterator() {
+            this.leaf = Set4.this.firstLeaf();
+            this.position = 0;
+            this.skipExhaustedLeaves();
+        }
+
+        /**
+         * Moves past leaves with no elements left to visit.
+         */
+        private void skipExhaustedLeaves() {
+            while (this.leaf != null && this.position == this.leaf.count) {
+                this.leaf = this.leaf.next;
+                this.position = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.leaf != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = (T) this.leaf.keys[this.position];
+            this.position++;
+            this.skipExhaustedLeaves();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,529 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a lock-free skip list of elements with
+ * implementations of primary methods, which may be called from many threads
+ * at once. Elements are kept in increasing order (by {@code compareTo}) in a
+ * linked list, and each element is also in a random number of further, sparser
+ * lists above it (one more with probability 1/2), so searches skip ahead from
+ * the top list down in O(log |this|) expected steps. Links are changed only by
+ * compare-and-set: an element is removed by first marking its links (logical
+ * removal) and then unlinking it, and any thread that finds a marked link
+ * helps unlink it.
+ *
+ * <p>
+ * Because another thread may add or remove the same element at any time, the
+ * kernel methods' preconditions cannot be checked by the caller in a
+ * concurrent setting; threads sharing a {@code Set5} should use
+ * {@code addIfAbsent} and {@code removeIfPresent}, which check and change it
+ * in one atomic step, and {@code contains}. {@code size} and iteration are
+ * weakly consistent: they reflect some of the changes made while they run.
+ * The standard methods ({@code clear}, {@code transferFrom},
+ * {@code newInstance}) must not run while other threads use the set.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @convention <pre>
+ * [$this.head is a node with no value and MAX_LEVEL links]  and
+ * [for each level l, following the unmarked-or-marked links at level l from
+ *  $this.head visits nodes with values in strictly increasing order]  and
+ * [a node reachable at level l > 0 is reachable at level l - 1 unless it is
+ *  being added or removed]  and
+ * $this.count = [number of nodes reachable at level 0 whose level-0 link is
+ *                not marked], when no operation is in progress
+ * </pre>
+ * @correspondence this = {values of nodes reachable at level 0 whose level-0
+ *                 link is not marked}
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Set5<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of levels.
+     */
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * Node of the skip list.
+     *
+     * @param <T>
+     *            type of value
+     */
+    private static final class Node<T> {
+
+        /**
+         * The value; null for the head.
+         */
+        private final T value;
+
+        /**
+         * Links to the next node at each level, marked once this node is
+         * being removed.
+         */
+        private final AtomicMarkableReference<Node<T>>[] next;
+
+        /**
+         * Highest level at which this node is linked.
+         */
+        private final int topLevel;
+
+        /**
+         * Constructor.
+         *
+         * @param value
+         *            the value, or null for the head
+         * @param topLevel
+         *            the highest level of the node
+         */
+        @SuppressWarnings("unchecked")
+        Node(T value, int topLevel) {
+            this.value = value;
+            this.topLevel = topLevel;
+            this.next = (AtomicMarkableReference<Node<T>>[])
+                    new AtomicMarkableReference<?>[topLevel + 1];
+            for (int i = 0; i <= topLevel; i++) {
+                this.next[i] = new AtomicMarkableReference<Node<T>>(null,
+                        false);
+            }
+        }
+
+    }
+
+    /**
+     * Sentinel node before all others.
+     */
+    private Node<T> head;
+
+    /**
+     * Number of elements.
+     */
+    private LongAdder count;
+
+    /**
+     * Returns a random level: l with probability 1/2^(l + 1).
+     *
+     * @return the level of a new node
+     * @ensures 0 <= randomLevel < MAX_LEVEL
+     */
+    private static int randomLevel() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        return Math.min(Integer.numberOfTrailingZeros(bits), MAX_LEVEL - 1);
+    }
+
+    /**
+     * Finds, at every level, the last node with value smaller than {@code x}
+     * ({@code preds}) and the node after it ({@code succs}), unlinking any
+     * marked nodes met on the way.
+     *
+     * @param x
+     *            the value searched for
+     * @param preds
+     *            receives the predecessors at each level
+     * @param succs
+     *            receives the successors at each level (null at the end)
+     * @return whether succs[0] has value x
+     * @updates preds, succs
+     */
+    private boolean find(T x, Node<T>[] preds, Node<T>[] succs) {
+        boolean[] marked = { false };
+        retry: while (true) {
+            Node<T> pred = this.head;
+            for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+                Node<T> curr = pred.next[level].getReference();
+                while (curr != null) {
+                    Node<T> succ = curr.next[level].get(marked);
+                    while (marked[0]) {
+                        if (!pred.next[level].compareAndSet(curr, succ, false,
+                                false)) {
+                            continue retry;
+                        }
+                        curr = succ;
+                        if (curr == null) {
+                            break;
+                        }
+                        succ = curr.next[level].get(marked);
+                    }
+                    if (curr == null || curr.value.compareTo(x) >= 0) {
+                        break;
+                    }
+                    pred = curr;
+                    curr = succ;
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return succs[0] != null && succs[0].value.compareTo(x) == 0;
+        }
+    }
+
+    /**
+     * Returns a new array for the predecessors or successors of a search.
+     *
+     * @param <T>
+     *            type of value
+     * @return an array with one slot per level
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newLevelArray() {
+        return (Node<T>[]) new Node<?>[MAX_LEVEL];
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.head = new Node<T>(null, MAX_LEVEL - 1);
+        this.count = new LongAdder();
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set5() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set5<?> : ""
+                + "Violation of: source is of dynamic type Set5<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set5<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set5<T> localSource = (Set5<T>) source;
+        this.head = localSource.head;
+        this.count = localSource.count;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean added = this.addIfAbsent(x);
+        assert added : "Violation of: x is not in this";
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        T removed = this.removeNode(x);
+        assert removed != null : "Violation of: x is in this";
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        T removed = null;
+        while (removed == null) {
+            Node<T> first = this.head.next[0].getReference();
+            while (first != null && first.next[0].isMarked()) {
+                first = first.next[0].getReference();
+            }
+            assert first != null : "Violation of: this /= empty_set";
+            removed = this.removeNode(first.value);
+        }
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean[] marked = { false };
+        Node<T> pred = this.head;
+        Node<T> curr = null;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            curr = pred.next[level].getReference();
+            boolean searching = true;
+            while (searching && curr != null) {
+                Node<T> succ = curr.next[level].get(marked);
+                while (marked[0] && succ != null) {
+                    curr = succ;
+                    succ = curr.next[level].get(marked);
+                }
+                if (marked[0]) {
+                    /*
+                     * curr is a removed last node: the end of this level.
+                     */
+                    curr = null;
+                } else if (curr.value.compareTo(x) < 0) {
+                    pred = curr;
+                    curr = succ;
+                } else {
+                    searching = false;
+                }
+            }
+        }
+        return curr != null && curr.value.compareTo(x) == 0;
+    }
+
+    @Override
+    public final int size() {
+        return (int) Math.max(0, this.count.sum());
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set5Iterator();
+    }
+
+    /*
+     * Concurrent methods -----------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to {@code this} if it is not already there, as one atomic
+     * step.
+     *
+     * @param x
+     *            the element to be added
+     * @return true iff x was added
+     * @updates this
+     * @ensures <pre>
+     * addIfAbsent = (x is not in #this)  and
+     * this = #this union {x}
+     * </pre>
+     */
+    public final boolean addIfAbsent(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        int topLevel = randomLevel();
+        Node<T>[] preds = newLevelArray();
+        Node<T>[] succs = newLevelArray();
+        boolean added = false;
+        boolean present = false;
+        while (!added && !present) {
+            present = this.find(x, preds, succs);
+            if (!present) {
+                Node<T> node = new Node<T>(x, topLevel);
+                for (int level = 0; level <= topLevel; level++) {
+                    node.next[level].set(succs[level], false);
+                }
+                if (preds[0].next[0].compareAndSet(succs[0], node, false,
+                        false)) {
+                    this.count.increment();
+                    this.linkUpperLevels(x, node, preds, succs);
+                    added = true;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Links {@code node}, already in the level-0 list, into its upper levels,
+     * stopping if it starts being removed.
+     *
+     * @param x
+     *            the value of node
+     * @param node
+     *            the node
+     * @param preds
+     *            the predecessors found by the last search for x
+     * @param succs
+     *            the successors found by the last search for x
+     * @updates preds, succs
+     */
+    private void linkUpperLevels(T x, Node<T> node, Node<T>[] preds,
+            Node<T>[] succs) {
+        boolean removing = false;
+        for (int level = 1; level <= node.topLevel && !removing; level++) {
+            boolean linked = false;
+            while (!linked && !removing) {
+                Node<T> succ = succs[level];
+                Node<T> oldNext = node.next[level].getReference();
+                if (node.next[level].isMarked()) {
+                    removing = true;
+                } else if (oldNext == succ || node.next[level]
+                        .compareAndSet(oldNext, succ, false, false)) {
+                    linked = preds[level].next[level].compareAndSet(succ, node,
+                            false, false);
+                    if (!linked) {
+                        this.find(x, preds, succs);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes {@code x} from {@code this} if it is there, as one atomic step.
+     *
+     * @param x
+     *            the element to be removed
+     * @return true iff x was removed
+     * @updates this
+     * @ensures <pre>
+     * removeIfPresent = (x is in #this)  and
+     * this = #this \ {x}
+     * </pre>
+     */
+    public final boolean removeIfPresent(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.removeNode(x) != null;
+    }
+
+    /**
+     * Removes the node with value {@code x}, if there is one, and returns its
+     * value.
+     *
+     * @param x
+     *            the value
+     * @return the removed value, or null if x was not in this
+     * @updates this
+     * @ensures <pre>
+     * if x is in #this then removeNode = [the element of #this equal to x]
+     *  else removeNode = null  and
+     * this = #this \ {x}
+     * </pre>
+     */
+    private T removeNode(T x) {
+        Node<T>[] preds = newLevelArray();
+        Node<T>[] succs = newLevelArray();
+        T removed = null;
+        if (this.find(x, preds, succs)) {
+            Node<T> node = succs[0];
+            boolean[] marked = { false };
+            for (int level = node.topLevel; level >= 1; level--) {
+                Node<T> succ = node.next[level].get(marked);
+                while (!marked[0]) {
+                    node.next[level].attemptMark(succ, true);
+                    succ = node.next[level].get(marked);
+                }
+            }
+            Node<T> succ = node.next[0].get(marked);
+            boolean done = marked[0];
+            while (!done) {
+                if (node.next[0].compareAndSet(succ, succ, false, true)) {
+                    /*
+                     * This thread removed it; unlink it at every level.
+                     */
+                    this.count.decrement();
+                    this.find(x, preds, succs);
+                    removed = node.value;
+                    done = true;
+                } else {
+                    succ = node.next[0].get(marked);
+                    done = marked[0];
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set5}, which
+     * follows the level-0 list, skipping removed nodes; it is weakly
+     * consistent.
+     */
+    private final class Set5Iterator implements Iterator<T> {
+
+        /**
+         * Next node to visit, or null.
+         */
+        private Node<T> nextNode;
+
+        /**
+         * No-argument constructor.
+         */
+        Set5Iterator() {
+            this.nextNode = this.skipRemoved(
+                    Set5.this.head.next[0].getReference());
+        }
+
+        /**
+         * Returns the first node from {@code n} on that is not removed.
+         *
+         * @param n
+         *            the node to start at, or null
+         * @return the first such node, or null
+         */
+        private Node<T> skipRemoved(Node<T> n) {
+            Node<T> m = n;
+            while (m != null && m.next[0].isMarked()) {
+                m = m.next[0].getReference();
+            }
+            return m;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextNode != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = this.nextNode.value;
+            this.nextNode = this.skipRemoved(
+                    this.nextNode.next[0].getReference());
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,1098 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set<Integer>} represented as a compressed bitmap, in the style of
+ * Roaring bitmaps, with implementations of primary methods. The elements are
+ * split by their high 16 bits into chunks of up to 2^16 elements, and each
+ * chunk keeps its low 16 bits in whichever container suits it: a sorted array
+ * of {@code char}s (2 bytes per element) while the chunk has at most
+ * {@code ARRAY_MAX} elements, and otherwise a bitmap of 2^16 bits (8 KB). After
+ * {@code runOptimize}, chunks that are cheaper to store as runs of
+ * consecutive values are kept that way (4 bytes per run). So a dense range of
+ * ids costs about one bit per id, against a boxed {@code Integer} and a tree
+ * node per element in {@code Set3a} or {@code Set3b}.
+ *
+ * <p>
+ * When the argument of {@code add(Set)} or {@code remove(Set)} is also a
+ * {@code Set6}, the chunks are merged in one pass and bitmaps are combined a
+ * 64-bit word at a time.
+ *
+ * <p>
+ * The iterator returns the elements in order of their bits as unsigned
+ * integers, so negative elements come after the others.
+ *
+ * @mathdefinitions
+ *
+ *                  <pre>
+ * ELEMENTS(
+ *   high: integer,
+ *   c: container
+ *  ): finite set of integer satisfies
+ *  [the integers whose high 16 bits are high and whose low 16 bits are
+ *   among those held in c]
+ *                  </pre>
+ *
+ * @convention <pre>
+ * 0 <= $this.count <= |$this.keys| = |$this.containers|  and
+ * [$this.keys[0, $this.count) is strictly increasing]  and
+ * [for each i in [0, $this.count), $this.containers[i] is not null and
+ *  holds at least one value, and if it is an array container it holds at
+ *  most ARRAY_MAX values, and if it is a bitmap container more]  and
+ * $this.size = [sum of the numbers of values held in
+ *               $this.containers[0, $this.count)]
+ * </pre>
+ * @correspondence <pre>
+ * this = [union of ELEMENTS($this.keys[i], $this.containers[i]) for i in
+ *         [0, $this.count)]
+ * </pre>
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Set6 extends SetSecondary<Integer> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Largest number of values held in an array container.
+     */
+    private static final int ARRAY_MAX = 4096;
+
+    /**
+     * Number of 64-bit words in a bitmap of 2^16 bits.
+     */
+    private static final int WORDS = 1024;
+
+    /**
+     * Number of values in a chunk.
+     */
+    private static final int CHUNK = 1 << 16;
+
+    /**
+     * Bits in a word.
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * Initial length of the chunk arrays.
+     */
+    private static final int INITIAL_CHUNKS = 4;
+
+    /**
+     * Container of the low 16 bits of the elements of one chunk.
+     */
+    private abstract static class Container {
+
+        /**
+         * Reports the number of values held.
+         *
+         * @return the number of values
+         */
+        abstract int cardinality();
+
+        /**
+         * Reports whether {@code low} is held.
+         *
+         * @param low
+         *            the value, in [0, 2^16)
+         * @return whether low is held
+         */
+        abstract boolean contains(int low);
+
+        /**
+         * Returns a container holding the values of {@code this} and
+         * {@code low}, which may be {@code this}, updated.
+         *
+         * @param low
+         *            the value, in [0, 2^16) and not held
+         * @return the container with low added
+         */
+        abstract Container add(int low);
+
+        /**
+         * Returns a container holding the values of {@code this} but
+         * {@code low}, which may be {@code this}, updated.
+         *
+         * @param low
+         *            the value, in [0, 2^16) and held
+         * @return the container with low removed
+         */
+        abstract Container remove(int low);
+
+        /**
+         * Returns the smallest value held that is at least {@code low}, or -1
+         * if there is none.
+         *
+         * @param low
+         *            the bound, in [0, 2^16]
+         * @return the next value, or -1
+         */
+        abstract int nextFrom(int low);
+
+        /**
+         * Returns a new bitmap of the values held.
+         *
+         * @return the bitmap, as WORDS words
+         */
+        abstract long[] toWords();
+
+    }
+
+    /**
+     * Container holding its values in a sorted array.
+     */
+    private static final class ArrayContainer extends Container {
+
+        /**
+         * The values, in increasing order, in values[0, cardinality).
+         */
+        private char[] values;
+
+        /**
+         * Number of values held.
+         */
+        private int cardinality;
+
+        /**
+         * Constructor from the values.
+         *
+         * @param values
+         *            the values, in increasing order
+         * @param cardinality
+         *            the number of values in values
+         */
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return this.cardinality;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return Arrays.binarySearch(this.values, 0, this.cardinality,
+                    (char) low) >= 0;
+        }
+
+        @Override
+        Container add(int low) {
+            Container result = this;
+            if (this.cardinality == ARRAY_MAX) {
+                result = new BitmapContainer(this.toWords(), this.cardinality)
+                        .add(low);
+            } else {
+                int i = -Arrays.binarySearch(this.values, 0, this.cardinality,
+                        (char) low) - 1;
+                if (this.cardinality == this.values.length) {
+                    this.values = Arrays.copyOf(this.values,
+                            Math.min(2 * this.values.length, ARRAY_MAX));
+                }
+                System.arraycopy(this.values, i, this.values, i + 1,
+                        this.cardinality - i);
+                this.values[i] = (char) low;
+                this.cardinality++;
+            }
+            return result;
+        }
+
+        @Override
+        Container remove(int low) {
+            int i = Arrays.binarySearch(this.values, 0, this.cardinality,
+                    (char) low);
+            System.arraycopy(this.values, i + 1, this.values, i,
+                    this.cardinality - i - 1);
+            this.cardinality--;
+            return this;
+        }
+
+        @Override
+        int nextFrom(int low) {
+            int next = -1;
+            if (low < CHUNK) {
+                int i = Arrays.binarySearch(this.values, 0, this.cardinality,
+                        (char) low);
+                if (i < 0) {
+                    i = -i - 1;
+                }
+                if (i < this.cardinality) {
+                    next = this.values[i];
+                }
+            }
+            return next;
+        }
+
+        @Override
+        long[] toWords() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < this.cardinality; i++) {
+                words[this.values[i] >>> 6] |= 1L << this.values[i];
+            }
+            return words;
+        }
+
+    }
+
+    /**
+     * Container holding its values as a bitmap.
+     */
+    private static final class BitmapContainer extends Container {
+
+        /**
+         * Bit (low mod 64) of words[low / 64] is set iff low is held.
+         */
+        private final long[] words;
+
+        /**
+         * Number of values held.
+         */
+        private int cardinality;
+
+        /**
+         * Constructor from the bitmap.
+         *
+         * @param words
+         *            the bitmap
+         * @param cardinality
+         *            the number of bits set in words
+         */
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return this.cardinality;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return (this.words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(int low) {
+            this.words[low >>> 6] |= 1L << low;
+            this.cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(int low) {
+            this.words[low >>> 6] &= ~(1L << low);
+            this.cardinality--;
+            Container result = this;
+            if (this.cardinality <= ARRAY_MAX) {
+                result = fromWords(this.words, this.cardinality);
+            }
+            return result;
+        }
+
+        @Override
+        int nextFrom(int low) {
+            return nextSetBit(this.words, low);
+        }
+
+        @Override
+        long[] toWords() {
+            return this.words.clone();
+        }
+
+    }
+
+    /**
+     * Container holding its values as runs of consecutive values.
+     */
+    private static final class RunContainer extends Container {
+
+        /**
+         * First value of each run, in increasing order.
+         */
+        private final char[] starts;
+
+        /**
+         * Number of values in each run, less one.
+         */
+        private final char[] lengths;
+
+        /**
+         * Number of values held.
+         */
+        private final int cardinality;
+
+        /**
+         * Constructor from the runs.
+         *
+         * @param starts
+         *            the first value of each run, in increasing order
+         * @param lengths
+         *            the number of values in each run, less one
+         * @param cardinality
+         *            the total number of values in the runs
+         */
+        RunContainer(char[] starts, char[] lengths, int cardinality) {
+            this.starts = starts;
+            this.lengths = lengths;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Returns the index of the last run starting at or before
+         * {@code low}, or -1 if there is none.
+         *
+         * @param low
+         *            the value, in [0, 2^16)
+         * @return the index of the run, or -1
+         */
+        private int runAtOrBefore(int low) {
+            int i = Arrays.binarySearch(this.starts, (char) low);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return i;
+        }
+
+        @Override
+        int cardinality() {
+            return this.cardinality;
+        }
+
+        @Override
+        boolean contains(int low) {
+            int i = this.runAtOrBefore(low);
+            return i >= 0 && low <= this.starts[i] + this.lengths[i];
+        }
+
+        @Override
+        Container add(int low) {
+            /*
+             * Runs are rebuilt only by runOptimize, so changes go to an array
+             * or a bitmap.
+             */
+            return fromWords(this.toWords(), this.cardinality).add(low);
+        }
+
+        @Override
+        Container remove(int low) {
+            return fromWords(this.toWords(), this.cardinality).remove(low);
+        }
+
+        @Override
+        int nextFrom(int low) {
+            int next = -1;
+            if (low < CHUNK) {
+                int i = this.runAtOrBefore(low);
+                if (i >= 0 && low <= this.starts[i] + this.lengths[i]) {
+                    next = low;
+                } else if (i + 1 < this.starts.length) {
+                    next = this.starts[i + 1];
+                }
+            }
+            return next;
+        }
+
+        @Override
+        long[] toWords() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < this.starts.length; i++) {
+                setRange(words, this.starts[i],
+                        this.starts[i] + this.lengths[i] + 1);
+            }
+            return words;
+        }
+
+    }
+
+    /**
+     * Keys (high 16 bits) of the chunks, in keys[0, count).
+     */
+    private char[] keys;
+
+    /**
+     * Containers of the chunks, in the order of their keys.
+     */
+    private Container[] containers;
+
+    /**
+     * Number of chunks.
+     */
+    private int count;
+
+    /**
+     * Number of elements.
+     */
+    private int size;
+
+    /**
+     * Returns the smallest index at least {@code from} of a bit set in
+     * {@code words}, or -1 if there is none.
+     *
+     * @param words
+     *            the bitmap, of WORDS words
+     * @param from
+     *            the index to start at, in [0, 2^16]
+     * @return the index of the next set bit, or -1
+     */
+    private static int nextSetBit(long[] words, int from) {
+        int next = -1;
+        int w = from >>> 6;
+        if (w < WORDS) {
+            long word = words[w] & (-1L << from);
+            while (word == 0 && w + 1 < WORDS) {
+                w++;
+                word = words[w];
+            }
+            if (word != 0) {
+                next = w * WORD_BITS + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Returns the smallest index at least {@code from} of a bit not set in
+     * {@code words}, or 2^16 if there is none.
+     *
+     * @param words
+     *            the bitmap, of WORDS words
+     * @param from
+     *            the index to start at, in [0, 2^16]
+     * @return the index of the next clear bit, or 2^16
+     */
+    private static int nextClearBit(long[] words, int from) {
+        int next = CHUNK;
+        int w = from >>> 6;
+        if (w < WORDS) {
+            long word = ~words[w] & (-1L << from);
+            while (word == 0 && w + 1 < WORDS) {
+                w++;
+                word = ~words[w];
+            }
+            if (word != 0) {
+                next = w * WORD_BITS + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Sets the bits from {@code from} up to, but not including, {@code to}.
+     *
+     * @param words
+     *            the bitmap, of WORDS words
+     * @param from
+     *            the first bit to set
+     * @param to
+     *            the bit after the last to set
+     * @updates words
+     * @requires 0 <= from < to <= 2^16
+     */
+    private static void setRange(long[] words, int from, int to) {
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+        } else {
+            words[first] |= firstMask;
+            for (int w = first + 1; w < last; w++) {
+                words[w] = -1L;
+            }
+            words[last] |= lastMask;
+        }
+    }
+
+    /**
+     * Returns a container holding the values whose bits are set in
+     * {@code words}: an array container if there are at most
+     * {@code ARRAY_MAX}, and otherwise a bitmap container using words.
+     *
+     * @param words
+     *            the bitmap, of WORDS words
+     * @param cardinality
+     *            the number of bits set in words
+     * @return the container
+     */
+    private static Container fromWords(long[] words, int cardinality) {
+        Container result;
+        if (cardinality <= ARRAY_MAX) {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n] = (char) (w * WORD_BITS
+                            + Long.numberOfTrailingZeros(word));
+                    n++;
+                    word &= word - 1;
+                }
+            }
+            result = new ArrayContainer(values, cardinality);
+        } else {
+            result = new BitmapContainer(words, cardinality);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bits set in {@code words}.
+     *
+     * @param words
+     *            the bitmap
+     * @return the number of bits set
+     */
+    private static int cardinality(long[] words) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns a new container holding the values held by both {@code a} and
+     * {@code b}.
+     *
+     * @param a
+     *            the first container
+     * @param b
+     *            the second container
+     * @return the intersection, possibly holding no values
+     */
+    private static Container and(Container a, Container b) {
+        Container result;
+        if (a instanceof ArrayContainer || b instanceof ArrayContainer) {
+            ArrayContainer small;
+            Container other;
+            if (a instanceof ArrayContainer) {
+                small = (ArrayContainer) a;
+                other = b;
+            } else {
+                small = (ArrayContainer) b;
+                other = a;
+            }
+            char[] values = new char[Math.max(small.cardinality, 1)];
+            int n = 0;
+            for (int i = 0; i < small.cardinality; i++) {
+                if (other.contains(small.values[i])) {
+                    values[n] = small.values[i];
+                    n++;
+                }
+            }
+            result = new ArrayContainer(values, n);
+        } else {
+            long[] words = a.toWords();
+            long[] other = b.toWords();
+            for (int w = 0; w < WORDS; w++) {
+                words[w] &= other[w];
+            }
+            result = fromWords(words, cardinality(words));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new container holding the values held by {@code a} or
+     * {@code b}.
+     *
+     * @param a
+     *            the first container
+     * @param b
+     *            the second container
+     * @return the union
+     */
+    private static Container or(Container a, Container b) {
+        long[] words = a.toWords();
+        long[] other = b.toWords();
+        for (int w = 0; w < WORDS; w++) {
+            words[w] |= other[w];
+        }
+        return fromWords(words, cardinality(words));
+    }
+
+    /**
+     * Returns a new container holding the values held by {@code a} but not
+     * by {@code b}.
+     *
+     * @param a
+     *            the first container
+     * @param b
+     *            the second container
+     * @return the difference, possibly holding no values
+     */
+    private static Container andNot(Container a, Container b) {
+        Container result;
+        if (a instanceof ArrayContainer) {
+            ArrayContainer small = (ArrayContainer) a;
+            char[] values = new char[Math.max(small.cardinality, 1)];
+            int n = 0;
+            for (int i = 0; i < small.cardinality; i++) {
+                if (!b.contains(small.values[i])) {
+                    values[n] = small.values[i];
+                    n++;
+                }
+            }
+            result = new ArrayContainer(values, n);
+        } else {
+            long[] words = a.toWords();
+            long[] other = b.toWords();
+            for (int w = 0; w < WORDS; w++) {
+                words[w] &= ~other[w];
+            }
+            result = fromWords(words, cardinality(words));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the container holding the same values as {@code c} that takes
+     * the least memory: runs, if they take less than c does, and otherwise
+     * c.
+     *
+     * @param c
+     *            the container
+     * @return the smallest container with the values of c
+     */
+    private static Container optimized(Container c) {
+        long[] words = c.toWords();
+        int runs = 0;
+        long carry = 0;
+        for (long word : words) {
+            /*
+             * A run starts at each set bit whose lower neighbor is clear.
+             */
+            runs += Long.bitCount(word & ~((word << 1) | carry));
+            carry = word >>> (WORD_BITS - 1);
+        }
+        int bytes = 2 * c.cardinality();
+        if (c.cardinality() > ARRAY_MAX) {
+            bytes = WORDS * Long.BYTES;
+        }
+        Container result = c;
+        if (4 * runs < bytes) {
+            char[] starts = new char[runs];
+            char[] lengths = new char[runs];
+            int start = nextSetBit(words, 0);
+            for (int i = 0; i < runs; i++) {
+                int end = nextClearBit(words, start);
+                starts[i] = (char) start;
+                lengths[i] = (char) (end - start - 1);
+                start = nextSetBit(words, end);
+            }
+            result = new RunContainer(starts, lengths, c.cardinality());
+        } else if (c instanceof RunContainer) {
+            result = fromWords(words, c.cardinality());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index in {@code this.keys} of {@code high}, or, if it is
+     * not there, -(the index at which it would go) - 1.
+     *
+     * @param high
+     *            the key
+     * @return the index of high, or -(insertion point) - 1
+     */
+    private int chunkIndex(int high) {
+        return Arrays.binarySearch(this.keys, 0, this.count, (char) high);
+    }
+
+    /**
+     * Inserts a chunk at index {@code i}.
+     *
+     * @param i
+     *            the index
+     * @param high
+     *            the key of the chunk
+     * @param c
+     *            the container of the chunk
+     * @updates this
+     * @requires [i is where high belongs in this.keys[0, this.count)]
+     */
+    private void insertChunk(int i, int high, Container c) {
+        if (this.count == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, 2 * this.count);
+            this.containers = Arrays.copyOf(this.containers, 2 * this.count);
+        }
+        System.arraycopy(this.keys, i, this.keys, i + 1, this.count - i);
+        System.arraycopy(this.containers, i, this.containers, i + 1,
+                this.count - i);
+        this.keys[i] = (char) high;
+        this.containers[i] = c;
+        this.count++;
+    }
+
+    /**
+     * Removes the chunk at index {@code i}.
+     *
+     * @param i
+     *            the index
+     * @updates this
+     * @requires 0 <= i < this.count
+     */
+    private void removeChunk(int i) {
+        System.arraycopy(this.keys, i + 1, this.keys, i, this.count - i - 1);
+        System.arraycopy(this.containers, i + 1, this.containers, i,
+                this.count - i - 1);
+        this.count--;
+        this.containers[this.count] = null;
+    }
+
+    /**
+     * Makes {@code this} hold the given chunks.
+     *
+     * @param keys
+     *            the keys, strictly increasing
+     * @param containers
+     *            the containers, each holding at least one value
+     * @param count
+     *            the number of chunks
+     * @replaces this
+     */
+    private void setChunks(char[] keys, Container[] containers, int count) {
+        this.keys = keys;
+        this.containers = containers;
+        this.count = count;
+        this.size = 0;
+        for (int i = 0; i < count; i++) {
+            this.size += containers[i].cardinality();
+        }
+        if (keys.length == 0) {
+            this.createNewRep();
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.keys = new char[INITIAL_CHUNKS];
+        this.containers = new Container[INITIAL_CHUNKS];
+        this.count = 0;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set6() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Set<Integer> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<Integer> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set6 : ""
+                + "Violation of: source is of dynamic type Set6";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        Set6 localSource = (Set6) source;
+        this.keys = localSource.keys;
+        this.containers = localSource.containers;
+        this.count = localSource.count;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(Integer x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        int high = x >>> Character.SIZE;
+        int low = x & Character.MAX_VALUE;
+        int i = this.chunkIndex(high);
+        if (i < 0) {
+            char[] values = { (char) low };
+            this.insertChunk(-i - 1, high, new ArrayContainer(values, 1));
+        } else {
+            this.containers[i] = this.containers[i].add(low);
+        }
+        this.size++;
+    }
+
+    @Override
+    public final Integer remove(Integer x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        int i = this.chunkIndex(x >>> Character.SIZE);
+        Container c = this.containers[i].remove(x & Character.MAX_VALUE);
+        if (c.cardinality() == 0) {
+            this.removeChunk(i);
+        } else {
+            this.containers[i] = c;
+        }
+        this.size--;
+        return x;
+    }
+
+    @Override
+    public final Integer removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int x = (this.keys[0] << Character.SIZE)
+                | this.containers[0].nextFrom(0);
+        return this.remove(x);
+    }
+
+    @Override
+    public final boolean contains(Integer x) {
+        assert x != null : "Violation of: x is not null";
+
+        int i = this.chunkIndex(x >>> Character.SIZE);
+        return i >= 0 && this.containers[i].contains(x & Character.MAX_VALUE);
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Integer> iterator() {
+        return new Set6Iterator();
+    }
+
+    /*
+     * Bulk methods -----------------------------------------------------------
+     */
+
+    /**
+     * Merges the elements of {@code s} into {@code this} and leaves in
+     * {@code s} the elements that were in both, as {@code SetSecondary} does.
+     * If s is a {@code Set6}, the chunks of the two sets are merged in one
+     * pass, combining containers a word or value at a time.
+     */
+    @Override
+    public final void add(Set<Integer> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s instanceof Set6) {
+            Set6 other = (Set6) s;
+            char[] unionKeys = new char[this.count + other.count];
+            Container[] union = new Container[unionKeys.length];
+            char[] bothKeys = new char[Math.min(this.count, other.count)];
+            Container[] both = new Container[bothKeys.length];
+            int nUnion = 0;
+            int nBoth = 0;
+            int i = 0;
+            int j = 0;
+            while (i < this.count || j < other.count) {
+                int c;
+                if (i == this.count) {
+                    c = 1;
+                } else if (j == other.count) {
+                    c = -1;
+                } else {
+                    c = this.keys[i] - other.keys[j];
+                }
+                if (c < 0) {
+                    unionKeys[nUnion] = this.keys[i];
+                    union[nUnion] = this.containers[i];
+                    i++;
+                } else if (c > 0) {
+                    unionKeys[nUnion] = other.keys[j];
+                    union[nUnion] = other.containers[j];
+                    j++;
+                } else {
+                    unionKeys[nUnion] = this.keys[i];
+                    union[nUnion] = or(this.containers[i],
+                            other.containers[j]);
+                    Container and = and(this.containers[i],
+                            other.containers[j]);
+                    if (and.cardinality() > 0) {
+                        bothKeys[nBoth] = this.keys[i];
+                        both[nBoth] = and;
+                        nBoth++;
+                    }
+                    i++;
+                    j++;
+                }
+                nUnion++;
+            }
+            this.setChunks(unionKeys, union, nUnion);
+            other.setChunks(bothKeys, both, nBoth);
+        } else {
+            super.add(s);
+        }
+    }
+
+    /**
+     * Removes from {@code this} the elements that are also in {@code s} and
+     * returns them, as {@code SetSecondary} does. If s is a {@code Set6}, the
+     * chunks of the two sets are merged in one pass, combining containers a
+     * word or value at a time.
+     */
+    @Override
+    public final Set<Integer> remove(Set<Integer> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        Set<Integer> removed;
+        if (s instanceof Set6) {
+            Set6 other = (Set6) s;
+            char[] differenceKeys = new char[this.count];
+            Container[] difference = new Container[this.count];
+            char[] bothKeys = new char[Math.min(this.count, other.count)];
+            Container[] both = new Container[bothKeys.length];
+            int nDifference = 0;
+            int nBoth = 0;
+            int j = 0;
+            for (int i = 0; i < this.count; i++) {
+                while (j < other.count && other.keys[j] < this.keys[i]) {
+                    j++;
+                }
+                Container rest = this.containers[i];
+                if (j < other.count && other.keys[j] == this.keys[i]) {
+                    rest = andNot(this.containers[i], other.containers[j]);
+                    Container and = and(this.containers[i],
+                            other.containers[j]);
+                    if (and.cardinality() > 0) {
+                        bothKeys[nBoth] = this.keys[i];
+                        both[nBoth] = and;
+                        nBoth++;
+                    }
+                }
+                if (rest.cardinality() > 0) {
+                    differenceKeys[nDifference] = this.keys[i];
+                    difference[nDifference] = rest;
+                    nDifference++;
+                }
+            }
+            this.setChunks(differenceKeys, difference, nDifference);
+            Set6 result = (Set6) s.newInstance();
+            result.setChunks(bothKeys, both, nBoth);
+            removed = result;
+        } else {
+            removed = super.remove(s);
+        }
+        return removed;
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Stores each chunk of {@code this} in the container that takes the least
+     * memory, using runs of consecutive values where they take less than an
+     * array or a bitmap. Worth calling once a set is built, especially over
+     * ranges of ids. A chunk goes back to an array or a bitmap when it is
+     * next changed.
+     *
+     * @ensures this = #this
+     */
+    public final void runOptimize() {
+        for (int i = 0; i < this.count; i++) {
+            this.containers[i] = optimized(this.containers[i]);
+        }
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set6}.
+     */
+    private final class Set6Iterator implements Iterator<Integer> {
+
+        /**
+         * Index of the chunk of the next element.
+         */
+        private int chunk;
+
+        /**
+         * Low 16 bits of the next element.
+         */
+        private int low;
+
+        /**
+         * No-argument constructor.
+         */
+        Set6Iterator() {
+            this.chunk = 0;
+            this.low = 0;
+            if (Set6.this.count > 0) {
+                this.low = Set6.this.containers[0].nextFrom(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.chunk < Set6.this.count;
+        }
+
+        @Override
+        public Integer next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            int next = (Set6.this.keys[this.chunk] << Character.SIZE)
+                    | this.low;
+            this.low = Set6.this.containers[this.chunk].nextFrom(this.low + 1);
+            if (this.low < 0) {
+                this.chunk++;
+                this.low = 0;
+                if (this.chunk < Set6.this.count) {
+                    this.low = Set6.this.containers[this.chunk].nextFrom(0);
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
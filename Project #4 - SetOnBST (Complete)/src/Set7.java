@@ -0,0 +1,1294 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set<String>} represented as a B+-tree stored in a file, with
+ * implementations of primary methods. The set outlives the process and may be
+ * larger than the heap: the file is memory-mapped, nodes are read from their
+ * pages only when a search passes through them, and a bounded cache keeps the
+ * most recently used nodes decoded. Nodes changed since the last commit are
+ * kept decoded too, up to the same bound; beyond it, after each update, the
+ * least recently used of them are written into their pages early (those pages
+ * are not used by the committed tree, so this is safe), so a long run of
+ * updates between commits does not fill the heap. Each page stores the
+ * longest prefix its keys share only once.
+ *
+ * <p>
+ * Updates never overwrite a page that the last committed tree uses: the
+ * first change to a node since the last commit copies it to a free page (and
+ * so its parent, up to the root). {@code commit} writes the changed pages,
+ * forces them to the disk, and only then writes the new root into whichever
+ * of the two header pages is older, with a checksum; so a crash at any point
+ * leaves either the old or the new tree intact, and opening the file picks
+ * the newest header whose checksum is right. Opening reads just that header,
+ * whatever the size of the set. Changes made since the last {@code commit}
+ * (or {@code close}, which commits) are lost in a crash.
+ *
+ * <p>
+ * Pages freed by a commit are reused after the next one; those still unused
+ * when the file is closed are not remembered, so the file can keep some dead
+ * pages.
+ *
+ * <p>
+ * A set made by the no-argument constructor (or {@code newInstance}) has no
+ * file until something is added to it; it then uses a temporary file, which
+ * {@code close} deletes (as does {@code transferFrom} into it).
+ *
+ * @mathdefinitions
+ *
+ *                  <pre>
+ * IS_BPLUS_TREE(
+ *   p: page
+ *  ): boolean satisfies
+ *  [the tree rooted at p satisfies the B+-tree properties for the ordering
+ *   of String.compareTo: all leaves at the same depth, keys in each node
+ *   strictly increasing, every node fits in a page, and every node but the
+ *   root has at least one key; each key of an internal node is greater than
+ *   every key under the child to its left and at most every key under the
+ *   child to its right]
+ *                  </pre>
+ *
+ * @convention <pre>
+ * if $this.channel = null then
+ *   $this.size = 0  and  $this.temporary
+ * else
+ *   IS_BPLUS_TREE($this.root)  and
+ *   $this.size = [number of keys in the leaves of $this.root]  and
+ *   [no page in $this.dirty, $this.spilled, $this.free, or $this.pendingFree
+ *    is used by the tree rooted at the root of the newest valid header]  and
+ *   [the pages in $this.dirty and $this.spilled, which are disjoint, hold the
+ *    nodes changed since the last commit]  and
+ *   [the nodes of the pages in $this.spilled are encoded in those pages]
+ * </pre>
+ * @correspondence this = [keys in the leaves of $this.root]
+ *
+ * @author Jatin Mamtani
+ *
+ */
+public class Set7 extends SetSecondary<String> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Bytes in a page.
+     */
+    private static final int PAGE_SIZE = 4096;
+
+    /**
+     * Pages mapped at a time; the file grows by this many pages.
+     */
+    private static final int SEGMENT_PAGES = 1024;
+
+    /**
+     * Number of header pages, at the start of the file.
+     */
+    private static final int HEADERS = 2;
+
+    /**
+     * First long of each header ("SET7PAGE").
+     */
+    private static final long MAGIC = 0x5345543750414745L;
+
+    /**
+     * Bytes of a header covered by its checksum: the magic number, the
+     * generation, the root, the size, and the number of pages.
+     */
+    private static final int HEADER_BYTES = 28;
+
+    /**
+     * Longest key allowed, in chars, so that a page always holds at least
+     * three keys.
+     */
+    public static final int MAX_KEY_LENGTH = 500;
+
+    /**
+     * Default number of clean nodes, and of changed nodes, kept decoded.
+     */
+    private static final int DEFAULT_CACHE_NODES = 1024;
+
+    /**
+     * Page type of a leaf.
+     */
+    private static final byte LEAF = 0;
+
+    /**
+     * Page type of an internal node.
+     */
+    private static final byte INTERNAL = 1;
+
+    /**
+     * Bytes in a page header: the type, the number of keys, and the length
+     * of the shared prefix.
+     */
+    private static final int NODE_HEADER_BYTES = 5;
+
+    /**
+     * Nodes smaller than this many bytes are merged with a sibling when they
+     * can be.
+     */
+    private static final int MIN_FILL = PAGE_SIZE / 4;
+
+    /**
+     * Decoded B+-tree node.
+     */
+    private static final class Node {
+
+        /**
+         * Whether this is a leaf.
+         */
+        private final boolean leaf;
+
+        /**
+         * The keys, in increasing order.
+         */
+        private final List<String> keys;
+
+        /**
+         * The pages of the children, one more than the keys; empty for a
+         * leaf.
+         */
+        private final List<Integer> children;
+
+        /**
+         * Constructor of an empty node.
+         *
+         * @param leaf
+         *            whether the node is a leaf
+         */
+        Node(boolean leaf) {
+            this.leaf = leaf;
+            this.keys = new ArrayList<String>();
+            this.children = new ArrayList<Integer>();
+        }
+
+        /**
+         * Returns a copy of {@code this}.
+         *
+         * @return the copy
+         */
+        Node copy() {
+            Node copy = new Node(this.leaf);
+            copy.keys.addAll(this.keys);
+            copy.children.addAll(this.children);
+            return copy;
+        }
+
+        /**
+         * Returns the length of the prefix shared by all the keys.
+         *
+         * @return the length of the shared prefix
+         */
+        int prefixLength() {
+            int length = 0;
+            if (this.keys.size() > 1) {
+                String first = this.keys.get(0);
+                String last = this.keys.get(this.keys.size() - 1);
+                int max = Math.min(first.length(), last.length());
+                while (length < max
+                        && first.charAt(length) == last.charAt(length)) {
+                    length++;
+                }
+            }
+            return length;
+        }
+
+        /**
+         * Returns the number of bytes {@code this} takes in a page.
+         *
+         * @return the encoded size
+         */
+        int encodedSize() {
+            int prefix = this.prefixLength();
+            int bytes = NODE_HEADER_BYTES + 2 * prefix;
+            for (String key : this.keys) {
+                bytes += 2 + 2 * (key.length() - prefix);
+            }
+            return bytes + Integer.BYTES * this.children.size();
+        }
+
+        /**
+         * Returns the index of the child of this internal node under which
+         * {@code x} is (or would be).
+         *
+         * @param x
+         *            the key searched for
+         * @return the index of the child
+         */
+        int childIndex(String x) {
+            int lo = 0;
+            int hi = this.keys.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (this.keys.get(mid).compareTo(x) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+    }
+
+    /**
+     * Outcome of an update below a node: the page now holding the node, and,
+     * if it was split, the separator and the page of the new right sibling.
+     */
+    private static final class Result {
+
+        /**
+         * Page now holding the node.
+         */
+        private final int page;
+
+        /**
+         * Smallest key under the new right sibling, or null if there is none.
+         */
+        private final String separator;
+
+        /**
+         * Page of the new right sibling, if there is one.
+         */
+        private final int rightPage;
+
+        /**
+         * Constructor from the fields.
+         *
+         * @param page
+         *            page now holding the node
+         * @param separator
+         *            the separator, or null
+         * @param rightPage
+         *            page of the new right sibling
+         */
+        Result(int page, String separator, int rightPage) {
+            this.page = page;
+            this.separator = separator;
+            this.rightPage = rightPage;
+        }
+
+    }
+
+    /**
+     * The file, or null if there is none yet.
+     */
+    private Path path;
+
+    /**
+     * Whether the file is a temporary one, to be deleted when closed.
+     */
+    private boolean temporary;
+
+    /**
+     * Channel to the file, or null if there is none yet.
+     */
+    private FileChannel channel;
+
+    /**
+     * Mapped segments of the file, null where not mapped yet.
+     */
+    private List<MappedByteBuffer> segments;
+
+    /**
+     * Number of pages in use or free, including the headers.
+     */
+    private int pageCount;
+
+    /**
+     * Page of the root.
+     */
+    private int root;
+
+    /**
+     * Number of keys.
+     */
+    private int size;
+
+    /**
+     * Generation of the newest header.
+     */
+    private long generation;
+
+    /**
+     * Clean nodes, least recently used first.
+     */
+    private LinkedHashMap<Integer, Node> cache;
+
+    /**
+     * Nodes changed since the last commit, by page; these pages are not used
+     * by the committed tree.
+     */
+    private LinkedHashMap<Integer, Node> dirty;
+
+    /**
+     * Pages changed since the last commit whose nodes were written early to
+     * bound {@code dirty}; these pages are not used by the committed tree.
+     */
+    private BitSet spilled;
+
+    /**
+     * Number of changed nodes kept in {@code dirty} between updates.
+     */
+    private int dirtyNodes;
+
+    /**
+     * Pages that may be reused now.
+     */
+    private Deque<Integer> free;
+
+    /**
+     * Pages that the committed tree uses but the current one does not; they
+     * may be reused after the next commit.
+     */
+    private List<Integer> pendingFree;
+
+    /**
+     * Returns the mapped segment holding {@code page}, mapping it (and
+     * growing the file) if needed.
+     *
+     * @param page
+     *            the page
+     * @return the segment
+     */
+    private MappedByteBuffer segment(int page) {
+        int index = page / SEGMENT_PAGES;
+        while (this.segments.size() <= index) {
+            this.segments.add(null);
+        }
+        MappedByteBuffer segment = this.segments.get(index);
+        if (segment == null) {
+            long bytes = (long) SEGMENT_PAGES * PAGE_SIZE;
+            try {
+                segment = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                        index * bytes, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.segments.set(index, segment);
+        }
+        return segment;
+    }
+
+    /**
+     * Returns the offset of {@code page} in its segment.
+     *
+     * @param page
+     *            the page
+     * @return the offset in bytes
+     */
+    private static int offset(int page) {
+        return page % SEGMENT_PAGES * PAGE_SIZE;
+    }
+
+    /**
+     * Reads the node stored in {@code page}.
+     *
+     * @param page
+     *            the page
+     * @return the node
+     */
+    private Node decode(int page) {
+        ByteBuffer b = this.segment(page);
+        int at = offset(page);
+        Node n = new Node(b.get(at) == LEAF);
+        int count = b.getShort(at + 1);
+        int prefixLength = b.getShort(at + 3);
+        at += NODE_HEADER_BYTES;
+        char[] chars = new char[MAX_KEY_LENGTH];
+        for (int i = 0; i < prefixLength; i++) {
+            chars[i] = b.getChar(at);
+            at += 2;
+        }
+        for (int k = 0; k < count; k++) {
+            int suffixLength = b.getShort(at);
+            at += 2;
+            for (int i = 0; i < suffixLength; i++) {
+                chars[prefixLength + i] = b.getChar(at);
+                at += 2;
+            }
+            n.keys.add(new String(chars, 0, prefixLength + suffixLength));
+        }
+        if (!n.leaf) {
+            for (int k = 0; k <= count; k++) {
+                n.children.add(b.getInt(at));
+                at += Integer.BYTES;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Writes {@code n} into {@code page}.
+     *
+     * @param page
+     *            the page
+     * @param n
+     *            the node
+     * @requires n.encodedSize() <= PAGE_SIZE
+     */
+    private void encode(int page, Node n) {
+        ByteBuffer b = this.segment(page);
+        int at = offset(page);
+        int prefixLength = n.prefixLength();
+        byte type = INTERNAL;
+        if (n.leaf) {
+            type = LEAF;
+        }
+        b.put(at, type);
+        b.putShort(at + 1, (short) n.keys.size());
+        b.putShort(at + 3, (short) prefixLength);
+        at += NODE_HEADER_BYTES;
+        if (prefixLength > 0) {
+            String first = n.keys.get(0);
+            for (int i = 0; i < prefixLength; i++) {
+                b.putChar(at, first.charAt(i));
+                at += 2;
+            }
+        }
+        for (String key : n.keys) {
+            b.putShort(at, (short) (key.length() - prefixLength));
+            at += 2;
+            for (int i = prefixLength; i < key.length(); i++) {
+                b.putChar(at, key.charAt(i));
+                at += 2;
+            }
+        }
+        for (int child : n.children) {
+            b.putInt(at, child);
+            at += Integer.BYTES;
+        }
+    }
+
+    /**
+     * Returns the node in {@code page}, from the changed nodes, the cache, or
+     * the file.
+     *
+     * @param page
+     *            the page
+     * @return the node
+     */
+    private Node node(int page) {
+        Node n = this.dirty.get(page);
+        if (n == null) {
+            n = this.cache.get(page);
+            if (n == null) {
+                n = this.decode(page);
+                this.cache.put(page, n);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns a free page.
+     *
+     * @return the page
+     */
+    private int allocate() {
+        int page;
+        if (this.free.isEmpty()) {
+            page = this.pageCount;
+            this.pageCount++;
+        } else {
+            page = this.free.pop();
+        }
+        return page;
+    }
+
+    /**
+     * Gives up {@code page}, which the current tree no longer uses.
+     *
+     * @param page
+     *            the page
+     */
+    private void release(int page) {
+        if (this.dirty.remove(page) != null) {
+            this.free.push(page);
+        } else if (this.spilled.get(page)) {
+            this.spilled.clear(page);
+            this.cache.remove(page);
+            this.free.push(page);
+        } else {
+            this.cache.remove(page);
+            this.pendingFree.add(page);
+        }
+    }
+
+    /**
+     * Returns the page holding a changeable copy of the node in {@code page}:
+     * page itself if the node was already changed since the last commit
+     * (bringing it back into {@code dirty} if it was spilled), and otherwise a
+     * free page, which then holds a copy.
+     *
+     * @param page
+     *            the page
+     * @return the page of the changeable node
+     */
+    private int writable(int page) {
+        int result = page;
+        if (this.spilled.get(page)) {
+            Node n = this.node(page);
+            this.cache.remove(page);
+            this.spilled.clear(page);
+            this.dirty.put(page, n);
+        } else if (!this.dirty.containsKey(page)) {
+            Node copy = this.node(page).copy();
+            this.release(page);
+            result = this.allocate();
+            this.dirty.put(result, copy);
+        }
+        return result;
+    }
+
+    /**
+     * Splits the changed node in {@code page} if it no longer fits in a page.
+     *
+     * @param page
+     *            the page of a changed node
+     * @return the outcome, with the new right sibling if there is one
+     */
+    private Result finish(int page) {
+        Node n = this.dirty.get(page);
+        Result result = new Result(page, null, -1);
+        if (n.encodedSize() > PAGE_SIZE) {
+            /*
+             * Split where about half the bytes of the suffixes are on either
+             * side, leaving at least one key in each half; each half shares
+             * at least the prefix of the whole, so both fit.
+             */
+            int prefix = n.prefixLength();
+            int half = (n.encodedSize() - 2 * prefix) / 2;
+            int bytes = NODE_HEADER_BYTES;
+            int m = 0;
+            while (m < n.keys.size() - 2 && bytes < half) {
+                bytes += 2 + 2 * (n.keys.get(m).length() - prefix)
+                        + Integer.BYTES;
+                m++;
+            }
+            m = Math.max(m, 1);
+            Node right = new Node(n.leaf);
+            String separator;
+            if (n.leaf) {
+                separator = n.keys.get(m);
+                right.keys.addAll(n.keys.subList(m, n.keys.size()));
+                n.keys.subList(m, n.keys.size()).clear();
+            } else {
+                separator = n.keys.get(m);
+                right.keys.addAll(n.keys.subList(m + 1, n.keys.size()));
+                right.children.addAll(
+                        n.children.subList(m + 1, n.children.size()));
+                n.keys.subList(m, n.keys.size()).clear();
+                n.children.subList(m + 1, n.children.size()).clear();
+            }
+            int rightPage = this.allocate();
+            this.dirty.put(rightPage, right);
+            result = new Result(page, separator, rightPage);
+        }
+        return result;
+    }
+
+    /**
+     * Inserts {@code x} under the node in {@code page}.
+     *
+     * @param page
+     *            the page
+     * @param x
+     *            the key
+     * @return the outcome
+     * @requires x is not under the node
+     */
+    private Result insert(int page, String x) {
+        int p = this.writable(page);
+        Node n = this.dirty.get(p);
+        if (n.leaf) {
+            n.keys.add(n.childIndex(x), x);
+        } else {
+            int i = n.childIndex(x);
+            Result child = this.insert(n.children.get(i), x);
+            n = this.dirty.get(p);
+            n.children.set(i, child.page);
+            if (child.separator != null) {
+                n.keys.add(i, child.separator);
+                n.children.add(i + 1, child.rightPage);
+            }
+        }
+        return this.finish(p);
+    }
+
+    /**
+     * Removes {@code x} from under the node in {@code page}.
+     *
+     * @param page
+     *            the page
+     * @param x
+     *            the key
+     * @return the outcome
+     * @requires x is under the node
+     */
+    private Result delete(int page, String x) {
+        int p = this.writable(page);
+        Node n = this.dirty.get(p);
+        if (n.leaf) {
+            n.keys.remove(x);
+        } else {
+            int i = n.childIndex(x);
+            Result child = this.delete(n.children.get(i), x);
+            n = this.dirty.get(p);
+            n.children.set(i, child.page);
+            if (child.separator != null) {
+                n.keys.add(i, child.separator);
+                n.children.add(i + 1, child.rightPage);
+            } else {
+                this.fixChild(n, i);
+            }
+        }
+        return this.finish(p);
+    }
+
+    /**
+     * Merges child {@code i} of {@code n} with a sibling if it is small and
+     * they fit in a page together, and otherwise, if it is an internal node
+     * with no keys, moves a child to it from a sibling.
+     *
+     * @param n
+     *            a changed internal node
+     * @param i
+     *            the index of a changed child
+     */
+    private void fixChild(Node n, int i) {
+        Node child = this.dirty.get(n.children.get(i));
+        if (child.encodedSize() < MIN_FILL || child.keys.isEmpty()) {
+            int left = i;
+            if (i + 1 == n.children.size()) {
+                left = i - 1;
+            }
+            int leftPage = this.writable(n.children.get(left));
+            int rightPage = this.writable(n.children.get(left + 1));
+            n.children.set(left, leftPage);
+            n.children.set(left + 1, rightPage);
+            Node l = this.dirty.get(leftPage);
+            Node r = this.dirty.get(rightPage);
+            Node merged = l.copy();
+            if (!l.leaf) {
+                merged.keys.add(n.keys.get(left));
+            }
+            merged.keys.addAll(r.keys);
+            merged.children.addAll(r.children);
+            if (merged.encodedSize() <= PAGE_SIZE) {
+                this.dirty.put(leftPage, merged);
+                this.release(rightPage);
+                n.keys.remove(left);
+                n.children.remove(left + 1);
+            } else if (child.keys.isEmpty()) {
+                /*
+                 * Only an internal node can be left with no keys and not fit
+                 * with its sibling; rotate a child through the parent.
+                 */
+                if (left == i) {
+                    l.keys.add(n.keys.get(left));
+                    l.children.add(r.children.remove(0));
+                    n.keys.set(left, r.keys.remove(0));
+                } else {
+                    r.keys.add(0, n.keys.get(left));
+                    r.children.add(0, l.children.remove(l.children.size() - 1));
+                    n.keys.set(left, l.keys.remove(l.keys.size() - 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes {@code result} the whole tree, adding a root above it if it was
+     * split and removing roots with no keys above it.
+     *
+     * @param result
+     *            the outcome of an update at the root
+     */
+    private void setRoot(Result result) {
+        this.root = result.page;
+        if (result.separator != null) {
+            Node n = new Node(false);
+            n.keys.add(result.separator);
+            n.children.add(result.page);
+            n.children.add(result.rightPage);
+            this.root = this.allocate();
+            this.dirty.put(this.root, n);
+        }
+        Node n = this.node(this.root);
+        while (!n.leaf && n.keys.isEmpty()) {
+            int only = n.children.get(0);
+            this.release(this.root);
+            this.root = only;
+            n = this.node(this.root);
+        }
+    }
+
+    /**
+     * Writes the least recently used changed nodes into their pages, moving
+     * them to the clean cache, until at most {@code $this.dirtyNodes} are left
+     * in {@code dirty}. Called only between updates, when no changed node is
+     * held elsewhere.
+     */
+    private void spillExcess() {
+        Iterator<Map.Entry<Integer, Node>> it = this.dirty.entrySet()
+                .iterator();
+        while (this.dirty.size() > this.dirtyNodes) {
+            Map.Entry<Integer, Node> eldest = it.next();
+            int page = eldest.getKey();
+            this.encode(page, eldest.getValue());
+            this.cache.put(page, eldest.getValue());
+            this.spilled.set(page);
+            it.remove();
+        }
+    }
+
+    /**
+     * Writes the header for the current tree into header page
+     * {@code generation} mod 2.
+     */
+    private void writeHeader() {
+        ByteBuffer b = this.segment(0);
+        int at = offset((int) (this.generation % HEADERS));
+        b.putLong(at, MAGIC);
+        b.putLong(at + Long.BYTES, this.generation);
+        b.putInt(at + 2 * Long.BYTES, this.root);
+        b.putInt(at + 2 * Long.BYTES + Integer.BYTES, this.size);
+        b.putInt(at + 2 * Long.BYTES + 2 * Integer.BYTES, this.pageCount);
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < HEADER_BYTES; i++) {
+            crc.update(b.get(at + i));
+        }
+        b.putLong(at + HEADER_BYTES, crc.getValue());
+    }
+
+    /**
+     * Reads header page {@code page} into the fields, if it is valid and
+     * newer than the header read so far.
+     *
+     * @param page
+     *            the header page
+     * @return whether the header was used
+     */
+    private boolean readHeader(int page) {
+        ByteBuffer b = this.segment(0);
+        int at = offset(page);
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < HEADER_BYTES; i++) {
+            crc.update(b.get(at + i));
+        }
+        long generation = b.getLong(at + Long.BYTES);
+        boolean used = b.getLong(at) == MAGIC
+                && b.getLong(at + HEADER_BYTES) == crc.getValue()
+                && generation >= this.generation;
+        if (used) {
+            this.generation = generation;
+            this.root = b.getInt(at + 2 * Long.BYTES);
+            this.size = b.getInt(at + 2 * Long.BYTES + Integer.BYTES);
+            this.pageCount = b.getInt(at + 2 * Long.BYTES + 2 * Integer.BYTES);
+        }
+        return used;
+    }
+
+    /**
+     * Forces every mapped segment to the disk.
+     */
+    private void force() {
+        for (MappedByteBuffer segment : this.segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Opens (creating it if need be) the file {@code path}.
+     *
+     * @param path
+     *            the file
+     * @param cacheNodes
+     *            the number of clean nodes to keep decoded
+     * @throws IOException
+     *             if the file cannot be opened or is not a {@code Set7} file
+     */
+    private void open(Path path, int cacheNodes) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.segments = new ArrayList<MappedByteBuffer>();
+        final float loadFactor = 0.75f;
+        this.cache = new LinkedHashMap<Integer, Node>(cacheNodes, loadFactor,
+                true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Integer, Node> eldest) {
+                return this.size() > cacheNodes;
+            }
+        };
+        this.dirty = new LinkedHashMap<Integer, Node>(cacheNodes, loadFactor,
+                true);
+        this.spilled = new BitSet();
+        this.dirtyNodes = cacheNodes;
+        this.free = new ArrayDeque<Integer>();
+        this.pendingFree = new ArrayList<Integer>();
+        boolean empty = this.channel.size() == 0;
+        this.generation = -1;
+        if (empty) {
+            this.createEmptyTree();
+        } else {
+            boolean valid = false;
+            for (int page = 0; page < HEADERS; page++) {
+                valid |= this.readHeader(page);
+            }
+            if (!valid) {
+                this.channel.close();
+                throw new IOException("Not a Set7 file: " + path);
+            }
+        }
+    }
+
+    /**
+     * Starts a new, empty tree after the header pages, and commits it.
+     */
+    private void createEmptyTree() {
+        this.generation = Math.max(this.generation, 0);
+        this.pageCount = HEADERS;
+        this.cache.clear();
+        this.dirty.clear();
+        this.spilled.clear();
+        this.free.clear();
+        this.pendingFree.clear();
+        this.root = this.allocate();
+        this.dirty.put(this.root, new Node(true));
+        this.size = 0;
+        this.commit();
+    }
+
+    /**
+     * Creator of initial representation: an empty set with no file yet.
+     */
+    private void createNewRep() {
+        this.path = null;
+        this.temporary = true;
+        this.channel = null;
+        this.segments = null;
+        this.cache = null;
+        this.dirty = null;
+        this.spilled = null;
+        this.free = null;
+        this.pendingFree = null;
+        this.size = 0;
+    }
+
+    /**
+     * Gives {@code this}, if it has no file yet, an empty set in a new
+     * temporary file, deleted when closed or on exit.
+     */
+    private void openTemporary() {
+        if (this.channel == null) {
+            try {
+                Path temp = Files.createTempFile("set7-", ".db");
+                temp.toFile().deleteOnExit();
+                this.open(temp, DEFAULT_CACHE_NODES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Empties the tree in the file, keeping its pages for reuse.
+     */
+    private void clearFile() {
+        for (int page : this.dirty.keySet()) {
+            this.free.push(page);
+        }
+        int spilledPage = this.spilled.nextSetBit(0);
+        while (spilledPage >= 0) {
+            this.free.push(spilledPage);
+            spilledPage = this.spilled.nextSetBit(spilledPage + 1);
+        }
+        this.dirty.clear();
+        this.spilled.clear();
+        this.cache.clear();
+        boolean[] reusable = new boolean[this.pageCount];
+        for (int page : this.free) {
+            reusable[page] = true;
+        }
+        this.pendingFree.clear();
+        for (int page = HEADERS; page < this.pageCount; page++) {
+            if (!reusable[page]) {
+                this.pendingFree.add(page);
+            }
+        }
+        this.root = this.allocate();
+        this.dirty.put(this.root, new Node(true));
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor: an empty set, which gets a temporary file when
+     * something is added to it.
+     */
+    public Set7() {
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor from the file {@code path}: opens the set stored there as
+     * of its last commit, or, if the file does not exist or is empty, creates
+     * an empty set in it. Takes the same time whatever the size of the set.
+     *
+     * @param path
+     *            the file
+     * @throws IOException
+     *             if the file cannot be opened or is not a {@code Set7} file
+     */
+    public Set7(Path path) throws IOException {
+        this(path, DEFAULT_CACHE_NODES);
+    }
+
+    /**
+     * Constructor from the file {@code path}, keeping up to
+     * {@code cacheNodes} unchanged nodes, and as many changed ones, decoded in
+     * memory.
+     *
+     * @param path
+     *            the file
+     * @param cacheNodes
+     *            the number of nodes to keep decoded
+     * @throws IOException
+     *             if the file cannot be opened or is not a {@code Set7} file
+     * @requires cacheNodes > 0
+     */
+    public Set7(Path path, int cacheNodes) throws IOException {
+        assert path != null : "Violation of: path is not null";
+        assert cacheNodes > 0 : "Violation of: cacheNodes > 0";
+
+        this.temporary = false;
+        this.open(path, cacheNodes);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Set<String> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    /**
+     * {@inheritDoc} The file keeps its pages; they are reused as the set
+     * grows again.
+     */
+    @Override
+    public final void clear() {
+        if (this.channel != null) {
+            this.clearFile();
+        }
+    }
+
+    /**
+     * {@inheritDoc} {@code this} closes its own file (committing it, or
+     * deleting it if it is temporary) and takes over the file of
+     * {@code source}, which is left with no file.
+     */
+    @Override
+    public final void transferFrom(Set<String> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set7 : ""
+                + "Violation of: source is of dynamic type Set7";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        Set7 localSource = (Set7) source;
+        this.close();
+        this.path = localSource.path;
+        this.temporary = localSource.temporary;
+        this.channel = localSource.channel;
+        this.segments = localSource.segments;
+        this.pageCount = localSource.pageCount;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        this.generation = localSource.generation;
+        this.cache = localSource.cache;
+        this.dirty = localSource.dirty;
+        this.spilled = localSource.spilled;
+        this.dirtyNodes = localSource.dirtyNodes;
+        this.free = localSource.free;
+        this.pendingFree = localSource.pendingFree;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(String x) {
+        assert x != null : "Violation of: x is not null";
+        assert x.length() <= MAX_KEY_LENGTH : ""
+                + "Violation of: |x| <= MAX_KEY_LENGTH";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        this.openTemporary();
+        this.setRoot(this.insert(this.root, x));
+        this.spillExcess();
+        this.size++;
+    }
+
+    @Override
+    public final String remove(String x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        this.setRoot(this.delete(this.root, x));
+        this.spillExcess();
+        this.size--;
+        return x;
+    }
+
+    @Override
+    public final String removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Node n = this.node(this.root);
+        while (!n.leaf) {
+            n = this.node(n.children.get(0));
+        }
+        return this.remove(n.keys.get(0));
+    }
+
+    @Override
+    public final boolean contains(String x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean found = false;
+        if (this.channel != null) {
+            Node n = this.node(this.root);
+            while (!n.leaf) {
+                n = this.node(n.children.get(n.childIndex(x)));
+            }
+            int i = n.childIndex(x);
+            found = i > 0 && n.keys.get(i - 1).equals(x);
+        }
+        return found;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<String> iterator() {
+        return new Set7Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Makes the current value of {@code this} durable: writes the nodes
+     * changed since the last commit into their (unused) pages, forces them to
+     * the disk, and then writes and forces a new header pointing at the
+     * current root. If the process dies at any point, the file opens as of
+     * this commit or the one before it.
+     *
+     * @ensures [the file holds this, as of the newest header]
+     */
+    public final void commit() {
+        this.openTemporary();
+        for (Map.Entry<Integer, Node> e : this.dirty.entrySet()) {
+            this.encode(e.getKey(), e.getValue());
+        }
+        this.force();
+        this.generation++;
+        this.writeHeader();
+        this.segment(0).force();
+        this.cache.putAll(this.dirty);
+        this.dirty.clear();
+        this.spilled.clear();
+        for (int page : this.pendingFree) {
+            this.free.push(page);
+        }
+        this.pendingFree.clear();
+    }
+
+    /**
+     * Commits {@code this} and closes its file; a temporary file is deleted
+     * instead of committed. {@code this} must not be used afterwards, except
+     * as the target of {@code transferFrom}.
+     *
+     * @ensures [the file holds this, and is closed, or is deleted if it is
+     *          temporary]
+     */
+    public final void close() {
+        if (this.channel != null && this.channel.isOpen()) {
+            try {
+                if (this.temporary) {
+                    this.channel.close();
+                    this.segments.clear();
+                    Files.deleteIfExists(this.path);
+                } else {
+                    this.commit();
+                    this.channel.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Reports the file holding {@code this}, giving it a temporary one if it
+     * has none yet.
+     *
+     * @return the file
+     */
+    public final Path path() {
+        this.openTemporary();
+        return this.path;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set7}, which
+     * keeps the path from the root to the current leaf.
+     */
+    private final class Set7Iterator implements Iterator<String> {
+
+        /**
+         * Internal nodes on the path to the current leaf, the deepest on top.
+         */
+        private final Deque<Node> path;
+
+        /**
+         * Index, in the node at the same depth in {@code path}, of the child
+         * on the path.
+         */
+        private final Deque<Integer> indexes;
+
+        /**
+         * The current leaf.
+         */
+        private Node leaf;
+
+        /**
+         * Index of the next key in {@code leaf}.
+         */
+        private int next;
+
+        /**
+         * No-argument constructor.
+         */
+        Set7Iterator() {
+            this.path = new ArrayDeque<Node>();
+            this.indexes = new ArrayDeque<Integer>();
+            if (Set7.this.channel == null) {
+                this.leaf = new Node(true);
+                this.next = 0;
+            } else {
+                this.descend(Set7.this.node(Set7.this.root));
+                this.skipEmpty();
+            }
+        }
+
+        /**
+         * Goes down the leftmost path from {@code n} to a leaf.
+         *
+         * @param n
+         *            the node to start from
+         */
+        private void descend(Node n) {
+            Node m = n;
+            while (!m.leaf) {
+                this.path.push(m);
+                this.indexes.push(0);
+                m = Set7.this.node(m.children.get(0));
+            }
+            this.leaf = m;
+            this.next = 0;
+        }
+
+        /**
+         * Moves to the next leaf while the current one has no more keys.
+         */
+        private void skipEmpty() {
+            while (this.next == this.leaf.keys.size() && !this.path.isEmpty()) {
+                Node parent = this.path.peek();
+                int i = this.indexes.pop() + 1;
+                if (i < parent.children.size()) {
+                    this.indexes.push(i);
+                    this.descend(Set7.this.node(parent.children.get(i)));
+                } else {
+                    this.path.pop();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < this.leaf.keys.size();
+        }
+
+        @Override
+        public String next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            String key = this.leaf.keys.get(this.next);
+            this.next++;
+            this.skipEmpty();
+            return key;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
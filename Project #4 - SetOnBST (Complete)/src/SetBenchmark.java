@@ -0,0 +1,200 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+
+import components.set.Set;
+import components.set.Set1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Measures the time taken by {@code add}, {@code contains}, and
+ * {@code remove} in the {@code Set} implementations of this project, with
+ * elements in increasing, decreasing, and random order. {@code Set3a}, whose
+ * tree becomes as deep as it is large with sorted input, is only measured on
+ * the smaller sizes; its recursion overflows the stack at around 10^4 sorted
+ * elements. Where the JVM can report memory allocated by a thread, the bytes
+ * allocated per {@code contains} are reported too. Run with assertions
+ * disabled. Last, it times building a {@code Set3a} of the largest size at
+ * once with its {@code Iterable} constructor.
+ *
+ * @author Jatin Mamtani
+ */
+public final class SetBenchmark {
+
+    /**
+     * Numbers of elements to measure.
+     */
+    private static final int[] SIZES = { 1_000, 5_000, 1_000_000, 4_000_000 };
+
+    /**
+     * Largest number of elements for which {@code Set3a} and {@code Set1L}
+     * are measured.
+     */
+    private static final int SMALL_LIMIT = 5_000;
+
+    /**
+     * Number of times each measurement is repeated; the fastest is reported.
+     */
+    private static final int REPEATS = 5;
+
+    /**
+     * Seed for the random order, so runs are comparable.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * No argument constructor--private to prevent instantiation.
+     */
+    private SetBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or
+     * -1 if the JVM cannot tell.
+     *
+     * @return the bytes allocated, or -1
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long bytes = -1;
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            bytes = ((com.sun.management.ThreadMXBean) threads)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the integers 0 to {@code n} - 1 in the order named by
+     * {@code order}.
+     *
+     * @param n
+     *            the number of elements
+     * @param order
+     *            "sorted", "reverse", or "random"
+     * @return the elements in that order
+     */
+    private static Integer[] elements(int n, String order) {
+        Integer[] elements = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            if (order.equals("reverse")) {
+                elements[i] = n - 1 - i;
+            } else {
+                elements[i] = i;
+            }
+        }
+        if (order.equals("random")) {
+            Random random = new Random(SEED);
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer tmp = elements[i];
+                elements[i] = elements[j];
+                elements[j] = tmp;
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Adds, looks up, and removes all of {@code elements} in {@code s}, in
+     * that order, and reports the fastest time of each phase over
+     * {@code REPEATS} runs.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation measured
+     * @param s
+     *            the (empty) set to measure
+     * @param elements
+     *            the elements, all distinct
+     * @updates out.content
+     * @requires out.is_open and s = {}
+     * @ensures out.content = #out.content * [one line of results]
+     */
+    private static void measure(SimpleWriter out, String name,
+            Set<Integer> s, Integer[] elements) {
+        long bestAdd = Long.MAX_VALUE;
+        long bestContains = Long.MAX_VALUE;
+        long bestRemove = Long.MAX_VALUE;
+        long containsBytes = 0;
+        int found = 0;
+        for (int r = 0; r < REPEATS; r++) {
+            long start = System.nanoTime();
+            for (Integer x : elements) {
+                s.add(x);
+            }
+            long bytesBefore = allocatedBytes();
+            long added = System.nanoTime();
+            for (Integer x : elements) {
+                if (s.contains(x)) {
+                    found++;
+                }
+            }
+            long looked = System.nanoTime();
+            containsBytes = allocatedBytes() - bytesBefore;
+            for (Integer x : elements) {
+                s.remove(x);
+            }
+            long removed = System.nanoTime();
+            bestAdd = Math.min(bestAdd, added - start);
+            bestContains = Math.min(bestContains, looked - added);
+            bestRemove = Math.min(bestRemove, removed - looked);
+        }
+        out.println(String.format(
+                "  %-6s add %9.2f ms  contains %9.2f ms (%7.1f B/op)"
+                        + "  remove %9.2f ms  (%d)",
+                name, bestAdd / NANOS_PER_MILLI,
+                bestContains / NANOS_PER_MILLI,
+                (double) containsBytes / elements.length,
+                bestRemove / NANOS_PER_MILLI, found % 2));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        String[] orders = { "sorted", "reverse", "random" };
+        for (int n : SIZES) {
+            for (String order : orders) {
+                Integer[] elements = elements(n, order);
+                out.println(n + " elements, " + order + ":");
+                if (n <= SMALL_LIMIT) {
+                    measure(out, "Set1L", new Set1L<Integer>(), elements);
+                    measure(out, "Set3a", new Set3a<Integer>(), elements);
+                }
+                measure(out, "Set3b", new Set3b<Integer>(), elements);
+                measure(out, "Set4", new Set4<Integer>(), elements);
+            }
+        }
+        for (String order : orders) {
+            Integer[] elements = elements(SIZES[SIZES.length - 1], order);
+            long best = Long.MAX_VALUE;
+            int size = 0;
+            for (int r = 0; r < REPEATS; r++) {
+                long start = System.nanoTime();
+                Set<Integer> s = new Set3a<Integer>(Arrays.asList(elements));
+                best = Math.min(best, System.nanoTime() - start);
+                size += s.size();
+            }
+            out.println(String.format(
+                    "Set3a from %d elements, %s: %9.2f ms  (%d)",
+                    elements.length, order, best / NANOS_PER_MILLI,
+                    size % 2));
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Measures the time taken by {@code contains} in the balanced trees of this
+ * project ({@code Set3b}, {@code Set4}, and {@code java.util.TreeSet} for
+ * comparison) and in the splay tree {@code Set3d}, when lookups are uniform
+ * and when they follow Zipf distributions, in which the k-th most popular
+ * element is looked up in proportion to 1 / k^s. The popular elements are
+ * scattered at random among the others, so their order does not help any of
+ * the trees. Run with assertions disabled.
+ *
+ * @author Jatin Mamtani
+ */
+public final class SkewedSetBenchmark {
+
+    /**
+     * Number of elements in every set.
+     */
+    private static final int SIZE = 1_000_000;
+
+    /**
+     * Number of lookups per measurement.
+     */
+    private static final int LOOKUPS = 5_000_000;
+
+    /**
+     * Zipf exponents to measure; 0 is the uniform distribution.
+     */
+    private static final double[] EXPONENTS = { 0.0, 0.8, 1.0, 1.2 };
+
+    /**
+     * Number of times each measurement is repeated; the fastest is reported.
+     */
+    private static final int REPEATS = 3;
+
+    /**
+     * Seed for the random choices, so runs are comparable.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * No argument constructor--private to prevent instantiation.
+     */
+    private SkewedSetBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns the integers 0 to {@code n} - 1 in random order.
+     *
+     * @param n
+     *            the number of elements
+     * @param random
+     *            the source of randomness
+     * @return the elements, shuffled
+     * @updates random
+     */
+    private static Integer[] shuffled(int n, Random random) {
+        Integer[] elements = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            elements[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = elements[i];
+            elements[i] = elements[j];
+            elements[j] = tmp;
+        }
+        return elements;
+    }
+
+    /**
+     * Returns {@code count} lookups drawn from a Zipf distribution with
+     * exponent {@code s} over {@code byPopularity}, whose k-th entry is the
+     * (k + 1)-st most popular.
+     *
+     * @param byPopularity
+     *            the elements, most popular first
+     * @param s
+     *            the exponent
+     * @param count
+     *            the number of lookups
+     * @param random
+     *            the source of randomness
+     * @return the lookups
+     * @updates random
+     * @requires s >= 0
+     */
+    private static Integer[] zipfLookups(Integer[] byPopularity, double s,
+            int count, Random random) {
+        double[] cumulative = new double[byPopularity.length];
+        double total = 0;
+        for (int k = 0; k < byPopularity.length; k++) {
+            total += Math.pow(k + 1, -s);
+            cumulative[k] = total;
+        }
+        Integer[] lookups = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            int k = Arrays.binarySearch(cumulative,
+                    random.nextDouble() * total);
+            if (k < 0) {
+                k = -k - 1;
+            }
+            lookups[i] = byPopularity[Math.min(k, byPopularity.length - 1)];
+        }
+        return lookups;
+    }
+
+    /**
+     * Reports the fastest time per lookup over {@code REPEATS} runs of
+     * {@code contains} on all of {@code lookups}.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation measured
+     * @param contains
+     *            reports whether an element is in the set
+     * @param lookups
+     *            the elements to look up
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [one line of results]
+     */
+    private static void time(SimpleWriter out, String name,
+            Predicate<Integer> contains, Integer[] lookups) {
+        long best = Long.MAX_VALUE;
+        int found = 0;
+        for (int r = 0; r < REPEATS; r++) {
+            long start = System.nanoTime();
+            for (Integer x : lookups) {
+                if (contains.test(x)) {
+                    found++;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        out.println(String.format("  %-8s %7.1f ns/lookup  (%d)", name,
+                (double) best / lookups.length, found % 2));
+    }
+
+    /**
+     * Fills {@code s} with {@code elements} and times lookups in it.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation measured
+     * @param s
+     *            the (empty) set to measure
+     * @param elements
+     *            the elements, all distinct
+     * @param lookups
+     *            the elements to look up
+     * @updates out.content, s
+     * @requires out.is_open and s = {}
+     * @ensures out.content = #out.content * [one line of results]
+     */
+    private static void measure(SimpleWriter out, String name,
+            Set<Integer> s, Integer[] elements, Integer[] lookups) {
+        for (Integer x : elements) {
+            s.add(x);
+        }
+        time(out, name, s::contains, lookups);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        Random random = new Random(SEED);
+        Integer[] elements = shuffled(SIZE, random);
+        Integer[] byPopularity = shuffled(SIZE, random);
+        for (double s : EXPONENTS) {
+            Integer[] lookups = zipfLookups(byPopularity, s, LOOKUPS, random);
+            if (s == 0) {
+                out.println(SIZE + " elements, uniform lookups:");
+            } else {
+                out.println(SIZE + " elements, Zipf lookups, s = " + s + ":");
+            }
+            measure(out, "Set3b", new Set3b<Integer>(), elements, lookups);
+            measure(out, "Set4", new Set4<Integer>(), elements, lookups);
+            measure(out, "Set3d", new Set3d<Integer>(), elements, lookups);
+            TreeSet<Integer> treeSet = new TreeSet<Integer>(
+                    Arrays.asList(elements));
+            time(out, "TreeSet", treeSet::contains, lookups);
+        }
+        out.close();
+    }
+
+}
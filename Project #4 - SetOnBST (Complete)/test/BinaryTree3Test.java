@@ -0,0 +1,143 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import components.binarytree.BinaryTree;
+import components.binarytree.BinaryTree1;
+
+/**
+ * JUnit test fixture for {@code BinaryTree3}.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class BinaryTree3Test {
+
+    /**
+     * Returns a tree with root {@code x} and the given subtrees.
+     *
+     * @param t
+     *            the tree to assemble
+     * @param x
+     *            the root
+     * @param left
+     *            the left subtree
+     * @param right
+     *            the right subtree
+     * @return t
+     */
+    private static BinaryTree<String> tree(BinaryTree<String> t, String x,
+            BinaryTree<String> left, BinaryTree<String> right) {
+        t.assemble(x, left, right);
+        return t;
+    }
+
+    /**
+     * Returns the labels of {@code t} in order, separated by spaces.
+     *
+     * @param t
+     *            the tree
+     * @return the labels
+     */
+    private static String inOrder(BinaryTree<String> t) {
+        StringBuilder labels = new StringBuilder();
+        for (String x : t) {
+            labels.append(x).append(' ');
+        }
+        return labels.toString().trim();
+    }
+
+    /**
+     * Testing assemble and disassemble, including the sizes.
+     */
+    @Test
+    public final void testAssembleDisassemble() {
+        BinaryTree<String> a = tree(new BinaryTree3<String>(), "a",
+                new BinaryTree3<String>(), new BinaryTree3<String>());
+        BinaryTree<String> c = tree(new BinaryTree3<String>(), "c",
+                new BinaryTree3<String>(), new BinaryTree3<String>());
+        BinaryTree<String> b = tree(new BinaryTree3<String>(), "b", a, c);
+        assertEquals(0, a.size());
+        assertEquals(0, c.size());
+        assertEquals(3, b.size());
+        assertEquals(2, b.height());
+        assertEquals("b", b.root());
+        assertEquals("a b c", inOrder(b));
+        BinaryTree<String> left = new BinaryTree3<String>();
+        BinaryTree<String> right = new BinaryTree3<String>();
+        assertEquals("b", b.disassemble(left, right));
+        assertEquals(0, b.size());
+        assertEquals("a", left.root());
+        assertEquals("c", right.root());
+        assertEquals("a", left.replaceRoot("x"));
+        assertEquals("x", left.root());
+    }
+
+    /**
+     * Testing that subtrees handed out by disassemble can be changed on their
+     * own and assembled under another tree.
+     */
+    @Test
+    public final void testSubtreesIndependent() {
+        BinaryTree3<String> t = new BinaryTree3<String>();
+        String[] labels = { "a", "b", "c", "d", "e", "f", "g" };
+        t.buildBalanced(labels, 0, labels.length);
+        BinaryTree<String> left = new BinaryTree3<String>();
+        BinaryTree<String> right = new BinaryTree3<String>();
+        String root = t.disassemble(left, right);
+        left.replaceRoot("B");
+        BinaryTree<String> other = new BinaryTree3<String>();
+        other.transferFrom(right);
+        BinaryTree<String> u = new BinaryTree3<String>();
+        u.assemble(root, other, left);
+        assertEquals("e f g d a B c", inOrder(u));
+        assertEquals(labels.length, u.size());
+        assertEquals(0, left.size());
+    }
+
+    /**
+     * Testing buildBalanced against the shape it promises.
+     */
+    @Test
+    public final void testBuildBalanced() {
+        final int count = 1000;
+        Integer[] labels = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = i;
+        }
+        BinaryTree3<Integer> t = new BinaryTree3<Integer>();
+        t.buildBalanced(labels, 0, count);
+        final int height = 10;
+        assertEquals(count, t.size());
+        assertEquals(height, t.height());
+        assertEquals(Integer.valueOf(count / 2), t.root());
+        Iterator<Integer> it = t.iterator();
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i), it.next());
+        }
+        assertTrue(!it.hasNext());
+    }
+
+    /**
+     * Testing assembling with, and disassembling into, trees of another
+     * implementation.
+     */
+    @Test
+    public final void testOtherImplementation() {
+        BinaryTree<String> leaf = tree(new BinaryTree1<String>(), "a",
+                new BinaryTree1<String>(), new BinaryTree1<String>());
+        BinaryTree<String> t = tree(new BinaryTree3<String>(), "b", leaf,
+                new BinaryTree1<String>());
+        assertEquals(0, leaf.size());
+        assertEquals("a b", inOrder(t));
+        BinaryTree<String> left = new BinaryTree1<String>();
+        BinaryTree<String> right = new BinaryTree1<String>();
+        assertEquals("b", t.disassemble(left, right));
+        assertEquals("a", inOrder(left));
+        assertEquals(0, right.size());
+    }
+
+}
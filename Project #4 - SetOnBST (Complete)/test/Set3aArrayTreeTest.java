@@ -0,0 +1,88 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3a} on {@code BinaryTree3}.
+ */
+public class Set3aArrayTreeTest extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return Set3a.backedBy(BinaryTree3<String>::new);
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Testing a set built in bulk, searched, updated, and then rebuilt by a
+     * bulk method.
+     */
+    @Test
+    public final void testBulkThenUpdates() {
+        final int count = 1000;
+        Set3a<Integer> s = Set3a.backedBy(BinaryTree3<Integer>::new);
+        Set<Integer> evens = new Set1L<Integer>();
+        for (int i = 0; i < count; i += 2) {
+            evens.add(i);
+        }
+        s.add(evens);
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2 == 0, s.contains(i));
+        }
+        s.add(count);
+        s.remove(0);
+        assertTrue(s.contains(count));
+        assertFalse(s.contains(0));
+        Integer[] expected = new Integer[count / 2];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = 2 * i + 2;
+        }
+        Integer[] actual = new Integer[s.size()];
+        Iterator<Integer> it = s.iterator();
+        for (int i = 0; i < actual.length; i++) {
+            actual[i] = it.next();
+        }
+        Arrays.sort(actual);
+        assertTrue(Arrays.equals(expected, actual));
+    }
+
+    /**
+     * Testing range iteration over a {@code BinaryTree3}, with bounds that
+     * are and are not elements, past both ends, and empty.
+     */
+    @Test
+    public final void testRangeIterator() {
+        final int count = 3000;
+        Set<Integer> odds = new Set1L<Integer>();
+        for (int i = 1; i < count; i += 2) {
+            odds.add(i);
+        }
+        Set3a<Integer> s = Set3a.backedBy(BinaryTree3<Integer>::new);
+        s.add(odds);
+        final int[][] ranges = { { 100, 2001 }, { 101, 2000 }, { -5, 7 },
+                { count - 6, count + 10 }, { 50, 51 }, { count, count + 5 } };
+        for (int[] range : ranges) {
+            Iterator<Integer> it = s.rangeIterator(range[0], range[1]);
+            for (int i = range[0]; i < range[1]; i++) {
+                if (i % 2 != 0 && 0 < i && i < count) {
+                    assertTrue(it.hasNext());
+                    assertEquals(i, it.next().intValue());
+                }
+            }
+            assertFalse(it.hasNext());
+        }
+    }
+
+}
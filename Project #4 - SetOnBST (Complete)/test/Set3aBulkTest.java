@@ -0,0 +1,131 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code Set3a}'s bulk {@code add(Set)} and
+ * {@code remove(Set)} methods.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set3aBulkTest {
+
+    /**
+     * Adds the given entries to {@code set} and returns it.
+     *
+     * @param set
+     *            the set
+     * @param args
+     *            the entries for the set
+     * @return set
+     * @updates set
+     * @requires [every entry in args is unique and not in set]
+     * @ensures fill = #set union [entries in args]
+     */
+    private static Set<String> fill(Set<String> set, String... args) {
+        for (String s : args) {
+            set.add(s);
+        }
+        return set;
+    }
+
+    /**
+     * Testing .add(Set) with another {@code Set3a}.
+     */
+    @Test
+    public final void testAddSet3a() {
+        Set<String> s = fill(new Set3a<String>(), "a", "c", "e", "g");
+        Set<String> t = fill(new Set3a<String>(), "b", "c", "g", "h");
+        s.add(t);
+        assertEquals(fill(new Set1L<String>(), "a", "b", "c", "e", "g", "h"),
+                s);
+        assertEquals(fill(new Set1L<String>(), "c", "g"), t);
+        assertTrue(t instanceof Set3a<?>);
+    }
+
+    /**
+     * Testing .add(Set) with a {@code Set} of another type, in either
+     * direction.
+     */
+    @Test
+    public final void testAddOtherSet() {
+        Set<String> s = fill(new Set3a<String>(), "m", "d");
+        Set<String> t = fill(new Set1L<String>(), "x", "d", "a");
+        s.add(t);
+        assertEquals(fill(new Set1L<String>(), "a", "d", "m", "x"), s);
+        assertEquals(fill(new Set1L<String>(), "d"), t);
+    }
+
+    /**
+     * Testing .add(Set) with empty sets.
+     */
+    @Test
+    public final void testAddEmpty() {
+        Set<String> s = fill(new Set3a<String>());
+        Set<String> t = fill(new Set3a<String>(), "b");
+        s.add(t);
+        assertEquals(fill(new Set1L<String>(), "b"), s);
+        assertEquals(0, t.size());
+        t.add(s);
+        assertEquals(fill(new Set1L<String>(), "b"), t);
+        assertEquals(0, s.size());
+    }
+
+    /**
+     * Testing .remove(Set) with another {@code Set3a} and with a {@code Set}
+     * of another type.
+     */
+    @Test
+    public final void testRemove() {
+        Set<String> s = fill(new Set3a<String>(), "a", "c", "e", "g");
+        Set<String> t = fill(new Set3a<String>(), "b", "c", "g", "h");
+        Set<String> removed = s.remove(t);
+        assertEquals(fill(new Set1L<String>(), "a", "e"), s);
+        assertEquals(fill(new Set1L<String>(), "c", "g"), removed);
+        assertEquals(4, t.size());
+        assertTrue(removed instanceof Set3a<?>);
+        Set<String> u = fill(new Set1L<String>(), "e", "z");
+        removed = s.remove(u);
+        assertEquals(fill(new Set1L<String>(), "a"), s);
+        assertEquals(fill(new Set1L<String>(), "e"), removed);
+        assertTrue(removed instanceof Set1L<?>);
+    }
+
+    /**
+     * Testing .add(Set) and .remove(Set) on sets large enough to be built in
+     * parallel, from more elements in sorted order than {@code Set3a.add}
+     * could take one at a time without overflowing the stack.
+     */
+    @Test
+    public final void testLargeParallel() {
+        final int count = 100000;
+        Set<Integer> evens = new Set3a<Integer>();
+        Set<Integer> threes = new Set1L<Integer>();
+        Set<Integer> toAdd = new Set1L<Integer>();
+        for (int i = 0; i < count; i += 2) {
+            toAdd.add(i);
+        }
+        evens.add(toAdd);
+        assertEquals(count / 2, evens.size());
+        for (int i = 0; i < count; i += 3) {
+            threes.add(i);
+        }
+        Set<Integer> sixes = evens.remove(threes);
+        assertEquals((count + 5) / 6, sixes.size());
+        assertEquals(count / 2 - (count + 5) / 6, evens.size());
+        int previous = -1;
+        for (int x : evens) {
+            assertTrue(previous < x && x % 2 == 0 && x % 3 != 0);
+            previous = x;
+        }
+        for (int x : sixes) {
+            assertTrue(x % 6 == 0);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code Set3a} guarded by a Bloom filter.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set3aGuardTest {
+
+    /**
+     * False positive rate of the guards in the tests.
+     */
+    private static final double RATE = 0.01;
+
+    /**
+     * Number of elements in the larger sets used by the tests; enough for
+     * the guard to be rebuilt several times.
+     */
+    private static final int COUNT = 2000;
+
+    /**
+     * Creates and returns a guarded {@code Set3a<Integer>} with the integers
+     * from 0 to {@code n - 1}, added in a scrambled order.
+     *
+     * @param n
+     *            the number of elements
+     * @return the constructed set
+     * @requires n >= 0
+     * @ensures createUpTo = {0, 1, ..., n - 1}
+     */
+    private static Set3a<Integer> createUpTo(int n) {
+        Set3a<Integer> set = new Set3a<Integer>(RATE);
+        final int step = 7919;
+        for (int i = 0; i < n; i++) {
+            set.add((int) ((long) i * step % n));
+        }
+        return set;
+    }
+
+    /**
+     * Testing that a guarded set finds all its elements and answers most
+     * lookups of absent ones from the guard, near the false positive rate.
+     */
+    @Test
+    public final void testGuardAnswersAbsentLookups() {
+        Set3a<Integer> s = createUpTo(COUNT);
+        assertTrue(s.isGuarded());
+        for (int i = 0; i < COUNT; i++) {
+            assertTrue(s.contains(i));
+        }
+        BlockedBloomFilter.Statistics before = s.guardStatistics();
+        final int absent = 20000;
+        for (int i = 0; i < absent; i++) {
+            assertFalse(s.contains(COUNT + i));
+        }
+        BlockedBloomFilter.Statistics after = s.guardStatistics();
+        long negatives = after.negatives() - before.negatives();
+        long falsePositives = after.falsePositives() - before.falsePositives();
+        assertEquals(absent, negatives + falsePositives);
+        assertTrue(falsePositives < 4 * RATE * absent);
+        assertTrue(after.hitRate() > 1 - 4 * RATE);
+    }
+
+    /**
+     * Testing that removed elements are not found, and that the guard keeps
+     * working after removes and adds past its capacity.
+     */
+    @Test
+    public final void testRemovesAndRebuilds() {
+        Set3a<Integer> s = createUpTo(COUNT);
+        for (int i = 0; i < COUNT; i += 2) {
+            assertEquals(Integer.valueOf(i), s.remove(i));
+        }
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(i % 2 == 1, s.contains(i));
+        }
+        for (int i = 0; i < COUNT; i += 2) {
+            s.add(-i - 1);
+        }
+        for (int i = 0; i < COUNT; i += 2) {
+            assertTrue(s.contains(-i - 1));
+        }
+        assertEquals(COUNT, s.size());
+    }
+
+    /**
+     * Testing that the guard follows the tree through transferFrom, clear,
+     * and the bulk methods.
+     */
+    @Test
+    public final void testGuardFollowsRepresentation() {
+        Set3a<Integer> s = createUpTo(COUNT);
+        Set3a<Integer> t = new Set3a<Integer>(RATE);
+        t.transferFrom(s);
+        assertTrue(t.contains(COUNT - 1));
+        assertFalse(s.contains(COUNT - 1));
+        assertTrue(s.isGuarded());
+        s.add(COUNT);
+        assertTrue(s.contains(COUNT));
+        Set<Integer> other = new Set1L<Integer>();
+        other.add(COUNT);
+        other.add(COUNT + 1);
+        t.add(other);
+        assertTrue(t.contains(COUNT));
+        assertTrue(t.contains(COUNT + 1));
+        assertEquals(0, other.size());
+        other.add(COUNT);
+        other.add(COUNT + 1);
+        Set<Integer> removed = t.remove(other);
+        assertEquals(2, removed.size());
+        assertFalse(t.contains(COUNT));
+        t.clear();
+        assertFalse(t.contains(0));
+        assertTrue(t.isGuarded());
+        assertFalse(new Set3a<Integer>().isGuarded());
+    }
+
+}
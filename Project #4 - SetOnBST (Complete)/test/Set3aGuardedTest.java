@@ -0,0 +1,24 @@
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3a} guarded by a Bloom filter.
+ */
+public class Set3aGuardedTest extends SetTest {
+
+    /**
+     * False positive rate of the guard.
+     */
+    private static final double RATE = 0.01;
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3a<String>(RATE);
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+}
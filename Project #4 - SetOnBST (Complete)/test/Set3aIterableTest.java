@@ -0,0 +1,78 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code Set3a}'s constructor from an
+ * {@code Iterable}.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set3aIterableTest {
+
+    /**
+     * Testing construction from no elements.
+     */
+    @Test
+    public final void testEmpty() {
+        Set<String> s = new Set3a<String>(new ArrayList<String>());
+        assertEquals(new Set1L<String>(), s);
+    }
+
+    /**
+     * Testing construction from unsorted elements with repeats, then use of
+     * the kernel methods on the result.
+     */
+    @Test
+    public final void testUnsortedWithRepeats() {
+        Set<String> s = new Set3a<String>(
+                Arrays.asList("m", "c", "x", "c", "a", "m", "q"));
+        Set<String> expected = new Set1L<String>();
+        for (String x : new String[] { "a", "c", "m", "q", "x" }) {
+            expected.add(x);
+        }
+        assertEquals(expected, s);
+        s.add("b");
+        assertEquals("c", s.remove("c"));
+        assertTrue(s.contains("b"));
+        assertEquals(5, s.size());
+    }
+
+    /**
+     * Testing construction from many elements, sorted and shuffled, which
+     * {@code add} could not take one at a time in sorted order without
+     * overflowing the stack.
+     */
+    @Test
+    public final void testLargeSortedAndShuffled() {
+        final int count = 200000;
+        List<Integer> elements = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            elements.add(i);
+        }
+        Set3a<Integer> sorted = new Set3a<Integer>(elements);
+        Collections.shuffle(elements, new Random(1));
+        elements.addAll(elements.subList(0, count / 2));
+        Set3a<Integer> shuffled = new Set3a<Integer>(elements);
+        assertEquals(count, sorted.size());
+        assertEquals(count, shuffled.size());
+        for (int k = 0; k < count; k += count / 10) {
+            assertEquals(Integer.valueOf(k), sorted.select(k));
+            assertEquals(Integer.valueOf(k), shuffled.select(k));
+        }
+        sorted.add(count);
+        assertTrue(sorted.contains(count));
+    }
+
+}
@@ -0,0 +1,131 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for the lazy iterators of {@code Set3a}.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set3aIteratorTest {
+
+    /**
+     * Number of elements in the larger sets used by the tests; enough for
+     * several full-size batches.
+     */
+    private static final int COUNT = 5000;
+
+    /**
+     * Creates and returns a {@code Set3a<Integer>} with the integers from 0
+     * to {@code n - 1}, added in a scrambled order so the tree is bushy.
+     *
+     * @param n
+     *            the number of elements
+     * @return the constructed set
+     * @requires n >= 0
+     * @ensures createUpTo = {0, 1, ..., n - 1}
+     */
+    private static Set3a<Integer> createUpTo(int n) {
+        Set3a<Integer> set = new Set3a<Integer>();
+        final int step = 7919;
+        for (int i = 0; i < n; i++) {
+            set.add((int) ((long) i * step % n));
+        }
+        return set;
+    }
+
+    /**
+     * Testing that iteration returns every element in increasing order,
+     * across batch boundaries, and leaves the set unchanged.
+     */
+    @Test
+    public final void testIteratorInOrder() {
+        Set3a<Integer> s = createUpTo(COUNT);
+        int expected = 0;
+        for (int x : s) {
+            assertEquals(expected, x);
+            expected++;
+        }
+        assertEquals(COUNT, expected);
+        assertEquals(COUNT, s.size());
+        assertTrue(s.contains(COUNT - 1));
+    }
+
+    /**
+     * Testing stopping early, and reading the set between steps.
+     */
+    @Test
+    public final void testIteratorStopEarly() {
+        Set3a<Integer> s = createUpTo(COUNT);
+        Iterator<Integer> it = s.iterator();
+        final int taken = 3;
+        for (int i = 0; i < taken; i++) {
+            assertTrue(it.hasNext());
+            assertEquals(i, it.next().intValue());
+            assertTrue(s.contains(COUNT - 1 - i));
+        }
+        assertEquals(COUNT, s.size());
+    }
+
+    /**
+     * Testing an empty set and a one-element set.
+     */
+    @Test
+    public final void testIteratorSmall() {
+        Set3a<Integer> s = new Set3a<Integer>();
+        assertFalse(s.iterator().hasNext());
+        s.add(1);
+        Iterator<Integer> it = s.iterator();
+        assertTrue(it.hasNext());
+        assertEquals(1, it.next().intValue());
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Testing a range that spans several batches, with bounds that are and
+     * are not elements.
+     */
+    @Test
+    public final void testRangeIteratorLarge() {
+        Set3a<Integer> s = createUpTo(COUNT);
+        final int lo = 1000;
+        final int hi = 4000;
+        Iterator<Integer> it = s.rangeIterator(lo, hi);
+        int expected = lo;
+        while (it.hasNext()) {
+            assertEquals(expected, it.next().intValue());
+            expected++;
+        }
+        assertEquals(hi, expected);
+        assertFalse(s.rangeIterator(COUNT, COUNT + 1).hasNext());
+        it = s.rangeIterator(-1, 1);
+        assertEquals(0, it.next().intValue());
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Testing iteration over a set built from sorted adds, whose tree is a
+     * single path; every element must still come out, in order. The path is
+     * kept short enough for the recursive adds to build it.
+     */
+    @Test
+    public final void testIteratorDegenerateTree() {
+        final int count = 1500;
+        Set3a<Integer> s = new Set3a<Integer>();
+        for (int i = 0; i < count; i++) {
+            s.add(i);
+        }
+        int expected = 0;
+        for (int x : s) {
+            assertEquals(expected, x);
+            expected++;
+        }
+        assertEquals(count, expected);
+    }
+
+}
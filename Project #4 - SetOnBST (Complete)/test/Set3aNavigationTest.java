@@ -0,0 +1,102 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for the navigation methods of {@code Set3a}.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set3aNavigationTest {
+
+    /**
+     * Creates and returns a {@code Set3a<String>} with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     * @ensures createFromArgs = [entries in args]
+     */
+    private static Set3a<String> createFromArgs(String... args) {
+        Set3a<String> set = new Set3a<String>();
+        for (String s : args) {
+            set.add(s);
+        }
+        return set;
+    }
+
+    /**
+     * Testing .floor() and .ceiling() below, between, at, and above the
+     * elements.
+     */
+    @Test
+    public final void testFloorAndCeiling() {
+        Set3a<String> s = createFromArgs("j", "d", "p", "b", "f", "t");
+        assertNull(s.floor("a"));
+        assertEquals("b", s.ceiling("a"));
+        assertEquals("d", s.floor("e"));
+        assertEquals("f", s.ceiling("e"));
+        assertEquals("j", s.floor("j"));
+        assertEquals("j", s.ceiling("j"));
+        assertEquals("t", s.floor("z"));
+        assertNull(s.ceiling("u"));
+        assertEquals(6, s.size());
+    }
+
+    /**
+     * Testing .floor() and .ceiling() on an empty set.
+     */
+    @Test
+    public final void testFloorAndCeilingEmpty() {
+        Set3a<String> s = createFromArgs();
+        assertNull(s.floor("m"));
+        assertNull(s.ceiling("m"));
+    }
+
+    /**
+     * Testing .rank() and .select(), which are inverses.
+     */
+    @Test
+    public final void testRankAndSelect() {
+        Set3a<String> s = createFromArgs("j", "d", "p", "b", "f", "t");
+        String[] sorted = { "b", "d", "f", "j", "p", "t" };
+        for (int k = 0; k < sorted.length; k++) {
+            assertEquals(sorted[k], s.select(k));
+            assertEquals(k, s.rank(sorted[k]));
+        }
+        assertEquals(0, s.rank("a"));
+        assertEquals(3, s.rank("g"));
+        assertEquals(6, s.rank("z"));
+    }
+
+    /**
+     * Testing .rangeIterator() with bounds inside, around, and outside the
+     * elements.
+     */
+    @Test
+    public final void testRangeIterator() {
+        Set3a<String> s = createFromArgs("j", "d", "p", "b", "f", "t");
+        StringBuilder range = new StringBuilder();
+        Iterator<String> it = s.rangeIterator("c", "p");
+        while (it.hasNext()) {
+            range.append(it.next());
+        }
+        assertEquals("dfj", range.toString());
+        range.setLength(0);
+        it = s.rangeIterator("b", "u");
+        while (it.hasNext()) {
+            range.append(it.next());
+        }
+        assertEquals("bdfjpt", range.toString());
+        assertFalse(s.rangeIterator("k", "o").hasNext());
+        assertFalse(s.rangeIterator("m", "c").hasNext());
+        assertEquals(6, s.size());
+    }
+
+}
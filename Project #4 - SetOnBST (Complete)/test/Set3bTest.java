@@ -0,0 +1,48 @@
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3b}.
+ */
+public class Set3bTest extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3b<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Testing many adds in increasing and decreasing order, which would make
+     * an unbalanced tree as deep as it is large, then removes and iteration.
+     */
+    @Test
+    public final void testSortedAddsStayShallow() {
+        final int count = 100000;
+        assertSortedAddsAndRemoves(new Set3b<Integer>(), count);
+    }
+
+    /**
+     * Testing random adds and removes against {@code java.util.TreeSet},
+     * which exercises removal of nodes with zero, one, and two children.
+     */
+    @Test
+    public final void testRandomAddsAndRemoves() {
+        final int operations = 50000;
+        final int range = 1000;
+        Random random = new Random(1);
+        assertRandomAddsAndRemoves(new Set3b<Integer>(),
+                new TreeSet<Integer>(), operations,
+                () -> random.nextInt(range));
+    }
+
+}
@@ -0,0 +1,128 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code Set3c}'s {@code snapshot} method.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set3cSnapshotTest {
+
+    /**
+     * Number of elements in the larger sets used by the tests.
+     */
+    private static final int COUNT = 50000;
+
+    /**
+     * Testing that a snapshot does not see later changes to the original.
+     */
+    @Test
+    public final void testSnapshotUnaffectedByOriginal() {
+        Set3c<String> s = new Set3c<String>();
+        s.add("b");
+        s.add("a");
+        Set3c<String> snapshot = s.snapshot();
+        s.add("c");
+        s.remove("a");
+        Set<String> snapshotExpected = new Set1L<String>();
+        snapshotExpected.add("a");
+        snapshotExpected.add("b");
+        Set<String> sExpected = new Set1L<String>();
+        sExpected.add("b");
+        sExpected.add("c");
+        assertEquals(snapshotExpected, snapshot);
+        assertEquals(sExpected, s);
+    }
+
+    /**
+     * Testing that the original does not see later changes to a snapshot, nor
+     * to a set that took the snapshot's value by {@code transferFrom}.
+     */
+    @Test
+    public final void testOriginalUnaffectedBySnapshot() {
+        Set3c<String> s = new Set3c<String>();
+        s.add("a");
+        Set3c<String> snapshot = s.snapshot();
+        Set3c<String> moved = new Set3c<String>();
+        moved.transferFrom(snapshot);
+        moved.add("z");
+        snapshot.add("y");
+        assertTrue(s.contains("a"));
+        assertFalse(s.contains("z"));
+        assertFalse(s.contains("y"));
+        assertEquals(1, s.size());
+        assertEquals(2, moved.size());
+    }
+
+    /**
+     * Testing sorted adds (which would unbalance a plain tree) and in-order
+     * iteration of many snapshots taken along the way.
+     */
+    @Test
+    public final void testManySnapshots() {
+        Set3c<Integer> s = new Set3c<Integer>();
+        final int every = 5000;
+        @SuppressWarnings("unchecked")
+        Set3c<Integer>[] snapshots = (Set3c<Integer>[]) new Set3c<?>[COUNT
+                / every];
+        for (int i = 0; i < COUNT; i++) {
+            if (i % every == 0) {
+                snapshots[i / every] = s.snapshot();
+            }
+            s.add(i);
+        }
+        while (s.size() > 0) {
+            s.removeAny();
+        }
+        for (int k = 0; k < snapshots.length; k++) {
+            int expected = 0;
+            for (int x : snapshots[k]) {
+                assertEquals(expected, x);
+                expected++;
+            }
+            assertEquals(k * every, expected);
+        }
+    }
+
+    /**
+     * Testing that a reader thread iterating a snapshot sees exactly its
+     * elements while the writer keeps changing the original.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the reader
+     */
+    @Test
+    public final void testReaderThread() throws InterruptedException {
+        Set3c<Integer> s = new Set3c<Integer>();
+        for (int i = 0; i < COUNT; i += 2) {
+            s.add(i);
+        }
+        Set3c<Integer> snapshot = s.snapshot();
+        AtomicInteger seen = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            for (int x : snapshot) {
+                if (x % 2 == 0) {
+                    seen.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 1; i < COUNT; i += 2) {
+            s.add(i);
+            s.remove(i - 1);
+        }
+        reader.join();
+        assertEquals(COUNT / 2, seen.get());
+        assertEquals(COUNT / 2, s.size());
+    }
+
+}
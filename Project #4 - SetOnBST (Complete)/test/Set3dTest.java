@@ -0,0 +1,97 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3d}.
+ */
+public class Set3dTest extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3d<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Testing many adds in increasing and decreasing order, after each of
+     * which the new element is at the root and the tree is one long path,
+     * then lookups at its far ends, which splay the deepest node up, removes
+     * and iteration, none of which may recurse down the tree.
+     */
+    @Test
+    public final void testSortedAddsAndLookups() {
+        final int count = 100000;
+        assertSortedAddsAndRemoves(new Set3d<Integer>(), count);
+    }
+
+    /**
+     * Testing random adds and removes against {@code java.util.TreeSet}; each
+     * splays its element (or one next to it) to the root, and each remove
+     * then joins the two subtrees of the root by splaying the largest of the
+     * left one up to take its place.
+     */
+    @Test
+    public final void testRandomAddsAndRemoves() {
+        final int operations = 50000;
+        final int range = 1000;
+        Random random = new Random(1);
+        assertRandomAddsAndRemoves(new Set3d<Integer>(),
+                new TreeSet<Integer>(), operations,
+                () -> random.nextInt(range));
+    }
+
+    /**
+     * Testing that a lookup splays the element it finds to the root: after
+     * each lookup of a hot key among many others, {@code removeAny}, which
+     * removes the root, removes that key.
+     */
+    @Test
+    public final void testLookupSplaysToRoot() {
+        final int count = 1000;
+        final int step = 37;
+        Set<Integer> s = new Set3d<Integer>();
+        for (int i = 0; i < count; i++) {
+            s.add(i);
+        }
+        for (int hot = 0; hot < count; hot += step) {
+            assertTrue(s.contains(hot));
+            assertEquals(Integer.valueOf(hot), s.removeAny());
+            assertFalse(s.contains(hot));
+        }
+    }
+
+    /**
+     * Testing that lookups while iterating, as in {@code equals} of a set with
+     * itself, do not disturb the iteration.
+     */
+    @Test
+    public final void testLookupsWhileIterating() {
+        final int count = 1000;
+        Set<Integer> s = new Set3d<Integer>();
+        for (int i = 0; i < count; i++) {
+            s.add((i * 7) % count);
+        }
+        int expected = 0;
+        for (int x : s) {
+            assertEquals(expected, x);
+            assertTrue(s.contains(count - 1 - x));
+            expected++;
+        }
+        assertEquals(count, expected);
+        assertTrue(s.equals(s));
+    }
+
+}
@@ -0,0 +1,72 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set4} using non-default
+ * constructor and the smallest fanout, so that splits, borrowing, and merges
+ * happen at every level even for few elements.
+ */
+public class Set4Test4 extends SetTest {
+
+    /**
+     * Fanout to be used in tests.
+     */
+    private static final int TEST_FANOUT = 4;
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set4<String>(TEST_FANOUT);
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Testing random adds and removes against {@code java.util.TreeSet},
+     * checking the in-order iteration along the leaf links after each
+     * round.
+     */
+    @Test
+    public final void testRandomAddsAndRemoves() {
+        final int rounds = 20;
+        final int operations = 2000;
+        final int range = 500;
+        Random random = new Random(1);
+        Set<Integer> s = new Set4<Integer>(TEST_FANOUT);
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        for (int r = 0; r < rounds; r++) {
+            assertRandomAddsAndRemoves(s, expected, operations,
+                    () -> random.nextInt(range));
+        }
+        while (s.size() > 0) {
+            assertEquals(expected.pollFirst(), s.removeAny());
+        }
+    }
+
+    /**
+     * Testing many adds in increasing order and removes in decreasing order.
+     */
+    @Test
+    public final void testSortedAddsAndRemoves() {
+        final int count = 100000;
+        Set<Integer> s = new Set4<Integer>(TEST_FANOUT);
+        for (int i = 0; i < count; i++) {
+            s.add(i);
+        }
+        assertEquals(count, s.size());
+        for (int i = count - 1; i >= 0; i--) {
+            assertEquals(Integer.valueOf(i), s.remove(i));
+        }
+        assertEquals(0, s.size());
+    }
+
+}
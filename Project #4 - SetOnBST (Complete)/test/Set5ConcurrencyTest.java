@@ -0,0 +1,143 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Set5} used by several threads at once.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set5ConcurrencyTest {
+
+    /**
+     * Number of threads.
+     */
+    private static final int THREADS = 8;
+
+    /**
+     * Number of distinct elements.
+     */
+    private static final int RANGE = 20000;
+
+    /**
+     * Runs {@code task} on {@code THREADS} threads, passing each its index,
+     * and waits for all of them; if any of them threw, fails with the first
+     * throwable (the others attached as suppressed).
+     *
+     * @param task
+     *            the work of one thread
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private static void runThreads(IntConsumer task)
+            throws InterruptedException {
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < THREADS; t++) {
+            final int index = t;
+            threads.add(new Thread(() -> {
+                try {
+                    task.accept(index);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            AssertionError failure = new AssertionError(
+                    "A worker thread threw", failures.poll());
+            for (Throwable e : failures) {
+                failure.addSuppressed(e);
+            }
+            throw failure;
+        }
+    }
+
+    /**
+     * Testing that threads adding overlapping elements add each exactly once,
+     * and that threads removing them remove each exactly once.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    public final void testConcurrentAddAndRemove()
+            throws InterruptedException {
+        Set5<Integer> s = new Set5<Integer>();
+        AtomicInteger added = new AtomicInteger();
+        runThreads(t -> {
+            for (int i = 0; i < RANGE; i++) {
+                int x = (i * (t + 1) * 7919) % RANGE;
+                if (s.addIfAbsent(x)) {
+                    added.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(s.size(), added.get());
+        int previous = -1;
+        int seen = 0;
+        for (int x : s) {
+            assertTrue(previous < x);
+            previous = x;
+            seen++;
+        }
+        assertEquals(s.size(), seen);
+        AtomicInteger removed = new AtomicInteger();
+        final int total = s.size();
+        runThreads(t -> {
+            for (int i = 0; i < RANGE; i++) {
+                if (s.removeIfPresent((i + t * RANGE / THREADS) % RANGE)) {
+                    removed.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(total, removed.get());
+        assertEquals(0, s.size());
+        assertTrue(!s.iterator().hasNext());
+    }
+
+    /**
+     * Testing lookups running while other threads add and remove: elements
+     * never touched by the writers must always be found.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    public final void testLookupsDuringChanges() throws InterruptedException {
+        Set5<Integer> s = new Set5<Integer>();
+        for (int i = 0; i < RANGE; i += 2) {
+            s.add(i);
+        }
+        AtomicInteger missing = new AtomicInteger();
+        runThreads(t -> {
+            for (int i = 0; i < RANGE; i++) {
+                if (t % 2 == 0) {
+                    int odd = 2 * ((i * 31 + t) % (RANGE / 2)) + 1;
+                    if (!s.addIfAbsent(odd)) {
+                        s.removeIfPresent(odd);
+                    }
+                } else if (!s.contains(2 * ((i * 17) % (RANGE / 2)))) {
+                    missing.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(0, missing.get());
+    }
+
+}
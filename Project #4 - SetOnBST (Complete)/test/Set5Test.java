@@ -0,0 +1,19 @@
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set5}.
+ */
+public class Set5Test extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set5<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+}
@@ -0,0 +1,234 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code Set6}.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set6Test {
+
+    /**
+     * Creates and returns a {@code Set6} with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     * @ensures createFromArgs = [entries in args]
+     */
+    private static Set6 createFromArgs(int... args) {
+        Set6 set = new Set6();
+        for (int x : args) {
+            set.add(x);
+        }
+        return set;
+    }
+
+    /**
+     * Creates and returns a {@code Set1L<Integer>} with the elements of
+     * {@code s}.
+     *
+     * @param s
+     *            the set to copy
+     * @return the copy
+     * @ensures copy = s
+     */
+    private static Set<Integer> copy(Set<Integer> s) {
+        Set<Integer> copy = new Set1L<Integer>();
+        for (int x : s) {
+            copy.add(x);
+        }
+        return copy;
+    }
+
+    /**
+     * Asserts that {@code s} has exactly the elements of {@code expected},
+     * checking its size, contains, and iterator.
+     *
+     * @param expected
+     *            the expected elements
+     * @param s
+     *            the set checked
+     */
+    private static void assertSameElements(TreeSet<Integer> expected,
+            Set6 s) {
+        assertEquals(expected.size(), s.size());
+        int seen = 0;
+        for (int x : s) {
+            assertTrue(expected.contains(x));
+            seen++;
+        }
+        assertEquals(expected.size(), seen);
+        for (int x : expected) {
+            assertTrue(s.contains(x));
+        }
+    }
+
+    /**
+     * Testing the kernel methods with small, large, and negative elements in
+     * several chunks.
+     */
+    @Test
+    public final void testKernel() {
+        final int big = 1 << 20;
+        Set6 s = createFromArgs(3, -1, big, 0, Integer.MIN_VALUE);
+        assertEquals(5, s.size());
+        assertTrue(s.contains(-1));
+        assertTrue(s.contains(big));
+        assertFalse(s.contains(big + 1));
+        assertFalse(s.contains(1));
+        assertEquals(Integer.valueOf(-1), s.remove(-1));
+        assertFalse(s.contains(-1));
+        int removed = 0;
+        while (s.size() > 0) {
+            s.removeAny();
+            removed++;
+        }
+        assertEquals(4, removed);
+        assertFalse(s.iterator().hasNext());
+    }
+
+    /**
+     * Testing a chunk that grows past the array limit into a bitmap and
+     * shrinks back, with random adds and removes against a {@code TreeSet}:
+     * first over three chunks, and then over part of one, so that most of
+     * its elements are removed.
+     */
+    @Test
+    public final void testRandomAddsAndRemoves() {
+        final int operations = 100000;
+        final int range = 3 * (1 << 16);
+        Random random = new Random(1);
+        Set6 s = new Set6();
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        SetTest.assertRandomAddsAndRemoves(s, expected, operations,
+                () -> random.nextInt(range));
+        SetTest.assertRandomAddsAndRemoves(s, expected, operations,
+                () -> random.nextInt(range / 8));
+        assertSameElements(expected, s);
+    }
+
+    /**
+     * Testing that the iterator returns elements in increasing order within
+     * and across chunks.
+     */
+    @Test
+    public final void testIteratorOrder() {
+        final int count = 10000;
+        final int stride = 37;
+        Set6 s = new Set6();
+        for (int i = count - 1; i >= 0; i--) {
+            s.add(i * stride);
+        }
+        int expected = 0;
+        for (int x : s) {
+            assertEquals(expected, x);
+            expected += stride;
+        }
+        assertEquals(count * stride, expected);
+    }
+
+    /**
+     * Testing runOptimize on ranges, then changes to the optimized chunks.
+     */
+    @Test
+    public final void testRunOptimize() {
+        final int end = 200000;
+        final int gap = 70000;
+        Set6 s = new Set6();
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        for (int i = 0; i < end; i++) {
+            if (i / 1000 % 2 == 0 || i < gap) {
+                s.add(i);
+                expected.add(i);
+            }
+        }
+        s.runOptimize();
+        assertSameElements(expected, s);
+        s.add(end);
+        expected.add(end);
+        s.remove(gap - 1);
+        expected.remove(gap - 1);
+        s.add(gap + 1000);
+        expected.add(gap + 1000);
+        assertSameElements(expected, s);
+        s.runOptimize();
+        assertSameElements(expected, s);
+    }
+
+    /**
+     * Testing add(Set) and remove(Set) with another {@code Set6}, over arrays,
+     * bitmaps, and runs, against {@code SetSecondary}'s results.
+     */
+    @Test
+    public final void testBulkWithSet6() {
+        final int range = 5 * (1 << 16);
+        Random random = new Random(2);
+        Set6 a = new Set6();
+        Set6 b = new Set6();
+        for (int i = 0; i < range / 2; i++) {
+            int x = random.nextInt(range);
+            if (!a.contains(x)) {
+                a.add(x);
+            }
+            int y = random.nextInt(range / 2);
+            if (!b.contains(y)) {
+                b.add(y);
+            }
+        }
+        for (int i = range; i < range + 1000; i++) {
+            a.add(i);
+        }
+        a.runOptimize();
+        Set<Integer> aRef = copy(a);
+        Set<Integer> bRef = copy(b);
+        Set6 a2 = new Set6();
+        Set6 b2 = new Set6();
+        for (int x : a) {
+            a2.add(x);
+        }
+        for (int x : b) {
+            b2.add(x);
+        }
+        Set<Integer> removedRef = aRef.remove(bRef);
+        Set<Integer> removed = a2.remove(b2);
+        assertEquals(removedRef, copy(removed));
+        assertEquals(aRef, copy(a2));
+        assertTrue(removed instanceof Set6);
+        aRef = copy(a);
+        a.add(b);
+        aRef.add(bRef);
+        assertEquals(aRef, copy(a));
+        assertEquals(bRef, copy(b));
+    }
+
+    /**
+     * Testing add(Set) and remove(Set) with a set of another type.
+     */
+    @Test
+    public final void testBulkWithOtherSet() {
+        Set6 s = createFromArgs(1, 2, 3);
+        Set<Integer> other = new Set1L<Integer>();
+        other.add(3);
+        other.add(4);
+        s.add(other);
+        assertEquals(4, s.size());
+        assertEquals(1, other.size());
+        assertTrue(other.contains(3));
+        Set<Integer> removed = s.remove(other);
+        assertEquals(3, s.size());
+        assertEquals(other, removed);
+    }
+
+}
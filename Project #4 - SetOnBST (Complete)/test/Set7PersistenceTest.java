@@ -0,0 +1,210 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for the durability of {@code Set7}: {@code commit},
+ * {@code close}, and reopening a file.
+ *
+ * @author Jatin Mamtani (mamtani.6@osu.edu)
+ *
+ */
+public class Set7PersistenceTest {
+
+    /**
+     * Number of keys in the larger sets used by the tests.
+     */
+    private static final int COUNT = 20000;
+
+    /**
+     * Returns a new temporary file, deleted on exit.
+     *
+     * @return the file
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    private static Path tempFile() throws IOException {
+        Path path = Files.createTempFile("set7-test-", ".db");
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    /**
+     * Returns the {@code i}th key of the tests.
+     *
+     * @param i
+     *            the index
+     * @return the key
+     */
+    private static String key(int i) {
+        return "https://example.com/items/" + Integer.toHexString(i * 31);
+    }
+
+    /**
+     * Testing that a closed set reopens with the same keys.
+     *
+     * @throws IOException
+     *             if the file cannot be used
+     */
+    @Test
+    public final void testReopen() throws IOException {
+        Path path = tempFile();
+        Set7 s = new Set7(path);
+        for (int i = 0; i < COUNT; i++) {
+            s.add(key(i));
+        }
+        s.close();
+        Set7 t = new Set7(path);
+        assertEquals(COUNT, t.size());
+        for (int i = 0; i < COUNT; i++) {
+            assertTrue(t.contains(key(i)));
+        }
+        assertFalse(t.contains(key(COUNT)));
+        t.close();
+    }
+
+    /**
+     * Testing that changes after the last commit are not in the file, and
+     * that a small cache gives the same answers.
+     *
+     * @throws IOException
+     *             if the file cannot be used
+     */
+    @Test
+    public final void testUncommittedChangesLost() throws IOException {
+        Path path = tempFile();
+        Set7 s = new Set7(path);
+        for (int i = 0; i < COUNT; i++) {
+            s.add(key(i));
+        }
+        s.commit();
+        for (int i = 0; i < COUNT; i += 2) {
+            s.remove(key(i));
+        }
+        s.add(key(COUNT));
+        /*
+         * Open the file again without closing s, as after a crash.
+         */
+        final int cacheNodes = 4;
+        Set7 t = new Set7(path, cacheNodes);
+        assertEquals(COUNT, t.size());
+        for (int i = 0; i <= COUNT; i++) {
+            assertEquals(i < COUNT, t.contains(key(i)));
+        }
+        assertEquals(COUNT / 2 + 1, s.size());
+        t.close();
+        s.close();
+    }
+
+    /**
+     * Testing that pages freed by commits are reused, so that a file whose
+     * keys are replaced many times does not keep growing.
+     *
+     * @throws IOException
+     *             if the file cannot be used
+     */
+    @Test
+    public final void testFreedPagesReused() throws IOException {
+        final int rounds = 20;
+        final int keys = 2000;
+        Path path = tempFile();
+        Set7 s = new Set7(path);
+        for (int i = 0; i < keys; i++) {
+            s.add(key(i));
+        }
+        s.commit();
+        long size = Files.size(path);
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < keys; i++) {
+                s.remove(key(i));
+                s.add(key(i));
+            }
+            s.commit();
+        }
+        assertEquals(size, Files.size(path));
+        s.close();
+        Set7 t = new Set7(path);
+        assertEquals(keys, t.size());
+        t.close();
+    }
+
+    /**
+     * Testing that a file that is not a {@code Set7} file is refused.
+     *
+     * @throws IOException
+     *             if the file cannot be used
+     */
+    @Test
+    public final void testNotASetFile() throws IOException {
+        Path path = tempFile();
+        Files.write(path, new byte[] { 1, 2, 3 });
+        boolean refused = false;
+        try {
+            new Set7(path);
+        } catch (IOException e) {
+            refused = true;
+        }
+        assertTrue(refused);
+    }
+
+    /**
+     * Testing that with a small bound on changed nodes kept in memory, many
+     * updates between commits (which spill changed nodes into their pages)
+     * give the same answers, survive a commit, and leave the committed tree
+     * intact until then.
+     *
+     * @throws IOException
+     *             if the file cannot be used
+     */
+    @Test
+    public final void testSpilledChanges() throws IOException {
+        final int cacheNodes = 4;
+        Path path = tempFile();
+        Set7 s = new Set7(path, cacheNodes);
+        s.add(key(COUNT));
+        s.commit();
+        for (int i = 0; i < COUNT; i++) {
+            s.add(key(i));
+        }
+        for (int i = 0; i < COUNT; i += 2) {
+            s.remove(key(i));
+        }
+        Set7 before = new Set7(path);
+        assertEquals(1, before.size());
+        assertTrue(before.contains(key(COUNT)));
+        before.close();
+        for (int i = 0; i <= COUNT; i++) {
+            assertEquals(i % 2 == 1 || i == COUNT, s.contains(key(i)));
+        }
+        s.close();
+        Set7 t = new Set7(path);
+        assertEquals(COUNT / 2 + 1, t.size());
+        for (int i = 0; i <= COUNT; i++) {
+            assertEquals(i % 2 == 1 || i == COUNT, t.contains(key(i)));
+        }
+        t.close();
+    }
+
+    /**
+     * Testing that a set made by the no-argument constructor gets a file only
+     * when something is added to it, and that closing it deletes the file.
+     */
+    @Test
+    public final void testTemporaryFileDeleted() {
+        Set7 s = new Set7();
+        assertFalse(s.contains(key(0)));
+        assertFalse(s.iterator().hasNext());
+        s.add(key(0));
+        Path path = s.path();
+        assertTrue(Files.exists(path));
+        s.close();
+        assertFalse(Files.exists(path));
+    }
+
+}
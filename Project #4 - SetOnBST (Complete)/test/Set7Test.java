@@ -0,0 +1,94 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set7}.
+ */
+public class Set7Test extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set7();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Testing enough random adds and removes, with keys that share long
+     * prefixes, to split and merge nodes on several levels, checking against
+     * {@code java.util.TreeSet}, including the order of iteration.
+     */
+    @Test
+    public final void testManyAddsAndRemoves() {
+        final int count = 40000;
+        final int range = 100000;
+        final long seed = 7;
+        Random random = new Random(seed);
+        Set7 s = new Set7();
+        TreeSet<String> expected = new TreeSet<String>();
+        for (int i = 0; i < count; i++) {
+            String key = "customer/" + (i % 3) + "/order-"
+                    + random.nextInt(range);
+            if (expected.add(key)) {
+                s.add(key);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            String key = "customer/" + (i % 3) + "/order-"
+                    + random.nextInt(range);
+            if (expected.remove(key)) {
+                assertEquals(key, s.remove(key));
+            }
+        }
+        assertEquals(expected.size(), s.size());
+        Iterator<String> it = s.iterator();
+        for (String key : expected) {
+            assertTrue(it.hasNext());
+            assertEquals(key, it.next());
+        }
+        assertFalse(it.hasNext());
+        while (s.size() > 0) {
+            assertEquals(expected.pollFirst(), s.removeAny());
+        }
+        assertTrue(expected.isEmpty());
+    }
+
+    /**
+     * Testing keys of the greatest allowed length, of which few fit in a
+     * page.
+     */
+    @Test
+    public final void testLongKeys() {
+        final int count = 200;
+        Set7 s = new Set7();
+        StringBuilder padding = new StringBuilder();
+        while (padding.length() < Set7.MAX_KEY_LENGTH - 3) {
+            padding.append('x');
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            s.add(String.format("%03d", i) + padding);
+        }
+        for (int i = 0; i < count; i += 2) {
+            s.remove(String.format("%03d", i) + padding);
+        }
+        assertEquals(count / 2, s.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2 == 1,
+                    s.contains(String.format("%03d", i) + padding));
+        }
+    }
+
+}
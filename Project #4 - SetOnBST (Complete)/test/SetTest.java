@@ -1,4 +1,10 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.function.IntSupplier;
 
 import org.junit.Test;
 
@@ -71,6 +77,90 @@ public abstract class SetTest {
         return set;
     }
 
+    /**
+     * Draws {@code operations} integers from {@code draw}, removing each one
+     * from {@code s} and {@code expected} if it is in expected and adding it
+     * to both otherwise, checking every remove and the sizes as it goes, and
+     * then checks that s iterates over the elements of expected in increasing
+     * order. For the fixtures of sets of integers kept in order.
+     *
+     * @param s
+     *            the set under test
+     * @param expected
+     *            the reference set
+     * @param operations
+     *            the number of adds and removes
+     * @param draw
+     *            the source of the integers
+     * @updates s, expected
+     * @requires [s and expected have the same elements]
+     * @ensures [s and expected have the same elements]
+     */
+    protected static void assertRandomAddsAndRemoves(Set<Integer> s,
+            TreeSet<Integer> expected, int operations, IntSupplier draw) {
+        for (int i = 0; i < operations; i++) {
+            int x = draw.getAsInt();
+            if (expected.remove(x)) {
+                assertEquals(Integer.valueOf(x), s.remove(x));
+            } else {
+                s.add(x);
+                expected.add(x);
+            }
+            assertEquals(expected.size(), s.size());
+        }
+        Iterator<Integer> it = s.iterator();
+        for (int x : expected) {
+            assertTrue(it.hasNext());
+            assertEquals(x, it.next().intValue());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Adds the even integers below {@code 2 * count} to {@code s} in
+     * increasing order and then the odd ones in decreasing order, which would
+     * make an unbalanced tree as deep as it is large, checks lookups at both
+     * ends, removes every multiple of three, checks that s iterates over the
+     * rest in increasing order, and finally empties s. For the fixtures of
+     * sets of integers kept in order.
+     *
+     * @param s
+     *            the set under test
+     * @param count
+     *            the number of even (and of odd) integers added
+     * @updates s
+     * @requires s = {} and count > 0
+     * @ensures s = {}
+     */
+    protected static void assertSortedAddsAndRemoves(Set<Integer> s,
+            int count) {
+        for (int i = 0; i < count; i++) {
+            s.add(2 * i);
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            s.add(2 * i + 1);
+        }
+        assertEquals(2 * count, s.size());
+        assertTrue(s.contains(0));
+        assertTrue(s.contains(2 * count - 1));
+        assertFalse(s.contains(2 * count));
+        for (int i = 0; i < 2 * count; i += 3) {
+            assertEquals(Integer.valueOf(i), s.remove(i));
+        }
+        int previous = -1;
+        int seen = 0;
+        for (int x : s) {
+            assertTrue(previous < x);
+            assertTrue(x % 3 != 0);
+            previous = x;
+            seen++;
+        }
+        assertEquals(s.size(), seen);
+        while (s.size() > 0) {
+            s.removeAny();
+        }
+    }
+
     /*
      * Complete and Systematic Test Cases:
      */
@@ -196,84 +196,79 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
          * representation for a complete binary tree.
          */
 
-        int leftChildIndex = 2 * top + 1; // the def. of odd.
-        int rightChildIndex = leftChildIndex + 1; // the def. of even.
-        if (rightChildIndex <= last) {
-            int index = leftChildIndex;
-            if (order.compare(array[leftChildIndex],
+        /*
+         * Each pass compares the two children of the entry being sifted (at
+         * most one comparison) and then the entry with the smaller child (one
+         * more), and stops as soon as the entry is in place.
+         */
+        int parent = top;
+        int childIndex = 2 * parent + 1; // the def. of odd.
+        boolean sifting = childIndex <= last;
+        while (sifting) {
+            int rightChildIndex = childIndex + 1; // the def. of even.
+            if (rightChildIndex <= last && order.compare(array[childIndex],
                     array[rightChildIndex]) > 0) {
-                index = rightChildIndex;
+                childIndex = rightChildIndex;
             }
-            if (order.compare(array[top], array[index]) > 0) {
-                exchangeEntries(array, top, index);
-                siftDown(array, index, last, order);
+            if (order.compare(array[parent], array[childIndex]) > 0) {
+                exchangeEntries(array, parent, childIndex);
+                parent = childIndex;
+                childIndex = 2 * parent + 1;
+                sifting = childIndex <= last;
+            } else {
+                sifting = false;
             }
-        } else if (leftChildIndex <= last
-                && order.compare(array[top], array[leftChildIndex]) > 0) {
-            exchangeEntries(array, top, leftChildIndex);
-            siftDown(array, leftChildIndex, last, order);
         }
     }
 
     /**
-     * Heapifies the subtree of the given array rooted at the given {@code top}.
+     * Turns the given array into a heap, bottom up (Floyd's method): for each
+     * entry with children, from the last one back to the root, the subtrees
+     * below it are heaps already, so sifting it down makes its subtree a heap.
+     * Sifting down takes at most two comparisons per level below the entry,
+     * and the heights of the entries of a complete binary tree add up to less
+     * than the number of entries, so this takes fewer than 2 * |array|
+     * comparisons, in linear time.
      *
      * @param <T>
      *              type of array entries
      * @param array
      *              the complete binary tree
-     * @param top
-     *              the index of the root of the "subtree" to heapify
      * @param order
      *              the total preorder for sorting
      * @updates array
      * @requires
      * 
      *           <pre>
-     * 0 <= top  and
      * for all i: integer
      *     where (0 <= i  and  i < |array|)
      *   ([entry at position i in array is not null])  and
-     * [subtree rooted at {@code top} is a complete binary tree]  and
      * IS_TOTAL_PREORDER([relation computed by order.compare method])
      * </pre>
      * 
      * @ensures
      * 
      *          <pre>
-     * SUBTREE_IS_HEAP(array, top, |array| - 1,
+     * SUBTREE_IS_HEAP(array, 0, |array| - 1,
      *     [relation computed by order.compare method])  and
      * perms(array, #array)
      *          </pre>
      */
-    private static <T> void heapify(T[] array, int top, Comparator<T> order) {
+    private static <T> void heapify(T[] array, Comparator<T> order) {
         assert array != null : "Violation of: array is not null";
         assert order != null : "Violation of: order is not null";
-        assert 0 <= top : "Violation of: 0 <= top";
         for (int i = 0; i < array.length; i++) {
             assert array[i] != null : ""
                     + "Violation of: all entries in array are not null";
         }
 
         /*
-         * Impractical to check last requires clause; no need to check the other
-         * requires clause, because it must be true when using the array
-         * representation for a complete binary tree.
+         * Impractical to check last requires clause.
          */
 
-        int leftChildIndex = 2 * top + 1; // the def. of odd.
-        int rightChildIndex = leftChildIndex + 1; // the def. of even.
-        if (leftChildIndex <= array.length) {
-            if (!isHeap(array, leftChildIndex, array.length - 1, order)) {
-                heapify(array, leftChildIndex, order);
-            }
-            if (rightChildIndex <= array.length) {
-                if (!isHeap(array, leftChildIndex, array.length - 1, order)) {
-                    heapify(array, leftChildIndex, order);
-                }
-            }
+        for (int top = array.length / 2 - 1; top >= 0; top--) {
+            siftDown(array, top, array.length - 1, order);
         }
-        siftDown(array, top, array.length - 1, order);
     }
 
     /**
@@ -320,7 +315,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
             heap[i] = q.dequeue();
             i++;
         }
-        heapify(heap, 0, order);
+        heapify(heap, order);
         return heap;
     }
 
@@ -0,0 +1,128 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Measures {@code changeToExtractionMode} in {@code SortingMachine5a}, which
+ * builds the heap, on random {@code Integer} entries for sizes growing tenfold
+ * from 10^4 up to 10^7 (or up to the power of 10 given as the command line
+ * argument), reporting the time per entry and the comparisons per entry; both
+ * should stay flat as the size grows. Run with assertions disabled, since
+ * they check the whole heap, and with a heap large enough for the largest
+ * size (about 1 GB for 10^7).
+ *
+ * @author Jatin Mamtani
+ */
+public final class SortingMachineBenchmark {
+
+    /**
+     * Default log base 10 of the largest number of entries.
+     */
+    private static final int DEFAULT_LOG_SIZE = 7;
+
+    /**
+     * Log base 10 of the smallest number of entries.
+     */
+    private static final int MIN_LOG_SIZE = 4;
+
+    /**
+     * Number of untimed runs on the smallest size, to warm up the JIT
+     * compiler.
+     */
+    private static final int WARMUP_RUNS = 20;
+
+    /**
+     * Number of timed runs per size; the fastest is reported.
+     */
+    private static final int RUNS = 3;
+
+    /**
+     * Seed for the random entries, so runs are comparable.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Integer order that counts the comparisons it makes.
+     */
+    private static final class CountingOrder implements Comparator<Integer> {
+
+        /**
+         * Number of comparisons made.
+         */
+        private long comparisons;
+
+        @Override
+        public int compare(Integer x, Integer y) {
+            this.comparisons++;
+            return x.compareTo(y);
+        }
+
+    }
+
+    /**
+     * No argument constructor--private to prevent instantiation.
+     */
+    private SortingMachineBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Fills a new machine with {@code n} random entries and returns the time
+     * {@code changeToExtractionMode} takes.
+     *
+     * @param n
+     *            the number of entries
+     * @param order
+     *            the order of the machine
+     * @return the time, in nanoseconds
+     */
+    private static long time(int n, Comparator<Integer> order) {
+        Random random = new Random(SEED);
+        SortingMachine<Integer> m = new SortingMachine5a<Integer>(order);
+        for (int i = 0; i < n; i++) {
+            m.add(random.nextInt());
+        }
+        long start = System.nanoTime();
+        m.changeToExtractionMode();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optionally, the log base 10 of
+     *            the largest number of entries
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int logSize = DEFAULT_LOG_SIZE;
+        if (args.length > 0) {
+            logSize = Integer.parseInt(args[0]);
+        }
+        int smallest = (int) Math.pow(10, MIN_LOG_SIZE);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            time(smallest, Comparator.<Integer>naturalOrder());
+        }
+        for (int n = smallest; n <= Math.pow(10, logSize); n *= 10) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                best = Math.min(best,
+                        time(n, Comparator.<Integer>naturalOrder()));
+            }
+            CountingOrder counting = new CountingOrder();
+            time(n, counting);
+            final double nanosPerMilli = 1e6;
+            out.println(String.format(
+                    "%,12d entries  %9.2f ms  %6.1f ns/entry"
+                            + "  %5.3f comparisons/entry",
+                    n, best / nanosPerMilli, (double) best / n,
+                    (double) counting.comparisons / n));
+        }
+        out.close();
+    }
+
+}
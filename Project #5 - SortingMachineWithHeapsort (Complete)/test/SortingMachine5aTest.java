@@ -1,4 +1,12 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
 
 import components.sortingmachine.SortingMachine;
 import components.sortingmachine.SortingMachine1L;
@@ -18,4 +26,52 @@ public final class SortingMachine5aTest extends SortingMachineTest {
         return new SortingMachine1L<String>(order);
     }
 
+    /**
+     * Adds {@code entries} to a new machine, changes it to extraction mode,
+     * and checks that removeFirst returns them in order.
+     *
+     * @param entries
+     *            the entries
+     */
+    private static void checkSorts(List<Integer> entries) {
+        SortingMachine<Integer> m = new SortingMachine5a<Integer>(
+                Comparator.<Integer>naturalOrder());
+        for (Integer x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        List<Integer> sorted = new ArrayList<Integer>(entries);
+        Collections.sort(sorted);
+        for (Integer x : sorted) {
+            assertEquals(x, m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Testing changeToExtractionMode on many entries, in random, increasing,
+     * and decreasing order, with repeats, and on every size up to a few
+     * levels of heap.
+     */
+    @Test
+    public void testChangeToExtractionModeManyEntries() {
+        final int count = 1000;
+        final int range = 300;
+        final int sizes = 40;
+        final long seed = 5;
+        Random random = new Random(seed);
+        List<Integer> entries = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            entries.add(random.nextInt(range));
+        }
+        checkSorts(entries);
+        Collections.sort(entries);
+        checkSorts(entries);
+        Collections.reverse(entries);
+        checkSorts(entries);
+        for (int n = 0; n < sizes; n++) {
+            checkSorts(entries.subList(0, n));
+        }
+    }
+
 }